@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmarks for determining whether AspectJ pointcuts apply to bean classes,
+ * as done by auto-proxy creators for every advisor and bean, with and without
+ * the class-level prefilter in {@link AspectJExpressionPointcut}.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AspectJPointcutMatchingBenchmark {
+
+	@Benchmark
+	public void canApply(BenchmarkState state, Blackhole bh) {
+		for (Class<?> beanClass : state.beanClasses) {
+			bh.consume(AopUtils.canApply(state.pointcut, beanClass));
+		}
+	}
+
+	@Benchmark
+	public void canApplyWithoutPrefilter(BenchmarkState state, Blackhole bh) {
+		for (Class<?> beanClass : state.beanClasses) {
+			boolean match = false;
+			if (state.pointcut.getPointcutExpression().couldMatchJoinPointsInType(beanClass)) {
+				for (Method method : ReflectionUtils.getAllDeclaredMethods(beanClass)) {
+					if (state.pointcut.matches(method, beanClass)) {
+						match = true;
+						break;
+					}
+				}
+			}
+			bh.consume(match);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"execution(* com.example.service..*(..))",
+				"@annotation(org.springframework.aop.aspectj.AspectJPointcutMatchingBenchmark.Marker)",
+				"within(com.example..*) && execution(* *(..))"})
+		public String expression;
+
+		AspectJExpressionPointcut pointcut;
+
+		Class<?>[] beanClasses = new Class<?>[] {
+				ArrayList.class, LinkedList.class, HashMap.class, TreeMap.class, ConcurrentHashMap.class};
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.pointcut = new AspectJExpressionPointcut();
+			this.pointcut.setExpression(this.expression);
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Marker {
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.aop.MethodBeforeAdvice;
+
+/**
+ * Benchmarks for invocations on JDK and CGLIB proxies, with frozen and
+ * non-frozen configurations, for plain before and after returning advice
+ * as well as for an around advice.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ProxyInvocationBenchmark {
+
+	@Benchmark
+	public void invokeProxy(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.proxy.getValue(state.argument));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"jdk", "cglib"})
+		public String proxyType;
+
+		@Param({"true", "false"})
+		public boolean frozen;
+
+		@Param({"beforeAfterReturning", "around"})
+		public String advice;
+
+		Service proxy;
+
+		int argument = 42;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			ProxyFactory pf = new ProxyFactory(new DefaultService());
+			pf.setProxyTargetClass("cglib".equals(this.proxyType));
+			if ("around".equals(this.advice)) {
+				pf.addAdvice((MethodInterceptor) invocation -> invocation.proceed());
+			}
+			else {
+				pf.addAdvice((MethodBeforeAdvice) (method, args, target) -> {});
+				pf.addAdvice((AfterReturningAdvice) (returnValue, method, args, target) -> {});
+			}
+			pf.setFrozen(this.frozen);
+			this.proxy = (Service) pf.getProxy();
+		}
+	}
+
+
+	public interface Service {
+
+		Integer getValue(int argument);
+	}
+
+
+	public static class DefaultService implements Service {
+
+		@Override
+		public Integer getValue(int argument) {
+			return argument;
+		}
+	}
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.aspectj.weaver.ResolvedType;
+import org.aspectj.weaver.Shadow;
+import org.aspectj.weaver.internal.tools.PointcutExpressionImpl;
+import org.aspectj.weaver.patterns.AndPointcut;
+import org.aspectj.weaver.patterns.AnnotationPointcut;
+import org.aspectj.weaver.patterns.AnnotationTypePattern;
+import org.aspectj.weaver.patterns.BindingAnnotationTypePattern;
+import org.aspectj.weaver.patterns.ExactAnnotationTypePattern;
+import org.aspectj.weaver.patterns.ExactTypePattern;
+import org.aspectj.weaver.patterns.KindedPointcut;
+import org.aspectj.weaver.patterns.NamePattern;
+import org.aspectj.weaver.patterns.OrPointcut;
+import org.aspectj.weaver.patterns.Pointcut;
+import org.aspectj.weaver.patterns.TypePattern;
+import org.aspectj.weaver.patterns.WildTypePattern;
+import org.aspectj.weaver.patterns.WithinAnnotationPointcut;
+import org.aspectj.weaver.patterns.WithinPointcut;
+import org.aspectj.weaver.tools.PointcutExpression;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Class-level prefilter for an AspectJ pointcut expression, rejecting target
+ * classes which cannot contain any matching method execution join point before
+ * AspectJ gets asked for a type-level or method-level match.
+ *
+ * <p>The prefilter is derived from the parsed pointcut: declaring type and member
+ * annotation constraints of {@code execution} pointcuts as well as {@code within},
+ * {@code @within} and {@code @annotation} pointcuts, combined through {@code &&}
+ * and {@code ||}. It is conservative: any other part of an expression (including
+ * negations) is assumed to match. A class passes the prefilter if one of the types
+ * in its hierarchy matches a type constraint and if one of its types or methods
+ * declares a required annotation, respectively, as determined from a per-class
+ * {@link TypeIndex} that is shared across all pointcuts.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see AspectJExpressionPointcut#matches(Class)
+ */
+final class AspectJPointcutPrefilter {
+
+	/** Prefilter that accepts all classes. */
+	static final AspectJPointcutPrefilter ACCEPT_ALL = new AspectJPointcutPrefilter(null);
+
+	private static final Log logger = LogFactory.getLog(AspectJPointcutPrefilter.class);
+
+
+	@Nullable
+	private final Predicate<TypeIndex> predicate;
+
+
+	private AspectJPointcutPrefilter(@Nullable Predicate<TypeIndex> predicate) {
+		this.predicate = predicate;
+	}
+
+
+	/**
+	 * Determine whether the given class may contain join points that match
+	 * the pointcut: {@code false} means that it definitely does not.
+	 * @param targetClass the target class to check
+	 */
+	boolean couldMatch(Class<?> targetClass) {
+		if (this.predicate == null) {
+			return true;
+		}
+		TypeIndex index = TypeIndex.forClass(targetClass);
+		return (index == null || this.predicate.test(index));
+	}
+
+
+	/**
+	 * Derive a prefilter from the given pointcut expression.
+	 * @param expression the parsed pointcut expression
+	 * @return the corresponding prefilter, or {@link #ACCEPT_ALL}
+	 * if the expression does not allow for filtering by class
+	 */
+	static AspectJPointcutPrefilter forExpression(PointcutExpression expression) {
+		if (!(expression instanceof PointcutExpressionImpl)) {
+			return ACCEPT_ALL;
+		}
+		try {
+			Predicate<TypeIndex> predicate =
+					forPointcut(((PointcutExpressionImpl) expression).getUnderlyingPointcut());
+			return (predicate != null ? new AspectJPointcutPrefilter(predicate) : ACCEPT_ALL);
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not derive prefilter for pointcut expression [" +
+						expression.getPointcutExpression() + "]", ex);
+			}
+			return ACCEPT_ALL;
+		}
+	}
+
+	/**
+	 * Return a predicate for the given pointcut, or {@code null} for any class.
+	 */
+	@Nullable
+	private static Predicate<TypeIndex> forPointcut(Pointcut pointcut) {
+		if (pointcut instanceof AndPointcut) {
+			Predicate<TypeIndex> left = forPointcut(((AndPointcut) pointcut).getLeft());
+			Predicate<TypeIndex> right = forPointcut(((AndPointcut) pointcut).getRight());
+			return (left == null ? right : (right == null ? left : left.and(right)));
+		}
+		if (pointcut instanceof OrPointcut) {
+			Predicate<TypeIndex> left = forPointcut(((OrPointcut) pointcut).getLeft());
+			Predicate<TypeIndex> right = forPointcut(((OrPointcut) pointcut).getRight());
+			return (left == null || right == null ? null : left.or(right));
+		}
+		if (pointcut instanceof KindedPointcut) {
+			KindedPointcut kinded = (KindedPointcut) pointcut;
+			if (kinded.getKind() != Shadow.MethodExecution) {
+				return null;
+			}
+			Predicate<TypeIndex> declaringType = forTypePattern(kinded.getSignature().getDeclaringType());
+			String annotationName = getAnnotationName(kinded.getSignature().getAnnotationPattern());
+			Predicate<TypeIndex> annotation = (annotationName != null ?
+					index -> index.methodAnnotationNames.contains(annotationName) : null);
+			return (declaringType == null ? annotation :
+					(annotation == null ? declaringType : declaringType.and(annotation)));
+		}
+		if (pointcut instanceof WithinPointcut) {
+			return forTypePattern(((WithinPointcut) pointcut).getTypePattern());
+		}
+		if (pointcut instanceof AnnotationPointcut) {
+			String annotationName = getAnnotationName(((AnnotationPointcut) pointcut).getAnnotationTypePattern());
+			return (annotationName != null ? index -> index.methodAnnotationNames.contains(annotationName) : null);
+		}
+		if (pointcut instanceof WithinAnnotationPointcut) {
+			String annotationName = getAnnotationName(((WithinAnnotationPointcut) pointcut).getAnnotationTypePattern());
+			return (annotationName != null ? index -> index.typeAnnotationNames.contains(annotationName) : null);
+		}
+		return null;
+	}
+
+	/**
+	 * Return a predicate for a join point's declaring or enclosing type,
+	 * matching any type in the class hierarchy, or {@code null} for any class.
+	 */
+	@Nullable
+	private static Predicate<TypeIndex> forTypePattern(TypePattern typePattern) {
+		if (typePattern instanceof ExactTypePattern) {
+			ExactTypePattern exactPattern = (ExactTypePattern) typePattern;
+			if (exactPattern.isArray()) {
+				return null;
+			}
+			String typeName = toSourceName(exactPattern.getType().getRawType().getName());
+			return index -> index.typeNames.contains(typeName);
+		}
+		if (typePattern instanceof WildTypePattern) {
+			WildTypePattern wildPattern = (WildTypePattern) typePattern;
+			if (wildPattern.isStar() || wildPattern.getDimensions() > 0) {
+				return null;
+			}
+			NamePattern[] namePatterns = wildPattern.getNamePatterns();
+			Pattern pattern = toRegex(namePatterns);
+			if (pattern == null) {
+				return null;
+			}
+			String literal = getLiteralPrefix(namePatterns);
+			return index -> index.matchesTypeName(literal, pattern);
+		}
+		return null;
+	}
+
+	/**
+	 * Build a regular expression for the given name patterns: {@code *} matches
+	 * within a name segment, {@code ..} matches any number of segments. Since
+	 * simple names may get resolved against imported packages, any package
+	 * prefix is accepted in front of the pattern. The expression is meant to be
+	 * applied to binary as well as source notation of the candidate type names.
+	 */
+	@Nullable
+	private static Pattern toRegex(NamePattern[] namePatterns) {
+		StringBuilder regex = new StringBuilder("(?:.*\\.)?");
+		boolean ellipsis = false;
+		boolean first = true;
+		for (NamePattern namePattern : namePatterns) {
+			if (namePattern == NamePattern.ELLIPSIS) {
+				ellipsis = true;
+				continue;
+			}
+			if (ellipsis) {
+				regex.append(first ? "(?:[^.]+\\.)*" : "(?:\\.[^.]+)*\\.");
+			}
+			else if (!first) {
+				regex.append("\\.");
+			}
+			String segment = namePattern.toString();
+			int start = 0;
+			int wildcard;
+			while ((wildcard = segment.indexOf('*', start)) != -1) {
+				if (wildcard > start) {
+					regex.append(Pattern.quote(segment.substring(start, wildcard)));
+				}
+				regex.append("[^.]*");
+				start = wildcard + 1;
+			}
+			if (start < segment.length()) {
+				regex.append(Pattern.quote(segment.substring(start)));
+			}
+			ellipsis = false;
+			first = false;
+		}
+		if (first) {
+			return null;
+		}
+		if (ellipsis) {
+			// Trailing ellipsis as in "execution(* com.xyz..*(..))": any type in or below the package
+			regex.append("(?:\\.[^.]+)+");
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	/**
+	 * Determine the literal part of the given name patterns up until the first
+	 * wildcard, which any matching type name needs to contain.
+	 */
+	private static String getLiteralPrefix(NamePattern[] namePatterns) {
+		StringBuilder literal = new StringBuilder();
+		for (NamePattern namePattern : namePatterns) {
+			if (namePattern == NamePattern.ELLIPSIS) {
+				break;
+			}
+			String segment = namePattern.toString();
+			int wildcard = segment.indexOf('*');
+			if (literal.length() > 0) {
+				literal.append('.');
+			}
+			if (wildcard != -1) {
+				literal.append(segment, 0, wildcard);
+				break;
+			}
+			literal.append(segment);
+		}
+		return literal.toString();
+	}
+
+	/**
+	 * Return the name of an exactly specified runtime-retained annotation type,
+	 * or {@code null} if the annotation pattern does not allow for filtering.
+	 */
+	@Nullable
+	private static String getAnnotationName(AnnotationTypePattern annotationPattern) {
+		if (annotationPattern.getClass() != ExactAnnotationTypePattern.class &&
+				annotationPattern.getClass() != BindingAnnotationTypePattern.class) {
+			return null;
+		}
+		ResolvedType annotationType = ((ExactAnnotationTypePattern) annotationPattern).getResolvedAnnotationType();
+		if (annotationType == null || annotationType.isMissing() || !annotationType.isAnnotationWithRuntimeRetention()) {
+			// Annotations without runtime retention are not exposed via reflection.
+			return null;
+		}
+		return annotationType.getName();
+	}
+
+	private static String toSourceName(String typeName) {
+		return typeName.replace('$', '.');
+	}
+
+
+	/**
+	 * Names of all types in the hierarchy of a class (including {@code Object},
+	 * all interfaces and their enclosing types) along with the annotation types
+	 * declared on those types and on their methods, computed once per class.
+	 */
+	static final class TypeIndex {
+
+		private static final Map<Class<?>, Object> indexCache = new ConcurrentReferenceHashMap<>(256);
+
+		private static final Object NOT_INDEXED = new Object();
+
+		/** Binary names of nested types, i.e. with nested types separated by '$'. */
+		final Set<String> nestedBinaryNames = new LinkedHashSet<>();
+
+		/** Type names in source notation, i.e. with nested types separated by dots. */
+		final Set<String> typeNames = new LinkedHashSet<>();
+
+		final Set<String> typeAnnotationNames = new HashSet<>();
+
+		final Set<String> methodAnnotationNames = new HashSet<>();
+
+		private TypeIndex(Class<?> clazz) {
+			Set<Class<?>> types = new LinkedHashSet<>();
+			collectTypes(clazz, types);
+			for (Class<?> type : types) {
+				for (Method method : type.getDeclaredMethods()) {
+					for (Annotation ann : method.getDeclaredAnnotations()) {
+						this.methodAnnotationNames.add(ann.annotationType().getName());
+					}
+				}
+				// within(Outer) also applies to join points in nested types
+				for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+					String typeName = current.getName();
+					if (typeName.indexOf('$') != -1) {
+						this.nestedBinaryNames.add(typeName);
+					}
+					this.typeNames.add(toSourceName(typeName));
+					for (Annotation ann : current.getDeclaredAnnotations()) {
+						this.typeAnnotationNames.add(ann.annotationType().getName());
+					}
+				}
+			}
+		}
+
+		private static void collectTypes(@Nullable Class<?> type, Set<Class<?>> types) {
+			if (type != null && types.add(type)) {
+				collectTypes(type.getSuperclass(), types);
+				for (Class<?> ifc : type.getInterfaces()) {
+					collectTypes(ifc, types);
+				}
+			}
+		}
+
+		boolean matchesTypeName(String literal, Pattern pattern) {
+			for (String typeName : this.typeNames) {
+				if (typeName.contains(literal) && pattern.matcher(typeName).matches()) {
+					return true;
+				}
+			}
+			for (String typeName : this.nestedBinaryNames) {
+				if (typeName.contains(literal) && pattern.matcher(typeName).matches()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Obtain the index for the given class.
+		 * @return the index, or {@code null} if the class cannot be introspected
+		 */
+		@Nullable
+		static TypeIndex forClass(Class<?> clazz) {
+			Object index = indexCache.get(clazz);
+			if (index == null) {
+				try {
+					index = new TypeIndex(clazz);
+				}
+				catch (Throwable ex) {
+					// Unresolvable types in the class hierarchy -> leave it to AspectJ.
+					index = NOT_INDEXED;
+				}
+				indexCache.put(clazz, index);
+			}
+			return (index != NOT_INDEXED ? (TypeIndex) index : null);
+		}
+
+		/**
+		 * Clear the per-class index, e.g. for testing purposes.
+		 */
+		static void clearCache() {
+			indexCache.clear();
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.aop.MethodBeforeAdvice;
+import org.springframework.aop.framework.adapter.AfterReturningAdviceInterceptor;
+import org.springframework.aop.framework.adapter.MethodBeforeAdviceInterceptor;
+import org.springframework.lang.Nullable;
+
+/**
+ * Advice chain for a specific method, bound once for a frozen proxy configuration
+ * and dispatched to by JDK and CGLIB proxies without re-resolving the chain.
+ *
+ * <p>If the chain consists of plain {@link MethodBeforeAdvice} and
+ * {@link AfterReturningAdvice} only (or of no advice at all), none of the advice
+ * needs a {@link org.aopalliance.intercept.MethodInvocation}: the proxy invokes
+ * the before advice in chain order, then the target method, then the after
+ * returning advice in reverse chain order, which is equivalent to proceeding
+ * through the corresponding interceptors but does not allocate an invocation
+ * object per call. Any other chain gets applied through a regular
+ * {@link ReflectiveMethodInvocation}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see AdvisedSupport#getAdviceChainDispatcher
+ * @see ProxyConfig#isFrozen()
+ */
+@SuppressWarnings("serial")
+final class AdviceChainDispatcher implements Serializable {
+
+	private static final MethodBeforeAdvice[] NO_BEFORE_ADVICE = new MethodBeforeAdvice[0];
+
+	private static final AfterReturningAdvice[] NO_AFTER_RETURNING_ADVICE = new AfterReturningAdvice[0];
+
+
+	private final List<Object> chain;
+
+	@Nullable
+	private final MethodBeforeAdvice[] beforeAdvice;
+
+	@Nullable
+	private final AfterReturningAdvice[] afterReturningAdvice;
+
+
+	private AdviceChainDispatcher(List<Object> chain, @Nullable MethodBeforeAdvice[] beforeAdvice,
+			@Nullable AfterReturningAdvice[] afterReturningAdvice) {
+
+		this.chain = chain;
+		this.beforeAdvice = beforeAdvice;
+		this.afterReturningAdvice = afterReturningAdvice;
+	}
+
+
+	/**
+	 * Return the interceptors and dynamic method matchers of the chain.
+	 */
+	public List<Object> getChain() {
+		return this.chain;
+	}
+
+	/**
+	 * Return whether the chain can be applied without a {@code MethodInvocation},
+	 * through {@link #invokeBeforeAdvice} and {@link #invokeAfterReturningAdvice}
+	 * around a direct invocation of the target method.
+	 */
+	public boolean isInvocationFree() {
+		return (this.beforeAdvice != null);
+	}
+
+	/**
+	 * Invoke the before advice of an invocation-free chain, in chain order.
+	 * @param method the method being invoked
+	 * @param args the arguments to the method
+	 * @param target the target of the method invocation
+	 * @throws Throwable if any advice throws an exception
+	 */
+	public void invokeBeforeAdvice(Method method, Object[] args, @Nullable Object target) throws Throwable {
+		if (this.beforeAdvice != null) {
+			for (MethodBeforeAdvice advice : this.beforeAdvice) {
+				advice.before(method, args, target);
+			}
+		}
+	}
+
+	/**
+	 * Invoke the after returning advice of an invocation-free chain,
+	 * in reverse chain order.
+	 * @param returnValue the value returned by the target method
+	 * @param method the method being invoked
+	 * @param args the arguments to the method
+	 * @param target the target of the method invocation
+	 * @throws Throwable if any advice throws an exception
+	 */
+	public void invokeAfterReturningAdvice(@Nullable Object returnValue, Method method, Object[] args,
+			@Nullable Object target) throws Throwable {
+
+		if (this.afterReturningAdvice != null) {
+			for (AfterReturningAdvice advice : this.afterReturningAdvice) {
+				advice.afterReturning(returnValue, method, args, target);
+			}
+		}
+	}
+
+
+	/**
+	 * Create a dispatcher for the given chain, as determined by
+	 * {@link AdvisedSupport#getInterceptorsAndDynamicInterceptionAdvice}.
+	 * @param chain the interceptors and dynamic method matchers for a method
+	 * @return the corresponding dispatcher (never {@code null})
+	 */
+	static AdviceChainDispatcher forChain(List<Object> chain) {
+		List<MethodBeforeAdvice> beforeAdvice = new ArrayList<>(chain.size());
+		List<AfterReturningAdvice> afterReturningAdvice = new ArrayList<>(chain.size());
+		for (Object interceptor : chain) {
+			// Exact class checks: subclasses may customize the interception behavior.
+			if (interceptor.getClass() == MethodBeforeAdviceInterceptor.class) {
+				beforeAdvice.add(((MethodBeforeAdviceInterceptor) interceptor).getAdvice());
+			}
+			else if (interceptor.getClass() == AfterReturningAdviceInterceptor.class) {
+				afterReturningAdvice.add(0, ((AfterReturningAdviceInterceptor) interceptor).getAdvice());
+			}
+			else {
+				return new AdviceChainDispatcher(chain, null, null);
+			}
+		}
+		return new AdviceChainDispatcher(chain,
+				(beforeAdvice.isEmpty() ? NO_BEFORE_ADVICE : beforeAdvice.toArray(NO_BEFORE_ADVICE)),
+				(afterReturningAdvice.isEmpty() ? NO_AFTER_RETURNING_ADVICE : afterReturningAdvice.toArray(NO_AFTER_RETURNING_ADVICE)));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -83,6 +83,9 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	/** Cache with Method as key and advisor chain List as value. */
 	private transient Map<MethodCacheKey, List<Object>> methodCache;
 
+	/** Cache with Method as key and pre-bound advice chain as value, for frozen proxies. */
+	private transient Map<Method, AdviceChainDispatcher> dispatcherCache;
+
 	/**
 	 * Interfaces to be implemented by the proxy. Held in List to keep the order
 	 * of registration, to create JDK proxy with specified order of interfaces.
@@ -101,6 +104,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 */
 	public AdvisedSupport() {
 		this.methodCache = new ConcurrentHashMap<>(32);
+		this.dispatcherCache = new ConcurrentHashMap<>(32);
 	}
 
 	/**
@@ -483,11 +487,30 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 		return cached;
 	}
 
+	/**
+	 * Determine the pre-bound advice chain for the given method, for dispatching
+	 * invocations on a proxy with a {@link #isFrozen() frozen} configuration.
+	 * @param method the proxied method
+	 * @param targetClass the target class
+	 * @return the corresponding dispatcher (never {@code null})
+	 * @since 5.3.5
+	 * @see #getInterceptorsAndDynamicInterceptionAdvice
+	 */
+	AdviceChainDispatcher getAdviceChainDispatcher(Method method, @Nullable Class<?> targetClass) {
+		AdviceChainDispatcher dispatcher = this.dispatcherCache.get(method);
+		if (dispatcher == null) {
+			dispatcher = AdviceChainDispatcher.forChain(getInterceptorsAndDynamicInterceptionAdvice(method, targetClass));
+			this.dispatcherCache.put(method, dispatcher);
+		}
+		return dispatcher;
+	}
+
 	/**
 	 * Invoked when advice has changed.
 	 */
 	protected void adviceChanged() {
 		this.methodCache.clear();
+		this.dispatcherCache.clear();
 	}
 
 	/**
@@ -546,6 +569,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 
 		// Initialize transient fields.
 		this.methodCache = new ConcurrentHashMap<>(32);
+		this.dispatcherCache = new ConcurrentHashMap<>(32);
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,7 @@ import org.springframework.aop.TargetSource;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.cglib.core.ClassLoaderAwareGeneratorStrategy;
 import org.springframework.cglib.core.CodeGenerationException;
+import org.springframework.cglib.core.PregeneratedClassSupport;
 import org.springframework.cglib.core.SpringNamingPolicy;
 import org.springframework.cglib.proxy.Callback;
 import org.springframework.cglib.proxy.CallbackFilter;
@@ -197,6 +198,7 @@ class CglibAopProxy implements AopProxy, Serializable {
 			enhancer.setInterfaces(AopProxyUtils.completeProxiedInterfaces(this.advised));
 			enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE);
 			enhancer.setStrategy(new ClassLoaderAwareGeneratorStrategy(classLoader));
+			PregeneratedClassSupport.configure(enhancer);
 
 			// 获取回调数组
 			Callback[] callbacks = getCallbacks(rootClass);
@@ -339,9 +341,9 @@ class CglibAopProxy implements AopProxy, Serializable {
 			// TODO: small memory optimization here (can skip creation for methods with no advice)
 			for (int x = 0; x < methods.length; x++) {
 				Method method = methods[x];
-				List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, rootClass);
+				AdviceChainDispatcher dispatcher = this.advised.getAdviceChainDispatcher(method, rootClass);
 				fixedCallbacks[x] = new FixedChainStaticTargetInterceptor(
-						chain, this.advised.getTargetSource().getTarget(), this.advised.getTargetClass());
+						dispatcher, this.advised.getTargetSource().getTarget(), this.advised.getTargetClass());
 				this.fixedInterceptorMap.put(method, x);
 			}
 
@@ -406,6 +408,60 @@ class CglibAopProxy implements AopProxy, Serializable {
 		return returnValue;
 	}
 
+	/**
+	 * Invoke the target method with the given invocation-free advice chain,
+	 * without creating a MethodInvocation.
+	 * @see AdviceChainDispatcher#isInvocationFree()
+	 */
+	@Nullable
+	private static Object invokeWithoutInvocation(AdviceChainDispatcher dispatcher, @Nullable Object target,
+			Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+
+		Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
+		try {
+			dispatcher.invokeBeforeAdvice(method, argsToUse, target);
+			Object retVal = (isMethodProxyCompatible(method) ? methodProxy.invoke(target, argsToUse) :
+					AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse));
+			dispatcher.invokeAfterReturningAdvice(retVal, method, argsToUse, target);
+			return retVal;
+		}
+		catch (RuntimeException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			throw adaptCheckedException(method, ex);
+		}
+	}
+
+	/**
+	 * Only use method proxy for public methods not derived from java.lang.Object.
+	 */
+	private static boolean isMethodProxyCompatible(Method method) {
+		return (Modifier.isPublic(method.getModifiers()) &&
+				method.getDeclaringClass() != Object.class && !AopUtils.isEqualsMethod(method) &&
+				!AopUtils.isHashCodeMethod(method) && !AopUtils.isToStringMethod(method));
+	}
+
+	/**
+	 * Adapt a checked exception thrown by advice or by the target method
+	 * to the signature of the given method.
+	 */
+	private static Exception adaptCheckedException(Method method, Exception ex) {
+		if (ReflectionUtils.declaresException(method, ex.getClass()) ||
+				KotlinDetector.isKotlinType(method.getDeclaringClass())) {
+			// Propagate original exception if declared on the target method
+			// (with callers expecting it). Always propagate it for Kotlin code
+			// since checked exceptions do not have to be explicitly declared there.
+			return ex;
+		}
+		else {
+			// Checked exception thrown in the interceptor but not declared on the
+			// target method signature -> apply an UndeclaredThrowableException,
+			// aligned with standard JDK dynamic proxy behavior.
+			return new UndeclaredThrowableException(ex);
+		}
+	}
+
 
 	/**
 	 * Serializable replacement for CGLIB's NoOp interface.
@@ -626,7 +682,7 @@ class CglibAopProxy implements AopProxy, Serializable {
 	 */
 	private static class FixedChainStaticTargetInterceptor implements MethodInterceptor, Serializable {
 
-		private final List<Object> adviceChain;
+		private final AdviceChainDispatcher dispatcher;
 
 		@Nullable
 		private final Object target;
@@ -635,9 +691,9 @@ class CglibAopProxy implements AopProxy, Serializable {
 		private final Class<?> targetClass;
 
 		public FixedChainStaticTargetInterceptor(
-				List<Object> adviceChain, @Nullable Object target, @Nullable Class<?> targetClass) {
+				AdviceChainDispatcher dispatcher, @Nullable Object target, @Nullable Class<?> targetClass) {
 
-			this.adviceChain = adviceChain;
+			this.dispatcher = dispatcher;
 			this.target = target;
 			this.targetClass = targetClass;
 		}
@@ -645,10 +701,16 @@ class CglibAopProxy implements AopProxy, Serializable {
 		@Override
 		@Nullable
 		public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
-			MethodInvocation invocation = new CglibMethodInvocation(
-					proxy, this.target, method, args, this.targetClass, this.adviceChain, methodProxy);
-			// If we get here, we need to create a MethodInvocation.
-			Object retVal = invocation.proceed();
+			Object retVal;
+			if (this.dispatcher.isInvocationFree()) {
+				retVal = invokeWithoutInvocation(this.dispatcher, this.target, method, args, methodProxy);
+			}
+			else {
+				MethodInvocation invocation = new CglibMethodInvocation(proxy, this.target, method, args,
+						this.targetClass, this.dispatcher.getChain(), methodProxy);
+				// If we get here, we need to create a MethodInvocation.
+				retVal = invocation.proceed();
+			}
 			retVal = processReturnType(proxy, this.target, method, retVal);
 			return retVal;
 		}
@@ -690,7 +752,16 @@ class CglibAopProxy implements AopProxy, Serializable {
 				Class<?> targetClass = (target != null ? target.getClass() : null);
 
 				// 获取拦截器链 chain，chain 是 AOP 后置处理器在容器启动的时候就生成好的 5 个增强器，然后封装成的 MethodInterceptor。
-				List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+				List<Object> chain;
+				AdviceChainDispatcher dispatcher = null;
+				if (this.advised.isFrozen()) {
+					// The advice cannot change anymore: use the pre-bound chain for this method.
+					dispatcher = this.advised.getAdviceChainDispatcher(method, targetClass);
+					chain = dispatcher.getChain();
+				}
+				else {
+					chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+				}
 
 				Object retVal;
 				// Check whether we only have one InvokerInterceptor: that is,
@@ -705,6 +776,10 @@ class CglibAopProxy implements AopProxy, Serializable {
 					// 直接调用目标方法
 					retVal = methodProxy.invoke(target, argsToUse);
 				}
+				else if (dispatcher != null && dispatcher.isInvocationFree()) {
+					// Plain before and after returning advice only: no MethodInvocation needed.
+					retVal = invokeWithoutInvocation(dispatcher, target, method, args, methodProxy);
+				}
 				else {
 
 					/**
@@ -759,11 +834,7 @@ class CglibAopProxy implements AopProxy, Serializable {
 
 			super(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
 
-			// Only use method proxy for public methods not derived from java.lang.Object
-			this.methodProxy = (Modifier.isPublic(method.getModifiers()) &&
-					method.getDeclaringClass() != Object.class && !AopUtils.isEqualsMethod(method) &&
-					!AopUtils.isHashCodeMethod(method) && !AopUtils.isToStringMethod(method) ?
-					methodProxy : null);
+			this.methodProxy = (isMethodProxyCompatible(method) ? methodProxy : null);
 		}
 
 		@Override
@@ -777,19 +848,7 @@ class CglibAopProxy implements AopProxy, Serializable {
 				throw ex;
 			}
 			catch (Exception ex) {
-				if (ReflectionUtils.declaresException(getMethod(), ex.getClass()) ||
-						KotlinDetector.isKotlinType(getMethod().getDeclaringClass())) {
-					// Propagate original exception if declared on the target method
-					// (with callers expecting it). Always propagate it for Kotlin code
-					// since checked exceptions do not have to be explicitly declared there.
-					throw ex;
-				}
-				else {
-					// Checked exception thrown in the interceptor but not declared on the
-					// target method signature -> apply an UndeclaredThrowableException,
-					// aligned with standard JDK dynamic proxy behavior.
-					throw new UndeclaredThrowableException(ex);
-				}
+				throw adaptCheckedException(getMethod(), ex);
 			}
 		}
 
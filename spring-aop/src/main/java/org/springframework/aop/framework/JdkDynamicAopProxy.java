@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -223,12 +223,29 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 			 * 可以看到，这个拦截器链就是一个 List 集合
 			 * Get the interception chain for this method.
 			 */
-			List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+			List<Object> chain;
+			AdviceChainDispatcher dispatcher = null;
+			if (this.advised.isFrozen()) {
+				// The advice cannot change anymore: use the pre-bound chain for this method.
+				dispatcher = this.advised.getAdviceChainDispatcher(method, targetClass);
+				chain = dispatcher.getChain();
+			}
+			else {
+				chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+			}
 
 			// Check whether we have any advice. If we don't, we can fallback on direct
 			// reflective invocation of the target, and avoid creating a MethodInvocation.
 			// 处理拦截器链
-			if (chain.isEmpty()) {
+			if (dispatcher != null && dispatcher.isInvocationFree()) {
+				// Plain before and after returning advice only (if any): apply it around
+				// a reflective invocation of the target, without creating a MethodInvocation.
+				Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
+				dispatcher.invokeBeforeAdvice(method, argsToUse, target);
+				retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+				dispatcher.invokeAfterReturningAdvice(retVal, method, argsToUse, target);
+			}
+			else if (chain.isEmpty()) {
 				// We can skip creating a MethodInvocation: just invoke the target directly
 				// Note that the final invoker must be an InvokerInterceptor so we know it does
 				// nothing but a reflective operation on the target, and no hot swapping or fancy proxying.
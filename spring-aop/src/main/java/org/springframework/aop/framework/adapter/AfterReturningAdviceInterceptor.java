@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,6 +51,15 @@ public class AfterReturningAdviceInterceptor implements MethodInterceptor, After
 	}
 
 
+	/**
+	 * Return the wrapped AfterReturningAdvice.
+	 * @since 5.3.5
+	 */
+	public AfterReturningAdvice getAdvice() {
+		return this.advice;
+	}
+
+
 	@Override
 	@Nullable
 	public Object invoke(MethodInvocation mi) throws Throwable {
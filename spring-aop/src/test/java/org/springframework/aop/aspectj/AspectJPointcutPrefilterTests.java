@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link AspectJPointcutPrefilter}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ */
+public class AspectJPointcutPrefilterTests {
+
+	private static final String MARKER = Marker.class.getName();
+
+	private static final String TYPE_MARKER = TypeMarker.class.getName();
+
+	private static final String[] EXPRESSIONS = new String[] {
+			"execution(* *(..))",
+			"execution(* org.springframework.beans.testfixture.beans..*(..))",
+			"execution(* org.springframework.beans.testfixture.beans.ITestBean.getAge())",
+			"execution(* org.springframework.aop.aspectj.*.*(..))",
+			"execution(@" + MARKER + " * *(..))",
+			"within(org.springframework.beans.testfixture..*)",
+			"within(org.springframework.aop.aspectj.AspectJPointcutPrefilterTests)",
+			"within(*..*PrefilterTests*)",
+			"@annotation(" + MARKER + ")",
+			"@within(" + TYPE_MARKER + ")",
+			"execution(* *(..)) && @annotation(" + MARKER + ")",
+			"within(java.util.*) || @within(" + TYPE_MARKER + ")",
+			"!within(org.springframework.beans.testfixture..*)",
+			"target(" + ITestBean.class.getName() + ")"
+	};
+
+	private static final Class<?>[] CLASSES = new Class<?>[] {
+			Object.class, String.class, ArrayList.class, TestBean.class, AnnotatedInterfaceImpl.class,
+			AnnotatedType.class, NestedType.Inner.class, AspectJPointcutPrefilterTests.class
+	};
+
+
+	@Test
+	public void executionWithPackagePattern() {
+		AspectJPointcutPrefilter prefilter =
+				prefilter("execution(* org.springframework.beans.testfixture.beans..*(..))");
+		assertThat(prefilter.couldMatch(TestBean.class)).isTrue();
+		assertThat(prefilter.couldMatch(String.class)).isFalse();
+		assertThat(prefilter.couldMatch(AnnotatedType.class)).isFalse();
+	}
+
+	@Test
+	public void executionWithDeclaringInterface() {
+		AspectJPointcutPrefilter prefilter =
+				prefilter("execution(* org.springframework.beans.testfixture.beans.ITestBean.getAge())");
+		assertThat(prefilter.couldMatch(TestBean.class)).isTrue();
+		assertThat(prefilter.couldMatch(ITestBean.class)).isTrue();
+		assertThat(prefilter.couldMatch(Object.class)).isFalse();
+	}
+
+	@Test
+	public void withinOuterTypeAcceptsNestedType() {
+		AspectJPointcutPrefilter prefilter = prefilter("within(" + NestedType.class.getName() + ")");
+		assertThat(prefilter.couldMatch(NestedType.Inner.class)).isTrue();
+		assertThat(prefilter.couldMatch(AnnotatedType.class)).isFalse();
+	}
+
+	@Test
+	public void annotationOnInterfaceMethod() {
+		AspectJPointcutPrefilter prefilter = prefilter("@annotation(" + MARKER + ")");
+		assertThat(prefilter.couldMatch(AnnotatedInterfaceImpl.class)).isTrue();
+		assertThat(prefilter.couldMatch(TestBean.class)).isFalse();
+	}
+
+	@Test
+	public void withinAnnotation() {
+		AspectJPointcutPrefilter prefilter = prefilter("@within(" + TYPE_MARKER + ")");
+		assertThat(prefilter.couldMatch(AnnotatedType.class)).isTrue();
+		assertThat(prefilter.couldMatch(TestBean.class)).isFalse();
+	}
+
+	@Test
+	public void combinedExpressions() {
+		AspectJPointcutPrefilter prefilter = prefilter("within(java.util.*) || @within(" + TYPE_MARKER + ")");
+		assertThat(prefilter.couldMatch(ArrayList.class)).isTrue();
+		assertThat(prefilter.couldMatch(AnnotatedType.class)).isTrue();
+		assertThat(prefilter.couldMatch(TestBean.class)).isFalse();
+
+		prefilter = prefilter("execution(* *(..)) && @annotation(" + MARKER + ")");
+		assertThat(prefilter.couldMatch(AnnotatedInterfaceImpl.class)).isTrue();
+		assertThat(prefilter.couldMatch(TestBean.class)).isFalse();
+	}
+
+	@Test
+	public void unconstrainedExpressionsAcceptAll() {
+		assertThat(prefilter("execution(* *(..))")).isSameAs(AspectJPointcutPrefilter.ACCEPT_ALL);
+		assertThat(prefilter("!within(java.lang.*)")).isSameAs(AspectJPointcutPrefilter.ACCEPT_ALL);
+		assertThat(prefilter("target(" + ITestBean.class.getName() + ")")).isSameAs(AspectJPointcutPrefilter.ACCEPT_ALL);
+		assertThat(prefilter("within(java.lang.*) || this(java.io.Serializable)"))
+				.isSameAs(AspectJPointcutPrefilter.ACCEPT_ALL);
+	}
+
+	@Test
+	public void rejectionNeverContradictsMethodMatch() {
+		for (String expression : EXPRESSIONS) {
+			AspectJExpressionPointcut pointcut = pointcut(expression);
+			AspectJPointcutPrefilter prefilter = AspectJPointcutPrefilter.forExpression(pointcut.getPointcutExpression());
+			for (Class<?> clazz : CLASSES) {
+				if (!prefilter.couldMatch(clazz)) {
+					for (Method method : ReflectionUtils.getUniqueDeclaredMethods(clazz)) {
+						assertThat(pointcut.matches(method, clazz)).as(expression + " on " + method).isFalse();
+					}
+				}
+			}
+		}
+	}
+
+
+	private static AspectJExpressionPointcut pointcut(String expression) {
+		AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+		pointcut.setExpression(expression);
+		return pointcut;
+	}
+
+	private static AspectJPointcutPrefilter prefilter(String expression) {
+		return AspectJPointcutPrefilter.forExpression(pointcut(expression).getPointcutExpression());
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Marker {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface TypeMarker {
+	}
+
+
+	interface AnnotatedInterface {
+
+		@Marker
+		void doSomething();
+	}
+
+
+	static class AnnotatedInterfaceImpl implements AnnotatedInterface {
+
+		@Override
+		public void doSomething() {
+		}
+	}
+
+
+	@TypeMarker
+	static class AnnotatedType {
+
+		public void doSomething() {
+		}
+	}
+
+
+	static class NestedType {
+
+		static class Inner {
+
+			public void doSomething() {
+			}
+		}
+	}
+
+}
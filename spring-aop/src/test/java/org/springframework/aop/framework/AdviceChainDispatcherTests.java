@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.aop.MethodBeforeAdvice;
+import org.springframework.aop.framework.adapter.AfterReturningAdviceInterceptor;
+import org.springframework.aop.framework.adapter.MethodBeforeAdviceInterceptor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.DynamicMethodMatcherPointcut;
+import org.springframework.aop.support.NameMatchMethodPointcut;
+import org.springframework.aop.testfixture.interceptor.NopInterceptor;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Tests for {@link AdviceChainDispatcher} and its use for dispatching
+ * invocations on frozen JDK and CGLIB proxies.
+ *
+ * @author agent (agent@local)
+ */
+class AdviceChainDispatcherTests {
+
+	private final List<String> events = new ArrayList<>();
+
+
+	@Test
+	void invocationFreeChains() {
+		MethodBeforeAdvice before = (method, args, target) -> {};
+		AfterReturningAdvice after1 = (returnValue, method, args, target) -> {};
+		AfterReturningAdvice after2 = (returnValue, method, args, target) -> {};
+
+		assertThat(AdviceChainDispatcher.forChain(Collections.emptyList()).isInvocationFree()).isTrue();
+		List<Object> chain = Arrays.asList(new AfterReturningAdviceInterceptor(after1),
+				new MethodBeforeAdviceInterceptor(before), new AfterReturningAdviceInterceptor(after2));
+		AdviceChainDispatcher dispatcher = AdviceChainDispatcher.forChain(chain);
+		assertThat(dispatcher.isInvocationFree()).isTrue();
+		assertThat(dispatcher.getChain()).isSameAs(chain);
+	}
+
+	@Test
+	void chainsRequiringInvocation() {
+		MethodBeforeAdvice before = (method, args, target) -> {};
+		assertThat(AdviceChainDispatcher.forChain(Arrays.asList(
+				new MethodBeforeAdviceInterceptor(before), new NopInterceptor())).isInvocationFree()).isFalse();
+		assertThat(AdviceChainDispatcher.forChain(Collections.singletonList(
+				new MethodBeforeAdviceInterceptor(before) {})).isInvocationFree()).isFalse();
+		assertThat(AdviceChainDispatcher.forChain(Collections.singletonList(new InterceptorAndDynamicMethodMatcher(
+				new MethodBeforeAdviceInterceptor(before), new NameMatchMethodPointcut()))).isInvocationFree()).isFalse();
+	}
+
+	@Test
+	void dispatcherCachedUntilAdviceChanges() throws Exception {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		Method method = ITestBean.class.getMethod("getAge");
+		AdviceChainDispatcher dispatcher = pf.getAdviceChainDispatcher(method, TestBean.class);
+		assertThat(pf.getAdviceChainDispatcher(method, TestBean.class)).isSameAs(dispatcher);
+		pf.addAdvice(new RecordingBeforeAdvice("before"));
+		assertThat(pf.getAdviceChainDispatcher(method, TestBean.class)).isNotSameAs(dispatcher);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void beforeAndAfterReturningAdviceInChainOrder(boolean proxyTargetClass) {
+		TestBean target = new TestBean("juergen", 42);
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.setProxyTargetClass(proxyTargetClass);
+		pf.addAdvice(new RecordingBeforeAdvice("before1"));
+		pf.addAdvice(new RecordingAfterReturningAdvice("after1"));
+		pf.addAdvice(new RecordingBeforeAdvice("before2"));
+		pf.addAdvice(new RecordingAfterReturningAdvice("after2"));
+		ITestBean unfrozen = (ITestBean) pf.getProxy();
+		pf.setFrozen(true);
+		ITestBean frozen = (ITestBean) pf.getProxy();
+
+		assertThat(unfrozen.getAge()).isEqualTo(42);
+		List<String> expected = new ArrayList<>(this.events);
+		assertThat(expected).containsExactly(
+				"before1:getAge", "before2:getAge", "after2:getAge=42", "after1:getAge=42");
+		this.events.clear();
+		assertThat(frozen.getAge()).isEqualTo(42);
+		assertThat(this.events).isEqualTo(expected);
+
+		this.events.clear();
+		frozen.setName("sam");
+		assertThat(target.getName()).isEqualTo("sam");
+		assertThat(this.events).containsExactly(
+				"before1:setName", "before2:setName", "after2:setName=null", "after1:setName=null");
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void exceptionsFromTargetAndAdvice(boolean proxyTargetClass) {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.setProxyTargetClass(proxyTargetClass);
+		pf.addAdvice(new RecordingBeforeAdvice("before"));
+		pf.addAdvice(new RecordingAfterReturningAdvice("after"));
+		pf.addAdvice((MethodBeforeAdvice) (method, args, target) -> {
+			if (method.getName().equals("getName")) {
+				throw new IOException("advice");
+			}
+		});
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+
+		assertThatIOException().isThrownBy(proxy::unreliableFileOperation);
+		assertThat(this.events).containsExactly("before:unreliableFileOperation");
+		this.events.clear();
+		assertThatExceptionOfType(UndeclaredThrowableException.class).isThrownBy(proxy::getName)
+				.withCauseInstanceOf(IOException.class);
+		assertThat(this.events).containsExactly("before:getName");
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void generalChainWithDynamicPointcut(boolean proxyTargetClass) {
+		ProxyFactory pf = new ProxyFactory(new TestBean("juergen", 42));
+		pf.setProxyTargetClass(proxyTargetClass);
+		pf.addAdvice(new RecordingBeforeAdvice("before"));
+		pf.addAdvisor(new DefaultPointcutAdvisor(new SetAgeTwoPointcut(),
+				(MethodInterceptor) invocation -> {
+					events.add("around:" + invocation.getMethod().getName());
+					return invocation.proceed();
+				}));
+		pf.addAdvice(new RecordingAfterReturningAdvice("after"));
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+
+		proxy.setAge(1);
+		assertThat(this.events).containsExactly("before:setAge", "after:setAge=null");
+		this.events.clear();
+		proxy.setAge(2);
+		assertThat(this.events).containsExactly("before:setAge", "around:setAge", "after:setAge=null");
+		assertThat(proxy.getAge()).isEqualTo(2);
+	}
+
+
+	private class RecordingBeforeAdvice implements MethodBeforeAdvice {
+
+		private final String name;
+
+		RecordingBeforeAdvice(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void before(Method method, Object[] args, Object target) {
+			events.add(this.name + ":" + method.getName());
+		}
+	}
+
+
+	private class RecordingAfterReturningAdvice implements AfterReturningAdvice {
+
+		private final String name;
+
+		RecordingAfterReturningAdvice(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void afterReturning(Object returnValue, Method method, Object[] args, Object target) {
+			events.add(this.name + ":" + method.getName() + "=" + returnValue);
+		}
+	}
+
+
+	private static class SetAgeTwoPointcut extends DynamicMethodMatcherPointcut {
+
+		@Override
+		public boolean matches(Method method, Class<?> targetClass, Object... args) {
+			return (method.getName().equals("setAge") && args[0].equals(2));
+		}
+	}
+
+}
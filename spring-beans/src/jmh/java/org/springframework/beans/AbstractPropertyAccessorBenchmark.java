@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,7 +38,7 @@ public class AbstractPropertyAccessorBenchmark {
 	@State(Scope.Benchmark)
 	public static class BenchmarkState {
 
-		@Param({"DirectFieldAccessor", "BeanWrapper"})
+		@Param({"DirectFieldAccessor", "BeanWrapper", "GeneratedBeanWrapper"})
 		public String accessor;
 
 		@Param({"none", "stringTrimmer", "numberOnPath", "numberOnNestedPath", "numberOnType"})
@@ -58,7 +58,9 @@ public class AbstractPropertyAccessorBenchmark {
 				this.propertyAccessor = new DirectFieldAccessor(this.target);
 			}
 			else {
-				this.propertyAccessor = new BeanWrapperImpl(this.target);
+				BeanWrapperImpl beanWrapper = new BeanWrapperImpl(this.target);
+				beanWrapper.setUseGeneratedAccessors(this.accessor.equals("GeneratedBeanWrapper"));
+				this.propertyAccessor = beanWrapper;
 			}
 			switch (this.customEditor) {
 				case "stringTrimmer":
@@ -86,7 +88,7 @@ public class AbstractPropertyAccessorBenchmark {
 	}
 
 	@SuppressWarnings("unused")
-	private static class PrimitiveArrayBean {
+	public static class PrimitiveArrayBean {
 
 		private int[] array;
 
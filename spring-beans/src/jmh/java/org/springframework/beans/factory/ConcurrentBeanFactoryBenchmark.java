@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,23 +22,26 @@ import java.util.Date;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.infra.Blackhole;
 
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.beans.propertyeditors.CustomDateEditor;
 
 import static org.springframework.core.testfixture.io.ResourceTestUtils.qualifiedResource;
 
 /**
- * Benchmark for creating prototype beans in a concurrent fashion.
+ * Benchmark for creating prototype beans and singleton beans in a concurrent fashion.
  * This benchmark requires to customize the number of worker threads {@code -t <int>} on the
  * CLI when running this particular benchmark to leverage concurrency.
  *
  * @author Brian Clozel
+ * @author agent (agent@local)
  */
 @BenchmarkMode(Mode.Throughput)
 public class ConcurrentBeanFactoryBenchmark {
@@ -61,12 +64,47 @@ public class ConcurrentBeanFactoryBenchmark {
 
 	}
 
+	@State(Scope.Benchmark)
+	public static class SingletonBenchmarkState {
+
+		@Param({"64"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory factory;
+
+		@Setup
+		public void setup() {
+			this.factory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				this.factory.registerBeanDefinition("singleton" + i, new RootBeanDefinition(SlowInitBean.class));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class SingletonThreadState {
+
+		private int counter;
+
+		public String nextBeanName(SingletonBenchmarkState state) {
+			return "singleton" + ((this.counter++ & Integer.MAX_VALUE) % state.beanCount);
+		}
+	}
+
+
 	@Benchmark
 	public void concurrentBeanCreation(BenchmarkState state, Blackhole bh) {
 		bh.consume(state.factory.getBean("bean1"));
 		bh.consume(state.factory.getBean("bean2"));
 	}
 
+	@Benchmark
+	public void concurrentSingletonCreation(SingletonBenchmarkState state, SingletonThreadState threadState, Blackhole bh) {
+		String beanName = threadState.nextBeanName(state);
+		bh.consume(state.factory.getBean(beanName));
+		state.factory.destroySingleton(beanName);
+	}
+
 
 	public static class ConcurrentBean {
 
@@ -80,4 +118,14 @@ public class ConcurrentBeanFactoryBenchmark {
 			this.date = date;
 		}
 	}
+
+
+	public static class SlowInitBean implements InitializingBean {
+
+		@Override
+		public void afterPropertiesSet() {
+			Blackhole.consumeCPU(1000);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,11 +25,16 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.support.ResourceEditorRegistrar;
 import org.springframework.beans.testfixture.beans.LifecycleBean;
 import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
 
 /**
  * Benchmark for retrieving various bean types from the {@link DefaultListableBeanFactory}.
@@ -46,7 +51,8 @@ public class DefaultListableBeanFactoryBenchmark {
 	@State(Scope.Benchmark)
 	public static class PrototypeCreationState extends Shared {
 
-		@Param({"simple", "dependencyCheck", "constructor", "constructorArgument", "properties", "resolvedProperties"})
+		@Param({"simple", "dependencyCheck", "constructor", "constructorArgument", "properties", "resolvedProperties",
+				"postProcessors"})
 		public String mode;
 
 		@Setup
@@ -79,6 +85,17 @@ public class DefaultListableBeanFactoryBenchmark {
 					rbd.getPropertyValues().add("spouse", new RuntimeBeanReference("spouse"));
 					this.beanFactory.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
 					break;
+				case "postProcessors":
+					this.beanFactory.addPropertyEditorRegistrar(
+							new ResourceEditorRegistrar(new DefaultResourceLoader(), new StandardEnvironment()));
+					this.beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {});
+					this.beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+						@Override
+						public Object postProcessBeforeInitialization(Object bean, String beanName) {
+							return bean;
+						}
+					});
+					break;
 			}
 			rbd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
 			this.beanFactory.registerBeanDefinition("test", rbd);
@@ -116,23 +133,38 @@ public class DefaultListableBeanFactoryBenchmark {
 	@State(Scope.Benchmark)
 	public static class SingletonLookupManyBeansState extends Shared {
 
+		@Param({"false", "true"})
+		public boolean typeIndex;
+
+		@Param({"true", "false"})
+		public boolean frozen;
+
 		@Setup
 		public void setup() {
 			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.setUseBeanTypeIndex(this.typeIndex);
 			this.beanFactory.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
 			for (int i = 0; i < 1000; i++) {
 				this.beanFactory.registerBeanDefinition("a" + i, new RootBeanDefinition(A.class));
 			}
-			this.beanFactory.freezeConfiguration();
+			this.beanFactory.registerBeanDefinition("b", new RootBeanDefinition(B.class));
+			if (this.frozen) {
+				this.beanFactory.freezeConfiguration();
+			}
 		}
 	}
 
 	// See SPR-6870
 	@Benchmark
-	public Object singletLookupByTypeManyBeans(SingletonLookupState state) {
+	public Object singletLookupByTypeManyBeans(SingletonLookupManyBeansState state) {
 		return state.beanFactory.getBean(B.class);
 	}
 
+	@Benchmark
+	public Object beanNamesForTypeManyBeans(SingletonLookupManyBeansState state) {
+		return state.beanFactory.getBeanNamesForType(TestBean.class);
+	}
+
 	static class A {
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -263,6 +263,9 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Generated PropertyMethodAccessor objects keyed by property name String. */
+	private final ConcurrentMap<String, PropertyMethodAccessor> accessorCache;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -319,6 +322,7 @@ public final class CachedIntrospectionResults {
 			introspectPlainAccessors(beanClass, readMethodNames);
 
 			this.typeDescriptorCache = new ConcurrentReferenceHashMap<>();
+			this.accessorCache = new ConcurrentHashMap<>();
 		}
 		catch (IntrospectionException ex) {
 			throw new FatalBeanException("Failed to obtain BeanInfo for class [" + beanClass.getName() + "]", ex);
@@ -423,4 +427,16 @@ public final class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	PropertyMethodAccessor getPropertyMethodAccessor(PropertyDescriptor pd) {
+		PropertyMethodAccessor accessor = this.accessorCache.get(pd.getName());
+		if (accessor == null) {
+			accessor = PropertyMethodAccessor.forProperty(pd);
+			PropertyMethodAccessor existing = this.accessorCache.putIfAbsent(pd.getName(), accessor);
+			if (existing != null) {
+				accessor = existing;
+			}
+		}
+		return accessor;
+	}
+
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Generated accessor for the read and write method of a bean property,
+ * spun through {@link LambdaMetafactory} so that property access is a plain
+ * interface call instead of a reflective {@link Method#invoke}.
+ *
+ * <p>Accessors can only be generated for public methods on public classes that
+ * are visible to the Spring class loader; for any other methods, the read or
+ * write accessor is {@code null} and callers need to fall back to reflection.
+ * Instances are cached per property in {@link CachedIntrospectionResults}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see BeanWrapperImpl#setUseGeneratedAccessors
+ */
+final class PropertyMethodAccessor {
+
+	private static final Log logger = LogFactory.getLog(PropertyMethodAccessor.class);
+
+
+	@Nullable
+	private final Function<Object, Object> reader;
+
+	@Nullable
+	private final BiConsumer<Object, Object> writer;
+
+	@Nullable
+	private final Class<?> writeType;
+
+
+	private PropertyMethodAccessor(@Nullable Function<Object, Object> reader,
+			@Nullable BiConsumer<Object, Object> writer, @Nullable Class<?> writeType) {
+
+		this.reader = reader;
+		this.writer = writer;
+		this.writeType = writeType;
+	}
+
+
+	/**
+	 * Return whether a read accessor has been generated.
+	 */
+	public boolean isReadable() {
+		return (this.reader != null);
+	}
+
+	/**
+	 * Return whether a write accessor has been generated and is able
+	 * to accept the given value without a type mismatch, leaving
+	 * any such mismatch to the reflective exception handling.
+	 */
+	public boolean isWritable(@Nullable Object value) {
+		return (this.writer != null && this.writeType != null &&
+				(value != null ? ClassUtils.isAssignableValue(this.writeType, value) : !this.writeType.isPrimitive()));
+	}
+
+	/**
+	 * Read the property value from the given target.
+	 * @throws InvocationTargetException wrapping any exception thrown by
+	 * the read method, consistent with {@link Method#invoke}
+	 */
+	@Nullable
+	public Object getValue(Object target) throws InvocationTargetException {
+		try {
+			return this.reader.apply(target);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Write the given property value to the given target.
+	 * @throws InvocationTargetException wrapping any exception thrown by
+	 * the write method, consistent with {@link Method#invoke}
+	 */
+	public void setValue(Object target, @Nullable Object value) throws InvocationTargetException {
+		try {
+			this.writer.accept(target, value);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+
+	/**
+	 * Generate an accessor for the given property.
+	 * @param pd the property descriptor to generate an accessor for
+	 * @return the accessor (never {@code null}, but possibly neither readable
+	 * nor writable if no accessor could be generated for the property methods)
+	 */
+	static PropertyMethodAccessor forProperty(PropertyDescriptor pd) {
+		Method readMethod = pd.getReadMethod();
+		Method writeMethod = (pd instanceof GenericTypeAwarePropertyDescriptor ?
+				((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess() : pd.getWriteMethod());
+		Function<Object, Object> reader = null;
+		BiConsumer<Object, Object> writer = null;
+		if (readMethod != null && isAccessible(readMethod)) {
+			try {
+				reader = createReader(readMethod);
+			}
+			catch (Throwable ex) {
+				logFailure(readMethod, ex);
+			}
+		}
+		if (writeMethod != null && isAccessible(writeMethod)) {
+			try {
+				writer = createWriter(writeMethod);
+			}
+			catch (Throwable ex) {
+				logFailure(writeMethod, ex);
+			}
+		}
+		return new PropertyMethodAccessor(reader, writer,
+				(writer != null ? writeMethod.getParameterTypes()[0] : null));
+	}
+
+	private static boolean isAccessible(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+			return false;
+		}
+		ClassLoader classLoader = PropertyMethodAccessor.class.getClassLoader();
+		Class<?> clazz = method.getDeclaringClass();
+		if (!ClassUtils.isVisible(clazz, classLoader)) {
+			return false;
+		}
+		while (clazz != null) {
+			if (!Modifier.isPublic(clazz.getModifiers())) {
+				return false;
+			}
+			clazz = clazz.getEnclosingClass();
+		}
+		for (Class<?> paramType : method.getParameterTypes()) {
+			if (!paramType.isPrimitive() && !ClassUtils.isVisible(paramType, classLoader)) {
+				return false;
+			}
+		}
+		Class<?> returnType = method.getReturnType();
+		return (returnType.isPrimitive() || ClassUtils.isVisible(returnType, classLoader));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> createReader(Method readMethod) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle = lookup.unreflect(readMethod);
+		Class<?> valueType = ClassUtils.resolvePrimitiveIfNecessary(readMethod.getReturnType());
+		CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+				MethodType.methodType(Function.class),
+				MethodType.methodType(Object.class, Object.class),
+				handle, MethodType.methodType(valueType, readMethod.getDeclaringClass()));
+		return (Function<Object, Object>) site.getTarget().invoke();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> createWriter(Method writeMethod) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle = lookup.unreflect(writeMethod);
+		Class<?> valueType = ClassUtils.resolvePrimitiveIfNecessary(writeMethod.getParameterTypes()[0]);
+		CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+				MethodType.methodType(BiConsumer.class),
+				MethodType.methodType(void.class, Object.class, Object.class),
+				handle, MethodType.methodType(void.class, writeMethod.getDeclaringClass(), valueType));
+		return (BiConsumer<Object, Object>) site.getTarget().invoke();
+	}
+
+	private static void logFailure(Method method, Throwable ex) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Could not generate accessor for method [" + method + "] - " +
+					"falling back to reflective invocation", ex);
+		}
+	}
+
+}
@@ -21,7 +21,6 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -51,6 +50,7 @@ import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.LookupOverride;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -674,6 +674,12 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 	 */
 	@Nullable
 	private Object resolvedCachedArgument(@Nullable String beanName, @Nullable Object cachedArgument) {
+		if (cachedArgument instanceof ShortcutDependencyDescriptor && this.beanFactory instanceof DefaultListableBeanFactory) {
+			// Pre-resolved to a specific target bean, i.e. neither through a lazy resolution proxy
+			// nor through an Optional/ObjectProvider wrapper: go straight to the shortcut.
+			return ((DefaultListableBeanFactory) this.beanFactory).doResolveDependency(
+					(DependencyDescriptor) cachedArgument, beanName, null, null);
+		}
 		if (cachedArgument instanceof DependencyDescriptor) {
 			// 类型转换
 			DependencyDescriptor descriptor = (DependencyDescriptor) cachedArgument;
@@ -729,9 +735,8 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 				value = resolveFieldValue(field, bean, beanName);
 			}
 			if (value != null) {
-				ReflectionUtils.makeAccessible(field);
-				// 利用反射给字段 field 属性赋值(依赖注入)
-				field.set(bean, value);
+				// 给字段 field 属性赋值(依赖注入)
+				injectFieldValue(bean, value);
 			}
 		}
 
@@ -828,14 +833,8 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 				arguments = resolveMethodArguments(method, bean, beanName);
 			}
 			if (arguments != null) {
-				try {
-					ReflectionUtils.makeAccessible(method);
-					// 通过反射，调用该方法，进行属性赋值(依赖注入)
-					method.invoke(bean, arguments);
-				}
-				catch (InvocationTargetException ex) {
-					throw ex.getTargetException();
-				}
+				// 调用该方法，进行属性赋值(依赖注入)
+				invokeMethod(bean, arguments);
 			}
 		}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,6 @@ package org.springframework.beans.factory.annotation;
 
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.Collection;
@@ -30,7 +29,6 @@ import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.PropertyValues;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.lang.Nullable;
-import org.springframework.util.ReflectionUtils;
 
 /**
  * Internal class for managing injection metadata.
@@ -186,6 +184,9 @@ public class InjectionMetadata {
 		@Nullable
 		protected volatile Boolean skip;
 
+		@Nullable
+		private volatile MemberInjector injector;
+
 		protected InjectedElement(Member member, @Nullable PropertyDescriptor pd) {
 			this.member = member;
 			this.isField = (member instanceof Field);
@@ -235,10 +236,8 @@ public class InjectionMetadata {
 			if (this.isField) {
 				// 注解 @Autowired、@Value 标注在字段(成员属性)上
 
-				Field field = (Field) this.member;
-				ReflectionUtils.makeAccessible(field);
 				// 将注解信息赋值到字段(成员属性)上
-				field.set(target, getResourceToInject(target, requestingBeanName));
+				injectFieldValue(target, getResourceToInject(target, requestingBeanName));
 			}
 			else {
 				// 注解 @Autowired、@Value 标注在方法上
@@ -246,16 +245,43 @@ public class InjectionMetadata {
 				if (checkPropertySkipping(pvs)) {
 					return;
 				}
-				try {
-					Method method = (Method) this.member;
-					ReflectionUtils.makeAccessible(method);
-					// 执行方法，设置注解信息
-					method.invoke(target, getResourceToInject(target, requestingBeanName));
-				}
-				catch (InvocationTargetException ex) {
-					throw ex.getTargetException();
-				}
+				// 执行方法，设置注解信息
+				invokeMethod(target, getResourceToInject(target, requestingBeanName));
+			}
+		}
+
+		/**
+		 * Set the given value on the target's field, through an injector
+		 * that is shared for the field and optimized on repeated use.
+		 * @param target the target instance
+		 * @param value the value to inject
+		 * @throws Throwable in case of injection failure
+		 * @since 5.3.5
+		 */
+		protected final void injectFieldValue(Object target, @Nullable Object value) throws Throwable {
+			getInjector().setFieldValue(target, value);
+		}
+
+		/**
+		 * Invoke the target's method with the given arguments, through an injector
+		 * that is shared for the method and optimized on repeated use.
+		 * @param target the target instance
+		 * @param arguments the arguments to inject
+		 * @throws Throwable in case of injection failure, in particular
+		 * any exception thrown by the method itself
+		 * @since 5.3.5
+		 */
+		protected final void invokeMethod(Object target, @Nullable Object... arguments) throws Throwable {
+			getInjector().invokeMethod(target, arguments);
+		}
+
+		private MemberInjector getInjector() {
+			MemberInjector injector = this.injector;
+			if (injector == null) {
+				injector = MemberInjector.forMember(this.member);
+				this.injector = injector;
 			}
+			return injector;
 		}
 
 		/**
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.annotation;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Injector for an annotated field or method, shared by all
+ * {@link InjectionMetadata.InjectedElement InjectedElements} for the same member.
+ *
+ * <p>Injection starts out reflectively. Once a member has been injected often
+ * enough to indicate repeated bean creation (prototypes, scoped beans, test
+ * contexts), a field gets injected through a {@link MethodHandle} setter and a
+ * public single-argument method through a {@link BiConsumer} generated by
+ * {@link LambdaMetafactory}, bringing the per-instance cost close to a direct
+ * field store or method call. A value that does not match the member's type
+ * is always passed to reflection, for consistent exception behavior.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see InjectionMetadata.InjectedElement#injectFieldValue
+ * @see InjectionMetadata.InjectedElement#invokeMethod
+ */
+final class MemberInjector {
+
+	/** Number of reflective injections before switching to an optimized injector. */
+	static final int OPTIMIZATION_THRESHOLD = 16;
+
+	private static final Log logger = LogFactory.getLog(MemberInjector.class);
+
+	private static final Map<Member, MemberInjector> injectorCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	private final Member member;
+
+	private final Class<?> valueType;
+
+	private int injectionCount;
+
+	private volatile boolean optimized;
+
+	@Nullable
+	private volatile MethodHandle fieldSetter;
+
+	@Nullable
+	private volatile BiConsumer<Object, Object> methodInvoker;
+
+
+	private MemberInjector(Member member) {
+		this.member = member;
+		if (member instanceof Field) {
+			Field field = (Field) member;
+			ReflectionUtils.makeAccessible(field);
+			this.valueType = field.getType();
+		}
+		else {
+			Method method = (Method) member;
+			ReflectionUtils.makeAccessible(method);
+			this.valueType = (method.getParameterCount() == 1 ? method.getParameterTypes()[0] : Object.class);
+		}
+	}
+
+
+	/**
+	 * Set the given value on the given target's field.
+	 * @param target the target instance
+	 * @param value the value to set
+	 * @throws Throwable in case of injection failure
+	 */
+	public void setFieldValue(Object target, @Nullable Object value) throws Throwable {
+		MethodHandle fieldSetter = this.fieldSetter;
+		if (fieldSetter != null && isAssignable(value)) {
+			fieldSetter.invokeExact(target, value);
+		}
+		else {
+			((Field) this.member).set(target, value);
+			countInjection();
+		}
+	}
+
+	/**
+	 * Invoke the given target's method with the given arguments.
+	 * @param target the target instance
+	 * @param arguments the method arguments
+	 * @throws Throwable any exception thrown by the method itself
+	 */
+	public void invokeMethod(Object target, Object... arguments) throws Throwable {
+		BiConsumer<Object, Object> methodInvoker = this.methodInvoker;
+		if (methodInvoker != null && arguments.length == 1 && isAssignable(arguments[0])) {
+			methodInvoker.accept(target, arguments[0]);
+		}
+		else {
+			try {
+				((Method) this.member).invoke(target, arguments);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+			countInjection();
+		}
+	}
+
+	private boolean isAssignable(@Nullable Object value) {
+		return (value != null ? ClassUtils.isAssignableValue(this.valueType, value) : !this.valueType.isPrimitive());
+	}
+
+	private void countInjection() {
+		if (!this.optimized && ++this.injectionCount >= OPTIMIZATION_THRESHOLD) {
+			synchronized (this) {
+				if (!this.optimized) {
+					optimize();
+					this.optimized = true;
+				}
+			}
+		}
+	}
+
+	private void optimize() {
+		try {
+			if (this.member instanceof Field) {
+				Field field = (Field) this.member;
+				if (!Modifier.isStatic(field.getModifiers())) {
+					this.fieldSetter = MethodHandles.lookup().unreflectSetter(field)
+							.asType(MethodType.methodType(void.class, Object.class, Object.class));
+				}
+			}
+			else {
+				Method method = (Method) this.member;
+				if (method.getParameterCount() == 1 && isAccessible(method)) {
+					this.methodInvoker = createMethodInvoker(method);
+				}
+			}
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not generate injector for member [" + this.member + "] - " +
+						"continuing with reflective injection", ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Obtain the shared injector for the given field or method.
+	 * @param member the field or method to inject
+	 * @return the corresponding injector
+	 */
+	static MemberInjector forMember(Member member) {
+		MemberInjector injector = injectorCache.get(member);
+		if (injector == null) {
+			injector = new MemberInjector(member);
+			MemberInjector existing = injectorCache.putIfAbsent(member, injector);
+			if (existing != null) {
+				injector = existing;
+			}
+		}
+		return injector;
+	}
+
+	private static boolean isAccessible(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+			return false;
+		}
+		ClassLoader classLoader = MemberInjector.class.getClassLoader();
+		Class<?> clazz = method.getDeclaringClass();
+		if (!ClassUtils.isVisible(clazz, classLoader)) {
+			return false;
+		}
+		while (clazz != null) {
+			if (!Modifier.isPublic(clazz.getModifiers())) {
+				return false;
+			}
+			clazz = clazz.getEnclosingClass();
+		}
+		Class<?> paramType = method.getParameterTypes()[0];
+		return (paramType.isPrimitive() || ClassUtils.isVisible(paramType, classLoader));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> createMethodInvoker(Method method) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle = lookup.unreflect(method);
+		Class<?> paramType = ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[0]);
+		CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+				MethodType.methodType(BiConsumer.class),
+				MethodType.methodType(void.class, Object.class, Object.class),
+				handle, MethodType.methodType(void.class, method.getDeclaringClass(), paramType));
+		return (BiConsumer<Object, Object>) site.getTarget().invoke();
+	}
+
+}
@@ -372,7 +372,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 
 		Object result = existingBean;
-		for (BeanPostProcessor processor : getBeanPostProcessors()) {
+		for (BeanPostProcessor processor : getBeanPostProcessorCache().beforeInitialization) {
 			// 后置处理，在初始化之前进行增强
 			Object current = processor.postProcessBeforeInitialization(result, beanName);
 			if (current == null) {
@@ -388,7 +388,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 
 		Object result = existingBean;
-		for (BeanPostProcessor processor : getBeanPostProcessors()) {
+		for (BeanPostProcessor processor : getBeanPostProcessorCache().afterInitialization) {
 
 			// 初始化方法执行完之后，尝试创建代理对象（AOP 后置处理器在此介入，创建了代理对象）
 			Object current = processor.postProcessAfterInitialization(result, beanName);
@@ -572,7 +572,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 
 		// Allow post-processors to modify the merged bean definition.
+		boolean recreation;
 		synchronized (mbd.postProcessingLock) {
+			recreation = mbd.postProcessed;
 			if (!mbd.postProcessed) {
 				try {
 					/**
@@ -594,6 +596,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 		}
 
+		// Derive an instantiation plan once a non-singleton bean gets re-created...
+		if (recreation && !mbd.isSingleton() && args == null && mbd.instantiationPlan == null) {
+			mbd.instantiationPlan = BeanInstantiationPlan.forBeanDefinition(mbd, getInstantiationStrategy());
+		}
+
 		/**
 		 * 提前暴露单实例 Bean，专门解决循环依赖。
 		 * 如果当前 bean 为单例，并且允许循环引用，并且当前 bean 正在创建中，此时允许暴露早期单例 bean
@@ -1065,59 +1072,79 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-		synchronized (getSingletonMutex()) {
-			BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
-			if (bw != null) {
-				return (FactoryBean<?>) bw.getWrappedInstance();
-			}
-			Object beanInstance = getSingleton(beanName, false);
-			if (beanInstance instanceof FactoryBean) {
-				return (FactoryBean<?>) beanInstance;
-			}
-			if (isSingletonCurrentlyInCreation(beanName) ||
-					(mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
-				return null;
+		if (!isConcurrentSingletonCreation()) {
+			synchronized (getSingletonMutex()) {
+				return doGetSingletonFactoryBeanForTypeCheck(beanName, mbd);
 			}
+		}
+		try {
+			acquireSingletonCreationLock(beanName, false);
+		}
+		catch (BeanCurrentlyInCreationException ex) {
+			// In creation by another thread which waits for the current thread.
+			return null;
+		}
+		try {
+			return doGetSingletonFactoryBeanForTypeCheck(beanName, mbd);
+		}
+		finally {
+			releaseSingletonCreationLock(beanName);
+		}
+	}
 
-			Object instance;
-			try {
-				// Mark this bean as currently in creation, even if just partially.
-				beforeSingletonCreation(beanName);
-				// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-				instance = resolveBeforeInstantiation(beanName, mbd);
-				if (instance == null) {
-					bw = createBeanInstance(beanName, mbd, null);
-					instance = bw.getWrappedInstance();
-				}
+	@Nullable
+	private FactoryBean<?> doGetSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
+		BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
+		if (bw != null) {
+			return (FactoryBean<?>) bw.getWrappedInstance();
+		}
+		Object beanInstance = getSingleton(beanName, false);
+		if (beanInstance instanceof FactoryBean) {
+			return (FactoryBean<?>) beanInstance;
+		}
+		if (isSingletonCurrentlyInCreation(beanName) ||
+				(mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
+			return null;
+		}
+
+		Object instance;
+		try {
+			// Mark this bean as currently in creation, even if just partially.
+			beforeSingletonCreation(beanName);
+			// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+			instance = resolveBeforeInstantiation(beanName, mbd);
+			if (instance == null) {
+				bw = createBeanInstance(beanName, mbd, null);
+				instance = bw.getWrappedInstance();
 			}
-			catch (UnsatisfiedDependencyException ex) {
-				// Don't swallow, probably misconfiguration...
+		}
+		catch (UnsatisfiedDependencyException ex) {
+			// Don't swallow, probably misconfiguration...
+			throw ex;
+		}
+		catch (BeanCreationException ex) {
+			// Don't swallow a linkage error since it contains a full stacktrace on
+			// first occurrence... and just a plain NoClassDefFoundError afterwards.
+			if (ex.contains(LinkageError.class)) {
 				throw ex;
 			}
-			catch (BeanCreationException ex) {
-				// Don't swallow a linkage error since it contains a full stacktrace on
-				// first occurrence... and just a plain NoClassDefFoundError afterwards.
-				if (ex.contains(LinkageError.class)) {
-					throw ex;
-				}
-				// Instantiation failure, maybe too early...
-				if (logger.isDebugEnabled()) {
-					logger.debug("Bean creation exception on singleton FactoryBean type check: " + ex);
-				}
-				onSuppressedException(ex);
-				return null;
-			}
-			finally {
-				// Finished partial creation of this bean.
-				afterSingletonCreation(beanName);
+			// Instantiation failure, maybe too early...
+			if (logger.isDebugEnabled()) {
+				logger.debug("Bean creation exception on singleton FactoryBean type check: " + ex);
 			}
+			onSuppressedException(ex);
+			return null;
+		}
+		finally {
+			// Finished partial creation of this bean.
+			afterSingletonCreation(beanName);
+		}
 
-			FactoryBean<?> fb = getFactoryBean(beanName, instance);
-			if (bw != null) {
-				this.factoryBeanInstanceCache.put(beanName, bw);
-			}
-			return fb;
+		FactoryBean<?> fb = getFactoryBean(beanName, instance);
+		if (bw != null) {
+			this.factoryBeanInstanceCache.put(beanName, bw);
 		}
+		return fb;
 	}
 
 	/**
@@ -1298,6 +1325,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			return instantiateUsingFactoryMethod(beanName, mbd, args);
 		}
 
+		// Shortcut when re-creating the same bean from its instantiation plan...
+		BeanInstantiationPlan plan = mbd.instantiationPlan;
+		if (plan != null && args == null && plan.canInstantiate(getInstantiationStrategy())) {
+			return instantiateBean(beanName, mbd);
+		}
+
 		// Shortcut when re-creating the same bean...
 		boolean resolved = false;
 		boolean autowireNecessary = false;
@@ -1428,7 +1461,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	protected BeanWrapper instantiateBean(String beanName, RootBeanDefinition mbd) {
 		try {
 			Object beanInstance;
-			if (System.getSecurityManager() != null) {
+			BeanInstantiationPlan plan = mbd.instantiationPlan;
+			if (plan != null && plan.canInstantiate(getInstantiationStrategy())) {
+				beanInstance = plan.instantiate();
+			}
+			else if (System.getSecurityManager() != null) {
 				beanInstance = AccessController.doPrivileged(
 						(PrivilegedAction<Object>) () -> getInstantiationStrategy().instantiate(mbd, beanName, this),
 						getAccessControlContext());
@@ -1439,7 +1476,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 			// 包装对象
 			BeanWrapper bw = new BeanWrapperImpl(beanInstance);
-			initBeanWrapper(bw);
+			if (plan == null || !plan.isBeanWrapperInitializationDeferred()) {
+				initBeanWrapper(bw);
+			}
 			return bw;
 		}
 		catch (Throwable ex) {
@@ -1510,7 +1549,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// to support styles of field injection.
 		// 在属性赋值之前，后置处理器可以做些增强操作，可以中断初始化行为。(提供了一个修改 bean 状态的机会，默认未做任何操作)
 		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().instantiationAware) {
+			for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().afterInstantiationAware) {
 				if (!bp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
 					return;
 				}
@@ -1564,7 +1603,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 
 			// 使用后置处理器处理属性，将属性信息填充至 bean 实例中
-			for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().instantiationAware) {
+			for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().propertiesAware) {
 				/**
 				 * 处理属性的后置处理器开始工作，将注解元信息封装成键值对
 				 * 例如自动装配功能再此执行 AutowiredAnnotationBeanPostProcessor 处理 @Autowired、@Value 注解标注的元信息
@@ -1593,6 +1632,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 
 		if (pvs != null) {
+			BeanInstantiationPlan plan = mbd.instantiationPlan;
+			if (plan != null && plan.isBeanWrapperInitializationDeferred() && !pvs.isEmpty()) {
+				// Property values contributed by post-processors -> initialize the BeanWrapper for conversion.
+				initBeanWrapper(bw);
+			}
 			/**
 			 * 将收集到的属性信息，统一填充到 bean 实例中
 			 * 把处理好的 PropertyValues（属性名和属性值）给 Bean 里面赋值，主要是上面步骤没有给 bean 设置的属性。
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,9 @@ import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.*;
 
+import java.beans.PropertyDescriptor;
 import java.beans.PropertyEditor;
+import java.lang.reflect.Method;
 import java.security.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -1029,9 +1031,26 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 			bpCache = new BeanPostProcessorCache();
 			// 遍历所有 bean 后置处理器，筛选出 "实例化后置处理器 InstantiationAwareBeanPostProcessor"，并进行缓存
 			for (BeanPostProcessor bp : this.beanPostProcessors) {
+				if (isImplemented(bp, BeanPostProcessor.class, "postProcessBeforeInitialization", Object.class, String.class)) {
+					bpCache.beforeInitialization.add(bp);
+				}
+				if (isImplemented(bp, BeanPostProcessor.class, "postProcessAfterInitialization", Object.class, String.class)) {
+					bpCache.afterInitialization.add(bp);
+				}
 				if (bp instanceof InstantiationAwareBeanPostProcessor) {
 					// 将 "实例化后置处理器 InstantiationAwareBeanPostProcessor" 缓存起来
-					bpCache.instantiationAware.add((InstantiationAwareBeanPostProcessor) bp);
+					InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
+					bpCache.instantiationAware.add(ibp);
+					if (isImplemented(bp, InstantiationAwareBeanPostProcessor.class,
+							"postProcessAfterInstantiation", Object.class, String.class)) {
+						bpCache.afterInstantiationAware.add(ibp);
+					}
+					if (isImplemented(bp, InstantiationAwareBeanPostProcessor.class,
+							"postProcessProperties", PropertyValues.class, Object.class, String.class) ||
+							isImplemented(bp, InstantiationAwareBeanPostProcessor.class, "postProcessPropertyValues",
+									PropertyValues.class, PropertyDescriptor[].class, Object.class, String.class)) {
+						bpCache.propertiesAware.add(ibp);
+					}
 					if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
 						// 缓存 SmartInstantiationAwareBeanPostProcessor
 						bpCache.smartInstantiationAware.add((SmartInstantiationAwareBeanPostProcessor) bp);
@@ -1049,6 +1068,18 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		return bpCache;
 	}
 
+	/**
+	 * Determine whether the given post-processor provides its own implementation
+	 * of the specified callback method, rather than inheriting the no-op default
+	 * method from the given post-processor interface.
+	 */
+	private static boolean isImplemented(
+			BeanPostProcessor bp, Class<?> ifc, String methodName, Class<?>... paramTypes) {
+
+		Method method = ClassUtils.getMethodIfAvailable(bp.getClass(), methodName, paramTypes);
+		return (method == null || method.getDeclaringClass() != ifc);
+	}
+
 	/**
 	 * Return whether this factory holds a InstantiationAwareBeanPostProcessor
 	 * that will get applied to singleton beans on creation.
@@ -2182,8 +2213,18 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	 */
 	static class BeanPostProcessorCache {
 
+		final List<BeanPostProcessor> beforeInitialization = new ArrayList<>();
+
+		final List<BeanPostProcessor> afterInitialization = new ArrayList<>();
+
 		final List<InstantiationAwareBeanPostProcessor> instantiationAware = new ArrayList<>();
 
+		/** Post-processors that implement {@code postProcessAfterInstantiation}. */
+		final List<InstantiationAwareBeanPostProcessor> afterInstantiationAware = new ArrayList<>();
+
+		/** Post-processors that implement {@code postProcessProperties} or {@code postProcessPropertyValues}. */
+		final List<InstantiationAwareBeanPostProcessor> propertiesAware = new ArrayList<>();
+
 		final List<SmartInstantiationAwareBeanPostProcessor> smartInstantiationAware = new ArrayList<>();
 
 		final List<DestructionAwareBeanPostProcessor> destructionAware = new ArrayList<>();
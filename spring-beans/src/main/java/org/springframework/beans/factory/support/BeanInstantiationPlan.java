@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Instantiation plan for a non-singleton bean, derived from the state that
+ * the first creation of the bean has resolved on its merged bean definition,
+ * and replayed on subsequent creations of the same bean.
+ *
+ * <p>For a bean to be instantiated through its default constructor, the plan
+ * holds that constructor, invoking it without synchronizing on the bean
+ * definition and, where accessible, through a generated {@link Supplier}
+ * instead of reflection. Furthermore, the plan indicates whether the
+ * {@link org.springframework.beans.BeanWrapper} for a new instance needs to be
+ * initialized with the factory's property editors upfront: this is only
+ * necessary if the bean definition carries property values, autowires
+ * properties or performs a dependency check. Otherwise, initialization is
+ * deferred until post-processors actually contribute property values.
+ *
+ * <p>Plans are cached on the {@link RootBeanDefinition} and therefore get
+ * discarded along with the merged bean definition. The subset of post-processors
+ * to apply on creation is shared across all beans, see
+ * {@link AbstractBeanFactory#getBeanPostProcessorCache()}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see AbstractAutowireCapableBeanFactory#createBeanInstance
+ * @see AbstractAutowireCapableBeanFactory#instantiateBean
+ */
+final class BeanInstantiationPlan {
+
+	private static final Log logger = LogFactory.getLog(BeanInstantiationPlan.class);
+
+
+	private final InstantiationStrategy instantiationStrategy;
+
+	@Nullable
+	private final Constructor<?> constructor;
+
+	@Nullable
+	private final Supplier<Object> generatedConstructor;
+
+	private final boolean beanWrapperInitializationDeferred;
+
+
+	private BeanInstantiationPlan(InstantiationStrategy instantiationStrategy, @Nullable Constructor<?> constructor,
+			@Nullable Supplier<Object> generatedConstructor, boolean beanWrapperInitializationDeferred) {
+
+		this.instantiationStrategy = instantiationStrategy;
+		this.constructor = constructor;
+		this.generatedConstructor = generatedConstructor;
+		this.beanWrapperInitializationDeferred = beanWrapperInitializationDeferred;
+	}
+
+
+	/**
+	 * Return whether this plan is able to instantiate the bean
+	 * with the given instantiation strategy.
+	 */
+	public boolean canInstantiate(InstantiationStrategy instantiationStrategy) {
+		return (this.constructor != null && this.instantiationStrategy == instantiationStrategy);
+	}
+
+	/**
+	 * Instantiate the bean through its default constructor.
+	 * @throws BeanInstantiationException if the constructor failed
+	 * @see #canInstantiate
+	 */
+	public Object instantiate() throws BeanInstantiationException {
+		if (this.generatedConstructor != null) {
+			try {
+				return this.generatedConstructor.get();
+			}
+			catch (Throwable ex) {
+				throw new BeanInstantiationException(this.constructor, "Constructor threw exception", ex);
+			}
+		}
+		return BeanUtils.instantiateClass(this.constructor);
+	}
+
+	/**
+	 * Return whether the initialization of the BeanWrapper for a new instance
+	 * is deferred until property values are about to be applied.
+	 */
+	public boolean isBeanWrapperInitializationDeferred() {
+		return this.beanWrapperInitializationDeferred;
+	}
+
+
+	/**
+	 * Derive an instantiation plan from the given merged bean definition,
+	 * to be called once the bean has been created for the first time.
+	 * @param mbd the merged bean definition
+	 * @param instantiationStrategy the factory's current instantiation strategy
+	 * @return the instantiation plan (never {@code null})
+	 */
+	static BeanInstantiationPlan forBeanDefinition(RootBeanDefinition mbd, InstantiationStrategy instantiationStrategy) {
+		Constructor<?> constructor = null;
+		if (mbd.getInstanceSupplier() == null && mbd.getFactoryMethodName() == null && !mbd.hasMethodOverrides() &&
+				isStandardInstantiationStrategy(instantiationStrategy) && System.getSecurityManager() == null) {
+			synchronized (mbd.constructorArgumentLock) {
+				if (mbd.resolvedConstructorOrFactoryMethod instanceof Constructor && !mbd.constructorArgumentsResolved) {
+					constructor = (Constructor<?>) mbd.resolvedConstructorOrFactoryMethod;
+				}
+			}
+		}
+		Supplier<Object> generatedConstructor = null;
+		if (constructor != null && constructor.getParameterCount() == 0 && isAccessible(constructor)) {
+			try {
+				generatedConstructor = createSupplier(constructor);
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not generate accessor for constructor [" + constructor + "] - " +
+							"falling back to reflective instantiation", ex);
+				}
+			}
+		}
+		boolean beanWrapperInitializationDeferred = (!mbd.hasPropertyValues() &&
+				mbd.getDependencyCheck() == AbstractBeanDefinition.DEPENDENCY_CHECK_NONE &&
+				mbd.getResolvedAutowireMode() != AbstractBeanDefinition.AUTOWIRE_BY_NAME &&
+				mbd.getResolvedAutowireMode() != AbstractBeanDefinition.AUTOWIRE_BY_TYPE);
+		return new BeanInstantiationPlan(
+				instantiationStrategy, constructor, generatedConstructor, beanWrapperInitializationDeferred);
+	}
+
+	private static boolean isStandardInstantiationStrategy(InstantiationStrategy instantiationStrategy) {
+		Class<?> strategyClass = instantiationStrategy.getClass();
+		return (strategyClass == CglibSubclassingInstantiationStrategy.class ||
+				strategyClass == SimpleInstantiationStrategy.class);
+	}
+
+	private static boolean isAccessible(Constructor<?> constructor) {
+		Class<?> clazz = constructor.getDeclaringClass();
+		if (!Modifier.isPublic(constructor.getModifiers()) || Modifier.isAbstract(clazz.getModifiers()) ||
+				!ClassUtils.isVisible(clazz, BeanInstantiationPlan.class.getClassLoader()) ||
+				(KotlinDetector.isKotlinReflectPresent() && KotlinDetector.isKotlinType(clazz))) {
+			return false;
+		}
+		while (clazz != null) {
+			if (!Modifier.isPublic(clazz.getModifiers())) {
+				return false;
+			}
+			clazz = clazz.getEnclosingClass();
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Supplier<Object> createSupplier(Constructor<?> constructor) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle = lookup.unreflectConstructor(constructor);
+		CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+				MethodType.methodType(Supplier.class),
+				MethodType.methodType(Object.class),
+				handle, MethodType.methodType(constructor.getDeclaringClass()));
+		return (Supplier<Object>) site.getTarget().invoke();
+	}
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Incrementally maintained index from types to the names of the bean definitions
+ * in a {@link DefaultListableBeanFactory} that may match them, narrowing down the
+ * candidates for {@code getBeanNamesForType} before the actual type matching.
+ *
+ * <p>A bean definition gets indexed if its type is statically determinable: an
+ * already resolved bean class, without factory method or decorated definition,
+ * that does not represent a {@link FactoryBean}. It is registered for that class,
+ * for the type predicted by {@link SmartInstantiationAwareBeanPostProcessor
+ * SmartInstantiationAwareBeanPostProcessors} and for the class of its singleton
+ * instance (if already created), including all of their superclasses and interfaces.
+ * Any other bean definition, as well as any bean definition that has not been
+ * (re-)indexed since its last modification, remains a candidate for every type.
+ *
+ * <p>Index entries are derived from merged bean definitions and therefore get
+ * invalidated along with them, i.e. on re-registration, on
+ * {@link AbstractBeanFactory#clearMergedBeanDefinition} and on
+ * {@link AbstractBeanFactory#clearMetadataCache()}, as well as on singleton
+ * registration and on changes to the set of smart instantiation-aware
+ * post-processors. Invalidated entries get lazily re-indexed on the next lookup,
+ * without holding the index lock while calling into the bean factory.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see DefaultListableBeanFactory#setUseBeanTypeIndex
+ */
+final class BeanTypeIndex {
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	/** Registration state per bean definition name. */
+	private final Map<String, Registration> registrations = new HashMap<>(256);
+
+	/** Indexed registrations, keyed by every type that they may match. */
+	private final Map<Class<?>, Set<Registration>> registrationsByType = new HashMap<>(256);
+
+	/** Registrations that are not indexed and therefore candidates for every type. */
+	private final Set<Registration> unindexedRegistrations = new HashSet<>(64);
+
+	/** Registrations that are yet to be (re-)indexed, in registration order. */
+	private final Set<Registration> pendingRegistrations = new LinkedHashSet<>(256);
+
+	/** The smart instantiation-aware post-processors that the index entries are based on. */
+	private List<SmartInstantiationAwareBeanPostProcessor> indexedPostProcessors = Collections.emptyList();
+
+	private long registrationCounter;
+
+
+	BeanTypeIndex(DefaultListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+
+	/**
+	 * Register the given bean definition name, or invalidate its
+	 * index entry if the name has been registered before.
+	 */
+	synchronized void register(String beanName) {
+		Registration registration = this.registrations.get(beanName);
+		if (registration != null) {
+			invalidate(registration);
+		}
+		else {
+			registration = new Registration(beanName, this.registrationCounter++);
+			this.registrations.put(beanName, registration);
+			this.unindexedRegistrations.add(registration);
+			this.pendingRegistrations.add(registration);
+		}
+	}
+
+	/**
+	 * Remove the given bean definition name from the index.
+	 */
+	synchronized void remove(String beanName) {
+		Registration registration = this.registrations.remove(beanName);
+		if (registration != null) {
+			removeIndexedTypes(registration);
+			this.unindexedRegistrations.remove(registration);
+			this.pendingRegistrations.remove(registration);
+		}
+	}
+
+	/**
+	 * Invalidate the index entry for the given bean definition name, if any.
+	 */
+	synchronized void invalidate(String beanName) {
+		Registration registration = this.registrations.get(beanName);
+		if (registration != null) {
+			invalidate(registration);
+		}
+	}
+
+	/**
+	 * Invalidate all index entries.
+	 */
+	synchronized void invalidateAll() {
+		this.registrationsByType.clear();
+		for (Registration registration : this.registrations.values()) {
+			registration.indexedTypes = null;
+			registration.version++;
+			this.unindexedRegistrations.add(registration);
+			this.pendingRegistrations.add(registration);
+		}
+	}
+
+	/**
+	 * Determine the names of all bean definitions that may match the given type,
+	 * in registration order, (re-)indexing bean definitions where necessary.
+	 * @param type the raw type to match
+	 * @return the candidate bean definition names
+	 */
+	List<String> getCandidateNames(Class<?> type) {
+		checkPostProcessors();
+		indexPendingRegistrations();
+		Class<?> typeToMatch = ClassUtils.resolvePrimitiveIfNecessary(type);
+		List<Registration> candidates;
+		synchronized (this) {
+			Set<Registration> indexed = this.registrationsByType.get(typeToMatch);
+			int indexedCount = (indexed != null ? indexed.size() : 0);
+			candidates = new ArrayList<>(indexedCount + this.unindexedRegistrations.size());
+			if (indexed != null) {
+				candidates.addAll(indexed);
+			}
+			candidates.addAll(this.unindexedRegistrations);
+		}
+		if (candidates.isEmpty()) {
+			return Collections.emptyList();
+		}
+		candidates.sort((r1, r2) -> Long.compare(r1.order, r2.order));
+		List<String> candidateNames = new ArrayList<>(candidates.size());
+		for (Registration candidate : candidates) {
+			candidateNames.add(candidate.beanName);
+		}
+		return candidateNames;
+	}
+
+	private void checkPostProcessors() {
+		List<SmartInstantiationAwareBeanPostProcessor> postProcessors =
+				this.beanFactory.getBeanPostProcessorCache().smartInstantiationAware;
+		synchronized (this) {
+			if (!postProcessors.equals(this.indexedPostProcessors)) {
+				// Type predictions may have changed -> rebuild the index.
+				invalidateAll();
+				this.indexedPostProcessors = new ArrayList<>(postProcessors);
+			}
+		}
+	}
+
+	private void indexPendingRegistrations() {
+		while (true) {
+			Registration registration;
+			int version;
+			synchronized (this) {
+				Iterator<Registration> it = this.pendingRegistrations.iterator();
+				if (!it.hasNext()) {
+					return;
+				}
+				registration = it.next();
+				it.remove();
+				version = registration.version;
+			}
+			// Calling into the bean factory without holding the lock: the registration
+			// remains a candidate for every type in the meantime, even for lookups that
+			// are triggered from within the type determination on the current thread.
+			Set<Class<?>> indexedTypes = determineIndexedTypes(registration.beanName);
+			if (indexedTypes != null) {
+				synchronized (this) {
+					if (this.registrations.get(registration.beanName) == registration &&
+							registration.version == version) {
+						registration.indexedTypes = indexedTypes;
+						for (Class<?> indexedType : indexedTypes) {
+							this.registrationsByType.computeIfAbsent(indexedType, key -> new HashSet<>()).add(registration);
+						}
+						this.unindexedRegistrations.remove(registration);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine all types that the given bean may match.
+	 * @param beanName the name of the bean definition
+	 * @return the types (an empty set for an abstract bean definition),
+	 * or {@code null} if the bean definition cannot be indexed
+	 */
+	@Nullable
+	private Set<Class<?>> determineIndexedTypes(String beanName) {
+		try {
+			if (this.beanFactory.isSingletonCurrentlyInCreation(beanName)) {
+				// An early singleton reference might get exposed with a different type.
+				return null;
+			}
+			RootBeanDefinition mbd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract()) {
+				return Collections.emptySet();
+			}
+			if (!mbd.hasBeanClass() || mbd.getFactoryMethodName() != null ||
+					mbd.getDecoratedDefinition() != null || Boolean.TRUE.equals(mbd.isFactoryBean)) {
+				return null;
+			}
+			Class<?> beanClass = mbd.getBeanClass();
+			Class<?> targetType = mbd.getTargetType();
+			if (targetType != null && targetType != beanClass) {
+				return null;
+			}
+			Set<Class<?>> indexedTypes = new HashSet<>();
+			if (!addIndexedTypes(indexedTypes, beanClass)) {
+				return null;
+			}
+			Class<?> predictedType = this.beanFactory.predictBeanType(beanName, mbd);
+			if (predictedType != null && !addIndexedTypes(indexedTypes, predictedType)) {
+				return null;
+			}
+			Object beanInstance = this.beanFactory.getSingleton(beanName, false);
+			if (beanInstance != null && !addIndexedTypes(indexedTypes, beanInstance.getClass())) {
+				return null;
+			}
+			return indexedTypes;
+		}
+		catch (BeansException ex) {
+			// Leave it to the regular type matching algorithm, including its exception handling.
+			return null;
+		}
+	}
+
+	private boolean addIndexedTypes(Set<Class<?>> indexedTypes, Class<?> type) {
+		if (type.isArray() || FactoryBean.class.isAssignableFrom(type)) {
+			return false;
+		}
+		addTypeHierarchy(indexedTypes, type);
+		indexedTypes.add(Object.class);
+		return true;
+	}
+
+	private void addTypeHierarchy(Set<Class<?>> indexedTypes, Class<?> type) {
+		if (indexedTypes.add(type)) {
+			Class<?> superclass = type.getSuperclass();
+			if (superclass != null) {
+				addTypeHierarchy(indexedTypes, superclass);
+			}
+			for (Class<?> ifc : type.getInterfaces()) {
+				addTypeHierarchy(indexedTypes, ifc);
+			}
+		}
+	}
+
+	private void invalidate(Registration registration) {
+		removeIndexedTypes(registration);
+		registration.version++;
+		this.unindexedRegistrations.add(registration);
+		this.pendingRegistrations.add(registration);
+	}
+
+	private void removeIndexedTypes(Registration registration) {
+		Set<Class<?>> indexedTypes = registration.indexedTypes;
+		if (indexedTypes != null) {
+			for (Class<?> indexedType : indexedTypes) {
+				Set<Registration> registrations = this.registrationsByType.get(indexedType);
+				if (registrations != null) {
+					registrations.remove(registration);
+					if (registrations.isEmpty()) {
+						this.registrationsByType.remove(indexedType);
+					}
+				}
+			}
+			registration.indexedTypes = null;
+		}
+	}
+
+
+	/**
+	 * Index state for a bean definition name.
+	 */
+	private static final class Registration {
+
+		final String beanName;
+
+		final long order;
+
+		/** The types that the bean may match, or {@code null} if not indexed. */
+		@Nullable
+		Set<Class<?>> indexedTypes;
+
+		/** Incremented on every invalidation, for detecting stale index results. */
+		int version;
+
+		Registration(String beanName, long order) {
+			this.beanName = beanName;
+			this.order = order;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.config.*;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.MergedAnnotation;
 import org.springframework.core.annotation.MergedAnnotations;
 import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
@@ -40,6 +41,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -95,6 +97,20 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * System property that instructs Spring to maintain a type index for
+	 * by-type bean lookups in all bean factories: {@code spring.beans.type-index}.
+	 * <p>The default is "false". Switch this flag to "true" in order to narrow
+	 * down the candidates for {@link #getBeanNamesForType} through an
+	 * incrementally maintained type index, also before configuration freeze.
+	 * @since 5.3.5
+	 * @see #setUseBeanTypeIndex
+	 */
+	public static final String BEAN_TYPE_INDEX_PROPERTY_NAME = "spring.beans.type-index";
+
+	private static final boolean shouldUseBeanTypeIndex = SpringProperties.getFlag(BEAN_TYPE_INDEX_PROPERTY_NAME);
+
+
 	/** Map from serialized id to factory instance. */
 	private static final Map<String, Reference<DefaultListableBeanFactory>> serializableFactories =
 			new ConcurrentHashMap<>(8);
@@ -109,6 +125,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans. */
 	private boolean allowEagerClassLoading = true;
 
+	/** Maximum number of threads for pre-instantiating singletons, 1 for sequential. */
+	private int preInstantiationParallelism = 1;
+
+	/** Executor for pre-instantiating singletons in parallel, if not a temporary default pool. */
+	@Nullable
+	private Executor preInstantiationExecutor;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -144,6 +167,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether bean definition metadata may be cached for all beans. */
 	private volatile boolean configurationFrozen;
 
+	/** Index of candidate bean names by type, if enabled. */
+	@Nullable
+	private volatile BeanTypeIndex beanTypeIndex = (shouldUseBeanTypeIndex ? new BeanTypeIndex(this) : null);
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -228,6 +255,107 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the maximum number of threads to use for pre-instantiating non-lazy
+	 * singletons in {@link #preInstantiateSingletons()}.
+	 * <p>Default is 1, creating all singletons sequentially on the calling thread.
+	 * A higher value computes a dependency graph from the merged bean definitions
+	 * (declared {@link AbstractBeanDefinition#getDependsOn() depends-on} relationships,
+	 * factory beans, bean references in constructor arguments and property values,
+	 * candidates for autowired constructor and factory method arguments as well as
+	 * dependencies {@link #registerDependentBean registered} so far) and creates
+	 * independent singletons in parallel, each one only after the singletons it is
+	 * known to depend on. Remaining dependencies, e.g. autowired fields, are resolved
+	 * on demand as usual. Singletons involved in known circular references are created
+	 * sequentially on the calling thread afterwards; circular references that only show
+	 * up across threads are resolved through early singleton references, just like
+	 * within a single thread, without creating any singleton twice.
+	 * <p>A value higher than 1 also turns on {@link #setConcurrentSingletonCreation
+	 * concurrent singleton creation} for this factory, with each singleton getting
+	 * created within a creation lock for its bean name rather than the singleton mutex.
+	 * <p>Note that bean classes, post-processors and the configured
+	 * {@link org.springframework.core.metrics.ApplicationStartup} need to be prepared
+	 * for concurrent invocations when turning this on.
+	 * @since 5.3.5
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+		setConcurrentSingletonCreation(preInstantiationParallelism > 1);
+	}
+
+	/**
+	 * Return the maximum number of threads to use for pre-instantiating singletons.
+	 * @since 5.3.5
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
+	/**
+	 * Set the {@link Executor} to use for pre-instantiating singletons in parallel,
+	 * for example a managed thread pool of the hosting environment.
+	 * <p>Default is a pool of daemon threads, named "preInstantiateSingletons-", which
+	 * is created for each {@link #preInstantiateSingletons()} call and shut down right
+	 * after it. The given executor is not managed by this factory: it is neither shut
+	 * down nor otherwise released.
+	 * @since 5.3.5
+	 * @see #setPreInstantiationParallelism
+	 */
+	public void setPreInstantiationExecutor(@Nullable Executor preInstantiationExecutor) {
+		this.preInstantiationExecutor = preInstantiationExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} to use for pre-instantiating singletons in parallel,
+	 * or {@code null} for a pool created for each pre-instantiation run.
+	 * @since 5.3.5
+	 */
+	@Nullable
+	public Executor getPreInstantiationExecutor() {
+		return this.preInstantiationExecutor;
+	}
+
+	/**
+	 * Set whether to maintain an index of bean definition names by type,
+	 * narrowing down the bean definitions that need to be checked in
+	 * {@link #getBeanNamesForType} and therefore in by-type lookups such as
+	 * {@link #getBeansOfType}, {@link #getBeanProvider} streams and autowiring.
+	 * <p>Default is "false", unless the {@link #BEAN_TYPE_INDEX_PROPERTY_NAME}
+	 * system property is set to "true". In contrast to the by-type cache for a
+	 * frozen configuration, the index is incrementally kept up to date on bean
+	 * definition and singleton registration and therefore also applies while
+	 * the bean factory is being configured and during context refresh. It only
+	 * covers bean definitions with a statically determinable type; all other bean
+	 * definitions (e.g. for factory methods and factory beans) get checked for
+	 * every by-type lookup, as usual.
+	 * @since 5.3.5
+	 * @see #getBeanNamesForType(ResolvableType, boolean, boolean)
+	 */
+	public void setUseBeanTypeIndex(boolean useBeanTypeIndex) {
+		if (!useBeanTypeIndex) {
+			this.beanTypeIndex = null;
+		}
+		else if (this.beanTypeIndex == null) {
+			BeanTypeIndex typeIndex = new BeanTypeIndex(this);
+			synchronized (this.beanDefinitionMap) {
+				for (String beanName : this.beanDefinitionNames) {
+					typeIndex.register(beanName);
+				}
+				this.beanTypeIndex = typeIndex;
+			}
+		}
+	}
+
+	/**
+	 * Return whether an index of bean definition names by type is maintained.
+	 * @since 5.3.5
+	 */
+	public boolean isUseBeanTypeIndex() {
+		return (this.beanTypeIndex != null);
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -283,6 +411,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			setPreInstantiationParallelism(otherListableFactory.preInstantiationParallelism);
+			this.preInstantiationExecutor = otherListableFactory.preInstantiationExecutor;
+			setUseBeanTypeIndex(otherListableFactory.isUseBeanTypeIndex());
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware
 			setAutowireCandidateResolver(otherListableFactory.getAutowireCandidateResolver().cloneIfNecessary());
@@ -531,8 +662,16 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
+		// Narrow down the bean definitions to check through the type index, if enabled.
+		List<String> beanDefinitionNames = this.beanDefinitionNames;
+		BeanTypeIndex typeIndex = this.beanTypeIndex;
+		Class<?> rawType = type.resolve();
+		if (typeIndex != null && rawType != null && isCacheBeanMetadata()) {
+			beanDefinitionNames = typeIndex.getCandidateNames(rawType);
+		}
+
 		// 遍历容器中所有的组件的名称。Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
 				try {
@@ -864,6 +1003,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected void clearMergedBeanDefinition(String beanName) {
 		super.clearMergedBeanDefinition(beanName);
 		this.mergedBeanDefinitionHolders.remove(beanName);
+		BeanTypeIndex typeIndex = this.beanTypeIndex;
+		if (typeIndex != null) {
+			typeIndex.invalidate(beanName);
+		}
 	}
 
 	@Override
@@ -871,6 +1014,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		super.clearMetadataCache();
 		this.mergedBeanDefinitionHolders.clear();
 		clearByTypeCache();
+		BeanTypeIndex typeIndex = this.beanTypeIndex;
+		if (typeIndex != null) {
+			typeIndex.invalidateAll();
+		}
 	}
 
 	@Override
@@ -914,62 +1061,33 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		 * 遍历获取 beanNames，触发所有非懒加载单实例 bean 的初始化
 		 * Trigger initialization of all non-lazy singleton beans...
 		 */
-		for (String beanName : beanNames) {
-
-			/**
-			 * 获取当前 bean 的定义信息
-			 * Merged 意义在于处理 bean 之间的父子继承关系，处理属性继承和覆盖(如果有的话)
-			 */
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-
-
-			// 判断当前 bean 是否为普通 bean（非抽象类）、是否为单例、是否为懒加载
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+		if (this.preInstantiationParallelism > 1) {
+			List<String> candidateNames = new ArrayList<>(beanNames.size());
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					candidateNames.add(beanName);
+				}
+			}
+			// 并行模式：按照 bean 定义之间的依赖关系，在有界线程池中并行创建相互独立的单实例 bean
+			new ParallelSingletonPreInstantiator(
+					this, candidateNames, this.preInstantiationParallelism, this.preInstantiationExecutor).preInstantiate();
+		}
+		else {
+			for (String beanName : beanNames) {
 				/**
-				 * 判断当前 beanName 对应的 bean 是否为 FactoryBean，即是否为工厂 bean
-				 * 工厂 bean，即实现了接口 FactoryBean，会重写 getBean() 方法，其 bean 实例的创建，就由这个 getBean() 方法来完成。
+				 * 获取当前 bean 的定义信息
+				 * Merged 意义在于处理 bean 之间的父子继承关系，处理属性继承和覆盖(如果有的话)
 				 */
-				if (isFactoryBean(beanName)) {
-					/**
-					 * 工厂 bean 实例的构建时，其 beanName 拼接 "&" 符号
-					 * 通过 beanName 获取 FactoryBean 实例
-					 * 在 beanName 前面加上 "&" 符号，再调用其 getBean() 方法创建 bean 实例
-					 * 通过 getBean(&beanName) 拿到的是 FactoryBean 本身，
-					 * 通过 getBean(beanName) 拿到的是 FactoryBean 创建的 bean 对象
-					 */
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged(
-									(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					/**
-					 * （非 FactoryBean）普通单实例、非懒加载 Bean 的创建
-					 *
-					 * 调用前置/后置处理器、实例化、属性填充、反射，都在此方法内完成
-					 * getBean → doGetBean → creatBean → doCreatBean
-					 */
-					getBean(beanName);
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+
+				// 判断当前 bean 是否为普通 bean（非抽象类）、是否为单例、是否为懒加载
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
 				}
 			}
 		}
 
-
-
-
 		/**
 		 * 触发 post-initialization 逻辑。
 		 * 实现 SmartInitializingSingleton 接口的 afterSingletonsInstantiated() 方法进行增强
@@ -995,6 +1113,54 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Pre-instantiate the given non-lazy singleton, including the object exposed
+	 * by an eagerly initializing {@link SmartFactoryBean}.
+	 * @param beanName the name of the bean
+	 * @since 5.3.5
+	 */
+	void preInstantiateSingleton(String beanName) {
+		/**
+		 * 判断当前 beanName 对应的 bean 是否为 FactoryBean，即是否为工厂 bean
+		 * 工厂 bean，即实现了接口 FactoryBean，会重写 getBean() 方法，其 bean 实例的创建，就由这个 getBean() 方法来完成。
+		 */
+		if (isFactoryBean(beanName)) {
+			/**
+			 * 工厂 bean 实例的构建时，其 beanName 拼接 "&" 符号
+			 * 通过 beanName 获取 FactoryBean 实例
+			 * 在 beanName 前面加上 "&" 符号，再调用其 getBean() 方法创建 bean 实例
+			 * 通过 getBean(&beanName) 拿到的是 FactoryBean 本身，
+			 * 通过 getBean(beanName) 拿到的是 FactoryBean 创建的 bean 对象
+			 */
+			Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (bean instanceof FactoryBean) {
+				FactoryBean<?> factory = (FactoryBean<?>) bean;
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged(
+							(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
+							getAccessControlContext());
+				}
+				else {
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					getBean(beanName);
+				}
+			}
+		}
+		else {
+			/**
+			 * （非 FactoryBean）普通单实例、非懒加载 Bean 的创建
+			 *
+			 * 调用前置/后置处理器、实例化、属性填充、反射，都在此方法内完成
+			 * getBean → doGetBean → creatBean → doCreatBean
+			 */
+			getBean(beanName);
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// 重写了 BeanDefinitionRegistry 接口中的注册 BeanDefinition 的方法
@@ -1071,6 +1237,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.frozenBeanDefinitionNames = null;
 		}
 
+		BeanTypeIndex typeIndex = this.beanTypeIndex;
+		if (typeIndex != null) {
+			typeIndex.register(beanName);
+		}
+
 		if (existingDefinition != null || containsSingleton(beanName)) {
 			resetBeanDefinition(beanName);
 		}
@@ -1105,6 +1276,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 		this.frozenBeanDefinitionNames = null;
 
+		BeanTypeIndex typeIndex = this.beanTypeIndex;
+		if (typeIndex != null) {
+			typeIndex.remove(beanName);
+		}
+
 		resetBeanDefinition(beanName);
 	}
 
@@ -1172,6 +1348,16 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		BeanTypeIndex typeIndex = this.beanTypeIndex;
+		if (typeIndex != null) {
+			// Re-index with the type of the actual singleton instance.
+			typeIndex.invalidate(beanName);
+		}
+	}
+
 	@Override
 	public void destroySingletons() {
 		super.destroySingletons();
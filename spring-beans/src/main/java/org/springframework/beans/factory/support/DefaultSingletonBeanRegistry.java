@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -105,12 +106,24 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Set<String> inCreationCheckExclusions =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
-	/** Collection of suppressed Exceptions, available for associating related causes. */
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	/** Whether singletons may be created concurrently, within creation locks per bean name. */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Monitor for creation locks and threads waiting for them, separate from the singleton mutex. */
+	private final Object singletonCreationMonitor = new Object();
+
+	/** Creation locks for singletons currently in creation: bean name to lock, modified within the creation monitor. */
+	private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(16);
+
+	/** Threads waiting for a singleton creation lock, guarded by the creation monitor. */
+	private final Map<Thread, SingletonCreationWait> singletonCreationWaits = new HashMap<>(16);
+
+	/** Suppressed Exceptions per creating thread, available for associating related causes. */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions during singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/** Disposable bean instances: bean name to disposable instance. */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
@@ -170,6 +183,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				this.singletonFactories.put(beanName, singletonFactory);
 				this.earlySingletonObjects.remove(beanName);
 				this.registeredSingletons.add(beanName);
+				SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+				if (lock != null) {
+					lock.earlyReferenceExposed = true;
+				}
 			}
 		}
 	}
@@ -185,6 +202,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * Return the (raw) singleton object registered under the given name.
 	 * <p>Checks already instantiated singletons and also allows for an early
 	 * reference to a currently created singleton (resolving a circular reference).
+	 * <p>As of 5.3.5, a singleton in creation is only exposed to the thread creating it.
 	 * @param beanName the name of the bean to look for
 	 * @param allowEarlyReference whether early references should be created or not
 	 * @return the registered singleton object, or {@code null} if none found
@@ -195,6 +213,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		// 检查当前 bean 是否正在实例化
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+			if (!isSingletonCreationThread(beanName)) {
+				// Early reference only to be exposed to the thread creating the singleton:
+				// other threads need to wait for the fully initialized singleton instead.
+				return null;
+			}
 			// 从（二级）早期单例缓存中获取初步实例化好的单例 bean
 			singletonObject = this.earlySingletonObjects.get(beanName);
 			if (singletonObject == null && allowEarlyReference) {
@@ -234,82 +257,289 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		synchronized (this.singletonObjects) {
-			// 从单例缓存中获取 bean 实例
-			Object singletonObject = this.singletonObjects.get(beanName);
+		if (!this.concurrentSingletonCreation) {
+			synchronized (this.singletonObjects) {
+				return createSingleton(beanName, singletonFactory);
+			}
+		}
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		if (!acquireSingletonCreationLock(beanName, true)) {
+			// Circular reference across threads: the thread creating this singleton waits
+			// for the current thread, so resolve it just like within a single thread.
+			return getEarlySingletonReference(beanName);
+		}
+		try {
+			return createSingleton(beanName, singletonFactory);
+		}
+		finally {
+			releaseSingletonCreationLock(beanName);
+		}
+	}
 
-			if (singletonObject == null) {
+	/**
+	 * Create and register the specified singleton unless registered already,
+	 * within the singleton mutex or the singleton's creation lock.
+	 */
+	private Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		// 从单例缓存中获取 bean 实例
+		Object singletonObject = this.singletonObjects.get(beanName);
 
-				// 如果当前 bean 正在被销毁，则不允许对其进行创建
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
+		if (singletonObject == null) {
 
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
+			// 如果当前 bean 正在被销毁，则不允许对其进行创建
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
 
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+
+			/**
+			 * 单实例创建之前，将当前要创建的对象 beanName 缓存进池，标记当前 bean 正在被创建
+			 * Set<String> singletonsCurrentlyInCreation.add(beanName)，
+			 */
+			beforeSingletonCreation(beanName);
+
+			boolean newSingleton = false;
+			boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions.set(new LinkedHashSet<>());
+			}
+
+			try {
 				/**
-				 * 单实例创建之前，将当前要创建的对象 beanName 缓存进池，标记当前 bean 正在被创建
-				 * Set<String> singletonsCurrentlyInCreation.add(beanName)，
+				 * 调用简单工厂方法来实例化 bean
+				 * 回调 singletonFactory 的 lambda 表达式的内容，来真正创建组件对象
+				 * ObjectFactory 接口只提供了一个方法 getObject()，Spring 默认会通过匿名内部类的方式来实现 getObject() 方法，
+				 * 在 getObject() 方法中添加了 creatBean() 方法来实例化 bean，即是普通工厂模式。
+				 * 这也就是为什么 Spring 一直被称为专门用来创建 bean 的工厂的原因。
 				 */
-				beforeSingletonCreation(beanName);
-
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+				singletonObject = singletonFactory.getObject();
+				newSingleton = true;
+			}
+			catch (IllegalStateException ex) {
+				// Has the singleton object implicitly appeared in the meantime ->
+				// if yes, proceed with it since the exception indicates that state.
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
+					throw ex;
+				}
+			}
+			catch (BeanCreationException ex) {
 				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
+					for (Exception suppressedException : this.suppressedExceptions.get()) {
+						ex.addRelatedCause(suppressedException);
+					}
+				}
+				throw ex;
+			}
+			finally {
+				if (recordSuppressedExceptions) {
+					this.suppressedExceptions.remove();
 				}
 
-				try {
-					/**
-					 * 调用简单工厂方法来实例化 bean
-					 * 回调 singletonFactory 的 lambda 表达式的内容，来真正创建组件对象
-					 * ObjectFactory 接口只提供了一个方法 getObject()，Spring 默认会通过匿名内部类的方式来实现 getObject() 方法，
-					 * 在 getObject() 方法中添加了 creatBean() 方法来实例化 bean，即是普通工厂模式。
-					 * 这也就是为什么 Spring 一直被称为专门用来创建 bean 的工厂的原因。
-					 */
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
+				/**
+				 * 单实例创建结束后，在 Set<String> singletonsCurrentlyInCreation 池中清除当前 bean 的记录
+				 * 即清除 bean 正在创建的状态
+				 */
+				afterSingletonCreation(beanName);
+			}
+			if (newSingleton) {
+				// 将对象保存到 ioc 容器-单例池中，并在二、三级缓存中信息移除。「Map<String, Object> singletonObjects」
+				addSingleton(beanName, singletonObject);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Set whether singletons may be created concurrently, each one within a
+	 * creation lock for its bean name rather than within the singleton mutex.
+	 * <p>Default is "false": singletons get created within the singleton mutex,
+	 * one at a time. {@link DefaultListableBeanFactory} turns this on for
+	 * {@link DefaultListableBeanFactory#setPreInstantiationParallelism parallel
+	 * pre-instantiation}. This is a config-time setting: it is not meant to be
+	 * changed while singletons are being created.
+	 * @since 5.3.5
+	 * @see #acquireSingletonCreationLock
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether singletons may be created concurrently.
+	 * @since 5.3.5
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
+	/**
+	 * Acquire the creation lock for the specified singleton, waiting for any other
+	 * thread that currently creates the same singleton. Only to be used if
+	 * {@link #isConcurrentSingletonCreation() concurrent singleton creation} is on.
+	 * <p>If the thread creating the singleton (transitively) waits for a singleton
+	 * that the current thread creates, the circular reference gets resolved through
+	 * an early singleton reference, just like within a single thread: either by the
+	 * current thread if it accepts an early reference and the other thread has
+	 * exposed one already, or otherwise by another thread of the cycle, with the
+	 * current thread waiting for it. The thread that resolves the cycle continues
+	 * while the other threads of the cycle remain blocked until it is done.
+	 * @param beanName the name of the bean
+	 * @param allowEarlyReference whether the caller accepts an early reference
+	 * to the singleton for resolving a circular reference
+	 * @return {@code true} if the lock has been acquired (to be released through
+	 * {@link #releaseSingletonCreationLock}), or {@code false} if the caller is to
+	 * resolve a circular reference through the early reference to the singleton
+	 * (only possible if {@code allowEarlyReference} is {@code true})
+	 * @throws BeanCurrentlyInCreationException if the singleton is in creation in
+	 * another thread and none of the threads involved can resolve the circular
+	 * reference, if the current thread holds the singleton mutex which the other
+	 * thread needs for completing the singleton, or if interrupted while waiting
+	 * @since 5.3.5
+	 */
+	protected boolean acquireSingletonCreationLock(String beanName, boolean allowEarlyReference) {
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.singletonCreationMonitor) {
+			SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+			while (lock != null && lock.owner != currentThread) {
+				boolean circular = isWaitingFor(lock.owner, currentThread);
+				if (circular && allowEarlyReference && lock.earlyReferenceExposed) {
+					return false;
 				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
+				if (Thread.holdsLock(this.singletonObjects)) {
+					throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in " +
+							"creation in another thread which cannot complete it while the current thread " +
+							"holds the singleton mutex");
 				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
+				SingletonCreationWait wait = new SingletonCreationWait(beanName, allowEarlyReference);
+				if (circular) {
+					if (!canResolveCircularReference(lock.owner, currentThread)) {
+						throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in " +
+								"creation in another thread which waits for a bean in creation in the current " +
+								"thread: Is there an unresolvable circular reference?");
 					}
-					throw ex;
+					// Let the thread that can resolve the circular reference check again
+					this.singletonCreationMonitor.notifyAll();
+				}
+				this.singletonCreationWaits.put(currentThread, wait);
+				try {
+					this.singletonCreationMonitor.wait();
+				}
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCurrentlyInCreationException(beanName,
+							"Interrupted while waiting for creation of singleton bean '" + beanName + "' in another thread");
 				}
 				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
-					}
-
-					/**
-					 * 单实例创建结束后，在 Set<String> singletonsCurrentlyInCreation 池中清除当前 bean 的记录
-					 * 即清除 bean 正在创建的状态
-					 */
-					afterSingletonCreation(beanName);
+					this.singletonCreationWaits.remove(currentThread);
 				}
-				if (newSingleton) {
-					// 将对象保存到 ioc 容器-单例池中，并在二、三级缓存中信息移除。「Map<String, Object> singletonObjects」
-					addSingleton(beanName, singletonObject);
+				lock = this.singletonCreationLocks.get(beanName);
+			}
+			if (lock == null) {
+				lock = new SingletonCreationLock(currentThread);
+				this.singletonCreationLocks.put(beanName, lock);
+			}
+			lock.holdCount++;
+			return true;
+		}
+	}
+
+	/**
+	 * Release the creation lock for the specified singleton,
+	 * previously acquired through {@link #acquireSingletonCreationLock}.
+	 * @param beanName the name of the bean
+	 * @since 5.3.5
+	 */
+	protected void releaseSingletonCreationLock(String beanName) {
+		synchronized (this.singletonCreationMonitor) {
+			SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+			if (lock != null && lock.owner == Thread.currentThread() && --lock.holdCount == 0) {
+				this.singletonCreationLocks.remove(beanName);
+				this.singletonCreationMonitor.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Obtain the early reference to the specified singleton for resolving
+	 * a circular reference across threads.
+	 * @see #acquireSingletonCreationLock
+	 */
+	private Object getEarlySingletonReference(String beanName) {
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = this.earlySingletonObjects.get(beanName);
+				if (singletonObject == null) {
+					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+					if (singletonFactory == null) {
+						throw new BeanCurrentlyInCreationException(beanName);
+					}
+					singletonObject = singletonFactory.getObject();
+					this.earlySingletonObjects.put(beanName, singletonObject);
+					this.singletonFactories.remove(beanName);
 				}
 			}
 			return singletonObject;
 		}
 	}
 
+	/**
+	 * Check whether the given thread (transitively) waits for a singleton
+	 * creation lock held by the specified thread. To be called within the
+	 * creation monitor.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread lockOwner) {
+		Thread current = thread;
+		for (int i = 0; current != null && i <= this.singletonCreationWaits.size(); i++) {
+			if (current == lockOwner) {
+				return true;
+			}
+			SingletonCreationWait wait = this.singletonCreationWaits.get(current);
+			SingletonCreationLock awaitedLock = (wait != null ? this.singletonCreationLocks.get(wait.beanName) : null);
+			current = (awaitedLock != null ? awaitedLock.owner : null);
+		}
+		return false;
+	}
+
+	/**
+	 * Check whether any other thread of the cycle from the given lock owner
+	 * to the current thread can resolve the circular reference through an
+	 * early reference. To be called within the creation monitor.
+	 */
+	private boolean canResolveCircularReference(Thread lockOwner, Thread currentThread) {
+		Thread current = lockOwner;
+		for (int i = 0; current != currentThread && i <= this.singletonCreationWaits.size(); i++) {
+			SingletonCreationWait wait = this.singletonCreationWaits.get(current);
+			SingletonCreationLock awaitedLock = (wait != null ? this.singletonCreationLocks.get(wait.beanName) : null);
+			if (awaitedLock == null) {
+				return false;
+			}
+			if (wait.allowEarlyReference && awaitedLock.earlyReferenceExposed) {
+				return true;
+			}
+			current = awaitedLock.owner;
+		}
+		return false;
+	}
+
+	/**
+	 * Return whether the current thread is the one creating the specified
+	 * singleton, or whether the singleton is in creation without a creation lock.
+	 */
+	private boolean isSingletonCreationThread(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		return (lock == null || lock.owner == Thread.currentThread());
+	}
+
 	/**
 	 * Register an exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -320,10 +550,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see BeanCreationException#getRelatedCauses()
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null && this.suppressedExceptions.size() < SUPPRESSED_EXCEPTIONS_LIMIT) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null && suppressedExceptions.size() < SUPPRESSED_EXCEPTIONS_LIMIT) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -679,10 +908,49 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * any sort of extended singleton creation phase. In particular, subclasses
 	 * should <i>not</i> have their own mutexes involved in singleton creation,
 	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * <p>As of 5.3.5, with {@link #setConcurrentSingletonCreation concurrent
+	 * singleton creation} turned on, the creation of a singleton happens within
+	 * a creation lock for the specific bean name rather than within this mutex.
+	 * A thread holding this mutex must not wait for a singleton in creation in
+	 * another thread then, since that thread needs the mutex for completing it.
+	 * @see #acquireSingletonCreationLock
 	 */
 	@Override
 	public final Object getSingletonMutex() {
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Reentrant creation lock for a specific singleton, held by the creating thread.
+	 */
+	private static final class SingletonCreationLock {
+
+		final Thread owner;
+
+		int holdCount;
+
+		volatile boolean earlyReferenceExposed;
+
+		SingletonCreationLock(Thread owner) {
+			this.owner = owner;
+		}
+	}
+
+
+	/**
+	 * A thread's wait for a singleton creation lock.
+	 */
+	private static final class SingletonCreationWait {
+
+		final String beanName;
+
+		final boolean allowEarlyReference;
+
+		SingletonCreationWait(String beanName, boolean allowEarlyReference) {
+			this.beanName = beanName;
+			this.allowEarlyReference = allowEarlyReference;
+		}
+	}
+
 }
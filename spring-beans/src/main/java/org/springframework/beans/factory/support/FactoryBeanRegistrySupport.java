@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -97,54 +97,18 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
 		// 如果 FactoryBean 默认是单例的，且在单例缓存中存在 beanName 对应的单例对象
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
-
-				Object object = this.factoryBeanObjectCache.get(beanName);
-				if (object == null) {
-
-					/**
-					 * 工厂 bean 创建实例对象
-					 * 第一次来创建时，缓存中肯定为 null。
-					 */
-					object = doGetObjectFromFactoryBean(factory, beanName);
-
-					// Only post-process and store if not put there already during getObject() call above
-					// (e.g. because of circular reference processing triggered by custom getBean calls)
-					Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
-					if (alreadyThere != null) {
-						object = alreadyThere;
-					}
-					else {
-						if (shouldPostProcess) {
-							// 判断当前 bean 是否正在实例化
-							if (isSingletonCurrentlyInCreation(beanName)) {
-								// Temporarily return non-post-processed object, not storing it yet..
-								// 如果当前 bean 正在实例化，则直接返回由 FactoryBean.getObject() 方式创建的 bean 实例对象
-								return object;
-							}
-
-							// 标记当前工厂 bean 开始创建了
-							beforeSingletonCreation(beanName);
-							try {
-								// 在 FactoryBean 创建实例之后，进行一些后续处理操作，默认无任何操作
-								object = postProcessObjectFromFactoryBean(object, beanName);
-							}
-							catch (Throwable ex) {
-								throw new BeanCreationException(beanName,
-										"Post-processing of FactoryBean's singleton object failed", ex);
-							}
-							finally {
-								// 移除 bean 正在创建的标记
-								afterSingletonCreation(beanName);
-							}
-						}
-						if (containsSingleton(beanName)) {
-							// 将 FactoryBean 创建出来的 bean 添加到工厂 bean 缓存 factoryBeanObjectCache 中
-							this.factoryBeanObjectCache.put(beanName, object);
-						}
-					}
+			if (!isConcurrentSingletonCreation()) {
+				synchronized (getSingletonMutex()) {
+					return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
 				}
-				return object;
+			}
+			// Creation lock for the FactoryBean's name, making sure that getObject() gets called once
+			acquireSingletonCreationLock(beanName, false);
+			try {
+				return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+			}
+			finally {
+				releaseSingletonCreationLock(beanName);
 			}
 		}
 		else {
@@ -161,6 +125,59 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 		}
 	}
 
+	/**
+	 * Obtain the singleton object from the given FactoryBean, creating and caching
+	 * it if necessary, within the singleton mutex or the FactoryBean's creation lock.
+	 */
+	private Object getSingletonObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+		Object object = this.factoryBeanObjectCache.get(beanName);
+		if (object == null) {
+
+			/**
+			 * 工厂 bean 创建实例对象
+			 * 第一次来创建时，缓存中肯定为 null。
+			 */
+			object = doGetObjectFromFactoryBean(factory, beanName);
+
+			// Only post-process and store if not put there already during getObject() call above
+			// (e.g. because of circular reference processing triggered by custom getBean calls)
+			Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
+			if (alreadyThere != null) {
+				object = alreadyThere;
+			}
+			else {
+				if (shouldPostProcess) {
+					// 判断当前 bean 是否正在实例化
+					if (isSingletonCurrentlyInCreation(beanName)) {
+						// Temporarily return non-post-processed object, not storing it yet..
+						// 如果当前 bean 正在实例化，则直接返回由 FactoryBean.getObject() 方式创建的 bean 实例对象
+						return object;
+					}
+
+					// 标记当前工厂 bean 开始创建了
+					beforeSingletonCreation(beanName);
+					try {
+						// 在 FactoryBean 创建实例之后，进行一些后续处理操作，默认无任何操作
+						object = postProcessObjectFromFactoryBean(object, beanName);
+					}
+					catch (Throwable ex) {
+						throw new BeanCreationException(beanName,
+								"Post-processing of FactoryBean's singleton object failed", ex);
+					}
+					finally {
+						// 移除 bean 正在创建的标记
+						afterSingletonCreation(beanName);
+					}
+				}
+				if (containsSingleton(beanName)) {
+					// 将 FactoryBean 创建出来的 bean 添加到工厂 bean 缓存 factoryBeanObjectCache 中
+					this.factoryBeanObjectCache.put(beanName, object);
+				}
+			}
+		}
+		return object;
+	}
+
 	/**
 	 * Obtain an object to expose from the given FactoryBean.
 	 * @param factory the FactoryBean instance
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.beans.factory.support;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Properties;
 
 import org.springframework.beans.factory.BeanFactory;
@@ -29,6 +30,7 @@ import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.core.ResolvableType;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * Basic {@link AutowireCandidateResolver} that performs a full generic type
@@ -48,6 +50,9 @@ public class GenericTypeAwareAutowireCandidateResolver extends SimpleAutowireCan
 	@Nullable
 	private BeanFactory beanFactory;
 
+	/** Cache of generic match results, keyed by dependency type and candidate type. */
+	private final Map<GenericTypeMatchKey, Boolean> genericTypeMatchCache = new ConcurrentReferenceHashMap<>(256);
+
 
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
@@ -136,7 +141,17 @@ public class GenericTypeAwareAutowireCandidateResolver extends SimpleAutowireCan
 			return true;
 		}
 		// Full check for complex generic type match...
-		return dependencyType.isAssignableFrom(targetType);
+		return checkGenericTypeMatch(dependencyType, targetType);
+	}
+
+	private boolean checkGenericTypeMatch(ResolvableType dependencyType, ResolvableType targetType) {
+		GenericTypeMatchKey key = new GenericTypeMatchKey(dependencyType, targetType);
+		Boolean match = this.genericTypeMatchCache.get(key);
+		if (match == null) {
+			match = dependencyType.isAssignableFrom(targetType);
+			this.genericTypeMatchCache.put(key, match);
+		}
+		return match;
 	}
 
 	@Nullable
@@ -194,4 +209,39 @@ public class GenericTypeAwareAutowireCandidateResolver extends SimpleAutowireCan
 		}
 	}
 
+
+	/**
+	 * Cache key for the generic match of a dependency type against a candidate type.
+	 * Both types are compared by their (structural) {@link ResolvableType#equals}.
+	 */
+	private static final class GenericTypeMatchKey {
+
+		private final ResolvableType dependencyType;
+
+		private final ResolvableType targetType;
+
+		GenericTypeMatchKey(ResolvableType dependencyType, ResolvableType targetType) {
+			this.dependencyType = dependencyType;
+			this.targetType = targetType;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof GenericTypeMatchKey)) {
+				return false;
+			}
+			GenericTypeMatchKey otherKey = (GenericTypeMatchKey) other;
+			return (this.dependencyType.equals(otherKey.dependencyType) &&
+					this.targetType.equals(otherKey.targetType));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.dependencyType.hashCode() * 29 + this.targetType.hashCode());
+		}
+	}
+
 }
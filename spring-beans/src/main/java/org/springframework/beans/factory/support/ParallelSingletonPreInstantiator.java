@@ -0,0 +1,546 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
+
+/**
+ * Helper for {@link DefaultListableBeanFactory#preInstantiateSingletons()} that
+ * creates non-lazy singletons on up to a given number of threads of an
+ * {@link Executor}, following the dependency graph derived from their bean
+ * definitions.
+ *
+ * <p>A singleton gets scheduled once all singletons that it is known to depend on
+ * have been created: through {@code depends-on} declarations, its factory bean,
+ * bean references in constructor arguments and property values (including inner
+ * bean definitions and managed collections), dependencies already registered for
+ * it, and beans matching the parameter types of an autowired constructor or factory
+ * method. Singletons that are part of a circular reference, as well as singletons
+ * depending on those, are created sequentially on the calling thread once the
+ * parallel phase is complete, preserving the regular early-reference resolution.
+ *
+ * <p>Other dependencies, e.g. autowired fields, are resolved on demand within
+ * the thread creating the dependent singleton. If such dependencies form a cycle
+ * across threads, {@link DefaultSingletonBeanRegistry} hands the early reference
+ * of the singleton in creation over to the thread completing the cycle, so each
+ * singleton is still created exactly once.
+ *
+ * <p>Unless a specific executor is configured, the threads come from a pool of
+ * daemon threads which is created for this pre-instantiation run and shut down at
+ * its end. The actual creation goes through the regular {@code getBean} code path,
+ * so the locking of {@link DefaultSingletonBeanRegistry} applies unchanged. A {@code spring.beans.pre-instantiate.bean} startup step is
+ * recorded for each singleton, tagged with the critical path of dependencies leading
+ * to it; the enclosing {@code spring.beans.pre-instantiate} step reports the overall
+ * critical path which bounds the total pre-instantiation time.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ */
+final class ParallelSingletonPreInstantiator {
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonPreInstantiator.class);
+
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final int parallelism;
+
+	@Nullable
+	private final Executor configuredExecutor;
+
+	@Nullable
+	private Executor executor;
+
+	private final Map<String, Node> nodes;
+
+	private final Map<Class<?>, List<String>> nodeNamesByType = new HashMap<>();
+
+	@Nullable
+	private Map<String, Class<?>> nodeTypes;
+
+	private final Queue<Node> readyNodes = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger activeWorkers = new AtomicInteger();
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	private final CountDownLatch completion = new CountDownLatch(1);
+
+	@Nullable
+	private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+
+	ParallelSingletonPreInstantiator(DefaultListableBeanFactory beanFactory, List<String> beanNames,
+			int parallelism, @Nullable Executor executor) {
+
+		this.beanFactory = beanFactory;
+		this.parallelism = parallelism;
+		this.configuredExecutor = executor;
+		this.nodes = new LinkedHashMap<>(beanNames.size() * 2);
+		for (String beanName : beanNames) {
+			this.nodes.put(beanName, new Node(beanName));
+		}
+		for (Node node : this.nodes.values()) {
+			for (String dependency : collectDependencies(node.beanName)) {
+				Node dependencyNode = this.nodes.get(dependency);
+				if (dependencyNode != null && dependencyNode != node) {
+					node.dependencies.add(dependencyNode);
+				}
+			}
+			for (Node dependencyNode : node.dependencies) {
+				dependencyNode.dependents.add(node);
+			}
+			node.pendingDependencies.set(node.dependencies.size());
+		}
+	}
+
+
+	/**
+	 * Create all singletons, in parallel where possible.
+	 * @throws org.springframework.beans.BeansException if any singleton could not be created
+	 */
+	void preInstantiate() {
+		StartupStep preInstantiate = this.beanFactory.getApplicationStartup().start("spring.beans.pre-instantiate")
+				.tag("parallelism", String.valueOf(this.parallelism))
+				.tag("beanCount", String.valueOf(this.nodes.size()));
+		List<Node> sequentialNodes = determineSequentialNodes();
+		if (logger.isTraceEnabled()) {
+			logger.trace("Pre-instantiating " + this.nodes.size() + " singletons with parallelism " +
+					this.parallelism + " (" + sequentialNodes.size() + " in sequential fallback)");
+		}
+		try {
+			if (sequentialNodes.size() < this.nodes.size()) {
+				instantiateInParallel();
+			}
+			// Singletons of cycles and singletons depending on those, in registration order
+			for (Node node : this.nodes.values()) {
+				if (!node.completed) {
+					instantiate(node);
+				}
+			}
+		}
+		finally {
+			Node last = null;
+			for (Node node : this.nodes.values()) {
+				if (node.completed && (last == null || node.criticalPathNanos > last.criticalPathNanos)) {
+					last = node;
+				}
+			}
+			if (last != null) {
+				preInstantiate.tag("criticalPath", last.getCriticalPath())
+						.tag("criticalPathTime", String.valueOf(TimeUnit.NANOSECONDS.toMillis(last.criticalPathNanos)));
+			}
+			preInstantiate.end();
+		}
+	}
+
+	/**
+	 * Sort the graph topologically: all nodes that cannot be sorted are part of
+	 * a cycle or depend on a cycle, so they never become ready for parallel
+	 * execution and need to be created sequentially instead.
+	 */
+	private List<Node> determineSequentialNodes() {
+		Map<Node, Integer> inDegrees = new LinkedHashMap<>(this.nodes.size() * 2);
+		Deque<Node> ready = new ArrayDeque<>();
+		for (Node node : this.nodes.values()) {
+			inDegrees.put(node, node.dependencies.size());
+			if (node.dependencies.isEmpty()) {
+				ready.add(node);
+			}
+		}
+		while (!ready.isEmpty()) {
+			Node node = ready.poll();
+			inDegrees.remove(node);
+			for (Node dependent : node.dependents) {
+				int inDegree = inDegrees.get(dependent) - 1;
+				inDegrees.put(dependent, inDegree);
+				if (inDegree == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		return new ArrayList<>(inDegrees.keySet());
+	}
+
+	private void instantiateInParallel() {
+		for (Node node : this.nodes.values()) {
+			if (node.dependencies.isEmpty()) {
+				this.readyNodes.add(node);
+			}
+		}
+		ThreadPoolExecutor defaultExecutor = null;
+		if (this.configuredExecutor != null) {
+			this.executor = this.configuredExecutor;
+		}
+		else {
+			defaultExecutor = createDefaultExecutor();
+			this.executor = defaultExecutor;
+		}
+		try {
+			startWorkers();
+			this.completion.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			this.failure.compareAndSet(null, new BeanCreationException(
+					"Interrupted while waiting for parallel pre-instantiation of singletons", ex));
+		}
+		finally {
+			if (defaultExecutor != null) {
+				defaultExecutor.shutdown();
+			}
+		}
+
+		Throwable ex = this.failure.get();
+		if (ex instanceof RuntimeException) {
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+	}
+
+	/**
+	 * Start workers for the ready nodes, up to the configured parallelism.
+	 */
+	private void startWorkers() {
+		while (!this.readyNodes.isEmpty() && this.failure.get() == null) {
+			int active = this.activeWorkers.get();
+			if (active >= this.parallelism) {
+				return;
+			}
+			if (this.activeWorkers.compareAndSet(active, active + 1)) {
+				try {
+					Executor executor = this.executor;
+					Assert.state(executor != null, "No executor");
+					executor.execute(this::work);
+				}
+				catch (Throwable ex) {
+					recordFailure(ex);
+					workerFinished();
+					return;
+				}
+			}
+		}
+	}
+
+	private void work() {
+		Thread currentThread = Thread.currentThread();
+		ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+		currentThread.setContextClassLoader(this.classLoader);
+		try {
+			Node node;
+			while (this.failure.get() == null && (node = this.readyNodes.poll()) != null) {
+				process(node);
+			}
+		}
+		finally {
+			currentThread.setContextClassLoader(previousClassLoader);
+			workerFinished();
+		}
+	}
+
+	private void process(Node node) {
+		try {
+			instantiate(node);
+		}
+		catch (Throwable ex) {
+			recordFailure(ex);
+			return;
+		}
+		for (Node dependent : node.dependents) {
+			if (dependent.pendingDependencies.decrementAndGet() == 0) {
+				this.readyNodes.add(dependent);
+			}
+		}
+		startWorkers();
+	}
+
+	private void workerFinished() {
+		if (this.activeWorkers.decrementAndGet() == 0) {
+			if (this.failure.get() != null || this.readyNodes.isEmpty()) {
+				// No worker left that could make further nodes ready
+				this.completion.countDown();
+			}
+			else {
+				startWorkers();
+			}
+		}
+	}
+
+	private void recordFailure(Throwable ex) {
+		if (!this.failure.compareAndSet(null, ex)) {
+			this.failure.get().addSuppressed(ex);
+		}
+	}
+
+	private void instantiate(Node node) {
+		StartupStep step = this.beanFactory.getApplicationStartup().start("spring.beans.pre-instantiate.bean")
+				.tag("beanName", node.beanName)
+				.tag("thread", Thread.currentThread().getName());
+		long start = System.nanoTime();
+		boolean completed = false;
+		try {
+			this.beanFactory.preInstantiateSingleton(node.beanName);
+			completed = true;
+		}
+		finally {
+			long elapsed = System.nanoTime() - start;
+			Node predecessor = null;
+			for (Node dependency : node.dependencies) {
+				if (dependency.completed &&
+						(predecessor == null || dependency.criticalPathNanos > predecessor.criticalPathNanos)) {
+					predecessor = dependency;
+				}
+			}
+			node.criticalPredecessor = predecessor;
+			node.criticalPathNanos = elapsed + (predecessor != null ? predecessor.criticalPathNanos : 0);
+			node.completed = completed;
+			step.tag("criticalPath", node.getCriticalPath())
+					.tag("criticalPathTime", String.valueOf(TimeUnit.NANOSECONDS.toMillis(node.criticalPathNanos)));
+			step.end();
+		}
+	}
+
+	private Set<String> collectDependencies(String beanName) {
+		RootBeanDefinition mbd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+		Set<String> dependencies = new LinkedHashSet<>();
+		String[] dependsOn = mbd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				dependencies.add(this.beanFactory.transformedBeanName(dependency));
+			}
+		}
+		collectReferences(mbd, dependencies);
+		Collections.addAll(dependencies, this.beanFactory.getDependenciesForBean(beanName));
+		collectAutowiredArguments(beanName, mbd, dependencies);
+		return dependencies;
+	}
+
+	/**
+	 * Collect the beans matching the parameters of the factory method or autowired
+	 * constructor of the given bean, as far as these can be determined upfront.
+	 */
+	private void collectAutowiredArguments(String beanName, RootBeanDefinition mbd, Set<String> dependencies) {
+		Executable executable = null;
+		if (mbd.getFactoryMethodName() != null) {
+			// Only known if already introspected for type prediction
+			executable = mbd.getResolvedFactoryMethod();
+		}
+		else if (mbd.hasBeanClass() && !mbd.hasConstructorArgumentValues()) {
+			Constructor<?>[] ctors;
+			try {
+				ctors = this.beanFactory.determineConstructorsFromBeanPostProcessors(mbd.getBeanClass(), beanName);
+			}
+			catch (BeansException ex) {
+				// Left to regular bean creation
+				return;
+			}
+			if (ctors == null) {
+				ctors = mbd.getPreferredConstructors();
+			}
+			if (ctors != null && ctors.length == 1) {
+				executable = ctors[0];
+			}
+		}
+		if (executable == null) {
+			return;
+		}
+		for (int i = 0; i < executable.getParameterCount(); i++) {
+			MethodParameter parameter = (executable instanceof Method ?
+					new MethodParameter((Method) executable, i) : new MethodParameter((Constructor<?>) executable, i));
+			ResolvableType type = ResolvableType.forMethodParameter(parameter);
+			Class<?> rawType = type.resolve(Object.class);
+			if (ObjectFactory.class.isAssignableFrom(rawType) || rawType.getName().equals("javax.inject.Provider")) {
+				// Resolved lazily
+				continue;
+			}
+			if (rawType == Optional.class || Collection.class.isAssignableFrom(rawType)) {
+				type = type.getGeneric();
+			}
+			else if (Map.class.isAssignableFrom(rawType)) {
+				type = type.getGeneric(1);
+			}
+			else if (rawType.isArray()) {
+				type = type.getComponentType();
+			}
+			Class<?> dependencyType = type.resolve();
+			if (dependencyType != null && dependencyType != Object.class) {
+				dependencies.addAll(this.nodeNamesByType.computeIfAbsent(dependencyType, this::findNodeNames));
+			}
+		}
+	}
+
+	/**
+	 * Find the nodes whose predicted bean type matches the given dependency type.
+	 * Generics and qualifiers are not taken into account, possibly leading to extra
+	 * dependencies which only reduce the parallelism, though.
+	 */
+	private List<String> findNodeNames(Class<?> dependencyType) {
+		if (this.nodeTypes == null) {
+			this.nodeTypes = new LinkedHashMap<>(this.nodes.size() * 2);
+			for (String beanName : this.nodes.keySet()) {
+				Class<?> beanType = this.beanFactory.getType(beanName, false);
+				if (beanType != null) {
+					this.nodeTypes.put(beanName, beanType);
+				}
+			}
+		}
+		List<String> nodeNames = new ArrayList<>(1);
+		this.nodeTypes.forEach((beanName, beanType) -> {
+			if (dependencyType.isAssignableFrom(beanType)) {
+				nodeNames.add(beanName);
+			}
+		});
+		return nodeNames;
+	}
+
+	private void collectReferences(BeanDefinition bd, Set<String> dependencies) {
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(this.beanFactory.transformedBeanName(bd.getFactoryBeanName()));
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getIndexedArgumentValues().values()) {
+				collectReferences(valueHolder.getValue(), dependencies);
+			}
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getGenericArgumentValues()) {
+				collectReferences(valueHolder.getValue(), dependencies);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectReferences(pv.getValue(), dependencies);
+			}
+		}
+	}
+
+	private void collectReferences(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (ref.getBeanType() == null && !ref.isToParent()) {
+				dependencies.add(this.beanFactory.transformedBeanName(ref.getBeanName()));
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectReferences(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectReferences((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferences(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferences(entry.getKey(), dependencies);
+				collectReferences(entry.getValue(), dependencies);
+			}
+		}
+	}
+
+
+	/**
+	 * Create the executor for this pre-instantiation run if none is configured:
+	 * a pool of daemon threads, up to the configured parallelism, which is shut
+	 * down once the parallel phase is complete.
+	 */
+	private ThreadPoolExecutor createDefaultExecutor() {
+		CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("preInstantiateSingletons-");
+		threadCreator.setDaemon(true);
+		return new ThreadPoolExecutor(this.parallelism, this.parallelism, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadCreator::createThread);
+	}
+
+
+	/**
+	 * A singleton in the dependency graph.
+	 */
+	private static final class Node {
+
+		final String beanName;
+
+		final List<Node> dependencies = new ArrayList<>(4);
+
+		final List<Node> dependents = new ArrayList<>(4);
+
+		final AtomicInteger pendingDependencies = new AtomicInteger();
+
+		volatile boolean completed;
+
+		volatile long criticalPathNanos;
+
+		@Nullable
+		volatile Node criticalPredecessor;
+
+		Node(String beanName) {
+			this.beanName = beanName;
+		}
+
+		String getCriticalPath() {
+			Deque<String> path = new ArrayDeque<>();
+			for (Node node = this; node != null; node = node.criticalPredecessor) {
+				path.addFirst(node.beanName);
+			}
+			return String.join(" -> ", path);
+		}
+	}
+
+}
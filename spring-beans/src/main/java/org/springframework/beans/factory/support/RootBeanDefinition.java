@@ -118,6 +118,10 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	@Nullable
 	volatile Boolean beforeInstantiationResolved;
 
+	/** Package-visible field for caching the instantiation plan of a non-singleton bean. */
+	@Nullable
+	volatile BeanInstantiationPlan instantiationPlan;
+
 	@Nullable
 	private Set<Member> externallyManagedConfigMembers;
 
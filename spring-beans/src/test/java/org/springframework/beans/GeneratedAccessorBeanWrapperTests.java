@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Runs the {@link BeanWrapperTests} against a {@link BeanWrapperImpl} with
+ * {@link BeanWrapperImpl#setUseGeneratedAccessors generated accessors}.
+ *
+ * @author agent (agent@local)
+ */
+public class GeneratedAccessorBeanWrapperTests extends BeanWrapperTests {
+
+	@Override
+	protected BeanWrapperImpl createAccessor(Object target) {
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setUseGeneratedAccessors(true);
+		return accessor;
+	}
+
+
+	@Test
+	public void accessorGeneratedForPublicClass() {
+		TestBean target = new TestBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("age", "42");
+		accessor.setPropertyValue("name", "tom");
+		assertThat(target.getAge()).isEqualTo(42);
+		assertThat(accessor.getPropertyValue("name")).isEqualTo("tom");
+
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(TestBean.class);
+		PropertyMethodAccessor methodAccessor = results.getPropertyMethodAccessor(results.getPropertyDescriptor("age"));
+		assertThat(methodAccessor.isReadable()).isTrue();
+		assertThat(methodAccessor.isWritable(42)).isTrue();
+		assertThat(methodAccessor.isWritable(null)).isFalse();
+		assertThat(methodAccessor.isWritable("42")).isFalse();
+	}
+
+	@Test
+	public void reflectionFallbackForNonPublicClass() {
+		NonPublicBean target = new NonPublicBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("name", "tom");
+		assertThat(accessor.getPropertyValue("name")).isEqualTo("tom");
+
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(NonPublicBean.class);
+		PropertyMethodAccessor methodAccessor = results.getPropertyMethodAccessor(results.getPropertyDescriptor("name"));
+		assertThat(methodAccessor.isReadable()).isFalse();
+		assertThat(methodAccessor.isWritable("tom")).isFalse();
+	}
+
+	@Test
+	public void setterExceptionExposedAsMethodInvocationException() {
+		TestBean target = new TestBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		assertThatExceptionOfType(MethodInvocationException.class).isThrownBy(() ->
+				accessor.setPropertyValue("touchy", "valid.with.dots"))
+			.withCauseInstanceOf(Exception.class)
+			.satisfies(ex -> assertThat(ex.getPropertyName()).isEqualTo("touchy"));
+	}
+
+
+	@SuppressWarnings("unused")
+	private static class NonPublicBean {
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -26,7 +26,9 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +39,12 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -1413,6 +1421,168 @@ class DefaultListableBeanFactoryTests {
 			.withMessageContaining("'tb1'");
 	}
 
+	@Test
+	void parallelPreInstantiation() throws InterruptedException {
+		List<String> created = Collections.synchronizedList(new ArrayList<>());
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				created.add(beanName);
+				threads.add(Thread.currentThread());
+				return bean;
+			}
+		});
+		for (int i = 0; i < 20; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			if (i % 4 != 0) {
+				bd.setDependsOn("tb" + (i - 1));
+			}
+			if (i % 5 == 4) {
+				bd.getPropertyValues().add("spouse", new RuntimeBeanReference("tb" + (i - 4)));
+			}
+			lbf.registerBeanDefinition("tb" + i, bd);
+		}
+		RootBeanDefinition lazy = new RootBeanDefinition(TestBean.class);
+		lazy.setLazyInit(true);
+		lbf.registerBeanDefinition("lazy", lazy);
+		lbf.setPreInstantiationParallelism(4);
+		lbf.preInstantiateSingletons();
+
+		assertThat(created).hasSize(20).doesNotContain("lazy");
+		for (int i = 0; i < 20; i++) {
+			if (i % 4 != 0) {
+				assertThat(created.indexOf("tb" + (i - 1))).isLessThan(created.indexOf("tb" + i));
+			}
+		}
+		assertThat(lbf.getBean("tb4", TestBean.class).getSpouse()).isSameAs(lbf.getBean("tb0"));
+		assertThat(threads).allMatch(thread -> thread.getName().startsWith("preInstantiateSingletons-"));
+		// Default pool shut down after pre-instantiation
+		for (Thread thread : threads) {
+			thread.join(5000);
+			assertThat(thread.isAlive()).isFalse();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithCustomExecutor() {
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newCachedThreadPool(
+				runnable -> new Thread(runnable, "custom-" + threadCount.incrementAndGet()));
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				threadNames.add(Thread.currentThread().getName());
+				return bean;
+			}
+		});
+		for (int i = 0; i < 10; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+		}
+		lbf.setPreInstantiationParallelism(2);
+		lbf.setPreInstantiationExecutor(executor);
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(threadNames).isNotEmpty().allMatch(name -> name.startsWith("custom-"));
+		assertThat(threadCount.get()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void parallelPreInstantiationWithUndeclaredCircularReferences() {
+		CountDownLatch bothInCreation = new CountDownLatch(2);
+		List<String> initialized = Collections.synchronizedList(new ArrayList<>());
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				initialized.add(beanName);
+				// References not known upfront, requested while both singletons are in creation
+				bothInCreation.countDown();
+				try {
+					bothInCreation.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				((TestBean) bean).setSpouse(lbf.getBean(beanName.equals("tb1") ? "tb2" : "tb1", TestBean.class));
+				return bean;
+			}
+		});
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(TestBean.class));
+		lbf.setPreInstantiationParallelism(2);
+		lbf.preInstantiateSingletons();
+
+		TestBean tb1 = lbf.getBean("tb1", TestBean.class);
+		TestBean tb2 = lbf.getBean("tb2", TestBean.class);
+		assertThat(tb1.getSpouse()).isSameAs(tb2);
+		assertThat(tb2.getSpouse()).isSameAs(tb1);
+		// Each singleton created once, without a sequential retry
+		assertThat(initialized).containsExactlyInAnyOrder("tb1", "tb2");
+	}
+
+	@Test
+	void parallelPreInstantiationWithCircularReferences() {
+		RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+		bd1.getPropertyValues().add("spouse", new RuntimeBeanReference("tb2"));
+		lbf.registerBeanDefinition("tb1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+		bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("tb1"));
+		lbf.registerBeanDefinition("tb2", bd2);
+		RootBeanDefinition bd3 = new RootBeanDefinition(TestBean.class);
+		bd3.getPropertyValues().add("spouse", new RuntimeBeanReference("tb2"));
+		lbf.registerBeanDefinition("tb3", bd3);
+		lbf.registerBeanDefinition("tb4", new RootBeanDefinition(TestBean.class));
+		lbf.setPreInstantiationParallelism(2);
+		lbf.preInstantiateSingletons();
+
+		TestBean tb1 = lbf.getBean("tb1", TestBean.class);
+		TestBean tb2 = lbf.getBean("tb2", TestBean.class);
+		assertThat(tb1.getSpouse()).isSameAs(tb2);
+		assertThat(tb2.getSpouse()).isSameAs(tb1);
+		assertThat(lbf.getBean("tb3", TestBean.class).getSpouse()).isSameAs(tb2);
+		assertThat(lbf.containsSingleton("tb4")).isTrue();
+	}
+
+	@Test
+	void parallelPreInstantiationWithFailure() {
+		for (int i = 0; i < 5; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+		}
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("nonExisting", "value");
+		lbf.registerBeanDefinition("broken", bd);
+		RootBeanDefinition dependent = new RootBeanDefinition(TestBean.class);
+		dependent.setDependsOn("broken");
+		lbf.registerBeanDefinition("dependent", dependent);
+		lbf.setPreInstantiationParallelism(3);
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(
+				lbf::preInstantiateSingletons)
+			.withMessageContaining("'broken'");
+		assertThat(lbf.containsSingleton("dependent")).isFalse();
+	}
+
+	@Test
+	void parallelPreInstantiationWithDependsOnCycle() {
+		RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+		bd1.setDependsOn("tb2");
+		lbf.registerBeanDefinition("tb1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+		bd2.setDependsOn("tb1");
+		lbf.registerBeanDefinition("tb2", bd2);
+		lbf.registerBeanDefinition("tb3", new RootBeanDefinition(TestBean.class));
+		lbf.setPreInstantiationParallelism(2);
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(
+				lbf::preInstantiateSingletons)
+			.withMessageContaining("Circular");
+		assertThat(lbf.containsSingleton("tb3")).isTrue();
+	}
+
 	@Test
 	void getBeanByTypeWithNoneFound() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
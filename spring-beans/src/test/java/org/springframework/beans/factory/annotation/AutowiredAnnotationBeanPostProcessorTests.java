@@ -134,6 +134,31 @@ public class AutowiredAnnotationBeanPostProcessorTests {
 		assertThat(bean.getTestBean2()).isSameAs(tb);
 	}
 
+	@Test
+	public void testResourceInjectionWithRepeatedPrototypeCreation() {
+		RootBeanDefinition bd = new RootBeanDefinition(ResourceInjectionBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("annotatedBean", bd);
+		RootBeanDefinition tbd = new RootBeanDefinition(TestBean.class);
+		bf.registerBeanDefinition("testBean", tbd);
+		TestBean tb = bf.getBean("testBean", TestBean.class);
+
+		// Beyond the threshold for switching to optimized injectors
+		for (int i = 0; i < MemberInjector.OPTIMIZATION_THRESHOLD * 2; i++) {
+			ResourceInjectionBean bean = (ResourceInjectionBean) bf.getBean("annotatedBean");
+			assertThat(bean.getTestBean()).isSameAs(tb);
+			assertThat(bean.getTestBean2()).isSameAs(tb);
+		}
+
+		// Shortcut for target bean name not applicable anymore -> re-resolve
+		bf.removeBeanDefinition("testBean");
+		TestBean tb2 = new TestBean();
+		bf.registerSingleton("testBean2", tb2);
+		ResourceInjectionBean bean = (ResourceInjectionBean) bf.getBean("annotatedBean");
+		assertThat(bean.getTestBean()).isSameAs(tb2);
+		assertThat(bean.getTestBean2()).isSameAs(tb2);
+	}
+
 	@Test
 	public void testExtendedResourceInjection() {
 		RootBeanDefinition bd = new RootBeanDefinition(TypedExtendedResourceInjectionBean.class);
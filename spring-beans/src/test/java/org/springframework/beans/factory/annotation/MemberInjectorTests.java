@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.annotation;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link MemberInjector}, before and after switching
+ * to an optimized injector.
+ *
+ * @author agent (agent@local)
+ */
+class MemberInjectorTests {
+
+	private static final int INJECTIONS = MemberInjector.OPTIMIZATION_THRESHOLD * 2;
+
+
+	@Test
+	void sharedInjectorPerMember() {
+		Field field = ReflectionUtils.findField(InjectionTarget.class, "testBean");
+		assertThat(MemberInjector.forMember(field)).isSameAs(MemberInjector.forMember(field));
+	}
+
+	@Test
+	void fieldInjection() throws Throwable {
+		MemberInjector injector = MemberInjector.forMember(ReflectionUtils.findField(InjectionTarget.class, "testBean"));
+		for (int i = 0; i < INJECTIONS; i++) {
+			InjectionTarget target = new InjectionTarget();
+			TestBean tb = new TestBean();
+			injector.setFieldValue(target, tb);
+			assertThat(target.testBean).isSameAs(tb);
+			injector.setFieldValue(target, null);
+			assertThat(target.testBean).isNull();
+		}
+		assertThatIllegalArgumentException().isThrownBy(() -> injector.setFieldValue(new InjectionTarget(), "value"));
+	}
+
+	@Test
+	void primitiveFieldInjection() throws Throwable {
+		MemberInjector injector = MemberInjector.forMember(ReflectionUtils.findField(InjectionTarget.class, "age"));
+		for (int i = 0; i < INJECTIONS; i++) {
+			InjectionTarget target = new InjectionTarget();
+			injector.setFieldValue(target, i);
+			assertThat(target.age).isEqualTo(i);
+		}
+		assertThatIllegalArgumentException().isThrownBy(() -> injector.setFieldValue(new InjectionTarget(), null));
+	}
+
+	@Test
+	void methodInjection() throws Throwable {
+		Method method = ReflectionUtils.findMethod(InjectionTarget.class, "setName", String.class);
+		MemberInjector injector = MemberInjector.forMember(method);
+		for (int i = 0; i < INJECTIONS; i++) {
+			InjectionTarget target = new InjectionTarget();
+			injector.invokeMethod(target, "name" + i);
+			assertThat(target.name).isEqualTo("name" + i);
+		}
+		assertThatIllegalArgumentException().isThrownBy(() -> injector.invokeMethod(new InjectionTarget(), 1));
+		assertThatIllegalStateException().isThrownBy(() -> injector.invokeMethod(new InjectionTarget(), "fail"));
+	}
+
+	@Test
+	void multiArgumentMethodInjection() throws Throwable {
+		Method method = ReflectionUtils.findMethod(InjectionTarget.class, "init", String.class, int.class);
+		MemberInjector injector = MemberInjector.forMember(method);
+		for (int i = 0; i < INJECTIONS; i++) {
+			InjectionTarget target = new InjectionTarget();
+			injector.invokeMethod(target, "name" + i, i);
+			assertThat(target.name).isEqualTo("name" + i);
+			assertThat(target.age).isEqualTo(i);
+		}
+	}
+
+
+	public static class InjectionTarget {
+
+		private TestBean testBean;
+
+		private int age;
+
+		private String name;
+
+		public void setName(String name) {
+			if ("fail".equals(name)) {
+				throw new IllegalStateException("Injection failure");
+			}
+			this.name = name;
+		}
+
+		public void init(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BeanInstantiationPlan} and its use for re-creating
+ * non-singleton beans in a {@link DefaultListableBeanFactory}.
+ *
+ * @author agent (agent@local)
+ */
+class BeanInstantiationPlanTests {
+
+	@Test
+	void planDerivedOnRecreation() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.setInitMethodName("absquatulate");
+		bf.registerBeanDefinition("tb", bd);
+
+		TestBean tb1 = bf.getBean("tb", TestBean.class);
+		RootBeanDefinition mbd = bf.getMergedLocalBeanDefinition("tb");
+		assertThat(mbd.instantiationPlan).isNull();
+		TestBean tb2 = bf.getBean("tb", TestBean.class);
+		assertThat(mbd.instantiationPlan).isNotNull();
+		assertThat(mbd.instantiationPlan.canInstantiate(bf.getInstantiationStrategy())).isTrue();
+		assertThat(mbd.instantiationPlan.isBeanWrapperInitializationDeferred()).isTrue();
+		TestBean tb3 = bf.getBean("tb", TestBean.class);
+		assertThat(tb3).isNotSameAs(tb2).isNotSameAs(tb1);
+		assertThat(tb3.getBeanFactory()).isSameAs(bf);
+	}
+
+	@Test
+	void noPlanForSingletonOrConstructorAutowiring() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerBeanDefinition("singleton", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("singleton"));
+		bf.registerBeanDefinition("tb", bd);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bf.getBean("tb", TestBean.class).getSpouse()).isSameAs(bf.getBean("singleton"));
+		}
+		assertThat(bf.getMergedLocalBeanDefinition("singleton").instantiationPlan).isNull();
+		RootBeanDefinition mbd = bf.getMergedLocalBeanDefinition("tb");
+		assertThat(mbd.instantiationPlan).isNotNull();
+		assertThat(mbd.instantiationPlan.canInstantiate(bf.getInstantiationStrategy())).isFalse();
+	}
+
+	@Test
+	void propertyValuesFromPostProcessorConvertedWithDeferredInitialization() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.addPropertyEditorRegistrar(registry -> registry.registerCustomEditor(String.class, new StringTrimmerEditor(false)));
+		bf.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {
+			@Override
+			public PropertyValues postProcessProperties(PropertyValues pvs, Object bean, String beanName) {
+				return new MutablePropertyValues(pvs).add("name", "  juergen  ");
+			}
+		});
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("tb", bd);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bf.getBean("tb", TestBean.class).getName()).isEqualTo("juergen");
+		}
+		assertThat(bf.getMergedLocalBeanDefinition("tb").instantiationPlan.isBeanWrapperInitializationDeferred()).isTrue();
+	}
+
+	@Test
+	void propertyValuesFromBeanDefinitionWithoutDeferredInitialization() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.addPropertyEditorRegistrar(registry -> registry.registerCustomEditor(String.class, new StringTrimmerEditor(false)));
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", "  juergen  ");
+		bf.registerBeanDefinition("tb", bd);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bf.getBean("tb", TestBean.class).getName()).isEqualTo("juergen");
+		}
+		assertThat(bf.getMergedLocalBeanDefinition("tb").instantiationPlan.isBeanWrapperInitializationDeferred()).isFalse();
+	}
+
+	@Test
+	void constructorExceptionExposedOnReplay() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(FailingBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("fb", bd);
+
+		FailingBean.fail = false;
+		bf.getBean("fb");
+		bf.getBean("fb");
+		assertThat(bf.getMergedLocalBeanDefinition("fb").instantiationPlan).isNotNull();
+		FailingBean.fail = true;
+		try {
+			assertThatExceptionOfType(BeanCreationException.class).isThrownBy(() -> bf.getBean("fb"))
+					.withCauseInstanceOf(BeanInstantiationException.class)
+					.withRootCauseInstanceOf(IllegalStateException.class);
+		}
+		finally {
+			FailingBean.fail = false;
+		}
+	}
+
+	@Test
+	void postProcessorsWithDefaultCallbacksNotApplied() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		BeanPostProcessor beforeOnly = new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return bean;
+			}
+		};
+		InstantiationAwareBeanPostProcessor noCallbacks = new InstantiationAwareBeanPostProcessor() {};
+		bf.addBeanPostProcessor(beforeOnly);
+		bf.addBeanPostProcessor(noCallbacks);
+
+		AbstractBeanFactory.BeanPostProcessorCache bpCache = bf.getBeanPostProcessorCache();
+		assertThat(bpCache.beforeInitialization).containsExactly(beforeOnly);
+		assertThat(bpCache.afterInitialization).isEmpty();
+		assertThat(bpCache.instantiationAware).containsExactly(noCallbacks);
+		assertThat(bpCache.afterInstantiationAware).isEmpty();
+		assertThat(bpCache.propertiesAware).isEmpty();
+	}
+
+
+	public static class FailingBean {
+
+		static volatile boolean fail;
+
+		public FailingBean() {
+			if (fail) {
+				throw new IllegalStateException("Constructor failure");
+			}
+		}
+	}
+
+}
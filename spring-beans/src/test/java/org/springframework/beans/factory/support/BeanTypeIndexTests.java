@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Proxy;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.testfixture.beans.AgeHolder;
+import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.DummyFactory;
+import org.springframework.beans.testfixture.beans.FactoryMethods;
+import org.springframework.beans.testfixture.beans.INestedTestBean;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.NestedTestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.ResolvableType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BeanTypeIndex}, comparing by-type lookups in a
+ * {@link DefaultListableBeanFactory} with and without type index.
+ *
+ * @author agent (agent@local)
+ */
+class BeanTypeIndexTests {
+
+	@Test
+	void matchesFullScanInRegistrationOrder() {
+		assertSameResults(bf -> {
+			registerBeans(bf);
+			assertBeanNames(bf, TestBean.class, "tb1", "factory", "tb2", "derived", "child");
+			assertBeanNames(bf, ITestBean.class, "tb1", "factory", "tb2", "derived", "child");
+			assertBeanNames(bf, AgeHolder.class, "tb1", "factory", "tb2", "derived", "child");
+			assertBeanNames(bf, DerivedTestBean.class, "derived");
+			assertBeanNames(bf, INestedTestBean.class, "nested");
+			assertBeanNames(bf, FactoryMethods.class, "factoryMethod");
+			assertBeanNames(bf, DummyFactory.class, "&factory");
+			assertBeanNames(bf, Runnable.class);
+			assertThat(bf.getBeanNamesForType(Object.class)).hasSize(7);
+			assertThat(bf.getBeanNamesForType(ResolvableType.forClassWithGenerics(Comparable.class, Object.class)))
+					.containsExactly("tb1", "factory", "tb2", "derived", "child");
+		});
+	}
+
+	@Test
+	void narrowsDownCandidates() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		registerBeans(bf);
+		BeanTypeIndex typeIndex = new BeanTypeIndex(bf);
+		for (String beanName : bf.getBeanDefinitionNames()) {
+			typeIndex.register(beanName);
+		}
+		assertThat(typeIndex.getCandidateNames(INestedTestBean.class)).containsExactly("factory", "nested", "factoryMethod");
+		assertThat(typeIndex.getCandidateNames(TestBean.class)).containsExactly("tb1", "factory", "tb2", "derived", "factoryMethod", "child");
+		typeIndex.remove("factory");
+		assertThat(typeIndex.getCandidateNames(Runnable.class)).containsExactly("factoryMethod");
+	}
+
+	@Test
+	void reflectsRegistrationChanges() {
+		assertSameResults(bf -> {
+			registerBeans(bf);
+			assertBeanNames(bf, NestedTestBean.class, "nested");
+			bf.registerBeanDefinition("nested", new RootBeanDefinition(TestBean.class));
+			assertBeanNames(bf, NestedTestBean.class);
+			assertBeanNames(bf, TestBean.class, "tb1", "factory", "tb2", "nested", "derived", "child");
+			bf.removeBeanDefinition("tb2");
+			assertBeanNames(bf, TestBean.class, "tb1", "factory", "nested", "derived", "child");
+			bf.registerBeanDefinition("tb2", new RootBeanDefinition(TestBean.class));
+			assertBeanNames(bf, TestBean.class, "tb1", "factory", "nested", "derived", "child", "tb2");
+			bf.registerBeanDefinition("parent", new RootBeanDefinition(NestedTestBean.class));
+			assertBeanNames(bf, TestBean.class, "tb1", "factory", "nested", "derived", "tb2");
+			assertBeanNames(bf, NestedTestBean.class, "parent", "child");
+			bf.registerSingleton("manual", new NestedTestBean());
+			assertBeanNames(bf, NestedTestBean.class, "parent", "child", "manual");
+		});
+	}
+
+	@Test
+	void considersSingletonInstanceType() {
+		assertSameResults(bf -> {
+			bf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+			bf.addBeanPostProcessor(new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return Proxy.newProxyInstance(getClass().getClassLoader(),
+							new Class<?>[] {ITestBean.class, Runnable.class}, (proxy, method, args) -> null);
+				}
+			});
+			assertBeanNames(bf, Runnable.class);
+			bf.getBean("tb");
+			assertBeanNames(bf, Runnable.class, "tb");
+			assertBeanNames(bf, ITestBean.class, "tb");
+			assertBeanNames(bf, TestBean.class);
+		});
+	}
+
+	@Test
+	void considersPredictedType() {
+		assertSameResults(bf -> {
+			bf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+			bf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+			assertBeanNames(bf, DerivedTestBean.class);
+			bf.addBeanPostProcessor(new SmartInstantiationAwareBeanPostProcessor() {
+				@Override
+				public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+					return (beanName.equals("tb") ? DerivedTestBean.class : null);
+				}
+			});
+			assertBeanNames(bf, DerivedTestBean.class, "tb");
+			assertBeanNames(bf, NestedTestBean.class, "nested");
+		});
+	}
+
+
+	private static void registerBeans(DefaultListableBeanFactory bf) {
+		bf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		bf.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		bf.registerBeanDefinition("tb2", new RootBeanDefinition(TestBean.class));
+		bf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		bf.registerBeanDefinition("derived", new RootBeanDefinition(DerivedTestBean.class));
+		RootBeanDefinition factoryMethod = new RootBeanDefinition(FactoryMethods.class);
+		factoryMethod.setFactoryMethodName("defaultInstance");
+		bf.registerBeanDefinition("factoryMethod", factoryMethod);
+		RootBeanDefinition parent = new RootBeanDefinition(TestBean.class);
+		parent.setAbstract(true);
+		bf.registerBeanDefinition("parent", parent);
+		bf.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+	}
+
+	private static void assertSameResults(Consumer<DefaultListableBeanFactory> scenario) {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		scenario.accept(bf);
+		DefaultListableBeanFactory indexedBf = new DefaultListableBeanFactory();
+		indexedBf.setUseBeanTypeIndex(true);
+		scenario.accept(indexedBf);
+	}
+
+	private static void assertBeanNames(DefaultListableBeanFactory bf, Class<?> type, String... beanNames) {
+		assertThat(bf.getBeanNamesForType(type)).containsExactly(beanNames);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,28 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.beans.testfixture.beans.DerivedTestBean;
 import org.springframework.beans.testfixture.beans.TestBean;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 /**
  * @author Juergen Hoeller
@@ -101,4 +115,276 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(beanRegistry.isDependent("c", "c")).isTrue();
 	}
 
+	@Test
+	public void testConcurrentCreationOfDifferentSingletons() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+		CountDownLatch bothInCreation = new CountDownLatch(2);
+		ObjectFactory<Object> singletonFactory = () -> {
+			bothInCreation.countDown();
+			try {
+				// Only completes if the other singleton gets created at the same time
+				assertThat(bothInCreation.await(5, TimeUnit.SECONDS)).isTrue();
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return new TestBean();
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb1 = executor.submit(() -> beanRegistry.getSingleton("tb1", singletonFactory));
+			Future<Object> tb2 = executor.submit(() -> beanRegistry.getSingleton("tb2", singletonFactory));
+			assertThat(tb1.get(10, TimeUnit.SECONDS)).isSameAs(beanRegistry.getSingleton("tb1"));
+			assertThat(tb2.get(10, TimeUnit.SECONDS)).isSameAs(beanRegistry.getSingleton("tb2"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentCreationOfSameSingleton() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+		AtomicInteger creationCount = new AtomicInteger();
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		ObjectFactory<Object> singletonFactory = () -> {
+			creationCount.incrementAndGet();
+			inCreation.countDown();
+			try {
+				proceed.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return new TestBean();
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb1 = executor.submit(() -> beanRegistry.getSingleton("tb", singletonFactory));
+			assertThat(inCreation.await(5, TimeUnit.SECONDS)).isTrue();
+			Future<Object> tb2 = executor.submit(() -> beanRegistry.getSingleton("tb", singletonFactory));
+			Thread.sleep(50);
+			proceed.countDown();
+			assertThat(tb2.get(10, TimeUnit.SECONDS)).isSameAs(tb1.get(10, TimeUnit.SECONDS));
+			assertThat(creationCount.get()).isEqualTo(1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentCreationOfCircularReferences() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		CountDownLatch bothInstantiated = registerCircularReferences(beanFactory);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb1 = executor.submit(() -> beanFactory.getBean("tb1"));
+			Future<Object> tb2 = executor.submit(() -> beanFactory.getBean("tb2"));
+			TestBean bean1 = (TestBean) tb1.get(10, TimeUnit.SECONDS);
+			TestBean bean2 = (TestBean) tb2.get(10, TimeUnit.SECONDS);
+			assertThat(bothInstantiated.getCount()).isEqualTo(0);
+			assertThat(bean1.getSpouse()).isSameAs(bean2);
+			assertThat(bean2.getSpouse()).isSameAs(bean1);
+			assertThat(beanFactory.getBean("tb1")).isSameAs(bean1);
+			assertThat(beanFactory.getBean("tb2")).isSameAs(bean2);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentCreationOfCircularReferencesWithCreationLocks() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setConcurrentSingletonCreation(true);
+		CountDownLatch bothInstantiated = registerCircularReferences(beanFactory);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb1 = executor.submit(() -> beanFactory.getBean("tb1"));
+			Future<Object> tb2 = executor.submit(() -> beanFactory.getBean("tb2"));
+			// Both singletons in creation at the same time, with one thread resolving
+			// the circular reference while the other one waits for it
+			assertThat(bothInstantiated.await(5, TimeUnit.SECONDS)).isTrue();
+			TestBean bean1 = (TestBean) tb1.get(10, TimeUnit.SECONDS);
+			TestBean bean2 = (TestBean) tb2.get(10, TimeUnit.SECONDS);
+			assertThat(bean1.getSpouse()).isSameAs(bean2);
+			assertThat(bean2.getSpouse()).isSameAs(bean1);
+			assertThat(beanFactory.getBean("tb1")).isSameAs(bean1);
+			assertThat(beanFactory.getBean("tb2")).isSameAs(bean2);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentCreationOfUnresolvableCircularReferences() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setConcurrentSingletonCreation(true);
+		CountDownLatch bothInCreation = new CountDownLatch(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(CircularConstructorBean.class);
+		bd1.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("tb2"));
+		beanFactory.registerBeanDefinition("tb1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(CircularConstructorBean.class);
+		bd2.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("tb1"));
+		beanFactory.registerBeanDefinition("tb2", bd2);
+		beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+				if (beanClass == CircularConstructorBean.class) {
+					awaitOther(bothInCreation);
+				}
+				return null;
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb1 = executor.submit(() -> beanFactory.getBean("tb1"));
+			Future<Object> tb2 = executor.submit(() -> beanFactory.getBean("tb2"));
+			// No deadlock but the same failure as within a single thread
+			for (Future<Object> future : Arrays.asList(tb1, tb2)) {
+				assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+						.withRootCauseInstanceOf(BeanCurrentlyInCreationException.class);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentCreationOfCircularFactoryBeanObject() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setConcurrentSingletonCreation(true);
+		AtomicInteger objectCount = new AtomicInteger();
+		CountDownLatch bothInCreation = new CountDownLatch(2);
+		beanFactory.registerSingleton("fb", new FactoryBean<TestBean>() {
+			@Override
+			public TestBean getObject() {
+				objectCount.incrementAndGet();
+				awaitOther(bothInCreation);
+				beanFactory.getBean("tb");
+				return new TestBean();
+			}
+			@Override
+			public Class<?> getObjectType() {
+				return TestBean.class;
+			}
+		});
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("spouse", new RuntimeBeanReference("fb"));
+		beanFactory.registerBeanDefinition("tb", bd);
+		beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {
+			@Override
+			public boolean postProcessAfterInstantiation(Object bean, String beanName) throws BeansException {
+				awaitOther(bothInCreation);
+				return true;
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> fb = executor.submit(() -> beanFactory.getBean("fb"));
+			Future<Object> tb = executor.submit(() -> beanFactory.getBean("tb"));
+			Object object = fb.get(10, TimeUnit.SECONDS);
+			assertThat(((TestBean) tb.get(10, TimeUnit.SECONDS)).getSpouse()).isSameAs(object);
+			assertThat(beanFactory.getBean("fb")).isSameAs(object);
+			assertThat(objectCount.get()).isEqualTo(1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentCreationWhileHoldingSingletonMutex() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setConcurrentSingletonCreation(true);
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		beanFactory.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {
+			@Override
+			public boolean postProcessAfterInstantiation(Object bean, String beanName) throws BeansException {
+				inCreation.countDown();
+				try {
+					proceed.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return true;
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+		try {
+			Future<Object> tb = executor.submit(() -> beanFactory.getBean("tb"));
+			assertThat(inCreation.await(5, TimeUnit.SECONDS)).isTrue();
+			// The mutex stays held: no waiting for a creation which needs it for completion
+			synchronized (beanFactory.getSingletonMutex()) {
+				assertThatExceptionOfType(BeanCurrentlyInCreationException.class).isThrownBy(() ->
+						beanFactory.getBean("tb"));
+				assertThat(Thread.holdsLock(beanFactory.getSingletonMutex())).isTrue();
+			}
+			proceed.countDown();
+			assertThat(tb.get(10, TimeUnit.SECONDS)).isSameAs(beanFactory.getBean("tb"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+	private static CountDownLatch registerCircularReferences(DefaultListableBeanFactory beanFactory) {
+		RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+		bd1.getPropertyValues().add("spouse", new RuntimeBeanReference("tb2"));
+		beanFactory.registerBeanDefinition("tb1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+		bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("tb1"));
+		beanFactory.registerBeanDefinition("tb2", bd2);
+		CountDownLatch bothInstantiated = new CountDownLatch(2);
+		beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {
+			@Override
+			public boolean postProcessAfterInstantiation(Object bean, String beanName) throws BeansException {
+				// Let each thread resolve its reference while the other bean is in creation
+				bothInstantiated.countDown();
+				try {
+					bothInstantiated.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return true;
+			}
+		});
+		return bothInstantiated;
+	}
+
+	private static void awaitOther(CountDownLatch latch) {
+		latch.countDown();
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+
+	public static class CircularConstructorBean {
+
+		public CircularConstructorBean(CircularConstructorBean other) {
+		}
+	}
+
 }
@@ -0,0 +1,636 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Pre-computed outcome of {@link ConfigurationClassPostProcessor} for a given set
+ * of root configuration classes, stored in a compact binary format at
+ * {@value #INDEX_RESOURCE_LOCATION}.
+ *
+ * <p>The index captures every bean definition derived from {@code @Configuration},
+ * {@code @Import}, {@code @Bean} and {@code @ComponentScan} processing, after
+ * evaluation of {@link Profile @Profile} conditions against the environment at
+ * generation time, as well as the import relationships needed for {@link ImportAware}
+ * support. When an index matches the configuration classes registered with an
+ * application context (and the active and default profiles of its environment),
+ * the post-processor registers its bean definitions directly, skipping classpath
+ * scanning and configuration class parsing. Conditions other than profile conditions
+ * are rejected at generation time since their inputs cannot be re-checked at runtime.
+ *
+ * <p>Only bean definitions expressed through class names, factory methods and simple
+ * values (strings, primitive wrappers, class names and bean references) can be
+ * indexed; anything else is rejected at generation time.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see BeanDefinitionIndexGenerator
+ */
+final class BeanDefinitionIndex {
+
+	/**
+	 * The location to look for bean definition indexes.
+	 * <p>Can be present in multiple JAR files, each one for a different set
+	 * of root configuration classes.
+	 */
+	public static final String INDEX_RESOURCE_LOCATION = "META-INF/spring.beans.idx";
+
+	private static final int MAGIC = 0x53424958;
+
+	private static final int VERSION = 2;
+
+	private static final boolean shouldIgnoreIndex =
+			SpringProperties.getFlag(CandidateComponentsIndexLoader.IGNORE_INDEX);
+
+	private static final Log logger = LogFactory.getLog(BeanDefinitionIndex.class);
+
+	private static final ConcurrentMap<ClassLoader, List<BeanDefinitionIndex>> cache =
+			new ConcurrentReferenceHashMap<>();
+
+	private static final int FLAG_ABSTRACT = 1;
+
+	private static final int FLAG_PRIMARY = 1 << 1;
+
+	private static final int FLAG_AUTOWIRE_CANDIDATE = 1 << 2;
+
+	private static final int FLAG_NON_PUBLIC_ACCESS_ALLOWED = 1 << 3;
+
+	private static final int FLAG_LENIENT_CONSTRUCTOR_RESOLUTION = 1 << 4;
+
+	private static final int FLAG_ENFORCE_INIT_METHOD = 1 << 5;
+
+	private static final int FLAG_ENFORCE_DESTROY_METHOD = 1 << 6;
+
+	private static final int FLAG_SYNTHETIC = 1 << 7;
+
+	private static final int FLAG_FACTORY_METHOD_UNIQUE = 1 << 8;
+
+	private static final byte VALUE_NULL = 0;
+
+	private static final byte VALUE_STRING = 1;
+
+	private static final byte VALUE_BOOLEAN = 2;
+
+	private static final byte VALUE_INTEGER = 3;
+
+	private static final byte VALUE_LONG = 4;
+
+	private static final byte VALUE_CLASS = 5;
+
+	private static final byte VALUE_BEAN_REFERENCE = 6;
+
+	private static final byte VALUE_TYPED_STRING = 7;
+
+
+	private final Set<String> rootClassNames;
+
+	private final Set<String> activeProfiles;
+
+	private final Set<String> defaultProfiles;
+
+	private final Map<String, String> imports;
+
+	private final Map<String, AbstractBeanDefinition> beanDefinitions;
+
+	private final Set<String> uniqueFactoryMethodBeanNames;
+
+
+	/**
+	 * Create a new index.
+	 * @param rootClassNames the names of the root configuration classes
+	 * @param activeProfiles the profiles active at generation time
+	 * @param defaultProfiles the default profiles at generation time
+	 * @param imports a map from imported class name to importing class name
+	 * @param beanDefinitions the bean definitions to index, keyed by bean name
+	 * @param uniqueFactoryMethodBeanNames the names of beans whose factory method
+	 * is not overloaded, allowing for a fast path in factory method resolution
+	 */
+	BeanDefinitionIndex(Set<String> rootClassNames, Set<String> activeProfiles, Set<String> defaultProfiles,
+			Map<String, String> imports, Map<String, AbstractBeanDefinition> beanDefinitions,
+			Set<String> uniqueFactoryMethodBeanNames) {
+
+		this.rootClassNames = Collections.unmodifiableSet(new TreeSet<>(rootClassNames));
+		this.activeProfiles = Collections.unmodifiableSet(new TreeSet<>(activeProfiles));
+		this.defaultProfiles = Collections.unmodifiableSet(new TreeSet<>(defaultProfiles));
+		this.imports = imports;
+		this.beanDefinitions = beanDefinitions;
+		this.uniqueFactoryMethodBeanNames = uniqueFactoryMethodBeanNames;
+	}
+
+
+	/**
+	 * Return the names of the root configuration classes this index applies to.
+	 */
+	Set<String> getRootClassNames() {
+		return this.rootClassNames;
+	}
+
+	/**
+	 * Return the profiles that were active when this index was generated.
+	 */
+	Set<String> getActiveProfiles() {
+		return this.activeProfiles;
+	}
+
+	/**
+	 * Return the default profiles at the time this index was generated.
+	 */
+	Set<String> getDefaultProfiles() {
+		return this.defaultProfiles;
+	}
+
+	/**
+	 * Return the indexed bean definitions, keyed by bean name.
+	 */
+	Map<String, AbstractBeanDefinition> getBeanDefinitions() {
+		return this.beanDefinitions;
+	}
+
+	/**
+	 * Determine whether this index applies to the given root configuration
+	 * classes and environment.
+	 */
+	boolean matches(Set<String> rootClassNames, Environment environment) {
+		return (this.rootClassNames.equals(new TreeSet<>(rootClassNames)) &&
+				this.activeProfiles.equals(new TreeSet<>(Arrays.asList(environment.getActiveProfiles()))) &&
+				this.defaultProfiles.equals(new TreeSet<>(Arrays.asList(environment.getDefaultProfiles()))));
+	}
+
+	/**
+	 * Register the indexed bean definitions with the given registry. Definitions
+	 * already present in the registry, such as the root configuration classes,
+	 * only receive the configuration class attributes recorded in the index.
+	 * @return the number of newly registered bean definitions
+	 */
+	int registerBeanDefinitions(BeanDefinitionRegistry registry) {
+		int count = 0;
+		for (Map.Entry<String, AbstractBeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			String beanName = entry.getKey();
+			AbstractBeanDefinition indexed = entry.getValue();
+			if (registry.containsBeanDefinition(beanName)) {
+				BeanDefinition existing = registry.getBeanDefinition(beanName);
+				for (String attributeName : indexed.attributeNames()) {
+					existing.setAttribute(attributeName, indexed.getAttribute(attributeName));
+				}
+			}
+			else {
+				registry.registerBeanDefinition(beanName, indexed.cloneBeanDefinition());
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return an {@link ImportRegistry} for the recorded import relationships,
+	 * lazily reading the metadata of importing classes when requested.
+	 */
+	ImportRegistry getImportRegistry(MetadataReaderFactory metadataReaderFactory) {
+		return new IndexedImportRegistry(this.imports, metadataReaderFactory);
+	}
+
+
+	/**
+	 * Write this index to the given stream.
+	 * @throws IllegalStateException if a bean definition contains state
+	 * that cannot be represented in the index
+	 */
+	void writeTo(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		writeStrings(data, this.rootClassNames);
+		writeStrings(data, this.activeProfiles);
+		writeStrings(data, this.defaultProfiles);
+		data.writeInt(this.imports.size());
+		for (Map.Entry<String, String> entry : this.imports.entrySet()) {
+			data.writeUTF(entry.getKey());
+			data.writeUTF(entry.getValue());
+		}
+		data.writeInt(this.beanDefinitions.size());
+		for (Map.Entry<String, AbstractBeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			String beanName = entry.getKey();
+			writeBeanDefinition(data, beanName, entry.getValue(), this.uniqueFactoryMethodBeanNames.contains(beanName));
+		}
+		data.flush();
+	}
+
+	/**
+	 * Read an index from the given stream.
+	 * @param in the stream to read from
+	 * @param description a description of the source, exposed as resource
+	 * description of the bean definitions
+	 */
+	static BeanDefinitionIndex readFrom(InputStream in, String description) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a bean definition index: " + description);
+		}
+		int version = data.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported bean definition index version " + version + ": " + description);
+		}
+		Set<String> rootClassNames = readStrings(data);
+		Set<String> activeProfiles = readStrings(data);
+		Set<String> defaultProfiles = readStrings(data);
+		int importCount = data.readInt();
+		Map<String, String> imports = new LinkedHashMap<>(importCount);
+		for (int i = 0; i < importCount; i++) {
+			imports.put(data.readUTF(), data.readUTF());
+		}
+		int beanCount = data.readInt();
+		Map<String, AbstractBeanDefinition> beanDefinitions = new LinkedHashMap<>(beanCount);
+		Set<String> uniqueFactoryMethodBeanNames = new LinkedHashSet<>();
+		for (int i = 0; i < beanCount; i++) {
+			String beanName = data.readUTF();
+			RootBeanDefinition bd = readBeanDefinition(data, beanName, uniqueFactoryMethodBeanNames);
+			bd.setResourceDescription(description);
+			beanDefinitions.put(beanName, bd);
+		}
+		return new BeanDefinitionIndex(rootClassNames, activeProfiles, defaultProfiles,
+				imports, beanDefinitions, uniqueFactoryMethodBeanNames);
+	}
+
+	/**
+	 * Find the index for the given root configuration classes and environment
+	 * among the {@value #INDEX_RESOURCE_LOCATION} resources visible to the given
+	 * class loader.
+	 * @param classLoader the ClassLoader to use for loading
+	 * (can be {@code null} to use the default)
+	 * @param rootClassNames the names of the root configuration classes
+	 * @param environment the environment to check active profiles against
+	 * @return the matching index, or {@code null} if none found
+	 * @throws IllegalStateException if an index cannot be read
+	 */
+	@Nullable
+	static BeanDefinitionIndex loadIndex(@Nullable ClassLoader classLoader,
+			Set<String> rootClassNames, Environment environment) {
+
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = BeanDefinitionIndex.class.getClassLoader();
+		}
+		for (BeanDefinitionIndex index : cache.computeIfAbsent(classLoaderToUse, BeanDefinitionIndex::doLoadIndexes)) {
+			if (index.matches(rootClassNames, environment)) {
+				return index;
+			}
+		}
+		return null;
+	}
+
+	private static List<BeanDefinitionIndex> doLoadIndexes(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader.getResources(INDEX_RESOURCE_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return Collections.emptyList();
+			}
+			List<BeanDefinitionIndex> result = new ArrayList<>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				try (InputStream in = new BufferedInputStream(url.openStream())) {
+					result.add(readFrom(in, "bean definition index [" + url + "]"));
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + result.size() + " bean definition index(es)");
+			}
+			return result;
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load bean definition indexes from location [" +
+					INDEX_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+
+	private static void writeBeanDefinition(DataOutputStream data, String beanName, AbstractBeanDefinition bd,
+			boolean factoryMethodUnique) throws IOException {
+
+		data.writeUTF(beanName);
+		writeNullableString(data, bd.getBeanClassName());
+		writeNullableString(data, bd.getScope());
+		writeNullableString(data, bd.getFactoryBeanName());
+		writeNullableString(data, bd.getFactoryMethodName());
+		writeNullableString(data, bd.getInitMethodName());
+		writeNullableString(data, bd.getDestroyMethodName());
+		writeNullableString(data, bd.getDescription());
+		Boolean lazyInit = bd.getLazyInit();
+		data.writeByte(lazyInit != null ? (lazyInit ? 1 : 0) : -1);
+		int flags = 0;
+		flags |= (bd.isAbstract() ? FLAG_ABSTRACT : 0);
+		flags |= (bd.isPrimary() ? FLAG_PRIMARY : 0);
+		flags |= (bd.isAutowireCandidate() ? FLAG_AUTOWIRE_CANDIDATE : 0);
+		flags |= (bd.isNonPublicAccessAllowed() ? FLAG_NON_PUBLIC_ACCESS_ALLOWED : 0);
+		flags |= (bd.isLenientConstructorResolution() ? FLAG_LENIENT_CONSTRUCTOR_RESOLUTION : 0);
+		flags |= (bd.isEnforceInitMethod() ? FLAG_ENFORCE_INIT_METHOD : 0);
+		flags |= (bd.isEnforceDestroyMethod() ? FLAG_ENFORCE_DESTROY_METHOD : 0);
+		flags |= (bd.isSynthetic() ? FLAG_SYNTHETIC : 0);
+		flags |= (factoryMethodUnique ? FLAG_FACTORY_METHOD_UNIQUE : 0);
+		data.writeInt(flags);
+		data.writeInt(bd.getAutowireMode());
+		data.writeInt(bd.getDependencyCheck());
+		data.writeInt(bd.getRole());
+		String[] dependsOn = bd.getDependsOn();
+		writeStrings(data, (dependsOn != null ? Arrays.asList(dependsOn) : Collections.emptyList()));
+
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		data.writeInt(cargs.getIndexedArgumentValues().size());
+		for (Map.Entry<Integer, ValueHolder> entry : cargs.getIndexedArgumentValues().entrySet()) {
+			data.writeInt(entry.getKey());
+			writeValueHolder(data, beanName, entry.getValue());
+		}
+		data.writeInt(cargs.getGenericArgumentValues().size());
+		for (ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+			writeValueHolder(data, beanName, valueHolder);
+		}
+
+		PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+		data.writeInt(pvs.length);
+		for (PropertyValue pv : pvs) {
+			data.writeUTF(pv.getName());
+			writeValue(data, beanName, pv.getValue());
+		}
+
+		String[] attributeNames = bd.attributeNames();
+		data.writeInt(attributeNames.length);
+		for (String attributeName : attributeNames) {
+			data.writeUTF(attributeName);
+			writeValue(data, beanName, bd.getAttribute(attributeName));
+		}
+	}
+
+	private static RootBeanDefinition readBeanDefinition(DataInputStream data, String beanName,
+			Set<String> uniqueFactoryMethodBeanNames) throws IOException {
+
+		RootBeanDefinition bd = new RootBeanDefinition();
+		bd.setBeanClassName(readNullableString(data));
+		bd.setScope(readNullableString(data));
+		bd.setFactoryBeanName(readNullableString(data));
+		String factoryMethodName = readNullableString(data);
+		bd.setInitMethodName(readNullableString(data));
+		bd.setDestroyMethodName(readNullableString(data));
+		bd.setDescription(readNullableString(data));
+		byte lazyInit = data.readByte();
+		if (lazyInit >= 0) {
+			bd.setLazyInit(lazyInit == 1);
+		}
+		int flags = data.readInt();
+		bd.setAbstract((flags & FLAG_ABSTRACT) != 0);
+		bd.setPrimary((flags & FLAG_PRIMARY) != 0);
+		bd.setAutowireCandidate((flags & FLAG_AUTOWIRE_CANDIDATE) != 0);
+		bd.setNonPublicAccessAllowed((flags & FLAG_NON_PUBLIC_ACCESS_ALLOWED) != 0);
+		bd.setLenientConstructorResolution((flags & FLAG_LENIENT_CONSTRUCTOR_RESOLUTION) != 0);
+		bd.setEnforceInitMethod((flags & FLAG_ENFORCE_INIT_METHOD) != 0);
+		bd.setEnforceDestroyMethod((flags & FLAG_ENFORCE_DESTROY_METHOD) != 0);
+		bd.setSynthetic((flags & FLAG_SYNTHETIC) != 0);
+		if (factoryMethodName != null) {
+			if ((flags & FLAG_FACTORY_METHOD_UNIQUE) != 0) {
+				bd.setUniqueFactoryMethodName(factoryMethodName);
+				uniqueFactoryMethodBeanNames.add(beanName);
+			}
+			else {
+				bd.setFactoryMethodName(factoryMethodName);
+			}
+		}
+		bd.setAutowireMode(data.readInt());
+		bd.setDependencyCheck(data.readInt());
+		bd.setRole(data.readInt());
+		Set<String> dependsOn = readStrings(data);
+		if (!dependsOn.isEmpty()) {
+			bd.setDependsOn(dependsOn.toArray(new String[0]));
+		}
+
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		int indexedCount = data.readInt();
+		for (int i = 0; i < indexedCount; i++) {
+			int index = data.readInt();
+			cargs.addIndexedArgumentValue(index, readValueHolder(data));
+		}
+		int genericCount = data.readInt();
+		for (int i = 0; i < genericCount; i++) {
+			cargs.addGenericArgumentValue(readValueHolder(data));
+		}
+
+		MutablePropertyValues pvs = bd.getPropertyValues();
+		int propertyCount = data.readInt();
+		for (int i = 0; i < propertyCount; i++) {
+			pvs.add(data.readUTF(), readValue(data));
+		}
+
+		int attributeCount = data.readInt();
+		for (int i = 0; i < attributeCount; i++) {
+			bd.setAttribute(data.readUTF(), readValue(data));
+		}
+		return bd;
+	}
+
+	private static void writeValueHolder(DataOutputStream data, String beanName, ValueHolder valueHolder)
+			throws IOException {
+
+		writeValue(data, beanName, valueHolder.getValue());
+		writeNullableString(data, valueHolder.getType());
+		writeNullableString(data, valueHolder.getName());
+	}
+
+	private static ValueHolder readValueHolder(DataInputStream data) throws IOException {
+		Object value = readValue(data);
+		return new ValueHolder(value, readNullableString(data), readNullableString(data));
+	}
+
+	private static void writeValue(DataOutputStream data, String beanName, @Nullable Object value)
+			throws IOException {
+
+		if (value == null) {
+			data.writeByte(VALUE_NULL);
+		}
+		else if (value instanceof String) {
+			data.writeByte(VALUE_STRING);
+			data.writeUTF((String) value);
+		}
+		else if (value instanceof Boolean) {
+			data.writeByte(VALUE_BOOLEAN);
+			data.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Integer) {
+			data.writeByte(VALUE_INTEGER);
+			data.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			data.writeByte(VALUE_LONG);
+			data.writeLong((Long) value);
+		}
+		else if (value instanceof Class) {
+			data.writeByte(VALUE_CLASS);
+			data.writeUTF(((Class<?>) value).getName());
+		}
+		else if (value instanceof RuntimeBeanReference && !((RuntimeBeanReference) value).isToParent()) {
+			data.writeByte(VALUE_BEAN_REFERENCE);
+			data.writeUTF(((RuntimeBeanReference) value).getBeanName());
+		}
+		else if (value instanceof TypedStringValue && !((TypedStringValue) value).isDynamic()) {
+			TypedStringValue typedValue = (TypedStringValue) value;
+			data.writeByte(VALUE_TYPED_STRING);
+			writeNullableString(data, typedValue.getValue());
+			writeNullableString(data, typedValue.getTargetTypeName());
+		}
+		else {
+			throw new IllegalStateException("Cannot index bean definition '" + beanName +
+					"': unsupported value of type [" + value.getClass().getName() + "]");
+		}
+	}
+
+	@Nullable
+	private static Object readValue(DataInputStream data) throws IOException {
+		byte type = data.readByte();
+		switch (type) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_STRING:
+				return data.readUTF();
+			case VALUE_BOOLEAN:
+				return data.readBoolean();
+			case VALUE_INTEGER:
+				return data.readInt();
+			case VALUE_LONG:
+				return data.readLong();
+			case VALUE_CLASS:
+				// Resolved lazily by the bean factory's type conversion
+				return new TypedStringValue(data.readUTF(), Class.class);
+			case VALUE_BEAN_REFERENCE:
+				return new RuntimeBeanReference(data.readUTF());
+			case VALUE_TYPED_STRING:
+				TypedStringValue typedValue = new TypedStringValue(readNullableString(data));
+				typedValue.setTargetTypeName(readNullableString(data));
+				return typedValue;
+			default:
+				throw new IOException("Unknown value type in bean definition index: " + type);
+		}
+	}
+
+	private static void writeStrings(DataOutputStream data, Collection<String> values) throws IOException {
+		data.writeInt(values.size());
+		for (String value : values) {
+			data.writeUTF(value);
+		}
+	}
+
+	private static Set<String> readStrings(DataInputStream data) throws IOException {
+		int count = data.readInt();
+		Set<String> result = new LinkedHashSet<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(data.readUTF());
+		}
+		return result;
+	}
+
+	private static void writeNullableString(DataOutputStream data, @Nullable String value) throws IOException {
+		data.writeBoolean(value != null);
+		if (value != null) {
+			data.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream data) throws IOException {
+		return (data.readBoolean() ? data.readUTF() : null);
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by the import relationships recorded in an index.
+	 */
+	private static class IndexedImportRegistry implements ImportRegistry {
+
+		private final MultiValueMap<String, String> imports = new LinkedMultiValueMap<>();
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		IndexedImportRegistry(Map<String, String> imports, MetadataReaderFactory metadataReaderFactory) {
+			imports.forEach(this.imports::add);
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.imports.getFirst(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClass).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read metadata for importing class [" +
+						importingClass + "]", ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			for (List<String> list : this.imports.values()) {
+				list.removeIf(importingClass::equals);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Build-time generator for the bean definition index consumed by
+ * {@link ConfigurationClassPostProcessor}, allowing an application context to
+ * skip classpath scanning and configuration class parsing at startup.
+ *
+ * <p>The generator processes the given component classes exactly like an
+ * {@link AnnotationConfigApplicationContext} would, evaluating profile conditions
+ * against its {@link #setEnvironment environment}, and writes the resulting bean
+ * definitions to {@value BeanDefinitionIndex#INDEX_RESOURCE_LOCATION}. The index is
+ * only used at runtime if the
+ * {@value ConfigurationClassPostProcessor#BEAN_DEFINITION_INDEX_PROPERTY_NAME}
+ * property has been set, the same root configuration classes are registered and
+ * the same active and default profiles apply; otherwise, regular parsing applies.
+ * Setting the {@code spring.index.ignore} property disables the index altogether.
+ *
+ * <p>Typically invoked from a build task through {@link #main}, for example
+ * with Gradle:
+ *
+ * <pre class="code">
+ * task beanDefinitionIndex(type: JavaExec) {
+ *     classpath = sourceSets.main.runtimeClasspath
+ *     main = "org.springframework.context.annotation.BeanDefinitionIndexGenerator"
+ *     args = ["$buildDir/resources/main/META-INF/spring.beans.idx", "com.example.AppConfig"]
+ * }
+ * processResources.finalizedBy beanDefinitionIndex</pre>
+ *
+ * <p>Configuration classes declaring {@link PropertySource @PropertySource}, components
+ * or bean methods with {@link Conditional @Conditional} declarations other than
+ * {@link Profile @Profile} (since property-based or presence-based conditions cannot
+ * be re-checked at runtime), as well as bean definitions with instance suppliers, method overrides, parent definitions,
+ * scoped proxies or complex property values cannot be indexed and lead to an
+ * {@link IllegalStateException} during generation.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ */
+public class BeanDefinitionIndexGenerator {
+
+	private final Class<?>[] componentClasses;
+
+	private ConfigurableEnvironment environment = new StandardEnvironment();
+
+	@Nullable
+	private ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+
+
+	/**
+	 * Create a new generator for the given component classes.
+	 * @param componentClasses the component classes that the application
+	 * context is going to be created with, e.g. {@link Configuration @Configuration} classes
+	 */
+	public BeanDefinitionIndexGenerator(Class<?>... componentClasses) {
+		Assert.notEmpty(componentClasses, "At least one component class must be specified");
+		this.componentClasses = componentClasses;
+	}
+
+
+	/**
+	 * Set the environment to evaluate conditions against.
+	 * <p>Default is a {@link StandardEnvironment}, exposing active profiles
+	 * set through the {@code spring.profiles.active} system property.
+	 */
+	public void setEnvironment(ConfigurableEnvironment environment) {
+		Assert.notNull(environment, "Environment must not be null");
+		this.environment = environment;
+	}
+
+	/**
+	 * Set the ClassLoader to load configuration classes and resources with.
+	 * <p>Default is the thread context ClassLoader.
+	 */
+	public void setClassLoader(@Nullable ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+
+	/**
+	 * Process the component classes and write the resulting index to the given file,
+	 * creating parent directories as necessary.
+	 * @param file the index file, typically
+	 * {@value BeanDefinitionIndex#INDEX_RESOURCE_LOCATION} in an output resources directory
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalStateException if a bean definition cannot be indexed
+	 */
+	public void generate(File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null) {
+			Files.createDirectories(parent.toPath());
+		}
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+			generate(out);
+		}
+	}
+
+	/**
+	 * Process the component classes and write the resulting index to the given stream.
+	 * @param out the stream to write to (not closed by this method)
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalStateException if a bean definition cannot be indexed
+	 */
+	public void generate(OutputStream out) throws IOException {
+		buildIndex().writeTo(out);
+	}
+
+	BeanDefinitionIndex buildIndex() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setBeanClassLoader(this.classLoader);
+		AnnotatedBeanDefinitionReader reader = new AnnotatedBeanDefinitionReader(beanFactory, this.environment);
+		Set<String> rootConditions = ConditionEvaluator.recordNonProfileConditions(
+				() -> reader.register(this.componentClasses));
+		Set<String> preRegisteredNames = new HashSet<>(Arrays.asList(beanFactory.getBeanDefinitionNames()));
+
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(this.environment);
+		postProcessor.setResourceLoader(new DefaultResourceLoader(this.classLoader));
+		postProcessor.setBeanClassLoader(this.classLoader);
+		postProcessor.setUseBeanDefinitionIndex(false);
+		Set<String> nonProfileConditions = ConditionEvaluator.recordNonProfileConditions(
+				() -> postProcessor.processConfigBeanDefinitions(beanFactory));
+		nonProfileConditions.addAll(rootConditions);
+		if (!nonProfileConditions.isEmpty()) {
+			throw new IllegalStateException("Cannot index configuration with conditions other than " +
+					"@Profile conditions, which need to be evaluated at runtime: " + nonProfileConditions);
+		}
+		ImportRegistry importRegistry = (ImportRegistry) beanFactory.getSingleton(
+				ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME);
+
+		Set<String> rootClassNames = new LinkedHashSet<>();
+		Map<String, String> imports = new LinkedHashMap<>();
+		Map<String, AbstractBeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		Set<String> uniqueFactoryMethodBeanNames = new LinkedHashSet<>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition bd = beanFactory.getBeanDefinition(beanName);
+			boolean configurationClass = (bd.getAttribute(ConfigurationClassUtils.CONFIGURATION_CLASS_ATTRIBUTE) != null);
+			if (preRegisteredNames.contains(beanName)) {
+				if (!configurationClass) {
+					// Annotation config processors: registered by the application context itself
+					continue;
+				}
+				rootClassNames.add(bd.getBeanClassName());
+			}
+			beanDefinitions.put(beanName, validate(beanName, bd));
+			if (configurationClass && importRegistry != null && bd.getBeanClassName() != null) {
+				AnnotationMetadata importingClass = importRegistry.getImportingClassFor(bd.getBeanClassName());
+				if (importingClass != null) {
+					imports.put(bd.getBeanClassName(), importingClass.getClassName());
+				}
+			}
+			if (hasUniqueFactoryMethod(bd)) {
+				uniqueFactoryMethodBeanNames.add(beanName);
+			}
+		}
+		return new BeanDefinitionIndex(rootClassNames,
+				new LinkedHashSet<>(Arrays.asList(this.environment.getActiveProfiles())),
+				new LinkedHashSet<>(Arrays.asList(this.environment.getDefaultProfiles())),
+				imports, beanDefinitions, uniqueFactoryMethodBeanNames);
+	}
+
+	private AbstractBeanDefinition validate(String beanName, BeanDefinition bd) {
+		if (!(bd instanceof AbstractBeanDefinition)) {
+			throw new IllegalStateException("Cannot index bean definition '" + beanName +
+					"': not an AbstractBeanDefinition");
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		String reason = null;
+		if (abd.getParentName() != null) {
+			reason = "child bean definitions are not supported";
+		}
+		else if (abd.getInstanceSupplier() != null) {
+			reason = "instance suppliers are not supported";
+		}
+		else if (!abd.getMethodOverrides().isEmpty()) {
+			reason = "method overrides are not supported";
+		}
+		else if (!abd.getQualifiers().isEmpty()) {
+			reason = "XML-style qualifiers are not supported";
+		}
+		else if (abd.getOriginatingBeanDefinition() != null ||
+				(abd instanceof RootBeanDefinition && ((RootBeanDefinition) abd).getDecoratedDefinition() != null)) {
+			reason = "decorated bean definitions such as scoped proxies are not supported";
+		}
+		else if (abd instanceof AnnotatedBeanDefinition &&
+				abd.getAttribute(ConfigurationClassUtils.CONFIGURATION_CLASS_ATTRIBUTE) != null) {
+			AnnotationMetadata metadata = ((AnnotatedBeanDefinition) abd).getMetadata();
+			if (metadata.hasAnnotation(PropertySource.class.getName()) ||
+					metadata.hasAnnotation(PropertySources.class.getName())) {
+				reason = "@PropertySource declarations need to be processed at runtime";
+			}
+		}
+		if (reason != null) {
+			throw new IllegalStateException("Cannot index bean definition '" + beanName + "': " + reason);
+		}
+		return abd;
+	}
+
+	private boolean hasUniqueFactoryMethod(BeanDefinition bd) {
+		if (!(bd instanceof AnnotatedBeanDefinition)) {
+			return false;
+		}
+		MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) bd).getFactoryMethodMetadata();
+		if (factoryMethod == null) {
+			return false;
+		}
+		String methodName = factoryMethod.getMethodName();
+		Class<?> declaringClass = ClassUtils.resolveClassName(factoryMethod.getDeclaringClassName(), this.classLoader);
+		Method[] candidates = ReflectionUtils.getUniqueDeclaredMethods(
+				declaringClass, method -> method.getName().equals(methodName));
+		return (candidates.length == 1);
+	}
+
+
+	/**
+	 * Command-line entry point for build tools.
+	 * <p>Expects the index file as first argument, followed by the fully qualified
+	 * names of the component classes. Active profiles can be specified through the
+	 * {@code spring.profiles.active} system property.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			throw new IllegalArgumentException(
+					"Usage: BeanDefinitionIndexGenerator <index file> <component class>...");
+		}
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		Class<?>[] componentClasses = new Class<?>[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			componentClasses[i - 1] = ClassUtils.forName(args[i], classLoader);
+		}
+		BeanDefinitionIndexGenerator generator = new BeanDefinitionIndexGenerator(componentClasses);
+		generator.setClassLoader(classLoader);
+		generator.generate(new File(args[0]));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,13 +18,16 @@ package org.springframework.context.annotation;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.ConfigurationCondition.ConfigurationPhase;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -33,6 +36,7 @@ import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -47,6 +51,10 @@ import org.springframework.util.MultiValueMap;
  */
 class ConditionEvaluator {
 
+	private static final ThreadLocal<Set<String>> nonProfileConditions =
+			new NamedThreadLocal<>("Non-profile conditions");
+
+
 	private final ConditionContextImpl context;
 
 
@@ -90,11 +98,15 @@ class ConditionEvaluator {
 			return shouldSkip(metadata, ConfigurationPhase.REGISTER_BEAN);
 		}
 
+		Set<String> recordedConditions = nonProfileConditions.get();
 		List<Condition> conditions = new ArrayList<>();
 		for (String[] conditionClasses : getConditionClasses(metadata)) {
 			for (String conditionClass : conditionClasses) {
 				Condition condition = getCondition(conditionClass, this.context.getClassLoader());
 				conditions.add(condition);
+				if (recordedConditions != null && !(condition instanceof ProfileCondition)) {
+					recordedConditions.add(conditionClass + " on " + getDescription(metadata));
+				}
 			}
 		}
 
@@ -125,6 +137,47 @@ class ConditionEvaluator {
 		return (Condition) BeanUtils.instantiateClass(conditionClass);
 	}
 
+	private static String getDescription(AnnotatedTypeMetadata metadata) {
+		if (metadata instanceof AnnotationMetadata) {
+			return ((AnnotationMetadata) metadata).getClassName();
+		}
+		if (metadata instanceof MethodMetadata) {
+			MethodMetadata methodMetadata = (MethodMetadata) metadata;
+			return methodMetadata.getDeclaringClassName() + "." + methodMetadata.getMethodName() + "()";
+		}
+		return metadata.toString();
+	}
+
+
+	/**
+	 * Perform the given action, recording all conditions other than
+	 * {@link Profile @Profile} conditions that get evaluated by any
+	 * {@code ConditionEvaluator} on the current thread in the meantime.
+	 * <p>Used for bean definition index generation which cannot capture
+	 * the inputs of arbitrary conditions.
+	 * @param action the action to perform
+	 * @return descriptions of the evaluated non-profile conditions
+	 * @since 5.3.5
+	 * @see BeanDefinitionIndexGenerator
+	 */
+	static Set<String> recordNonProfileConditions(Runnable action) {
+		Set<String> recordedConditions = new LinkedHashSet<>();
+		Set<String> previous = nonProfileConditions.get();
+		nonProfileConditions.set(recordedConditions);
+		try {
+			action.run();
+		}
+		finally {
+			if (previous != null) {
+				nonProfileConditions.set(previous);
+			}
+			else {
+				nonProfileConditions.remove();
+			}
+		}
+		return recordedConditions;
+	}
+
 
 	/**
 	 * Implementation of a {@link ConditionContext}.
@@ -55,6 +55,7 @@ import org.springframework.context.annotation.ConfigurationClassEnhancer.Enhance
 import org.springframework.core.NativeDetector;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
@@ -109,9 +110,23 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public static final AnnotationBeanNameGenerator IMPORT_BEAN_NAME_GENERATOR =
 			FullyQualifiedAnnotationBeanNameGenerator.INSTANCE;
 
-	private static final String IMPORT_REGISTRY_BEAN_NAME =
+	static final String IMPORT_REGISTRY_BEAN_NAME =
 			ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
 
+	/**
+	 * System property that instructs Spring to register bean definitions from a
+	 * matching {@link BeanDefinitionIndex} instead of parsing configuration classes:
+	 * {@code spring.context.bean-definition-index}.
+	 * <p>The default is "false". Only switch this flag to "true" if the index has been
+	 * generated for the environment that the application actually runs in: apart from
+	 * the root configuration classes and the active and default profiles, the index
+	 * does not reflect changes in the environment.
+	 * @since 5.3.5
+	 * @see #setUseBeanDefinitionIndex
+	 * @see BeanDefinitionIndexGenerator
+	 */
+	public static final String BEAN_DEFINITION_INDEX_PROPERTY_NAME = "spring.context.bean-definition-index";
+
 
 	private final Log logger = LogFactory.getLog(getClass());
 
@@ -148,6 +163,8 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 
 	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
 
+	private boolean useBeanDefinitionIndex = SpringProperties.getFlag(BEAN_DEFINITION_INDEX_PROPERTY_NAME);
+
 
 	@Override
 	public int getOrder() {
@@ -217,7 +234,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		Assert.notNull(resourceLoader, "ResourceLoader must not be null");
 		this.resourceLoader = resourceLoader;
 		if (!this.setMetadataReaderFactoryCalled) {
-			this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+			this.metadataReaderFactory = ConfigurationClassUtils.createMetadataReaderFactory(resourceLoader);
 		}
 	}
 
@@ -225,7 +242,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public void setBeanClassLoader(ClassLoader beanClassLoader) {
 		this.beanClassLoader = beanClassLoader;
 		if (!this.setMetadataReaderFactoryCalled) {
-			this.metadataReaderFactory = new CachingMetadataReaderFactory(beanClassLoader);
+			this.metadataReaderFactory = ConfigurationClassUtils.createMetadataReaderFactory(beanClassLoader);
 		}
 	}
 
@@ -234,6 +251,18 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		this.applicationStartup = applicationStartup;
 	}
 
+	/**
+	 * Specify whether to register bean definitions from a matching
+	 * {@link BeanDefinitionIndex} instead of parsing configuration classes.
+	 * <p>Default is "false", unless the {@link #BEAN_DEFINITION_INDEX_PROPERTY_NAME}
+	 * system property has been set to "true".
+	 * @since 5.3.5
+	 * @see BeanDefinitionIndexGenerator
+	 */
+	public void setUseBeanDefinitionIndex(boolean useBeanDefinitionIndex) {
+		this.useBeanDefinitionIndex = useBeanDefinitionIndex;
+	}
+
 	/**
 	 * 把配置类中所有的 bean 定义信息导入进来。Derive further bean definitions from the configuration classes in the registry.
 	 */
@@ -384,6 +413,11 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			this.environment = new StandardEnvironment();
 		}
 
+		// Use bean definitions pre-computed at build time for this set of configuration classes, if any
+		if (this.useBeanDefinitionIndex && registerIndexedBeanDefinitions(registry, configCandidates, sbr)) {
+			return;
+		}
+
 		/**
 		 * 创建一个配置类解析器对象
 		 * ConfigurationClassParser：用于解析标注了 @Configuration 注解的配置类的解析器。
@@ -490,6 +524,41 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		}
 	}
 
+	/**
+	 * Register the bean definitions of a {@link BeanDefinitionIndex} matching the
+	 * given configuration class candidates, if available.
+	 * @return {@code true} if an index has been applied, {@code false} if the
+	 * configuration classes need to be parsed
+	 */
+	private boolean registerIndexedBeanDefinitions(BeanDefinitionRegistry registry,
+			List<BeanDefinitionHolder> configCandidates, @Nullable SingletonBeanRegistry sbr) {
+
+		Set<String> rootClassNames = new HashSet<>(configCandidates.size());
+		for (BeanDefinitionHolder holder : configCandidates) {
+			String className = holder.getBeanDefinition().getBeanClassName();
+			if (className == null) {
+				return false;
+			}
+			rootClassNames.add(className);
+		}
+		Assert.state(this.environment != null, "No Environment set");
+		BeanDefinitionIndex index = BeanDefinitionIndex.loadIndex(this.beanClassLoader, rootClassNames, this.environment);
+		if (index == null) {
+			return false;
+		}
+
+		StartupStep registerIndexed = this.applicationStartup.start("spring.context.config-classes.index");
+		int beanCount = index.registerBeanDefinitions(registry);
+		if (sbr != null && !sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, index.getImportRegistry(this.metadataReaderFactory));
+		}
+		registerIndexed.tag("beanCount", () -> String.valueOf(beanCount)).end();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registered " + beanCount + " bean definitions from index for " + rootClassNames);
+		}
+		return true;
+	}
+
 	/**
 	 * Post-processes a BeanFactory in search of Configuration class BeanDefinitions;
 	 * any candidates are then enhanced by a {@link ConfigurationClassEnhancer}.
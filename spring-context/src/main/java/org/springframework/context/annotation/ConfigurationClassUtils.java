@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
@@ -33,13 +34,18 @@ import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.context.event.EventListenerFactory;
 import org.springframework.core.Conventions;
 import org.springframework.core.Ordered;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentCachingMetadataReaderFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 /**
  * Utilities for identifying {@link Configuration} classes.
@@ -225,4 +231,32 @@ abstract class ConfigurationClassUtils {
 		return (order != null ? order : Ordered.LOWEST_PRECEDENCE);
 	}
 
+	/**
+	 * Create a {@link CachingMetadataReaderFactory} for the given ResourceLoader,
+	 * backed by a persistent cache file if specified through the
+	 * {@value PersistentCachingMetadataReaderFactory#CACHE_FILE_PROPERTY_NAME} property.
+	 * @param resourceLoader the ResourceLoader to use
+	 * @since 5.3.5
+	 */
+	static CachingMetadataReaderFactory createMetadataReaderFactory(@Nullable ResourceLoader resourceLoader) {
+		String cacheFile = SpringProperties.getProperty(PersistentCachingMetadataReaderFactory.CACHE_FILE_PROPERTY_NAME);
+		return (StringUtils.hasText(cacheFile) ?
+				new PersistentCachingMetadataReaderFactory(resourceLoader, new File(cacheFile)) :
+				new CachingMetadataReaderFactory(resourceLoader));
+	}
+
+	/**
+	 * Create a {@link CachingMetadataReaderFactory} for the given ClassLoader,
+	 * backed by a persistent cache file if specified through the
+	 * {@value PersistentCachingMetadataReaderFactory#CACHE_FILE_PROPERTY_NAME} property.
+	 * @param classLoader the ClassLoader to use
+	 * @since 5.3.5
+	 */
+	static CachingMetadataReaderFactory createMetadataReaderFactory(@Nullable ClassLoader classLoader) {
+		String cacheFile = SpringProperties.getProperty(PersistentCachingMetadataReaderFactory.CACHE_FILE_PROPERTY_NAME);
+		return (StringUtils.hasText(cacheFile) ?
+				new PersistentCachingMetadataReaderFactory(classLoader, new File(cacheFile)) :
+				new CachingMetadataReaderFactory(classLoader));
+	}
+
 }
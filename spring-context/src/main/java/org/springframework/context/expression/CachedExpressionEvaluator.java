@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,8 +20,10 @@ import java.util.Map;
 
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -36,8 +38,25 @@ import org.springframework.util.ObjectUtils;
  */
 public abstract class CachedExpressionEvaluator {
 
+	/**
+	 * System property that instructs evaluators created with the default constructor
+	 * to use the {@link SpelExpressionRegistry#getSharedInstance() shared registry}
+	 * instead of a registry of their own: {@code "spring.expression.registry.shared"}.
+	 * <p>The default is "false", keeping parsed and compiled expressions local to
+	 * each evaluator and therefore to the application context that it belongs to.
+	 * Consider switching this flag to "true" only if all application contexts in
+	 * the JVM share the same ClassLoader.
+	 * @since 5.3.5
+	 * @see org.springframework.core.SpringProperties
+	 */
+	public static final String SHARED_REGISTRY_PROPERTY_NAME = "spring.expression.registry.shared";
+
+
 	private final SpelExpressionParser parser;
 
+	@Nullable
+	private final SpelExpressionRegistry registry;
+
 	private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
 
@@ -47,13 +66,31 @@ public abstract class CachedExpressionEvaluator {
 	protected CachedExpressionEvaluator(SpelExpressionParser parser) {
 		Assert.notNull(parser, "SpelExpressionParser must not be null");
 		this.parser = parser;
+		this.registry = null;
 	}
 
 	/**
-	 * Create a new instance with a default {@link SpelExpressionParser}.
+	 * Create a new instance with the specified {@link SpelExpressionRegistry},
+	 * sharing parsed expressions and their compilation statistics with other
+	 * evaluators that use the same registry.
+	 * @since 5.3.5
+	 * @see SpelExpressionRegistry#getSharedInstance()
+	 */
+	protected CachedExpressionEvaluator(SpelExpressionRegistry registry) {
+		Assert.notNull(registry, "SpelExpressionRegistry must not be null");
+		this.parser = registry.getParser();
+		this.registry = registry;
+	}
+
+	/**
+	 * Create a new instance with a default {@link SpelExpressionParser},
+	 * using a {@link SpelExpressionRegistry} local to this evaluator unless
+	 * the {@link #SHARED_REGISTRY_PROPERTY_NAME shared registry} is enabled.
 	 */
 	protected CachedExpressionEvaluator() {
-		this(new SpelExpressionParser());
+		this(SpringProperties.getFlag(SHARED_REGISTRY_PROPERTY_NAME) ?
+				SpelExpressionRegistry.getSharedInstance() :
+				new SpelExpressionRegistry(new SpelExpressionParser()));
 	}
 
 
@@ -64,6 +101,15 @@ public abstract class CachedExpressionEvaluator {
 		return this.parser;
 	}
 
+	/**
+	 * Return the {@link SpelExpressionRegistry} to use, if any.
+	 * @since 5.3.5
+	 */
+	@Nullable
+	protected SpelExpressionRegistry getExpressionRegistry() {
+		return this.registry;
+	}
+
 	/**
 	 * Return a shared parameter name discoverer which caches data internally.
 	 * @since 4.3
@@ -86,7 +132,8 @@ public abstract class CachedExpressionEvaluator {
 		ExpressionKey expressionKey = createKey(elementKey, expression);
 		Expression expr = cache.get(expressionKey);
 		if (expr == null) {
-			expr = getParser().parseExpression(expression);
+			expr = (this.registry != null ? this.registry.getExpression(expression) :
+					getParser().parseExpression(expression));
 			cache.put(expressionKey, expr);
 		}
 		return expr;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.lang.Nullable;
 
 /**
@@ -53,6 +54,8 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 
 	private ThreadFactory threadFactory = this;
 
+	private boolean virtualThreads = false;
+
 	private boolean threadNamePrefixSet = false;
 
 	private RejectedExecutionHandler rejectedExecutionHandler = new ThreadPoolExecutor.AbortPolicy();
@@ -86,6 +89,23 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 		this.threadFactory = (threadFactory != null ? threadFactory : this);
 	}
 
+	/**
+	 * Specify whether to use virtual threads instead of platform threads
+	 * for the ExecutorService's thread pool, on JDK 21+.
+	 * <p>Default is {@code false}. If virtual threads are not supported on
+	 * the current JVM, a platform thread pool is going to be set up instead.
+	 * Note that the pool size then effectively serves as a concurrency limit;
+	 * consider {@link org.springframework.core.task.SimpleAsyncTaskExecutor}
+	 * or {@link SimpleAsyncTaskScheduler} for a new virtual thread per task.
+	 * <p>Any {@link #setThreadFactory "threadFactory"} setting is going to
+	 * be ignored when this flag is set to {@code true}.
+	 * @since 5.3.5
+	 * @see VirtualThreadTaskExecutor#isVirtualThreadSupported()
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
 	@Override
 	public void setThreadNamePrefix(@Nullable String threadNamePrefix) {
 		super.setThreadNamePrefix(threadNamePrefix);
@@ -183,7 +203,16 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 		if (!this.threadNamePrefixSet && this.beanName != null) {
 			setThreadNamePrefix(this.beanName + "-");
 		}
-		this.executor = initializeExecutor(this.threadFactory, this.rejectedExecutionHandler);
+		ThreadFactory factory = this.threadFactory;
+		if (this.virtualThreads) {
+			if (VirtualThreadTaskExecutor.isVirtualThreadSupported()) {
+				factory = new VirtualThreadTaskExecutor(getThreadNamePrefix()).getVirtualThreadFactory();
+			}
+			else if (logger.isWarnEnabled()) {
+				logger.warn("Virtual threads not supported on current JVM - falling back to platform threads");
+			}
+		}
+		this.executor = initializeExecutor(factory, this.rejectedExecutionHandler);
 	}
 
 	/**
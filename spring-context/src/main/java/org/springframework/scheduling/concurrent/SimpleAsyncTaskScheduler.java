@@ -0,0 +1,221 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A simple implementation of Spring's {@link TaskScheduler} interface, using
+ * a single scheduler thread and executing every scheduled task in an individual
+ * separate thread. This is an attractive choice with virtual threads on JDK 21,
+ * so it is commonly used with {@link #setVirtualThreads setVirtualThreads(true)}.
+ *
+ * <p>Supports a graceful shutdown through {@link #destroy()}, with all scheduled
+ * but not yet triggered tasks being dropped. Tasks which are already running in
+ * their separate threads are not interrupted.
+ *
+ * <p>One-time tasks and fixed-rate tasks are triggered on the single scheduler
+ * thread and then executed through {@link #execute} in a new thread each, so
+ * fixed-rate executions may overlap if a task takes longer than its period.
+ * Fixed-delay tasks and trigger-based tasks are executed on the scheduler
+ * thread itself, in order to strictly follow their completion-based timing:
+ * consider using separate instances or a {@link ThreadPoolTaskScheduler}
+ * if such tasks are long-running.
+ *
+ * <p>As a {@link TaskScheduler} which is also a {@link SimpleAsyncTaskExecutor},
+ * a single bean of this type can back both {@code @Scheduled} and {@code @Async}
+ * processing, e.g. through {@code ScheduledTaskRegistrar#setTaskScheduler}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see #setVirtualThreads
+ * @see #setConcurrencyLimit
+ * @see ThreadPoolTaskScheduler
+ */
+@SuppressWarnings("serial")
+public class SimpleAsyncTaskScheduler extends SimpleAsyncTaskExecutor implements TaskScheduler, DisposableBean {
+
+	private final ScheduledExecutorService scheduledExecutor = createScheduledExecutor();
+
+	@Nullable
+	private ErrorHandler errorHandler;
+
+	private Clock clock = Clock.systemDefaultZone();
+
+
+	/**
+	 * Create a new SimpleAsyncTaskScheduler with default thread name prefix.
+	 */
+	public SimpleAsyncTaskScheduler() {
+		super();
+	}
+
+	/**
+	 * Create a new SimpleAsyncTaskScheduler with the given thread name prefix.
+	 * @param threadNamePrefix the prefix to apply to the names of new threads
+	 */
+	public SimpleAsyncTaskScheduler(String threadNamePrefix) {
+		super(threadNamePrefix);
+	}
+
+
+	/**
+	 * Set a custom {@link ErrorHandler} strategy.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		Assert.notNull(errorHandler, "ErrorHandler must not be null");
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Set the clock to use for scheduling purposes.
+	 * <p>The default clock is the system clock for the default time zone.
+	 * @see Clock#systemDefaultZone()
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "Clock must not be null");
+		this.clock = clock;
+	}
+
+	@Override
+	public Clock getClock() {
+		return this.clock;
+	}
+
+
+	private ScheduledExecutorService createScheduledExecutor() {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, getThreadNamePrefix() + "scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		executor.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+		return executor;
+	}
+
+	private Runnable errorHandlingTask(Runnable task, boolean isRepeatingTask) {
+		return TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, isRepeatingTask);
+	}
+
+	private Runnable executeInSeparateThread(Runnable task, boolean isRepeatingTask) {
+		Runnable taskToUse = errorHandlingTask(task, isRepeatingTask);
+		return () -> execute(taskToUse);
+	}
+
+
+	@Override
+	@Nullable
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		try {
+			ErrorHandler errorHandler = this.errorHandler;
+			if (errorHandler == null) {
+				errorHandler = TaskUtils.getDefaultErrorHandler(true);
+			}
+			return new ReschedulingRunnable(task, trigger, this.clock, this.scheduledExecutor, errorHandler).schedule();
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		long initialDelay = startTime.getTime() - this.clock.millis();
+		try {
+			return this.scheduledExecutor.schedule(
+					executeInSeparateThread(task, false), initialDelay, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		long initialDelay = startTime.getTime() - this.clock.millis();
+		try {
+			return this.scheduledExecutor.scheduleAtFixedRate(
+					executeInSeparateThread(task, true), initialDelay, period, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		try {
+			return this.scheduledExecutor.scheduleAtFixedRate(
+					executeInSeparateThread(task, true), 0, period, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		long initialDelay = startTime.getTime() - this.clock.millis();
+		try {
+			return this.scheduledExecutor.scheduleWithFixedDelay(
+					errorHandlingTask(task, true), initialDelay, delay, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		try {
+			return this.scheduledExecutor.scheduleWithFixedDelay(
+					errorHandlingTask(task, true), 0, delay, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler did not accept task: " + task, ex);
+		}
+	}
+
+
+	/**
+	 * Shut down the scheduler thread, dropping all scheduled tasks
+	 * which have not been triggered yet.
+	 */
+	@Override
+	public void destroy() {
+		this.scheduledExecutor.shutdownNow();
+	}
+
+}
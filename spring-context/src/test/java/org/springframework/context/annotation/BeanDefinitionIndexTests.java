@@ -0,0 +1,300 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.stereotype.Component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BeanDefinitionIndex} and {@link BeanDefinitionIndexGenerator}.
+ *
+ * @author agent (agent@local)
+ */
+class BeanDefinitionIndexTests {
+
+	@TempDir
+	Path tempDir;
+
+
+	@BeforeEach
+	void enableIndex() {
+		SpringProperties.setFlag(ConfigurationClassPostProcessor.BEAN_DEFINITION_INDEX_PROPERTY_NAME);
+	}
+
+	@AfterEach
+	void resetIndexFlag() {
+		SpringProperties.setProperty(ConfigurationClassPostProcessor.BEAN_DEFINITION_INDEX_PROPERTY_NAME, null);
+	}
+
+
+	@Test
+	void indexedContextMatchesParsedContext() throws Exception {
+		ClassLoader classLoader = generateIndex(IndexedConfig.class);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setClassLoader(classLoader);
+		ctx.register(IndexedConfig.class);
+		ctx.refresh();
+
+		assertThat(ctx.getBeanDefinition("testBean").getResourceDescription()).contains("bean definition index");
+		assertThat(ctx.getBean("testBean", TestBean.class).getSpouse()).isSameAs(ctx.getBean("spouse"));
+		assertThat(ctx.getBean(ScannedComponent.class)).isNotNull();
+		assertThat(ctx.getBeanDefinition("lazyBean").isLazyInit()).isTrue();
+		assertThat(ctx.getBeanDefinition("spouse").getRole()).isEqualTo(BeanDefinition.ROLE_SUPPORT);
+		assertThat(ctx.containsBean("conditionalBean")).isFalse();
+
+		ImportAwareConfig importAwareConfig = ctx.getBean(ImportAwareConfig.class);
+		assertThat(importAwareConfig.importMetadata).isNotNull();
+		assertThat(importAwareConfig.importMetadata.getClassName()).isEqualTo(IndexedConfig.class.getName());
+		ctx.close();
+	}
+
+	@Test
+	void indexNotUsedByDefault() throws Exception {
+		ClassLoader classLoader = generateIndex(IndexedConfig.class);
+		resetIndexFlag();
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setClassLoader(classLoader);
+		ctx.register(IndexedConfig.class);
+		ctx.refresh();
+
+		assertThat(ctx.getBeanDefinition("testBean").getResourceDescription()).doesNotContain("bean definition index");
+		ctx.close();
+	}
+
+	@Test
+	void indexIgnoredForDifferentRootClasses() throws Exception {
+		ClassLoader classLoader = generateIndex(IndexedConfig.class);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setClassLoader(classLoader);
+		ctx.register(IndexedConfig.class, OtherConfig.class);
+		ctx.refresh();
+
+		assertThat(ctx.getBeanDefinition("testBean").getResourceDescription()).doesNotContain("bean definition index");
+		assertThat(ctx.getBean("otherBean")).isNotNull();
+		ctx.close();
+	}
+
+	@Test
+	void indexIgnoredForDifferentActiveProfiles() throws Exception {
+		ClassLoader classLoader = generateIndex(IndexedConfig.class);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setClassLoader(classLoader);
+		ctx.getEnvironment().setActiveProfiles("special");
+		ctx.register(IndexedConfig.class);
+		ctx.refresh();
+
+		assertThat(ctx.getBeanDefinition("testBean").getResourceDescription()).doesNotContain("bean definition index");
+		assertThat(ctx.containsBean("conditionalBean")).isTrue();
+		ctx.close();
+	}
+
+	@Test
+	void indexIgnoredForDifferentDefaultProfiles() throws Exception {
+		ClassLoader classLoader = generateIndex(IndexedConfig.class);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setClassLoader(classLoader);
+		ctx.getEnvironment().setDefaultProfiles("special");
+		ctx.register(IndexedConfig.class);
+		ctx.refresh();
+
+		assertThat(ctx.getBeanDefinition("testBean").getResourceDescription()).doesNotContain("bean definition index");
+		assertThat(ctx.containsBean("conditionalBean")).isTrue();
+		ctx.close();
+	}
+
+	@Test
+	void indexRoundTrip() throws Exception {
+		BeanDefinitionIndex index = new BeanDefinitionIndexGenerator(IndexedConfig.class).buildIndex();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		index.writeTo(out);
+		BeanDefinitionIndex read = BeanDefinitionIndex.readFrom(new ByteArrayInputStream(out.toByteArray()), "test");
+
+		assertThat(read.getRootClassNames()).containsExactly(IndexedConfig.class.getName());
+		assertThat(read.getActiveProfiles()).isEmpty();
+		assertThat(read.getDefaultProfiles()).containsExactly("default");
+		assertThat(read.getBeanDefinitions().keySet()).isEqualTo(index.getBeanDefinitions().keySet());
+		AbstractBeanDefinition testBean = read.getBeanDefinitions().get("testBean");
+		assertThat(testBean.getFactoryMethodName()).isEqualTo("testBean");
+		assertThat(testBean.getFactoryBeanName()).isEqualTo("beanDefinitionIndexTests.IndexedConfig");
+		assertThat(testBean.getAutowireMode()).isEqualTo(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		assertThat(read.getBeanDefinitions().get("beanDefinitionIndexTests.IndexedConfig")
+				.getAttribute(ConfigurationClassUtils.CONFIGURATION_CLASS_ATTRIBUTE))
+				.isEqualTo(ConfigurationClassUtils.CONFIGURATION_CLASS_FULL);
+	}
+
+	@Test
+	void propertySourceCannotBeIndexed() {
+		assertThatIllegalStateException().isThrownBy(() ->
+				new BeanDefinitionIndexGenerator(PropertySourceConfig.class).buildIndex())
+			.withMessageContaining("@PropertySource");
+	}
+
+	@Test
+	void nonProfileConditionCannotBeIndexed() {
+		assertThatIllegalStateException().isThrownBy(() ->
+				new BeanDefinitionIndexGenerator(ConditionalConfig.class).buildIndex())
+			.withMessageContaining(NeverCondition.class.getName())
+			.withMessageContaining("conditionalBean()");
+		assertThatIllegalStateException().isThrownBy(() ->
+				new BeanDefinitionIndexGenerator(ConditionalRootConfig.class).buildIndex())
+			.withMessageContaining(ConditionalRootConfig.class.getName());
+	}
+
+	@Test
+	void scopedProxyCannotBeIndexed() {
+		assertThatIllegalStateException().isThrownBy(() ->
+				new BeanDefinitionIndexGenerator(ScopedProxyConfig.class).buildIndex())
+			.withMessageContaining("scoped proxies");
+	}
+
+
+	private ClassLoader generateIndex(Class<?>... componentClasses) throws Exception {
+		File indexFile = this.tempDir.resolve(BeanDefinitionIndex.INDEX_RESOURCE_LOCATION).toFile();
+		new BeanDefinitionIndexGenerator(componentClasses).generate(indexFile);
+		return new URLClassLoader(new URL[] {this.tempDir.toUri().toURL()}, getClass().getClassLoader());
+	}
+
+
+	@Configuration
+	@Import(ImportAwareConfig.class)
+	@ComponentScan(basePackageClasses = BeanDefinitionIndexTests.class, useDefaultFilters = false,
+			includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ScannedComponent.class))
+	static class IndexedConfig {
+
+		@Bean
+		public TestBean testBean() {
+			TestBean testBean = new TestBean("test");
+			testBean.setSpouse(spouse());
+			return testBean;
+		}
+
+		@Bean
+		@Role(BeanDefinition.ROLE_SUPPORT)
+		public TestBean spouse() {
+			return new TestBean("spouse");
+		}
+
+		@Bean
+		@Lazy
+		public TestBean lazyBean() {
+			return new TestBean("lazy");
+		}
+
+		@Bean
+		@Profile("special")
+		public TestBean conditionalBean() {
+			return new TestBean("conditional");
+		}
+	}
+
+
+	@Configuration
+	static class ImportAwareConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+	}
+
+
+	@Configuration
+	static class OtherConfig {
+
+		@Bean
+		public TestBean otherBean() {
+			return new TestBean("other");
+		}
+	}
+
+
+	@Configuration
+	@PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	static class PropertySourceConfig {
+	}
+
+
+	@Configuration
+	static class ConditionalConfig {
+
+		@Bean
+		@Conditional(NeverCondition.class)
+		public TestBean conditionalBean() {
+			return new TestBean("conditional");
+		}
+	}
+
+
+	@Configuration
+	@Conditional(NeverCondition.class)
+	static class ConditionalRootConfig {
+	}
+
+
+	static class NeverCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return false;
+		}
+	}
+
+
+	@Configuration
+	static class ScopedProxyConfig {
+
+		@Bean
+		@Scope(scopeName = "prototype", proxyMode = ScopedProxyMode.TARGET_CLASS)
+		public TestBean scopedBean() {
+			return new TestBean();
+		}
+	}
+
+
+	@Component
+	static class ScannedComponent {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,8 +22,10 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionRegistry;
 import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -66,10 +68,43 @@ public class CachedExpressionEvaluatorTests {
 		assertThat(expressionEvaluator.testCache.size()).as("Cached expression should be based on type").isEqualTo(2);
 	}
 
+	@Test
+	public void shareExpressionsThroughRegistry() {
+		Method method = ReflectionUtils.findMethod(getClass(), "toString");
+		SpelExpressionRegistry registry = new SpelExpressionRegistry(new SpelExpressionParser());
+		Expression expression = new TestExpressionEvaluator(registry).getTestExpression("true", method, getClass());
+		assertThat(new TestExpressionEvaluator(registry).getTestExpression("true", method, Object.class))
+				.isSameAs(expression);
+		assertThat(expression.getValue()).isEqualTo(true);
+		assertThat(registry.getStatistics("true").getInterpretedInvocations()).isEqualTo(1);
+	}
+
+	@Test
+	public void useLocalRegistryByDefault() {
+		SpelExpressionRegistry registry = new DefaultExpressionEvaluator().getExpressionRegistry();
+		assertThat(registry).isNotNull().isNotSameAs(SpelExpressionRegistry.getSharedInstance());
+		assertThat(new DefaultExpressionEvaluator().getExpressionRegistry()).isNotSameAs(registry);
+	}
+
+	@Test
+	public void useSharedRegistryIfEnabled() {
+		SpringProperties.setFlag(CachedExpressionEvaluator.SHARED_REGISTRY_PROPERTY_NAME);
+		try {
+			assertThat(new DefaultExpressionEvaluator().getExpressionRegistry())
+					.isSameAs(SpelExpressionRegistry.getSharedInstance());
+		}
+		finally {
+			SpringProperties.setProperty(CachedExpressionEvaluator.SHARED_REGISTRY_PROPERTY_NAME, null);
+		}
+	}
+
 	private void hasParsedExpression(String expression) {
 		verify(expressionEvaluator.getParser(), times(1)).parseExpression(expression);
 	}
 
+	private static class DefaultExpressionEvaluator extends CachedExpressionEvaluator {
+	}
+
 	private static class TestExpressionEvaluator extends CachedExpressionEvaluator {
 
 		private final Map<ExpressionKey, Expression> testCache = new ConcurrentHashMap<>();
@@ -78,6 +113,10 @@ public class CachedExpressionEvaluatorTests {
 			super(mockSpelExpressionParser());
 		}
 
+		public TestExpressionEvaluator(SpelExpressionRegistry registry) {
+			super(registry);
+		}
+
 		public Expression getTestExpression(String expression, Method method, Class<?> type) {
 			return getExpression(this.testCache, new AnnotatedElementKey(method, type), expression);
 		}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.support.PeriodicTrigger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SimpleAsyncTaskScheduler}, with platform threads
+ * as well as virtual threads where supported.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ */
+class SimpleAsyncTaskSchedulerTests {
+
+	private final SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler("test-");
+
+
+	@AfterEach
+	void shutdown() {
+		this.scheduler.destroy();
+	}
+
+
+	@Test
+	void scheduleOneTimeTaskInSeparateThread() throws Exception {
+		AtomicReference<Thread> thread = new AtomicReference<>();
+		CountDownLatch latch = new CountDownLatch(1);
+		this.scheduler.schedule(() -> {
+			thread.set(Thread.currentThread());
+			latch.countDown();
+		}, new Date(System.currentTimeMillis() + 10));
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(thread.get().getName()).startsWith("test-").isNotEqualTo("test-scheduler");
+	}
+
+	@Test
+	void scheduleAtFixedRateInSeparateThreads() throws Exception {
+		this.scheduler.setVirtualThreads(true);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		CountDownLatch latch = new CountDownLatch(3);
+		ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(() -> {
+			threads.add(Thread.currentThread());
+			latch.countDown();
+		}, 10);
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		future.cancel(false);
+		assertThat(threads.size()).isGreaterThanOrEqualTo(3);
+		assertThat(threads).allMatch(thread -> thread.isDaemon() == this.scheduler.isVirtualThreads());
+		assertThat(this.scheduler.isVirtualThreads()).isEqualTo(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+	}
+
+	@Test
+	void scheduleWithFixedDelayOnSchedulerThread() throws Exception {
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		CountDownLatch latch = new CountDownLatch(3);
+		ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(() -> {
+			threadNames.add(Thread.currentThread().getName());
+			latch.countDown();
+		}, 10);
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		future.cancel(false);
+		assertThat(threadNames).containsExactly("test-scheduler");
+	}
+
+	@Test
+	void scheduleWithTrigger() throws Exception {
+		CountDownLatch latch = new CountDownLatch(3);
+		ScheduledFuture<?> future = this.scheduler.schedule(latch::countDown, new PeriodicTrigger(10));
+		assertThat(future.isDone()).isFalse();
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		future.cancel(false);
+	}
+
+	@Test
+	void errorHandlerForRepeatingTask() throws Exception {
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch latch = new CountDownLatch(2);
+		this.scheduler.setErrorHandler(ex -> {
+			error.set(ex);
+			latch.countDown();
+		});
+		ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(() -> {
+			throw new IllegalStateException("test");
+		}, 10);
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		future.cancel(false);
+		assertThat(error.get()).isInstanceOf(IllegalStateException.class).hasMessage("test");
+	}
+
+	@Test
+	void destroyDropsScheduledTasks() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		this.scheduler.schedule(latch::countDown, new Date(System.currentTimeMillis() + 200));
+		this.scheduler.destroy();
+		assertThat(latch.await(500, TimeUnit.MILLISECONDS)).isFalse();
+	}
+
+}
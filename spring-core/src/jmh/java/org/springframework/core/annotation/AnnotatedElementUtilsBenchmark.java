@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmarks for merged annotation lookups in {@link AnnotatedElementUtils},
+ * for hits and misses on classes and methods within a type hierarchy.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotatedElementUtilsBenchmark {
+
+	@Benchmark
+	public void findMergedAnnotationOnClass(BenchmarkState state, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(SubClass.class, state.annotationType));
+	}
+
+	@Benchmark
+	public void findMergedAnnotationOnMethod(BenchmarkState state, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(state.method, state.annotationType));
+	}
+
+	@Benchmark
+	public void hasAnnotationOnClass(BenchmarkState state, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.hasAnnotation(SubClass.class, state.annotationType));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"present", "absent"})
+		public String lookup;
+
+		Class<? extends Annotation> annotationType;
+
+		Method method;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.annotationType = ("present".equals(this.lookup) ? Component.class : Absent.class);
+			this.method = ReflectionUtils.findMethod(SubClass.class, "handle");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Component {
+
+		String value() default "";
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Component
+	@interface Composed {
+
+		@AliasFor(annotation = Component.class)
+		String value() default "";
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Absent {
+	}
+
+	interface Handler {
+
+		@Composed("handler")
+		void handle();
+	}
+
+	@Composed("superClass")
+	static class SuperClass implements Handler {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+	static class SubClass extends SuperClass {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -102,6 +102,40 @@ public class GenericConversionServiceBenchmark {
 	}
 
 
+	@Benchmark
+	public void convertStringToIntegerWithTargetClass(SimpleBenchmarkState state, Blackhole bh) {
+		bh.consume(state.conversionService.convert(state.source, Integer.class));
+	}
+
+	@Benchmark
+	public void convertStringToIntegerWithTypeDescriptors(SimpleBenchmarkState state, Blackhole bh) {
+		bh.consume(state.conversionService.convert(state.source, state.sourceTypeDesc, state.targetTypeDesc));
+	}
+
+	@Benchmark
+	public void canConvertStringToInteger(SimpleBenchmarkState state, Blackhole bh) {
+		bh.consume(state.conversionService.canConvert(String.class, Integer.class));
+	}
+
+	@Benchmark
+	public void convertStringToIntegerBaseline(SimpleBenchmarkState state, Blackhole bh) {
+		bh.consume(Integer.valueOf(state.source));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class SimpleBenchmarkState {
+
+		GenericConversionService conversionService = new DefaultConversionService();
+
+		String source = "42";
+
+		TypeDescriptor sourceTypeDesc = TypeDescriptor.valueOf(String.class);
+
+		TypeDescriptor targetTypeDesc = TypeDescriptor.valueOf(Integer.class);
+	}
+
+
 	@State(Scope.Benchmark)
 	public static class BenchmarkState {
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks comparing {@link ConcurrentLruCache} and {@link ConcurrentTinyLfuCache}
+ * under contended reads, with either all keys fitting in the cache ("hit" workload)
+ * or a skewed key distribution larger than the cache ("skewed" workload).
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(Threads.MAX)
+public class ConcurrentCacheBenchmark {
+
+	private static final Function<String, String> GENERATOR = key -> key.toUpperCase();
+
+
+	@Benchmark
+	public void lruCache(LruCacheState state, KeyState keys, Blackhole bh) {
+		for (String key : keys.keys) {
+			bh.consume(state.cache.get(key));
+		}
+	}
+
+	@Benchmark
+	public void tinyLfuCache(TinyLfuCacheState state, KeyState keys, Blackhole bh) {
+		for (String key : keys.keys) {
+			bh.consume(state.cache.get(key));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class LruCacheState {
+
+		@Param({"64", "1024"})
+		public int capacity;
+
+		public ConcurrentLruCache<String, String> cache;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.cache = new ConcurrentLruCache<>(this.capacity, GENERATOR);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class TinyLfuCacheState {
+
+		@Param({"64", "1024"})
+		public int capacity;
+
+		public ConcurrentTinyLfuCache<String, String> cache;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.cache = new ConcurrentTinyLfuCache<>(this.capacity, GENERATOR);
+		}
+	}
+
+
+	@State(Scope.Thread)
+	public static class KeyState {
+
+		@Param({"hit", "skewed"})
+		public String workload;
+
+		public String[] keys;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			Random random = new Random(42);
+			this.keys = new String[256];
+			for (int i = 0; i < this.keys.length; i++) {
+				int key;
+				if ("hit".equals(this.workload)) {
+					key = random.nextInt(32);
+				}
+				else {
+					// roughly Zipfian: small keys are requested far more often
+					key = (int) Math.pow(4096, random.nextDouble());
+				}
+				this.keys[i] = "key" + key;
+			}
+		}
+	}
+
+}
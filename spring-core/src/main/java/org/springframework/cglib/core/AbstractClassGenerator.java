@@ -341,20 +341,30 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 						getClassName() + ". It seems that the loader has been expired from a weak reference somehow. " +
 						"Please file an issue at cglib's issue tracker.");
 			}
-			synchronized (classLoader) {
-				String name = generateClassName(data.getUniqueNamePredicate());
-				data.reserveName(name);
-				this.setClassName(name);
-			}
-			if (attemptLoad) {
-				try {
-					gen = classLoader.loadClass(getClassName());
-					return gen;
+			// SPRING PATCH BEGIN
+			while (true) {
+				synchronized (classLoader) {
+					String name = generateClassName(data.getUniqueNamePredicate());
+					data.reserveName(name);
+					this.setClassName(name);
 				}
-				catch (ClassNotFoundException e) {
-					// ignore
+				if (attemptLoad) {
+					try {
+						gen = ReflectUtils.loadClass(getClassName(), classLoader);
+						if (isCompatibleClass(gen)) {
+							return gen;
+						}
+						// Existing class does not match the current generator settings:
+						// continue with the next unique name.
+						continue;
+					}
+					catch (ClassNotFoundException e) {
+						// ignore
+					}
 				}
+				break;
 			}
+			// SPRING PATCH END
 			byte[] b = strategy.generate(this);
 			String className = ClassNameReader.getClassName(new ClassReader(b));
 			ProtectionDomain protectionDomain = getProtectionDomain();
@@ -376,6 +386,19 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 		}
 	}
 
+	// SPRING PATCH BEGIN
+	/**
+	 * Determine whether the given class, loaded by name in case of
+	 * {@link #setAttemptLoad attemptLoad}, matches the settings of this generator.
+	 * Default is {@code true}; to be overridden by subclasses.
+	 * @param type the loaded class
+	 * @since 5.3.5
+	 */
+	protected boolean isCompatibleClass(Class type) {
+		return true;
+	}
+	// SPRING PATCH END
+
 	abstract protected Object firstInstance(Class type) throws Exception;
 
 	abstract protected Object nextInstance(Object instance) throws Exception;
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cglib.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.core.SpringProperties;
+
+/**
+ * Support for CGLIB classes that get generated ahead of time, e.g. by a build
+ * task which starts up the application, and loaded by name at runtime instead
+ * of being generated on the fly.
+ *
+ * <p>With {@value #GENERATED_CLASSES_DIR_PROPERTY_NAME} set to a directory,
+ * the bytecode of all classes that CGLIB generates gets written to class files
+ * in that directory. With {@value #PREGENERATED_CLASSES_PROPERTY_NAME} set to
+ * {@code "true"}, Spring's CGLIB proxies and configuration class subclasses
+ * attempt to load an existing class with the expected name first, falling back
+ * to runtime generation if no such class is available or if it does not match
+ * the current proxy settings. Both modes use deterministic class names (see
+ * {@link SpringNamingPolicy#DETERMINISTIC}), so they need to be applied to
+ * the same application setup in order to find the pre-generated classes.
+ *
+ * <p>Both properties may be specified as JVM system properties or via
+ * {@link SpringProperties}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see ReflectUtils#setGeneratedClassHandler
+ * @see AbstractClassGenerator#setAttemptLoad
+ */
+public abstract class PregeneratedClassSupport {
+
+	/**
+	 * System property that instructs Spring to load pre-generated CGLIB classes
+	 * by name: {@code "spring.cglib.pregenerated-classes"}.
+	 */
+	public static final String PREGENERATED_CLASSES_PROPERTY_NAME = "spring.cglib.pregenerated-classes";
+
+	/**
+	 * System property that specifies a directory to write the class files of
+	 * all CGLIB-generated classes into: {@code "spring.cglib.generated-classes-dir"}.
+	 */
+	public static final String GENERATED_CLASSES_DIR_PROPERTY_NAME = "spring.cglib.generated-classes-dir";
+
+
+	private static final boolean shouldLoadPregeneratedClasses =
+			SpringProperties.getFlag(PREGENERATED_CLASSES_PROPERTY_NAME);
+
+	private static final String generatedClassesDir =
+			SpringProperties.getProperty(GENERATED_CLASSES_DIR_PROPERTY_NAME);
+
+	static {
+		if (generatedClassesDir != null) {
+			File dir = new File(generatedClassesDir);
+			ReflectUtils.setGeneratedClassHandler((className, bytecode) -> writeClassFile(dir, className, bytecode));
+		}
+	}
+
+
+	/**
+	 * Return whether ahead-of-time generation or loading of pre-generated
+	 * classes is active, i.e. whether deterministic class names are in use.
+	 */
+	public static boolean isActive() {
+		return (shouldLoadPregeneratedClasses || generatedClassesDir != null);
+	}
+
+	/**
+	 * Apply the active mode to the given class generator: deterministic class
+	 * names for ahead-of-time generation, plus loading of existing classes by name
+	 * if pre-generated classes are to be used. Does nothing if neither is active.
+	 * @param generator the generator to configure (typically an Enhancer)
+	 */
+	public static void configure(AbstractClassGenerator<?> generator) {
+		if (isActive()) {
+			generator.setNamingPolicy(SpringNamingPolicy.DETERMINISTIC);
+			generator.setAttemptLoad(shouldLoadPregeneratedClasses);
+		}
+	}
+
+	/**
+	 * Write the given bytecode to a class file for the given class name,
+	 * in the corresponding package directory below the given root directory.
+	 * @param dir the root directory
+	 * @param className the fully qualified name of the class
+	 * @param bytecode the bytecode of the class
+	 * @throws IllegalStateException if the class file could not be written
+	 */
+	public static void writeClassFile(File dir, String className, byte[] bytecode) {
+		Path file = dir.toPath().resolve(className.replace('.', File.separatorChar) + ".class");
+		try {
+			Files.createDirectories(file.getParent());
+			Files.write(file, bytecode);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Could not write class file for [" + className + "]", ex);
+		}
+	}
+
+}
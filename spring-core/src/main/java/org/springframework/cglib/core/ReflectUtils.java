@@ -37,6 +37,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import org.springframework.asm.Attribute;
 import org.springframework.asm.Type;
@@ -69,6 +70,8 @@ public class ReflectUtils {
 
 	private static final List<Method> OBJECT_METHODS = new ArrayList<Method>();
 
+	private static volatile BiConsumer<String, byte[]> generatedClassHandler;
+
 	static {
 		Method privateLookupIn;
 		Method lookupDefineClass;
@@ -484,6 +487,26 @@ public class ReflectUtils {
 	}
 
 	// SPRING PATCH BEGIN
+	/**
+	 * Register a handler for the bytecode of all classes that get defined
+	 * through this class, e.g. for writing them to class files.
+	 * @param handler the handler, receiving class name and bytecode
+	 * (or {@code null} to remove a previously registered handler)
+	 * @since 5.3.5
+	 */
+	public static void setGeneratedClassHandler(BiConsumer<String, byte[]> handler) {
+		generatedClassHandler = handler;
+	}
+
+	/**
+	 * Load the class with the given name from the given ClassLoader,
+	 * without initializing it.
+	 * @since 5.3.5
+	 */
+	public static Class loadClass(String className, ClassLoader classLoader) throws ClassNotFoundException {
+		return Class.forName(className, false, classLoader);
+	}
+
 	public static Class defineClass(String className, byte[] b, ClassLoader loader) throws Exception {
 		return defineClass(className, b, loader, null, null);
 	}
@@ -498,6 +521,11 @@ public class ReflectUtils {
 	public static Class defineClass(String className, byte[] b, ClassLoader loader,
 			ProtectionDomain protectionDomain, Class<?> contextClass) throws Exception {
 
+		BiConsumer<String, byte[]> handler = generatedClassHandler;
+		if (handler != null) {
+			handler.accept(className, b);
+		}
+
 		Class c = null;
 
 		// Preferred option: JDK 9+ Lookup.defineClass API if ClassLoader matches
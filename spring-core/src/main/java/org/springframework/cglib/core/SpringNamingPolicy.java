@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,9 +31,52 @@ public class SpringNamingPolicy extends DefaultNamingPolicy {
 
 	public static final SpringNamingPolicy INSTANCE = new SpringNamingPolicy();
 
+	/**
+	 * Variant with deterministic names for generated classes with a structured
+	 * key (such as Enhancer subclasses): the class name prefix plus
+	 * {@code "$$SpringCGLIB$$"} plus an index that is unique within the target
+	 * ClassLoader, in order of generation. As long as the same classes get
+	 * generated in the same order, this allows for loading classes that have
+	 * been generated ahead of time by name. Enhancer subclasses generated with
+	 * this policy record a digest of their settings, including the callback
+	 * filter result per method, which a class loaded by name needs to match.
+	 * Classes with a plain name as key (such as FastClass variants) retain
+	 * their hash-based name which is stable already.
+	 * @since 5.3.5
+	 * @see PregeneratedClassSupport
+	 */
+	public static final SpringNamingPolicy DETERMINISTIC = new DeterministicNamingPolicy();
+
+	private static final String DETERMINISTIC_LABEL = "$$SpringCGLIB$$";
+
+
 	@Override
 	protected String getTag() {
 		return "BySpringCGLIB";
 	}
 
+
+	private static class DeterministicNamingPolicy extends SpringNamingPolicy {
+
+		@Override
+		public String getClassName(String prefix, String source, Object key, Predicate names) {
+			if (key instanceof String) {
+				return super.getClassName(prefix, source, key, names);
+			}
+			if (prefix == null) {
+				prefix = "org.springframework.cglib.empty.Object";
+			}
+			else if (prefix.startsWith("java")) {
+				prefix = "$" + prefix;
+			}
+			String base = prefix + DETERMINISTIC_LABEL;
+			int index = 0;
+			String attempt = base + index;
+			while (names.evaluate(attempt)) {
+				attempt = base + (++index);
+			}
+			return attempt;
+		}
+	}
+
 }
@@ -21,6 +21,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -52,10 +53,12 @@ import org.springframework.cglib.core.ProcessSwitchCallback;
 import org.springframework.cglib.core.ReflectUtils;
 import org.springframework.cglib.core.RejectModifierPredicate;
 import org.springframework.cglib.core.Signature;
+import org.springframework.cglib.core.SpringNamingPolicy;
 import org.springframework.cglib.core.Transformer;
 import org.springframework.cglib.core.TypeUtils;
 import org.springframework.cglib.core.VisibilityPredicate;
 import org.springframework.cglib.core.WeakCacheKey;
+import org.springframework.util.DigestUtils;
 
 /**
  * Generates dynamic subclasses to enable method interception. This
@@ -128,6 +131,10 @@ public class Enhancer extends AbstractClassGenerator {
 	 */
 	private static final String CALLBACK_FILTER_FIELD = "CGLIB$CALLBACK_FILTER";
 
+	// SPRING PATCH BEGIN
+	private static final String KEY_DIGEST_FIELD_PREFIX = "CGLIB$KEY_DIGEST$";
+	// SPRING PATCH END
+
 	private static final Type OBJECT_TYPE =
 			TypeUtils.parseType("Object");
 
@@ -585,6 +592,74 @@ public class Enhancer extends AbstractClassGenerator {
 		return super.generate(data);
 	}
 
+	// SPRING PATCH BEGIN
+	@Override
+	protected boolean isCompatibleClass(Class type) {
+		if (type.getSuperclass() != (superclass != null ? superclass : Object.class) ||
+				Factory.class.isAssignableFrom(type) != useFactory) {
+			return false;
+		}
+		if (interfaces != null) {
+			for (Class ifc : interfaces) {
+				if (!ifc.isAssignableFrom(type)) {
+					return false;
+				}
+			}
+		}
+		for (int i = 0; i < callbackTypes.length; i++) {
+			Field field = findDeclaredField(type, getCallbackField(i));
+			if (field == null || !Type.getType(field.getType()).equals(callbackTypes[i])) {
+				return false;
+			}
+		}
+		if (findDeclaredField(type, getCallbackField(callbackTypes.length)) != null) {
+			return false;
+		}
+		// The callback filter routing is not reflected in the class structure
+		return (getNamingPolicy() != SpringNamingPolicy.DETERMINISTIC ||
+				findDeclaredField(type, getKeyDigestField()) != null);
+	}
+
+	/**
+	 * Return the name of a marker field which records a digest of the generator
+	 * settings, including the callback index that the callback filter returns for
+	 * each method. Used with deterministic class names, where classes loaded by
+	 * name must match these settings; a field name can be checked without
+	 * initializing the loaded class.
+	 */
+	private String getKeyDigestField() {
+		StringBuilder key = new StringBuilder();
+		Class sc = (superclass != null ? superclass : Object.class);
+		key.append(sc.getName()).append(';');
+		if (interfaces != null) {
+			for (Class ifc : interfaces) {
+				key.append(ifc.getName()).append(',');
+			}
+		}
+		key.append(';').append(useFactory).append(';').append(interceptDuringConstruction)
+				.append(';').append(serialVersionUID).append(';');
+		for (Type callbackType : callbackTypes) {
+			key.append(callbackType.getDescriptor());
+		}
+		List methods = new ArrayList();
+		getMethods(sc, interfaces, methods);
+		for (Object method : methods) {
+			key.append(';').append(ReflectUtils.getSignature((Method) method)).append('=')
+					.append(filter.accept((Method) method));
+		}
+		return KEY_DIGEST_FIELD_PREFIX + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Field findDeclaredField(Class type, String name) {
+		try {
+			return type.getDeclaredField(name);
+		}
+		catch (NoSuchFieldException ex) {
+			return null;
+		}
+	}
+	// SPRING PATCH END
+
 	protected ClassLoader getDefaultClassLoader() {
 		if (superclass != null) {
 			return superclass.getClassLoader();
@@ -721,6 +796,11 @@ public class Enhancer extends AbstractClassGenerator {
 		}
 		// This is declared private to avoid "public field" pollution
 		e.declare_field(Constants.ACC_PRIVATE | Constants.ACC_STATIC, CALLBACK_FILTER_FIELD, OBJECT_TYPE, null);
+		// SPRING PATCH BEGIN
+		if (getNamingPolicy() == SpringNamingPolicy.DETERMINISTIC) {
+			e.declare_field(Constants.PRIVATE_FINAL_STATIC, getKeyDigestField(), Type.BOOLEAN_TYPE, null);
+		}
+		// SPRING PATCH END
 
 		if (currentData == null) {
 			emitMethods(e, methods, actualMethods);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -89,6 +89,18 @@ public class ResolvableType implements Serializable {
 	 */
 	public static final ResolvableType NONE = new ResolvableType(EmptyType.INSTANCE, null, null, 0);
 
+	/**
+	 * System property that instructs Spring to skip the {@link Serializable} proxies
+	 * for generic types obtained from fields and method parameters, i.e. to operate
+	 * on the original reflection types: {@code spring.serializabletypes.ignore}.
+	 * <p>The default is "false", preserving the serializability of {@code ResolvableType}
+	 * and {@link org.springframework.core.convert.TypeDescriptor} instances. Switch this
+	 * flag to "true" to avoid proxy creation and proxy method dispatch during generic
+	 * type resolution when such types never need to be serialized.
+	 * @since 5.3.5
+	 */
+	public static final String IGNORE_SERIALIZABLE_TYPES_PROPERTY_NAME = "spring.serializabletypes.ignore";
+
 	private static final ResolvableType[] EMPTY_TYPES_ARRAY = new ResolvableType[0];
 
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
@@ -1440,6 +1452,11 @@ public class ResolvableType implements Serializable {
 			cachedType = new ResolvableType(type, typeProvider, variableResolver, resultType.hash);
 			cache.put(cachedType, cachedType);
 		}
+		if (typeProvider == null) {
+			// No specific source to expose -> share the canonical instance,
+			// including its lazily resolved supertypes, interfaces and generics
+			return cachedType;
+		}
 		resultType.resolved = cachedType.resolved;
 		return resultType;
 	}
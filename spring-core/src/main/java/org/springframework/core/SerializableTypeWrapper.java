@@ -59,6 +59,9 @@ final class SerializableTypeWrapper {
 	private static final Class<?>[] SUPPORTED_SERIALIZABLE_TYPES = {
 			GenericArrayType.class, ParameterizedType.class, TypeVariable.class, WildcardType.class};
 
+	private static final boolean shouldIgnoreSerializableTypes =
+			SpringProperties.getFlag(ResolvableType.IGNORE_SERIALIZABLE_TYPES_PROPERTY_NAME);
+
 	static final ConcurrentReferenceHashMap<Type, Type> cache = new ConcurrentReferenceHashMap<>(256);
 
 
@@ -100,7 +103,9 @@ final class SerializableTypeWrapper {
 	/**
 	 * Return a {@link Serializable} {@link Type} backed by a {@link TypeProvider} .
 	 * <p>If type artifacts are generally not serializable in the current runtime
-	 * environment, this delegate will simply return the original {@code Type} as-is.
+	 * environment, or if serializable types are turned off through the
+	 * {@link ResolvableType#IGNORE_SERIALIZABLE_TYPES_PROPERTY_NAME} property,
+	 * this delegate will simply return the original {@code Type} as-is.
 	 */
 	@Nullable
 	static Type forTypeProvider(TypeProvider provider) {
@@ -109,9 +114,11 @@ final class SerializableTypeWrapper {
 			// No serializable type wrapping necessary (e.g. for java.lang.Class)
 			return providedType;
 		}
-		if (NativeDetector.inNativeImage() || !Serializable.class.isAssignableFrom(Class.class)) {
-			// Let's skip any wrapping attempts if types are generally not serializable in
-			// the current runtime environment (even java.lang.Class itself, e.g. on GraalVM native images)
+		if (shouldIgnoreSerializableTypes || NativeDetector.inNativeImage() ||
+				!Serializable.class.isAssignableFrom(Class.class)) {
+			// Let's skip any wrapping attempts if serializable types are turned off or if types are
+			// generally not serializable in the current runtime environment (even java.lang.Class
+			// itself, e.g. on GraalVM native images)
 			return providedType;
 		}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -167,6 +167,10 @@ public abstract class AnnotatedElementUtils {
 	 * @see #getMetaAnnotationTypes
 	 */
 	public static boolean hasMetaAnnotationTypes(AnnotatedElement element, Class<? extends Annotation> annotationType) {
+		if (!MergedAnnotationLookupCache.mayBePresent(
+				element, SearchStrategy.INHERITED_ANNOTATIONS, annotationType.getName())) {
+			return false;
+		}
 		return getAnnotations(element).stream(annotationType).anyMatch(MergedAnnotation::isMetaPresent);
 	}
 
@@ -183,6 +187,9 @@ public abstract class AnnotatedElementUtils {
 	 * @see #getMetaAnnotationTypes
 	 */
 	public static boolean hasMetaAnnotationTypes(AnnotatedElement element, String annotationName) {
+		if (!MergedAnnotationLookupCache.mayBePresent(element, SearchStrategy.INHERITED_ANNOTATIONS, annotationName)) {
+			return false;
+		}
 		return getAnnotations(element).stream(annotationName).anyMatch(MergedAnnotation::isMetaPresent);
 	}
 
@@ -206,8 +213,8 @@ public abstract class AnnotatedElementUtils {
 				AnnotationsScanner.hasPlainJavaAnnotationsOnly(element)) {
 			return element.isAnnotationPresent(annotationType);
 		}
-		// Exhaustive retrieval of merged annotations...
-		return getAnnotations(element).isPresent(annotationType);
+		// Exhaustive retrieval of merged annotations, cached per element...
+		return MergedAnnotationLookupCache.isPresent(element, SearchStrategy.INHERITED_ANNOTATIONS, annotationType);
 	}
 
 	/**
@@ -223,6 +230,9 @@ public abstract class AnnotatedElementUtils {
 	 * @return {@code true} if a matching annotation is present
 	 */
 	public static boolean isAnnotated(AnnotatedElement element, String annotationName) {
+		if (!MergedAnnotationLookupCache.mayBePresent(element, SearchStrategy.INHERITED_ANNOTATIONS, annotationName)) {
+			return false;
+		}
 		return getAnnotations(element).isPresent(annotationName);
 	}
 
@@ -247,6 +257,10 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(
 			AnnotatedElement element, Class<? extends Annotation> annotationType) {
 
+		if (!MergedAnnotationLookupCache.mayBePresent(
+				element, SearchStrategy.INHERITED_ANNOTATIONS, annotationType.getName())) {
+			return null;
+		}
 		MergedAnnotation<?> mergedAnnotation = getAnnotations(element)
 				.get(annotationType, null, MergedAnnotationSelectors.firstDirectlyDeclared());
 		return getAnnotationAttributes(mergedAnnotation, false, false);
@@ -307,6 +321,9 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
+		if (!MergedAnnotationLookupCache.mayBePresent(element, SearchStrategy.INHERITED_ANNOTATIONS, annotationName)) {
+			return null;
+		}
 		MergedAnnotation<?> mergedAnnotation = getAnnotations(element)
 				.get(annotationName, null, MergedAnnotationSelectors.firstDirectlyDeclared());
 		return getAnnotationAttributes(mergedAnnotation, classValuesAsString, nestedAnnotationsAsMap);
@@ -333,10 +350,9 @@ public abstract class AnnotatedElementUtils {
 				AnnotationsScanner.hasPlainJavaAnnotationsOnly(element)) {
 			return element.getDeclaredAnnotation(annotationType);
 		}
-		// Exhaustive retrieval of merged annotations...
-		return getAnnotations(element)
-				.get(annotationType, null, MergedAnnotationSelectors.firstDirectlyDeclared())
-				.synthesize(MergedAnnotation::isPresent).orElse(null);
+		// Exhaustive retrieval of merged annotations, cached per element...
+		return MergedAnnotationLookupCache.getMergedAnnotation(
+				element, SearchStrategy.INHERITED_ANNOTATIONS, annotationType);
 	}
 
 	/**
@@ -527,8 +543,8 @@ public abstract class AnnotatedElementUtils {
 				AnnotationsScanner.hasPlainJavaAnnotationsOnly(element)) {
 			return element.isAnnotationPresent(annotationType);
 		}
-		// Exhaustive retrieval of merged annotations...
-		return findAnnotations(element).isPresent(annotationType);
+		// Exhaustive retrieval of merged annotations, cached per element...
+		return MergedAnnotationLookupCache.isPresent(element, SearchStrategy.TYPE_HIERARCHY, annotationType);
 	}
 
 	/**
@@ -562,6 +578,9 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			Class<? extends Annotation> annotationType, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
+		if (!MergedAnnotationLookupCache.mayBePresent(element, SearchStrategy.TYPE_HIERARCHY, annotationType.getName())) {
+			return null;
+		}
 		MergedAnnotation<?> mergedAnnotation = findAnnotations(element)
 				.get(annotationType, null, MergedAnnotationSelectors.firstDirectlyDeclared());
 		return getAnnotationAttributes(mergedAnnotation, classValuesAsString, nestedAnnotationsAsMap);
@@ -598,6 +617,9 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
+		if (!MergedAnnotationLookupCache.mayBePresent(element, SearchStrategy.TYPE_HIERARCHY, annotationName)) {
+			return null;
+		}
 		MergedAnnotation<?> mergedAnnotation = findAnnotations(element)
 				.get(annotationName, null, MergedAnnotationSelectors.firstDirectlyDeclared());
 		return getAnnotationAttributes(mergedAnnotation, classValuesAsString, nestedAnnotationsAsMap);
@@ -628,10 +650,8 @@ public abstract class AnnotatedElementUtils {
 				AnnotationsScanner.hasPlainJavaAnnotationsOnly(element)) {
 			return element.getDeclaredAnnotation(annotationType);
 		}
-		// Exhaustive retrieval of merged annotations...
-		return findAnnotations(element)
-				.get(annotationType, null, MergedAnnotationSelectors.firstDirectlyDeclared())
-				.synthesize(MergedAnnotation::isPresent).orElse(null);
+		// Exhaustive retrieval of merged annotations, cached per element...
+		return MergedAnnotationLookupCache.getMergedAnnotation(element, SearchStrategy.TYPE_HIERARCHY, annotationType);
 	}
 
 	/**
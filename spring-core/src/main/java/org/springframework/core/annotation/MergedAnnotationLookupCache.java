@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Cache for the results of merged annotation lookups on classes and methods,
+ * keyed by element, annotation type and {@link SearchStrategy}, for the
+ * non-repeatable lookups in {@link AnnotatedElementUtils}.
+ *
+ * <p>For each element and search strategy, the cache holds a fixed-size filter
+ * over the names of all annotation types that are present within the annotation
+ * hierarchy, including meta-annotations. If the filter indicates that an annotation
+ * type is definitely not present, a lookup returns in constant time, without
+ * scanning the type hierarchy or building any merged annotations. Otherwise,
+ * the synthesized annotation and the presence check are computed once per
+ * annotation type and then served from the cache.
+ *
+ * <p>Entries are softly referenced, analogous to the declared annotations held
+ * by {@link AnnotationsScanner}, and the cache is bounded in the number of
+ * elements per search strategy as well as the number of results per element.
+ * Lookups beyond those limits are computed without caching.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see AnnotationUtils#clearCache()
+ */
+final class MergedAnnotationLookupCache {
+
+	/** Maximum number of cached elements per search strategy. */
+	static final int MAX_ELEMENTS = 16384;
+
+	/** Maximum number of cached results per element and search strategy. */
+	static final int MAX_RESULTS_PER_ELEMENT = 32;
+
+	private static final int FILTER_BITS = 256;
+
+	private static final Object NOT_FOUND = new Object();
+
+	private static final Map<SearchStrategy, Map<AnnotatedElement, MergedAnnotationLookupCache>> caches =
+			new EnumMap<>(SearchStrategy.class);
+
+	static {
+		for (SearchStrategy searchStrategy : SearchStrategy.values()) {
+			caches.put(searchStrategy, new ConcurrentReferenceHashMap<>(256));
+		}
+	}
+
+
+	private final AnnotatedElement element;
+
+	private final SearchStrategy searchStrategy;
+
+	private final long[] presentTypes = new long[FILTER_BITS / 64];
+
+	private final Map<Class<?>, Object> mergedAnnotations = new ConcurrentHashMap<>(8);
+
+	private final Map<Class<?>, Boolean> presence = new ConcurrentHashMap<>(8);
+
+
+	private MergedAnnotationLookupCache(AnnotatedElement element, SearchStrategy searchStrategy) {
+		this.element = element;
+		this.searchStrategy = searchStrategy;
+		getAnnotations(element, searchStrategy).stream().forEach(annotation -> {
+			String typeName = annotation.getType().getName();
+			setBit(firstIndex(typeName));
+			setBit(secondIndex(typeName));
+		});
+	}
+
+
+	private void setBit(int index) {
+		this.presentTypes[index >>> 6] |= (1L << index);
+	}
+
+	private boolean isBitSet(int index) {
+		return (this.presentTypes[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Determine whether an annotation of the given type may be present:
+	 * {@code false} means that it is definitely not present.
+	 */
+	boolean mayBePresent(String annotationName) {
+		return (isBitSet(firstIndex(annotationName)) && isBitSet(secondIndex(annotationName)));
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private <A extends Annotation> A getMergedAnnotation(Class<A> annotationType) {
+		Object result = this.mergedAnnotations.get(annotationType);
+		if (result == null) {
+			result = doGetMergedAnnotation(this.element, this.searchStrategy, annotationType);
+			if (result == null) {
+				result = NOT_FOUND;
+			}
+			if (this.mergedAnnotations.size() < MAX_RESULTS_PER_ELEMENT) {
+				this.mergedAnnotations.put(annotationType, result);
+			}
+		}
+		return (result != NOT_FOUND ? (A) result : null);
+	}
+
+	private boolean isPresent(Class<? extends Annotation> annotationType) {
+		Boolean result = this.presence.get(annotationType);
+		if (result == null) {
+			result = doIsPresent(this.element, this.searchStrategy, annotationType);
+			if (this.presence.size() < MAX_RESULTS_PER_ELEMENT) {
+				this.presence.put(annotationType, result);
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Get the first merged annotation of the given type, synthesized,
+	 * as in {@link AnnotatedElementUtils#findMergedAnnotation}.
+	 * @param element the annotated element
+	 * @param searchStrategy the search strategy to use
+	 * @param annotationType the annotation type to look for
+	 * @return the synthesized annotation, or {@code null} if not found
+	 */
+	@Nullable
+	static <A extends Annotation> A getMergedAnnotation(
+			AnnotatedElement element, SearchStrategy searchStrategy, Class<A> annotationType) {
+
+		MergedAnnotationLookupCache cache = forElement(element, searchStrategy);
+		if (cache == null) {
+			return doGetMergedAnnotation(element, searchStrategy, annotationType);
+		}
+		if (!cache.mayBePresent(annotationType.getName())) {
+			return null;
+		}
+		return cache.getMergedAnnotation(annotationType);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type is present,
+	 * as in {@link AnnotatedElementUtils#hasAnnotation}.
+	 * @param element the annotated element
+	 * @param searchStrategy the search strategy to use
+	 * @param annotationType the annotation type to look for
+	 * @return {@code true} if a matching annotation is present
+	 */
+	static boolean isPresent(AnnotatedElement element, SearchStrategy searchStrategy,
+			Class<? extends Annotation> annotationType) {
+
+		MergedAnnotationLookupCache cache = forElement(element, searchStrategy);
+		if (cache == null) {
+			return doIsPresent(element, searchStrategy, annotationType);
+		}
+		if (!cache.mayBePresent(annotationType.getName())) {
+			return false;
+		}
+		return cache.isPresent(annotationType);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type may be present,
+	 * as a pre-check for lookups that build fresh results on every call.
+	 * @param element the annotated element
+	 * @param searchStrategy the search strategy to use
+	 * @param annotationName the fully qualified class name of the annotation type
+	 * @return {@code false} if the annotation type is definitely not present,
+	 * {@code true} if it is or if the element is not cached
+	 */
+	static boolean mayBePresent(AnnotatedElement element, SearchStrategy searchStrategy, String annotationName) {
+		MergedAnnotationLookupCache cache = forElement(element, searchStrategy);
+		return (cache == null || cache.mayBePresent(annotationName));
+	}
+
+	/**
+	 * Clear the internal lookup cache.
+	 */
+	static void clearCache() {
+		for (Map<AnnotatedElement, MergedAnnotationLookupCache> cache : caches.values()) {
+			cache.clear();
+		}
+	}
+
+	@Nullable
+	private static MergedAnnotationLookupCache forElement(AnnotatedElement element, SearchStrategy searchStrategy) {
+		if (!(element instanceof Class || element instanceof Method) ||
+				AnnotationsScanner.hasPlainJavaAnnotationsOnly(element)) {
+			return null;
+		}
+		Map<AnnotatedElement, MergedAnnotationLookupCache> cache = caches.get(searchStrategy);
+		MergedAnnotationLookupCache result = cache.get(element);
+		if (result == null) {
+			if (cache.size() >= MAX_ELEMENTS) {
+				return null;
+			}
+			try {
+				result = new MergedAnnotationLookupCache(element, searchStrategy);
+			}
+			catch (RuntimeException ex) {
+				// Invalid annotation declarations -> leave the exception handling to the regular lookup.
+				return null;
+			}
+			MergedAnnotationLookupCache existing = cache.putIfAbsent(element, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	@Nullable
+	private static <A extends Annotation> A doGetMergedAnnotation(
+			AnnotatedElement element, SearchStrategy searchStrategy, Class<A> annotationType) {
+
+		return getAnnotations(element, searchStrategy)
+				.get(annotationType, null, MergedAnnotationSelectors.firstDirectlyDeclared())
+				.synthesize(MergedAnnotation::isPresent).orElse(null);
+	}
+
+	private static boolean doIsPresent(AnnotatedElement element, SearchStrategy searchStrategy,
+			Class<? extends Annotation> annotationType) {
+
+		return getAnnotations(element, searchStrategy).isPresent(annotationType);
+	}
+
+	private static MergedAnnotations getAnnotations(AnnotatedElement element, SearchStrategy searchStrategy) {
+		return MergedAnnotations.from(element, searchStrategy, RepeatableContainers.none());
+	}
+
+	private static int firstIndex(String annotationName) {
+		return (annotationName.hashCode() & (FILTER_BITS - 1));
+	}
+
+	private static int secondIndex(String annotationName) {
+		return ((annotationName.hashCode() * 0x9E3779B9) >>> 24);
+	}
+
+}
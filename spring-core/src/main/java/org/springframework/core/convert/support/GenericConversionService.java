@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -79,6 +79,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	private final Map<Class<?>, Map<Class<?>, ClassPairConversion>> classPairCache =
+			new ConcurrentReferenceHashMap<>(64);
+
 
 	// ConverterRegistry implementation
 
@@ -133,8 +136,11 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
-		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
-				TypeDescriptor.valueOf(targetType));
+		if (sourceType == null) {
+			return canConvert(null, TypeDescriptor.valueOf(targetType));
+		}
+		ClassPairConversion conversion = getClassPairConversion(sourceType, targetType);
+		return canConvert(conversion.sourceType, conversion.targetType);
 	}
 
 	@Override
@@ -172,7 +178,11 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
-		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
+		if (source == null) {
+			return (T) convert(null, null, TypeDescriptor.valueOf(targetType));
+		}
+		ClassPairConversion conversion = getClassPairConversion(source.getClass(), targetType);
+		return (T) convert(source, conversion.sourceType, conversion.targetType);
 	}
 
 	@Override
@@ -244,6 +254,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 * First queries this ConversionService's converter cache.
 	 * On a cache miss, then performs an exhaustive search for a matching converter.
 	 * If no converter matches, returns the default converter.
+	 * <p>As of 5.3.5, pairs of plain class-based type descriptors, i.e. without
+	 * generics and without annotations, are looked up by class in a separate cache,
+	 * avoiding the creation and hashing of a cache key.
 	 * @param sourceType the source type to convert from
 	 * @param targetType the target type to convert to
 	 * @return the generic converter that will perform the conversion,
@@ -252,24 +265,23 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	@Nullable
 	protected GenericConverter getConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
-		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
-		GenericConverter converter = this.converterCache.get(key);
-		if (converter != null) {
+		if (isPlainType(sourceType) && isPlainType(targetType)) {
+			ClassPairConversion conversion = getClassPairConversion(sourceType.getType(), targetType.getType());
+			GenericConverter converter = conversion.converter;
+			if (converter == null) {
+				converter = findConverter(conversion.sourceType, conversion.targetType);
+				conversion.converter = converter;
+			}
 			return (converter != NO_MATCH ? converter : null);
 		}
 
-		converter = this.converters.find(sourceType, targetType);
+		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
+		GenericConverter converter = this.converterCache.get(key);
 		if (converter == null) {
-			converter = getDefaultConverter(sourceType, targetType);
-		}
-
-		if (converter != null) {
+			converter = findConverter(sourceType, targetType);
 			this.converterCache.put(key, converter);
-			return converter;
 		}
-
-		this.converterCache.put(key, NO_MATCH);
-		return null;
+		return (converter != NO_MATCH ? converter : null);
 	}
 
 	/**
@@ -288,6 +300,43 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	// Internal helpers
 
+	private GenericConverter findConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		GenericConverter converter = this.converters.find(sourceType, targetType);
+		if (converter == null) {
+			converter = getDefaultConverter(sourceType, targetType);
+		}
+		return (converter != null ? converter : NO_MATCH);
+	}
+
+	/**
+	 * Determine whether the given type descriptor is fully described by its
+	 * class, i.e. equal to {@code TypeDescriptor.valueOf(type)}.
+	 */
+	private static boolean isPlainType(TypeDescriptor typeDescriptor) {
+		return (typeDescriptor.getResolvableType().getType() == typeDescriptor.getType() &&
+				typeDescriptor.getAnnotations().length == 0);
+	}
+
+	private ClassPairConversion getClassPairConversion(Class<?> sourceType, Class<?> targetType) {
+		Map<Class<?>, ClassPairConversion> targetCache = this.classPairCache.get(sourceType);
+		if (targetCache == null) {
+			targetCache = new ConcurrentReferenceHashMap<>(16, 1);
+			Map<Class<?>, ClassPairConversion> existing = this.classPairCache.putIfAbsent(sourceType, targetCache);
+			if (existing != null) {
+				targetCache = existing;
+			}
+		}
+		ClassPairConversion conversion = targetCache.get(targetType);
+		if (conversion == null) {
+			conversion = new ClassPairConversion(TypeDescriptor.valueOf(sourceType), TypeDescriptor.valueOf(targetType));
+			ClassPairConversion existing = targetCache.putIfAbsent(targetType, conversion);
+			if (existing != null) {
+				conversion = existing;
+			}
+		}
+		return conversion;
+	}
+
 	@Nullable
 	private ResolvableType[] getRequiredTypeInfo(Class<?> converterClass, Class<?> genericIfc) {
 		ResolvableType resolvableType = ResolvableType.forClass(converterClass).as(genericIfc);
@@ -305,6 +354,7 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.classPairCache.clear();
 	}
 
 	@Nullable
@@ -338,6 +388,26 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Cache entry for a pair of plain source and target classes, holding their
+	 * type descriptors along with the lazily resolved converter between them.
+	 */
+	private static final class ClassPairConversion {
+
+		final TypeDescriptor sourceType;
+
+		final TypeDescriptor targetType;
+
+		@Nullable
+		volatile GenericConverter converter;
+
+		ClassPairConversion(TypeDescriptor sourceType, TypeDescriptor targetType) {
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+		}
+	}
+
+
 	/**
 	 * Adapts a {@link Converter} to a {@link GenericConverter}.
 	 */
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Process-wide index of the entry names in jar files on the file system,
+ * allowing for repeated lookups of the entries underneath a given root entry
+ * path without re-opening and re-enumerating the jar file.
+ *
+ * <p>Entry names are held in jar order, along with a sorted view for finding
+ * all entries with a given prefix through binary search. Index entries are
+ * softly referenced and get re-created when the last-modified timestamp or
+ * the length of the jar file changes.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see PathMatchingResourcePatternResolver#setParallelScanning
+ */
+final class JarEntryIndex {
+
+	private static final Map<String, JarEntryIndex> indexCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	private final long lastModified;
+
+	private final long length;
+
+	/** Entry names in jar order. */
+	private final String[] entryNames;
+
+	/** Positions in {@link #entryNames}, sorted by entry name. */
+	private final int[] sortedPositions;
+
+
+	private JarEntryIndex(long lastModified, long length, String[] entryNames) {
+		this.lastModified = lastModified;
+		this.length = length;
+		this.entryNames = entryNames;
+		Integer[] positions = new Integer[entryNames.length];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = i;
+		}
+		Arrays.sort(positions, (p1, p2) -> entryNames[p1].compareTo(entryNames[p2]));
+		this.sortedPositions = new int[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			this.sortedPositions[i] = positions[i];
+		}
+	}
+
+
+	/**
+	 * Return the names of all entries that start with the given root entry path,
+	 * in jar order.
+	 * @param rootEntryPath the root entry path (empty for all entries)
+	 */
+	List<String> getEntryNames(String rootEntryPath) {
+		if (rootEntryPath.isEmpty()) {
+			return Arrays.asList(this.entryNames);
+		}
+		int low = 0;
+		int high = this.sortedPositions.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.entryNames[this.sortedPositions[mid]].compareTo(rootEntryPath) < 0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		int end = low;
+		while (end < this.sortedPositions.length && this.entryNames[this.sortedPositions[end]].startsWith(rootEntryPath)) {
+			end++;
+		}
+		int[] positions = Arrays.copyOfRange(this.sortedPositions, low, end);
+		Arrays.sort(positions);
+		List<String> result = new ArrayList<>(positions.length);
+		for (int position : positions) {
+			result.add(this.entryNames[position]);
+		}
+		return result;
+	}
+
+	private boolean isUpToDate(long lastModified, long length) {
+		return (this.lastModified == lastModified && this.length == length);
+	}
+
+
+	/**
+	 * Obtain the index for the given jar file, reading its entries if
+	 * the jar file has not been indexed yet or has changed in the meantime.
+	 * @param file the jar file
+	 * @return the corresponding index
+	 * @throws IOException if the jar file could not be read
+	 */
+	static JarEntryIndex forJarFile(File file) throws IOException {
+		String key = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		JarEntryIndex index = indexCache.get(key);
+		if (index == null || !index.isUpToDate(lastModified, length)) {
+			List<String> entryNames = new ArrayList<>(256);
+			try (JarFile jarFile = new JarFile(file)) {
+				for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+					entryNames.add(entries.nextElement().getName());
+				}
+			}
+			index = new JarEntryIndex(lastModified, length, entryNames.toArray(new String[0]));
+			indexCache.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Clear the process-wide index, e.g. for testing purposes.
+	 */
+	static void clearCache() {
+		indexCache.clear();
+	}
+
+}
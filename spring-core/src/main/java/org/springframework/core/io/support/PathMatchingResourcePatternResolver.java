@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.core.io.support;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.net.JarURLConnection;
@@ -27,12 +28,20 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipException;
@@ -40,6 +49,7 @@ import java.util.zip.ZipException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -175,6 +185,7 @@ import org.springframework.util.StringUtils;
  * @author Costin Leau
  * @author Phillip Webb
  * @since 1.0.2
+ * @see #setParallelScanning
  * @see #CLASSPATH_ALL_URL_PREFIX
  * @see org.springframework.util.AntPathMatcher
  * @see org.springframework.core.io.ResourceLoader#getResource(String)
@@ -182,6 +193,17 @@ import org.springframework.util.StringUtils;
  */
 public class PathMatchingResourcePatternResolver implements ResourcePatternResolver {
 
+	/**
+	 * System property that instructs Spring to scan the root directories of
+	 * location patterns in parallel: {@code spring.resources.parallel-scanning}.
+	 * <p>The default is "false". Switch this flag to "true" in order to turn on
+	 * {@link #setParallelScanning parallel scanning} for all resolver instances.
+	 * @since 5.3.5
+	 */
+	public static final String PARALLEL_SCANNING_PROPERTY_NAME = "spring.resources.parallel-scanning";
+
+	private static final boolean shouldScanInParallel = SpringProperties.getFlag(PARALLEL_SCANNING_PROPERTY_NAME);
+
 	private static final Log logger = LogFactory.getLog(PathMatchingResourcePatternResolver.class);
 
 	@Nullable
@@ -205,6 +227,8 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	private boolean parallelScanning = shouldScanInParallel;
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -268,6 +292,34 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Set whether to scan the root directories of a location pattern in parallel.
+	 * <p>Default is "false", unless the {@link #PARALLEL_SCANNING_PROPERTY_NAME}
+	 * system property is set to "true". If switched on, the jar files and
+	 * directories that a pattern such as "classpath*:com/mycompany/**&#47;*.class"
+	 * resolves to get searched on a shared {@link ForkJoinPool}, with the overall
+	 * result in the same order as for a sequential search. Furthermore, jar files
+	 * in the file system get searched through a process-wide index of their entry
+	 * names, avoiding the re-opening and re-enumeration of the same jar file for
+	 * subsequent patterns, across all resolver instances.
+	 * <p>Note that this involves calls to {@link #doFindPathMatchingJarResources}
+	 * and {@link #doFindPathMatchingFileResources} (and the protected methods that
+	 * these delegate to) from multiple threads, with the calling thread's context
+	 * ClassLoader exposed. Subclasses overriding such methods need to be thread-safe.
+	 * @since 5.3.5
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether to scan the root directories of a location pattern in parallel.
+	 * @since 5.3.5
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -496,24 +548,14 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		String subPattern = locationPattern.substring(rootDirPath.length());
 		Resource[] rootDirResources = getResources(rootDirPath);
 		Set<Resource> result = new LinkedHashSet<>(16);
-		for (Resource rootDirResource : rootDirResources) {
-			rootDirResource = resolveRootDirResource(rootDirResource);
-			URL rootDirUrl = rootDirResource.getURL();
-			if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
-				URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
-				if (resolvedUrl != null) {
-					rootDirUrl = resolvedUrl;
-				}
-				rootDirResource = new UrlResource(rootDirUrl);
-			}
-			if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
-				result.addAll(VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher()));
-			}
-			else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
-				result.addAll(doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern));
+		if (this.parallelScanning && rootDirResources.length > 1) {
+			for (Set<Resource> rootDirResult : findPathMatchingResourcesInParallel(rootDirResources, subPattern)) {
+				result.addAll(rootDirResult);
 			}
-			else {
-				result.addAll(doFindPathMatchingFileResources(rootDirResource, subPattern));
+		}
+		else {
+			for (Resource rootDirResource : rootDirResources) {
+				result.addAll(findPathMatchingResources(rootDirResource, subPattern));
 			}
 		}
 		if (logger.isTraceEnabled()) {
@@ -522,6 +564,78 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return result.toArray(new Resource[0]);
 	}
 
+	/**
+	 * Search the given root directory for resources that match the given sub pattern.
+	 */
+	private Set<Resource> findPathMatchingResources(Resource rootDirResource, String subPattern) throws IOException {
+		rootDirResource = resolveRootDirResource(rootDirResource);
+		URL rootDirUrl = rootDirResource.getURL();
+		if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
+			URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
+			if (resolvedUrl != null) {
+				rootDirUrl = resolvedUrl;
+			}
+			rootDirResource = new UrlResource(rootDirUrl);
+		}
+		if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
+			return VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher());
+		}
+		else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
+			return doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern);
+		}
+		else {
+			return doFindPathMatchingFileResources(rootDirResource, subPattern);
+		}
+	}
+
+	/**
+	 * Search the given root directories on the shared scanning pool.
+	 * @return the matching resources per root directory, in root directory order
+	 */
+	private List<Set<Resource>> findPathMatchingResourcesInParallel(Resource[] rootDirResources, String subPattern)
+			throws IOException {
+
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		List<Callable<Set<Resource>>> tasks = new ArrayList<>(rootDirResources.length);
+		for (Resource rootDirResource : rootDirResources) {
+			tasks.add(() -> {
+				Thread currentThread = Thread.currentThread();
+				ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+				currentThread.setContextClassLoader(classLoader);
+				try {
+					return findPathMatchingResources(rootDirResource, subPattern);
+				}
+				finally {
+					currentThread.setContextClassLoader(previousClassLoader);
+				}
+			});
+		}
+		List<Set<Resource>> results = new ArrayList<>(rootDirResources.length);
+		for (Future<Set<Resource>> future : ScanningPoolHolder.pool.invokeAll(tasks)) {
+			try {
+				results.add(future.get());
+			}
+			catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException("Unexpected exception while scanning root directory", cause);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while scanning root directories in parallel");
+			}
+		}
+		return results;
+	}
+
 	/**
 	 * Determine the root directory for the given location.
 	 * <p>Used for determining the starting point for file matching,
@@ -591,6 +705,13 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	protected Set<Resource> doFindPathMatchingJarResources(Resource rootDirResource, URL rootDirURL, String subPattern)
 			throws IOException {
 
+		if (this.parallelScanning) {
+			Set<Resource> result = findIndexedJarResources(rootDirResource, rootDirURL, subPattern);
+			if (result != null) {
+				return result;
+			}
+		}
+
 		URLConnection con = rootDirURL.openConnection();
 		JarFile jarFile;
 		String jarFileUrl;
@@ -667,6 +788,67 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		}
 	}
 
+	/**
+	 * Find all resources in a jar file that match the given location pattern
+	 * through the process-wide {@link JarEntryIndex}.
+	 * @return a mutable Set of matching Resource instances, or {@code null}
+	 * if the given URL does not point into a jar file in the file system
+	 */
+	@Nullable
+	private Set<Resource> findIndexedJarResources(Resource rootDirResource, URL rootDirURL, String subPattern)
+			throws IOException {
+
+		if (!ResourceUtils.URL_PROTOCOL_JAR.equals(rootDirURL.getProtocol())) {
+			return null;
+		}
+		String urlFile = rootDirURL.getFile();
+		int separatorIndex = urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR);
+		if (separatorIndex == -1 || urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR, separatorIndex + 2) != -1) {
+			// Not a jar URL or a nested jar URL, e.g. for a jar within a Spring Boot archive
+			return null;
+		}
+		String jarFileUrl = urlFile.substring(0, separatorIndex);
+		if (!jarFileUrl.startsWith(ResourceUtils.FILE_URL_PREFIX)) {
+			return null;
+		}
+		File file;
+		try {
+			file = new File(ResourceUtils.toURI(jarFileUrl).getSchemeSpecificPart());
+		}
+		catch (URISyntaxException ex) {
+			return null;
+		}
+		if (!file.isFile()) {
+			return null;
+		}
+
+		JarEntryIndex index;
+		try {
+			index = JarEntryIndex.forJarFile(file);
+		}
+		catch (ZipException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Skipping invalid jar classpath entry [" + jarFileUrl + "]");
+			}
+			return Collections.emptySet();
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Looking for matching resources in indexed jar file [" + jarFileUrl + "]");
+		}
+		String rootEntryPath = StringUtils.uriDecode(urlFile.substring(separatorIndex + 2), StandardCharsets.UTF_8);
+		if (StringUtils.hasLength(rootEntryPath) && !rootEntryPath.endsWith("/")) {
+			rootEntryPath = rootEntryPath + "/";
+		}
+		Set<Resource> result = new LinkedHashSet<>(8);
+		for (String entryPath : index.getEntryNames(rootEntryPath)) {
+			String relativePath = entryPath.substring(rootEntryPath.length());
+			if (getPathMatcher().match(subPattern, relativePath)) {
+				result.add(rootDirResource.createRelative(relativePath));
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Resolve the given jar file URL into a JarFile object.
 	 */
@@ -834,6 +1016,20 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	}
 
 
+	/**
+	 * Holder for the shared pool for parallel scanning, lazily initialized.
+	 * Its daemon threads get started on demand and retire when idle.
+	 */
+	private static class ScanningPoolHolder {
+
+		static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("resourcePatternScanning-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
+
 	/**
 	 * Inner delegate class, avoiding a hard JBoss VFS API dependency at runtime.
 	 */
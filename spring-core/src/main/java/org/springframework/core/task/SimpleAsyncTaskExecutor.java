@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,12 +38,15 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  *
  * <p><b>NOTE: This implementation does not reuse threads!</b> Consider a
  * thread-pooling TaskExecutor implementation instead, in particular for
- * executing a large number of short-lived tasks.
+ * executing a large number of short-lived tasks. Alternatively, on JDK 21+,
+ * consider setting {@link #setVirtualThreads} to {@code true}.
  *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #setConcurrencyLimit
+ * @see #setVirtualThreads
  * @see SyncTaskExecutor
+ * @see VirtualThreadTaskExecutor
  * @see org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
  * @see org.springframework.scheduling.commonj.WorkManagerTaskExecutor
  */
@@ -67,6 +70,8 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	/** Internal concurrency throttle used by this executor. */
 	private final ConcurrencyThrottleAdapter concurrencyThrottle = new ConcurrencyThrottleAdapter();
 
+	private boolean virtualThreads;
+
 	@Nullable
 	private ThreadFactory threadFactory;
 
@@ -98,6 +103,32 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	}
 
 
+	/**
+	 * Switch this executor to virtual threads on JDK 21+: creating a new
+	 * virtual thread per task, named according to the thread name prefix.
+	 * The concurrency limit, if any, still applies: waiting for access is
+	 * based on a lock rather than an object monitor, so waiting virtual
+	 * threads do not pin their carrier thread.
+	 * <p>Default is {@code false}, indicating platform threads. If virtual
+	 * threads are not supported on the current JVM, platform threads are
+	 * going to be used even if this flag has been set to {@code true}.
+	 * @since 5.3.5
+	 * @see VirtualThreadTaskExecutor#isVirtualThreadSupported()
+	 */
+	public void setVirtualThreads(boolean virtual) {
+		this.virtualThreads = (virtual && VirtualThreadDelegate.isSupported());
+	}
+
+	/**
+	 * Return whether this executor creates virtual threads, i.e. whether
+	 * {@link #setVirtualThreads} has been switched on and virtual threads
+	 * are actually supported on the current JVM.
+	 * @since 5.3.5
+	 */
+	public final boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
 	/**
 	 * Specify an external factory to use for creating new Threads,
 	 * instead of relying on the local properties of this executor.
@@ -231,14 +262,23 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 
 	/**
 	 * Template method for the actual execution of a task.
-	 * <p>The default implementation creates a new Thread and starts it.
+	 * <p>The default implementation creates a new Thread and starts it:
+	 * a virtual thread if {@link #setVirtualThreads} has been activated,
+	 * or otherwise a platform thread.
 	 * @param task the Runnable to execute
+	 * @see #setVirtualThreads
 	 * @see #setThreadFactory
 	 * @see #createThread
 	 * @see java.lang.Thread#start()
 	 */
 	protected void doExecute(Runnable task) {
-		Thread thread = (this.threadFactory != null ? this.threadFactory.newThread(task) : createThread(task));
+		Thread thread;
+		if (this.virtualThreads) {
+			thread = VirtualThreadDelegate.newVirtualThread(nextThreadName(), task);
+		}
+		else {
+			thread = (this.threadFactory != null ? this.threadFactory.newThread(task) : createThread(task));
+		}
 		thread.start();
 	}
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Internal delegate for virtual thread handling on JDK 21+, accessing the
+ * {@code Thread.ofVirtual()} builder API reflectively in order to remain
+ * compatible with JDK 8 at build time as well as at runtime.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see VirtualThreadTaskExecutor
+ * @see SimpleAsyncTaskExecutor#setVirtualThreads
+ */
+abstract class VirtualThreadDelegate {
+
+	@Nullable
+	private static final Method ofVirtualMethod;
+
+	@Nullable
+	private static final Method nameMethod;
+
+	@Nullable
+	private static final Method nameWithCounterMethod;
+
+	@Nullable
+	private static final Method factoryMethod;
+
+	@Nullable
+	private static final Method unstartedMethod;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method nameWithCounter = null;
+		Method factory = null;
+		Method unstarted = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			Class<?> builderClass = ClassUtils.forName(
+					"java.lang.Thread$Builder", VirtualThreadDelegate.class.getClassLoader());
+			name = builderClass.getMethod("name", String.class);
+			nameWithCounter = builderClass.getMethod("name", String.class, long.class);
+			factory = builderClass.getMethod("factory");
+			unstarted = builderClass.getMethod("unstarted", Runnable.class);
+			// Fails with UnsupportedOperationException on JDK 19/20 without preview features
+			ofVirtual.invoke(null);
+		}
+		catch (Throwable ex) {
+			ofVirtual = null;
+		}
+		ofVirtualMethod = ofVirtual;
+		nameMethod = name;
+		nameWithCounterMethod = nameWithCounter;
+		factoryMethod = factory;
+		unstartedMethod = unstarted;
+	}
+
+
+	/**
+	 * Determine whether virtual threads are supported on the current JVM.
+	 */
+	public static boolean isSupported() {
+		return (ofVirtualMethod != null);
+	}
+
+	/**
+	 * Create a thread factory for unnamed virtual threads.
+	 */
+	public static ThreadFactory virtualThreadFactory() {
+		return (ThreadFactory) invoke(factoryMethod, ofVirtual());
+	}
+
+	/**
+	 * Create a thread factory for virtual threads named with the given prefix
+	 * and a counter starting at 1.
+	 * @param threadNamePrefix the prefix for thread names
+	 */
+	public static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		Object builder = invoke(nameWithCounterMethod, ofVirtual(), threadNamePrefix, 1L);
+		return (ThreadFactory) invoke(factoryMethod, builder);
+	}
+
+	/**
+	 * Create a new unstarted virtual thread with the given name.
+	 * @param name the name of the thread
+	 * @param task the task to run in the thread
+	 */
+	public static Thread newVirtualThread(String name, Runnable task) {
+		Object builder = invoke(nameMethod, ofVirtual(), name);
+		return (Thread) invoke(unstartedMethod, builder, task);
+	}
+
+	private static Object ofVirtual() {
+		Assert.state(ofVirtualMethod != null, "Virtual threads not supported on current JVM - requires JDK 21+");
+		return invoke(ofVirtualMethod, null);
+	}
+
+	private static Object invoke(@Nullable Method method, @Nullable Object target, Object... args) {
+		Assert.state(method != null, "Virtual threads not supported on current JVM - requires JDK 21+");
+		return ReflectionUtils.invokeMethod(method, target, args);
+	}
+
+}
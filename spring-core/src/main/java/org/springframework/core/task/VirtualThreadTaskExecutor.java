@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+/**
+ * A {@link TaskExecutor} implementation based on virtual threads in JDK 21+.
+ * The only configuration option is a thread name prefix, plus an optional
+ * concurrency limit which is enforced through a {@link Semaphore}.
+ *
+ * <p>Virtual threads are detected reflectively, so this class can be compiled
+ * and loaded on JDK 8 as well; it just cannot be instantiated there. Check
+ * {@link #isVirtualThreadSupported()} beforehand or, for a lenient variant
+ * falling back to platform threads, use {@link SimpleAsyncTaskExecutor} with
+ * {@link SimpleAsyncTaskExecutor#setVirtualThreads "virtualThreads"} enabled.
+ *
+ * <p>An instance of this class may serve as the executor for {@code @Async}
+ * methods, as the task executor of a {@code DefaultMessageListenerContainer},
+ * or as the async request executor for Spring MVC's {@code WebAsyncManager}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see SimpleAsyncTaskExecutor#setVirtualThreads
+ */
+public class VirtualThreadTaskExecutor implements AsyncListenableTaskExecutor {
+
+	private final ThreadFactory virtualThreadFactory;
+
+	@Nullable
+	private Semaphore concurrencySemaphore;
+
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} without thread naming.
+	 * @throws IllegalStateException if virtual threads are not supported
+	 * on the current JVM
+	 */
+	public VirtualThreadTaskExecutor() {
+		this.virtualThreadFactory = VirtualThreadDelegate.virtualThreadFactory();
+	}
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} with thread names based
+	 * on the given thread name prefix followed by a counter (e.g. "test-1").
+	 * @param threadNamePrefix the prefix for thread names (e.g. "test-")
+	 * @throws IllegalStateException if virtual threads are not supported
+	 * on the current JVM
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		this.virtualThreadFactory = VirtualThreadDelegate.virtualThreadFactory(threadNamePrefix);
+	}
+
+
+	/**
+	 * Set the maximum number of tasks allowed to run concurrently,
+	 * with further tasks blocking the submitting thread until a permit
+	 * becomes available. By default, concurrency is unlimited.
+	 * <p>This is a config-time setting: it is not meant to be changed
+	 * while tasks are being executed.
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "Concurrency limit must be greater than 0");
+		this.concurrencySemaphore = new Semaphore(concurrencyLimit);
+	}
+
+	/**
+	 * Return the underlying virtual thread factory.
+	 * Can also be used for custom thread creation elsewhere.
+	 */
+	public final ThreadFactory getVirtualThreadFactory() {
+		return this.virtualThreadFactory;
+	}
+
+
+	@Override
+	public void execute(Runnable task) {
+		execute(task, TIMEOUT_INDEFINITE);
+	}
+
+	/**
+	 * Executes the given task in a new virtual thread, within the concurrency
+	 * limit if configured. Tasks with an 'immediate' timeout get rejected if
+	 * no permit is available right away; all other tasks wait for a permit.
+	 * @see #TIMEOUT_IMMEDIATE
+	 */
+	@Override
+	public void execute(Runnable task, long startTimeout) {
+		Assert.notNull(task, "Runnable must not be null");
+		Semaphore semaphore = this.concurrencySemaphore;
+		if (semaphore == null) {
+			this.virtualThreadFactory.newThread(task).start();
+			return;
+		}
+		try {
+			if (startTimeout == TIMEOUT_INDEFINITE) {
+				semaphore.acquire();
+			}
+			else if (!semaphore.tryAcquire(startTimeout, TimeUnit.MILLISECONDS)) {
+				throw new TaskRejectedException("Concurrency limit reached - task not accepted: " + task);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TaskRejectedException("Interrupted while waiting for concurrency permit", ex);
+		}
+		try {
+			this.virtualThreadFactory.newThread(() -> {
+				try {
+					task.run();
+				}
+				finally {
+					semaphore.release();
+				}
+			}).start();
+		}
+		catch (Throwable ex) {
+			semaphore.release();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		FutureTask<Object> future = new FutureTask<>(task, null);
+		execute(future);
+		return future;
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<>(task);
+		execute(future);
+		return future;
+	}
+
+	@Override
+	public ListenableFuture<?> submitListenable(Runnable task) {
+		ListenableFutureTask<Object> future = new ListenableFutureTask<>(task, null);
+		execute(future);
+		return future;
+	}
+
+	@Override
+	public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+		ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+		execute(future);
+		return future;
+	}
+
+
+	/**
+	 * Determine whether virtual threads are supported on the current JVM.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return VirtualThreadDelegate.isSupported();
+	}
+
+}
@@ -0,0 +1,611 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * Records the ASM visitor events that {@link SimpleAnnotationMetadataReadingVisitor}
+ * is interested in (class structure, visible annotations and annotated methods)
+ * into a compact binary form, and replays such a recording into a visitor later on.
+ *
+ * <p>Replaying a recording produces the same metadata as parsing the original
+ * class file, without the need for reading and parsing the bytecode itself.
+ * Annotation types and enum values are resolved against the ClassLoader of the
+ * receiving visitor at replay time, so recordings are independent of any
+ * particular ClassLoader.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see PersistentCachingMetadataReaderFactory
+ */
+final class ClassMetadataRecorder {
+
+	private static final byte END = 0;
+
+	private static final byte CLASS = 1;
+
+	private static final byte OUTER_CLASS = 2;
+
+	private static final byte INNER_CLASS = 3;
+
+	private static final byte ANNOTATION = 4;
+
+	private static final byte METHOD = 5;
+
+	private static final byte ANNOTATION_VALUE = 1;
+
+	private static final byte ANNOTATION_ENUM = 2;
+
+	private static final byte ANNOTATION_NESTED = 3;
+
+	private static final byte ANNOTATION_ARRAY = 4;
+
+
+	private ClassMetadataRecorder() {
+	}
+
+
+	/**
+	 * Record the relevant metadata of the class read by the given {@link ClassReader}.
+	 * @param classReader the reader for the class file
+	 * @return the recording
+	 * @throws IOException if the metadata cannot be recorded, e.g. because of
+	 * string attribute values exceeding the supported length
+	 */
+	static byte[] record(ClassReader classReader) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(512);
+		try {
+			classReader.accept(new RecordingClassVisitor(new DataOutputStream(bos)),
+					SimpleMetadataReader.PARSING_OPTIONS);
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Replay the given recording into the given visitor.
+	 * @param recording a recording as returned from {@link #record}
+	 * @param visitor the visitor to receive the recorded events
+	 * @throws IOException if the recording is corrupt
+	 */
+	static void replay(byte[] recording, ClassVisitor visitor) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(recording));
+		for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+			switch (tag) {
+				case CLASS:
+					int version = in.readInt();
+					int access = in.readInt();
+					String name = in.readUTF();
+					String superName = readNullableString(in);
+					String[] interfaces = new String[in.readInt()];
+					for (int i = 0; i < interfaces.length; i++) {
+						interfaces[i] = in.readUTF();
+					}
+					visitor.visit(version, access, name, null, superName, interfaces);
+					break;
+				case OUTER_CLASS:
+					visitor.visitOuterClass(in.readUTF(), readNullableString(in), readNullableString(in));
+					break;
+				case INNER_CLASS:
+					visitor.visitInnerClass(in.readUTF(), readNullableString(in), readNullableString(in), in.readInt());
+					break;
+				case ANNOTATION:
+					replayAnnotation(in, visitor.visitAnnotation(in.readUTF(), true));
+					break;
+				case METHOD:
+					MethodVisitor methodVisitor = visitor.visitMethod(in.readInt(), in.readUTF(), in.readUTF(), null, null);
+					while (in.readByte() == ANNOTATION) {
+						String descriptor = in.readUTF();
+						replayAnnotation(in, (methodVisitor != null ? methodVisitor.visitAnnotation(descriptor, true) : null));
+					}
+					if (methodVisitor != null) {
+						methodVisitor.visitEnd();
+					}
+					break;
+				default:
+					throw new IOException("Corrupt class metadata recording: unexpected tag " + tag);
+			}
+		}
+		visitor.visitEnd();
+	}
+
+	private static void replayAnnotation(DataInputStream in, @Nullable AnnotationVisitor visitor) throws IOException {
+		for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+			String name = readNullableString(in);
+			switch (tag) {
+				case ANNOTATION_VALUE:
+					Object value = readValue(in);
+					if (visitor != null) {
+						visitor.visit(name, value);
+					}
+					break;
+				case ANNOTATION_ENUM:
+					String descriptor = in.readUTF();
+					String enumValue = in.readUTF();
+					if (visitor != null) {
+						visitor.visitEnum(name, descriptor, enumValue);
+					}
+					break;
+				case ANNOTATION_NESTED:
+					String nestedDescriptor = in.readUTF();
+					replayAnnotation(in, (visitor != null ? visitor.visitAnnotation(name, nestedDescriptor) : null));
+					break;
+				case ANNOTATION_ARRAY:
+					replayAnnotation(in, (visitor != null ? visitor.visitArray(name) : null));
+					break;
+				default:
+					throw new IOException("Corrupt class metadata recording: unexpected annotation tag " + tag);
+			}
+		}
+		if (visitor != null) {
+			visitor.visitEnd();
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		char type = in.readChar();
+		switch (type) {
+			case 's': return in.readUTF();
+			case 'z': return in.readBoolean();
+			case 'b': return in.readByte();
+			case 'c': return in.readChar();
+			case 'h': return in.readShort();
+			case 'i': return in.readInt();
+			case 'j': return in.readLong();
+			case 'f': return in.readFloat();
+			case 'd': return in.readDouble();
+			case 't': return Type.getType(in.readUTF());
+			case '[': return readArray(in);
+			default: throw new IOException("Corrupt class metadata recording: unexpected value type " + type);
+		}
+	}
+
+	private static Object readArray(DataInputStream in) throws IOException {
+		char componentType = in.readChar();
+		int length = in.readInt();
+		switch (componentType) {
+			case 'z':
+				boolean[] booleans = new boolean[length];
+				for (int i = 0; i < length; i++) {
+					booleans[i] = in.readBoolean();
+				}
+				return booleans;
+			case 'b':
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				return bytes;
+			case 'c':
+				char[] chars = new char[length];
+				for (int i = 0; i < length; i++) {
+					chars[i] = in.readChar();
+				}
+				return chars;
+			case 'h':
+				short[] shorts = new short[length];
+				for (int i = 0; i < length; i++) {
+					shorts[i] = in.readShort();
+				}
+				return shorts;
+			case 'i':
+				int[] ints = new int[length];
+				for (int i = 0; i < length; i++) {
+					ints[i] = in.readInt();
+				}
+				return ints;
+			case 'j':
+				long[] longs = new long[length];
+				for (int i = 0; i < length; i++) {
+					longs[i] = in.readLong();
+				}
+				return longs;
+			case 'f':
+				float[] floats = new float[length];
+				for (int i = 0; i < length; i++) {
+					floats[i] = in.readFloat();
+				}
+				return floats;
+			case 'd':
+				double[] doubles = new double[length];
+				for (int i = 0; i < length; i++) {
+					doubles[i] = in.readDouble();
+				}
+				return doubles;
+			default:
+				throw new IOException("Corrupt class metadata recording: unexpected array type " + componentType);
+		}
+	}
+
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+
+	/**
+	 * {@link ClassVisitor} writing a recording.
+	 */
+	private static final class RecordingClassVisitor extends ClassVisitor {
+
+		private final DataOutputStream out;
+
+		RecordingClassVisitor(DataOutputStream out) {
+			super(SpringAsmInfo.ASM_VERSION);
+			this.out = out;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature,
+				@Nullable String superName, String[] interfaces) {
+
+			try {
+				this.out.writeByte(CLASS);
+				this.out.writeInt(version);
+				this.out.writeInt(access);
+				this.out.writeUTF(name);
+				writeNullableString(this.out, superName);
+				this.out.writeInt(interfaces.length);
+				for (String interfaceName : interfaces) {
+					this.out.writeUTF(interfaceName);
+				}
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		@Override
+		public void visitOuterClass(String owner, @Nullable String name, @Nullable String descriptor) {
+			try {
+				this.out.writeByte(OUTER_CLASS);
+				this.out.writeUTF(owner);
+				writeNullableString(this.out, name);
+				writeNullableString(this.out, descriptor);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		@Override
+		public void visitInnerClass(String name, @Nullable String outerName, @Nullable String innerName, int access) {
+			try {
+				this.out.writeByte(INNER_CLASS);
+				this.out.writeUTF(name);
+				writeNullableString(this.out, outerName);
+				writeNullableString(this.out, innerName);
+				this.out.writeInt(access);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		@Override
+		@Nullable
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			if (!visible) {
+				return null;
+			}
+			try {
+				this.out.writeByte(ANNOTATION);
+				this.out.writeUTF(descriptor);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(this.out);
+		}
+
+		@Override
+		@Nullable
+		public MethodVisitor visitMethod(int access, String name, String descriptor,
+				String signature, String[] exceptions) {
+
+			if ((access & Opcodes.ACC_BRIDGE) != 0) {
+				return null;
+			}
+			return new RecordingMethodVisitor(this.out, access, name, descriptor);
+		}
+
+		@Override
+		public void visitEnd() {
+			try {
+				this.out.writeByte(END);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+	}
+
+
+	/**
+	 * {@link MethodVisitor} writing the method to a recording if it declares
+	 * any visible annotations.
+	 */
+	private static final class RecordingMethodVisitor extends MethodVisitor {
+
+		private final DataOutputStream out;
+
+		private final int access;
+
+		private final String name;
+
+		private final String descriptor;
+
+		private final ByteArrayOutputStream annotations = new ByteArrayOutputStream();
+
+		RecordingMethodVisitor(DataOutputStream out, int access, String name, String descriptor) {
+			super(SpringAsmInfo.ASM_VERSION);
+			this.out = out;
+			this.access = access;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			if (!visible) {
+				return null;
+			}
+			DataOutputStream annotationOut = new DataOutputStream(this.annotations);
+			try {
+				annotationOut.writeByte(ANNOTATION);
+				annotationOut.writeUTF(descriptor);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(annotationOut);
+		}
+
+		@Override
+		public void visitEnd() {
+			if (this.annotations.size() > 0) {
+				try {
+					this.out.writeByte(METHOD);
+					this.out.writeInt(this.access);
+					this.out.writeUTF(this.name);
+					this.out.writeUTF(this.descriptor);
+					this.annotations.writeTo(this.out);
+					this.out.writeByte(END);
+				}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * {@link AnnotationVisitor} writing annotation attributes to a recording.
+	 */
+	private static final class RecordingAnnotationVisitor extends AnnotationVisitor {
+
+		private final DataOutputStream out;
+
+		RecordingAnnotationVisitor(DataOutputStream out) {
+			super(SpringAsmInfo.ASM_VERSION);
+			this.out = out;
+		}
+
+		@Override
+		public void visit(@Nullable String name, Object value) {
+			try {
+				this.out.writeByte(ANNOTATION_VALUE);
+				writeNullableString(this.out, name);
+				writeValue(value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		@Override
+		public void visitEnum(@Nullable String name, String descriptor, String value) {
+			try {
+				this.out.writeByte(ANNOTATION_ENUM);
+				writeNullableString(this.out, name);
+				this.out.writeUTF(descriptor);
+				this.out.writeUTF(value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(@Nullable String name, String descriptor) {
+			try {
+				this.out.writeByte(ANNOTATION_NESTED);
+				writeNullableString(this.out, name);
+				this.out.writeUTF(descriptor);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(this.out);
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(@Nullable String name) {
+			try {
+				this.out.writeByte(ANNOTATION_ARRAY);
+				writeNullableString(this.out, name);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(this.out);
+		}
+
+		@Override
+		public void visitEnd() {
+			try {
+				this.out.writeByte(END);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		private void writeValue(Object value) throws IOException {
+			DataOutputStream out = this.out;
+			if (value instanceof String) {
+				out.writeChar('s');
+				out.writeUTF((String) value);
+			}
+			else if (value instanceof Boolean) {
+				out.writeChar('z');
+				out.writeBoolean((Boolean) value);
+			}
+			else if (value instanceof Byte) {
+				out.writeChar('b');
+				out.writeByte((Byte) value);
+			}
+			else if (value instanceof Character) {
+				out.writeChar('c');
+				out.writeChar((Character) value);
+			}
+			else if (value instanceof Short) {
+				out.writeChar('h');
+				out.writeShort((Short) value);
+			}
+			else if (value instanceof Integer) {
+				out.writeChar('i');
+				out.writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				out.writeChar('j');
+				out.writeLong((Long) value);
+			}
+			else if (value instanceof Float) {
+				out.writeChar('f');
+				out.writeFloat((Float) value);
+			}
+			else if (value instanceof Double) {
+				out.writeChar('d');
+				out.writeDouble((Double) value);
+			}
+			else if (value instanceof Type) {
+				out.writeChar('t');
+				out.writeUTF(((Type) value).getDescriptor());
+			}
+			else {
+				writeArray(value);
+			}
+		}
+
+		private void writeArray(Object value) throws IOException {
+			DataOutputStream out = this.out;
+			out.writeChar('[');
+			if (value instanceof boolean[]) {
+				boolean[] booleans = (boolean[]) value;
+				out.writeChar('z');
+				out.writeInt(booleans.length);
+				for (boolean element : booleans) {
+					out.writeBoolean(element);
+				}
+			}
+			else if (value instanceof byte[]) {
+				byte[] bytes = (byte[]) value;
+				out.writeChar('b');
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			else if (value instanceof char[]) {
+				char[] chars = (char[]) value;
+				out.writeChar('c');
+				out.writeInt(chars.length);
+				for (char element : chars) {
+					out.writeChar(element);
+				}
+			}
+			else if (value instanceof short[]) {
+				short[] shorts = (short[]) value;
+				out.writeChar('h');
+				out.writeInt(shorts.length);
+				for (short element : shorts) {
+					out.writeShort(element);
+				}
+			}
+			else if (value instanceof int[]) {
+				int[] ints = (int[]) value;
+				out.writeChar('i');
+				out.writeInt(ints.length);
+				for (int element : ints) {
+					out.writeInt(element);
+				}
+			}
+			else if (value instanceof long[]) {
+				long[] longs = (long[]) value;
+				out.writeChar('j');
+				out.writeInt(longs.length);
+				for (long element : longs) {
+					out.writeLong(element);
+				}
+			}
+			else if (value instanceof float[]) {
+				float[] floats = (float[]) value;
+				out.writeChar('f');
+				out.writeInt(floats.length);
+				for (float element : floats) {
+					out.writeFloat(element);
+				}
+			}
+			else if (value instanceof double[]) {
+				double[] doubles = (double[]) value;
+				out.writeChar('d');
+				out.writeInt(doubles.length);
+				for (double element : doubles) {
+					out.writeDouble(element);
+				}
+			}
+			else {
+				throw new IOException("Unsupported annotation attribute value: " + value);
+			}
+		}
+	}
+
+}
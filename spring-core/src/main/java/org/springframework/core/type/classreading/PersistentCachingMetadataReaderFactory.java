@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Extension of {@link CachingMetadataReaderFactory} which additionally keeps
+ * class metadata in a persistent cache file, allowing subsequent runs to skip
+ * bytecode parsing for classes from unchanged jar files and class files.
+ *
+ * <p>The cache file is read into memory as a whole. Entries are keyed by class file
+ * URL and validated against the last-modified timestamp and length of the jar
+ * file containing the class, or of the class file itself for classes in a
+ * directory. Metadata read in the current run is written to the cache file on
+ * {@link #flush()} as well as on {@link #clearCache()}, which is typically called
+ * at the end of configuration class processing. All factories for the same cache
+ * file within a JVM share their state.
+ *
+ * <p>Application contexts use this factory for component scanning and configuration
+ * class parsing if the {@value #CACHE_FILE_PROPERTY_NAME} property is set as a JVM
+ * system property or via the {@link org.springframework.core.SpringProperties}
+ * mechanism, pointing to the cache file to use.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ */
+public class PersistentCachingMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	/**
+	 * System property that specifies the location of the class metadata cache file
+	 * to be used by application contexts: {@value}.
+	 */
+	public static final String CACHE_FILE_PROPERTY_NAME = "spring.metadata.cache.file";
+
+	private static final Log logger = LogFactory.getLog(PersistentCachingMetadataReaderFactory.class);
+
+
+	private final PersistentMetadataCache persistentCache;
+
+
+	/**
+	 * Create a new PersistentCachingMetadataReaderFactory for the given
+	 * {@link ResourceLoader}, using a shared in-memory resource cache if
+	 * supported or a local in-memory resource cache otherwise.
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 * @param cacheFile the cache file to use (created if necessary)
+	 */
+	public PersistentCachingMetadataReaderFactory(@Nullable ResourceLoader resourceLoader, File cacheFile) {
+		super(resourceLoader);
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.persistentCache = PersistentMetadataCache.forFile(cacheFile);
+	}
+
+	/**
+	 * Create a new PersistentCachingMetadataReaderFactory for the given
+	 * {@link ClassLoader}, using a local in-memory resource cache.
+	 * @param classLoader the ClassLoader to use
+	 * @param cacheFile the cache file to use (created if necessary)
+	 */
+	public PersistentCachingMetadataReaderFactory(@Nullable ClassLoader classLoader, File cacheFile) {
+		super(classLoader);
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.persistentCache = PersistentMetadataCache.forFile(cacheFile);
+	}
+
+
+	@Override
+	protected MetadataReader createMetadataReader(Resource resource) throws IOException {
+		URL url;
+		try {
+			url = resource.getURL();
+		}
+		catch (IOException ex) {
+			// Not URL-based -> not cacheable
+			return super.createMetadataReader(resource);
+		}
+		PersistentMetadataCache.Stamp stamp = this.persistentCache.getStamp(url);
+		if (stamp == null) {
+			return super.createMetadataReader(resource);
+		}
+
+		String key = url.toString();
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		byte[] recording = this.persistentCache.get(key, stamp);
+		if (recording != null) {
+			try {
+				return new SimpleMetadataReader(resource, recording, classLoader);
+			}
+			catch (IOException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring corrupt cached class metadata for " + resource, ex);
+				}
+			}
+		}
+
+		ClassReader classReader = SimpleMetadataReader.getClassReader(resource);
+		try {
+			recording = ClassMetadataRecorder.record(classReader);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Class metadata for " + resource + " cannot be cached", ex);
+			}
+			return super.createMetadataReader(resource);
+		}
+		this.persistentCache.put(key, stamp, recording);
+		return new SimpleMetadataReader(resource, recording, classLoader);
+	}
+
+	/**
+	 * Write all class metadata read since the last flush to the cache file.
+	 * @throws IOException if the cache file cannot be written
+	 */
+	public void flush() throws IOException {
+		this.persistentCache.flush();
+	}
+
+	/**
+	 * Write all class metadata read since the last flush to the cache file,
+	 * then clear the in-memory cache.
+	 * @see #flush()
+	 */
+	@Override
+	public void clearCache() {
+		try {
+			flush();
+		}
+		catch (IOException ex) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Failed to write class metadata cache file: " + ex);
+			}
+		}
+		super.clearCache();
+	}
+
+}
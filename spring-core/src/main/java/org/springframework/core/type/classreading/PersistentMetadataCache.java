@@ -0,0 +1,330 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Cache file holding {@link ClassMetadataRecorder recordings} of class metadata,
+ * keyed by class file URL.
+ *
+ * <p>Each entry carries a stamp (last-modified timestamp and length) of the file
+ * that the class has been read from: the jar file for classes in a jar, or the
+ * class file itself otherwise. Entries are only served while their stamp matches,
+ * and entries for changed or removed files are dropped whenever the cache is
+ * written. There is one instance per cache file, shared within the JVM, so that
+ * several factories write into the same cache consistently.
+ *
+ * <p>The cache file is read into memory in one go rather than being memory-mapped,
+ * so that it can be replaced on {@link #flush()} (also on Windows) or rewritten by
+ * another process without affecting the entries currently in use.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ */
+final class PersistentMetadataCache {
+
+	private static final int MAGIC = 0x534D4443;
+
+	private static final int VERSION = 1;
+
+	private static final Map<String, PersistentMetadataCache> cachesByPath = new ConcurrentHashMap<>(4);
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataCache.class);
+
+
+	private final File file;
+
+	@Nullable
+	private volatile Map<String, Entry> entries;
+
+	private final Map<String, Entry> addedEntries = new ConcurrentHashMap<>(256);
+
+	private final Map<String, Stamp> archiveStamps = new ConcurrentHashMap<>(64);
+
+
+	private PersistentMetadataCache(File file) {
+		this.file = file;
+	}
+
+
+	/**
+	 * Return the shared cache for the given file.
+	 */
+	static PersistentMetadataCache forFile(File file) {
+		return cachesByPath.computeIfAbsent(file.getAbsolutePath(), path -> new PersistentMetadataCache(new File(path)));
+	}
+
+
+	/**
+	 * Determine the stamp for the given class file URL.
+	 * @return the stamp, or {@code null} if the class file cannot be cached
+	 * (neither a file in the file system nor contained in a jar file)
+	 */
+	@Nullable
+	Stamp getStamp(URL url) {
+		try {
+			if (ResourceUtils.isJarURL(url)) {
+				URL jarUrl = ResourceUtils.extractJarFileURL(url);
+				if (!ResourceUtils.isFileURL(jarUrl)) {
+					return null;
+				}
+				Stamp stamp = this.archiveStamps.get(jarUrl.toString());
+				if (stamp == null) {
+					stamp = Stamp.of(ResourceUtils.getFile(jarUrl));
+					if (stamp != null) {
+						this.archiveStamps.put(jarUrl.toString(), stamp);
+					}
+				}
+				return stamp;
+			}
+			else if (ResourceUtils.isFileURL(url)) {
+				return Stamp.of(ResourceUtils.getFile(url));
+			}
+		}
+		catch (IOException ex) {
+			// Not resolvable in the file system -> not cacheable
+		}
+		return null;
+	}
+
+	/**
+	 * Return the recording for the given key, provided that its stamp matches.
+	 */
+	@Nullable
+	byte[] get(String key, Stamp stamp) {
+		Entry entry = this.addedEntries.get(key);
+		if (entry == null) {
+			entry = getEntries().get(key);
+		}
+		return (entry != null && entry.stamp.equals(stamp) ? entry.getData() : null);
+	}
+
+	/**
+	 * Add a recording, to be written with the next {@link #flush()}.
+	 */
+	void put(String key, Stamp stamp, byte[] recording) {
+		this.addedEntries.put(key, new Entry(stamp, ByteBuffer.wrap(recording)));
+	}
+
+	/**
+	 * Write all added recordings to the cache file, merging them with the
+	 * current content of the file and dropping stale entries.
+	 * @throws IOException if the cache file cannot be written
+	 */
+	synchronized void flush() throws IOException {
+		if (this.addedEntries.isEmpty()) {
+			return;
+		}
+		Map<String, Entry> added = new LinkedHashMap<>(this.addedEntries);
+		this.archiveStamps.clear();
+
+		// Re-read the file since it may have been written by another process in the meantime
+		Map<String, Entry> merged = new LinkedHashMap<>(read(this.file));
+		merged.putAll(added);
+		merged.entrySet().removeIf(entry -> !isValid(entry.getKey(), entry.getValue()));
+
+		Path target = this.file.toPath().toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+				write(merged, out);
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Wrote " + merged.size() + " class metadata entries (" + added.size() +
+					" new) to " + this.file);
+		}
+
+		this.entries = read(this.file);
+		added.forEach(this.addedEntries::remove);
+	}
+
+	private Map<String, Entry> getEntries() {
+		Map<String, Entry> entries = this.entries;
+		if (entries == null) {
+			synchronized (this) {
+				entries = this.entries;
+				if (entries == null) {
+					entries = read(this.file);
+					this.entries = entries;
+				}
+			}
+		}
+		return entries;
+	}
+
+	private boolean isValid(String key, Entry entry) {
+		try {
+			return entry.stamp.equals(getStamp(new URL(key)));
+		}
+		catch (IOException ex) {
+			return false;
+		}
+	}
+
+
+	private static Map<String, Entry> read(File file) {
+		if (!file.isFile()) {
+			return Collections.emptyMap();
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+			if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring class metadata cache file in unsupported format: " + file);
+				}
+				return Collections.emptyMap();
+			}
+			int count = buffer.getInt();
+			Map<String, Entry> entries = new ConcurrentHashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+			for (int i = 0; i < count; i++) {
+				byte[] keyBytes = new byte[buffer.getInt()];
+				buffer.get(keyBytes);
+				Stamp stamp = new Stamp(buffer.getLong(), buffer.getLong());
+				int length = buffer.getInt();
+				ByteBuffer data = buffer.slice();
+				data.limit(length);
+				buffer.position(buffer.position() + length);
+				entries.put(new String(keyBytes, StandardCharsets.UTF_8), new Entry(stamp, data));
+			}
+			if (logger.isTraceEnabled()) {
+				logger.trace("Read " + count + " class metadata entries from " + file);
+			}
+			return entries;
+		}
+		catch (IOException | BufferUnderflowException | IllegalArgumentException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable class metadata cache file: " + file, ex);
+			}
+			return Collections.emptyMap();
+		}
+	}
+
+	private static void write(Map<String, Entry> entries, OutputStream os) throws IOException {
+		DataOutputStream out = new DataOutputStream(os);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(entries.size());
+		for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+			byte[] keyBytes = mapEntry.getKey().getBytes(StandardCharsets.UTF_8);
+			out.writeInt(keyBytes.length);
+			out.write(keyBytes);
+			Entry entry = mapEntry.getValue();
+			out.writeLong(entry.stamp.lastModified);
+			out.writeLong(entry.stamp.length);
+			byte[] data = entry.getData();
+			out.writeInt(data.length);
+			out.write(data);
+		}
+		out.flush();
+	}
+
+
+	/**
+	 * Last-modified timestamp and length of the file that a class has been read from.
+	 */
+	static final class Stamp {
+
+		final long lastModified;
+
+		final long length;
+
+		Stamp(long lastModified, long length) {
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		@Nullable
+		static Stamp of(File file) {
+			return (file.isFile() ? new Stamp(file.lastModified(), file.length()) : null);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Stamp)) {
+				return false;
+			}
+			Stamp otherStamp = (Stamp) other;
+			return (this.lastModified == otherStamp.lastModified && this.length == otherStamp.length);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.lastModified) * 31 + Long.hashCode(this.length);
+		}
+	}
+
+
+	/**
+	 * A cached recording, either read from the cache file or added in memory.
+	 */
+	private static final class Entry {
+
+		final Stamp stamp;
+
+		private final ByteBuffer data;
+
+		Entry(Stamp stamp, ByteBuffer data) {
+			this.stamp = stamp;
+			this.data = data;
+		}
+
+		byte[] getData() {
+			ByteBuffer buffer = this.data.duplicate();
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			return bytes;
+		}
+	}
+
+}
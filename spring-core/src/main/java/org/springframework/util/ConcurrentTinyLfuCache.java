@@ -0,0 +1,603 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Bounded cache with a frequency-aware admission policy, designed as a
+ * drop-in alternative to {@link ConcurrentLruCache} for heavily contended
+ * read paths.
+ *
+ * <p>Cache hits never block: each read is recorded in a lossy, striped ring
+ * buffer and the resulting reordering is applied in batches by whichever
+ * thread manages to acquire the eviction lock. Writes are queued and applied
+ * under the same lock, right after the value has been published in the
+ * backing {@code ConcurrentHashMap}.
+ *
+ * <p>Eviction follows the W-TinyLFU scheme: new entries enter a small LRU
+ * "window" and, once they fall out of it, only displace the least recently
+ * used entry of the main region if they have been requested more often,
+ * as estimated by a compact count-min sketch with periodic aging. This keeps
+ * one-off keys from flushing out frequently used ones.
+ *
+ * <p>Hit, miss and eviction counts are available for monitoring purposes.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @param <K> the type of the key used for cache retrieval
+ * @param <V> the type of the cached values
+ * @see #get
+ * @see ConcurrentLruCache
+ */
+public class ConcurrentTinyLfuCache<K, V> {
+
+	private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+	private static final int READ_BUFFER_COUNT = Math.min(4, ceilingPowerOfTwo(NCPU));
+
+	private static final int READ_BUFFER_SIZE = 64;
+
+	private static final int READ_BUFFER_DRAIN_THRESHOLD = 32;
+
+
+	private final int sizeLimit;
+
+	private final int windowLimit;
+
+	private final Function<K, V> generator;
+
+	private final ConcurrentHashMap<K, Node<K, V>> cache;
+
+	private final ReadBuffer<K, V>[] readBuffers;
+
+	private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+
+	private final AccessOrderDeque<K, V> main = new AccessOrderDeque<>();
+
+	private final FrequencySketch sketch;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a new cache instance with the given limit and generator function.
+	 * @param sizeLimit the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value)
+	 * @param generator a function to generate a new value for a given key
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentTinyLfuCache(int sizeLimit, Function<K, V> generator) {
+		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
+		Assert.notNull(generator, "Generator function must not be null");
+		this.sizeLimit = sizeLimit;
+		this.windowLimit = Math.max(1, sizeLimit / 100);
+		this.generator = generator;
+		this.cache = new ConcurrentHashMap<>(16, 0.75f, NCPU);
+		this.readBuffers = new ReadBuffer[READ_BUFFER_COUNT];
+		for (int i = 0; i < READ_BUFFER_COUNT; i++) {
+			this.readBuffers[i] = new ReadBuffer<>();
+		}
+		this.sketch = new FrequencySketch(sizeLimit);
+	}
+
+
+	/**
+	 * Retrieve an entry from the cache, potentially triggering generation
+	 * of the value.
+	 * @param key the key to retrieve the entry for
+	 * @return the cached or newly generated value
+	 */
+	public V get(K key) {
+		if (this.sizeLimit == 0) {
+			return this.generator.apply(key);
+		}
+
+		Node<K, V> node = this.cache.get(key);
+		if (node != null) {
+			this.hitCount.increment();
+			afterRead(node);
+			return node.value;
+		}
+
+		this.missCount.increment();
+		// Generate value outside of any lock; concurrent misses on the same key
+		// may both invoke the generator, with the first published value winning
+		V value = this.generator.apply(key);
+		Node<K, V> newNode = new Node<>(key, value);
+		Node<K, V> existing = this.cache.putIfAbsent(key, newNode);
+		if (existing != null) {
+			afterRead(existing);
+			return existing.value;
+		}
+		afterWrite(new AddTask(newNode));
+		return value;
+	}
+
+	/**
+	 * Determine whether the given key is present in this cache.
+	 * @param key the key to check for
+	 * @return {@code true} if the key is present,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean contains(K key) {
+		return this.cache.containsKey(key);
+	}
+
+	/**
+	 * Immediately remove the given key and any associated value.
+	 * @param key the key to evict the entry for
+	 * @return {@code true} if the key was present before,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean remove(K key) {
+		Node<K, V> node = this.cache.remove(key);
+		if (node == null) {
+			return false;
+		}
+		node.retire();
+		afterWrite(new RemoveTask(node));
+		return true;
+	}
+
+	/**
+	 * Immediately remove all entries from this cache.
+	 */
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			drainBuffers();
+			this.cache.values().forEach(Node::retire);
+			this.cache.clear();
+			removeAll(this.window);
+			removeAll(this.main);
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Return the current size of the cache.
+	 * @see #sizeLimit()
+	 */
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Return the the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value).
+	 * @see #size()
+	 */
+	public int sizeLimit() {
+		return this.sizeLimit;
+	}
+
+	/**
+	 * Return the number of times a requested key was found in the cache.
+	 */
+	public long hitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of times a requested key was not found in the cache,
+	 * triggering generation of its value.
+	 */
+	public long missCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries evicted because of the size limit
+	 * (not counting explicit {@link #remove} or {@link #clear} calls).
+	 */
+	public long evictionCount() {
+		return this.evictionCount.sum();
+	}
+
+
+	private void afterRead(Node<K, V> node) {
+		ReadBuffer<K, V> buffer = this.readBuffers[readBufferIndex()];
+		if (buffer.offer(node) && this.evictionLock.tryLock()) {
+			try {
+				drainBuffers();
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	private void afterWrite(Runnable task) {
+		this.writeBuffer.add(task);
+		this.evictionLock.lock();
+		try {
+			drainBuffers();
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	private static int readBufferIndex() {
+		long id = Thread.currentThread().getId();
+		int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return (hash >>> 16) & (READ_BUFFER_COUNT - 1);
+	}
+
+	/**
+	 * Apply all pending reads and writes, then evict down to the size limit.
+	 * Must be called with the eviction lock held.
+	 */
+	private void drainBuffers() {
+		for (ReadBuffer<K, V> buffer : this.readBuffers) {
+			buffer.drainTo(this::onAccess);
+		}
+		Runnable task;
+		while ((task = this.writeBuffer.poll()) != null) {
+			task.run();
+		}
+		evictEntries();
+	}
+
+	private void onAccess(Node<K, V> node) {
+		AccessOrderDeque<K, V> deque = node.deque;
+		if (deque != null) {
+			this.sketch.increment(node.key);
+			deque.moveToBack(node);
+		}
+	}
+
+	private void evictEntries() {
+		while (this.window.size > this.windowLimit || this.window.size + this.main.size > this.sizeLimit) {
+			Node<K, V> candidate = this.window.first;
+			if (candidate == null) {
+				evictEntry(this.main.first);
+				continue;
+			}
+			this.window.unlink(candidate);
+			if (this.window.size + this.main.size < this.sizeLimit) {
+				this.main.linkLast(candidate);
+				continue;
+			}
+			Node<K, V> victim = this.main.first;
+			if (victim != null && this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) {
+				evictEntry(victim);
+				this.main.linkLast(candidate);
+			}
+			else {
+				evictEntry(candidate);
+			}
+		}
+	}
+
+	private void evictEntry(Node<K, V> node) {
+		if (node.deque != null) {
+			node.deque.unlink(node);
+		}
+		node.die();
+		if (this.cache.remove(node.key, node)) {
+			this.evictionCount.increment();
+		}
+	}
+
+	private void removeAll(AccessOrderDeque<K, V> deque) {
+		Node<K, V> node;
+		while ((node = deque.first) != null) {
+			deque.unlink(node);
+			node.die();
+		}
+	}
+
+	private static int ceilingPowerOfTwo(int value) {
+		return 1 << -Integer.numberOfLeadingZeros(value - 1);
+	}
+
+
+	private static final class Node<K, V> {
+
+		private static final int ALIVE = 0;
+
+		private static final int RETIRED = 1;
+
+		private static final int DEAD = 2;
+
+		final K key;
+
+		final V value;
+
+		volatile int state = ALIVE;
+
+		// Guarded by the eviction lock
+		@Nullable
+		AccessOrderDeque<K, V> deque;
+
+		@Nullable
+		Node<K, V> prev;
+
+		@Nullable
+		Node<K, V> next;
+
+		Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		void retire() {
+			if (this.state == ALIVE) {
+				this.state = RETIRED;
+			}
+		}
+
+		void die() {
+			this.state = DEAD;
+		}
+
+		boolean isAlive() {
+			return (this.state == ALIVE);
+		}
+	}
+
+
+	/**
+	 * Doubly-linked list of nodes in access order, least recently used first.
+	 * Only ever accessed with the eviction lock held.
+	 */
+	private static final class AccessOrderDeque<K, V> {
+
+		@Nullable
+		Node<K, V> first;
+
+		@Nullable
+		Node<K, V> last;
+
+		int size;
+
+		void linkLast(Node<K, V> node) {
+			node.deque = this;
+			node.prev = this.last;
+			node.next = null;
+			if (this.last == null) {
+				this.first = node;
+			}
+			else {
+				this.last.next = node;
+			}
+			this.last = node;
+			this.size++;
+		}
+
+		void unlink(Node<K, V> node) {
+			Node<K, V> prev = node.prev;
+			Node<K, V> next = node.next;
+			if (prev == null) {
+				this.first = next;
+			}
+			else {
+				prev.next = next;
+			}
+			if (next == null) {
+				this.last = prev;
+			}
+			else {
+				next.prev = prev;
+			}
+			node.prev = null;
+			node.next = null;
+			node.deque = null;
+			this.size--;
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (node != this.last) {
+				unlink(node);
+				linkLast(node);
+			}
+		}
+	}
+
+
+	/**
+	 * Lossy bounded ring buffer recording cache hits: when full, further reads
+	 * are simply not recorded until the buffer gets drained.
+	 */
+	private static final class ReadBuffer<K, V> {
+
+		private static final int MASK = READ_BUFFER_SIZE - 1;
+
+		private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+		private final AtomicLong writeCount = new AtomicLong();
+
+		// Written with the eviction lock held, read by offering threads
+		private volatile long readCount;
+
+		/**
+		 * Record the given node, if possible.
+		 * @return {@code true} if the buffer should be drained now
+		 */
+		boolean offer(Node<K, V> node) {
+			long head = this.readCount;
+			long tail = this.writeCount.get();
+			long pending = tail - head;
+			if (pending >= READ_BUFFER_SIZE) {
+				return true;
+			}
+			if (this.writeCount.compareAndSet(tail, tail + 1)) {
+				this.buffer.lazySet((int) (tail & MASK), node);
+				return (pending + 1 >= READ_BUFFER_DRAIN_THRESHOLD);
+			}
+			return false;
+		}
+
+		void drainTo(Consumer<Node<K, V>> consumer) {
+			long head = this.readCount;
+			long tail = this.writeCount.get();
+			while (head < tail) {
+				int index = (int) (head & MASK);
+				Node<K, V> node = this.buffer.get(index);
+				if (node == null) {
+					// Slot claimed but not yet published: pick it up on the next drain
+					break;
+				}
+				this.buffer.lazySet(index, null);
+				consumer.accept(node);
+				head++;
+			}
+			this.readCount = head;
+		}
+	}
+
+
+	/**
+	 * Count-min sketch with 4-bit counters, estimating how often a key has been
+	 * requested recently. Counters are halved once the number of recorded
+	 * increments reaches ten times the cache size, so that the popularity of
+	 * stale keys decays over time. Only ever accessed with the eviction lock held.
+	 */
+	private static final class FrequencySketch {
+
+		private static final long[] SEEDS = {
+				0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private final long[] table;
+
+		private final int tableMask;
+
+		private final int sampleSize;
+
+		private int additions;
+
+		FrequencySketch(int sizeLimit) {
+			int tableSize = ceilingPowerOfTwo(Math.max(sizeLimit, 8));
+			this.table = new long[tableSize];
+			this.tableMask = tableSize - 1;
+			this.sampleSize = (int) Math.min(10L * Math.max(sizeLimit, 1), Integer.MAX_VALUE);
+		}
+
+		int frequency(Object key) {
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+				frequency = Math.min(frequency, count);
+			}
+			return frequency;
+		}
+
+		void increment(Object key) {
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			boolean added = false;
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				int offset = (start + i) << 2;
+				long mask = (0xfL << offset);
+				if ((this.table[index] & mask) != mask) {
+					this.table[index] += (1L << offset);
+					added = true;
+				}
+			}
+			if (added && ++this.additions == this.sampleSize) {
+				reset();
+			}
+		}
+
+		private void reset() {
+			for (int i = 0; i < this.table.length; i++) {
+				this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+			}
+			this.additions = this.additions >>> 1;
+		}
+
+		private int indexOf(int hash, int i) {
+			long h = (hash + SEEDS[i]) * SEEDS[i];
+			h += (h >>> 32);
+			return ((int) h) & this.tableMask;
+		}
+
+		private static int spread(int hash) {
+			int h = hash;
+			h = ((h >>> 16) ^ h) * 0x45d9f3b;
+			h = ((h >>> 16) ^ h) * 0x45d9f3b;
+			return (h >>> 16) ^ h;
+		}
+	}
+
+
+	private final class AddTask implements Runnable {
+
+		private final Node<K, V> node;
+
+		AddTask(Node<K, V> node) {
+			this.node = node;
+		}
+
+		@Override
+		public void run() {
+			// The node may already have been removed or cleared in the meantime:
+			// only link it if still alive, not leaving a ghost entry in the window
+			if (this.node.isAlive()) {
+				sketch.increment(this.node.key);
+				window.linkLast(this.node);
+			}
+		}
+	}
+
+
+	private final class RemoveTask implements Runnable {
+
+		private final Node<K, V> node;
+
+		RemoveTask(Node<K, V> node) {
+			this.node = node;
+		}
+
+		@Override
+		public void run() {
+			if (this.node.deque != null) {
+				this.node.deque.unlink(this.node);
+			}
+			this.node.die();
+		}
+	}
+
+}
@@ -156,8 +156,8 @@ public abstract class MimeTypeUtils {
 	public static final String TEXT_XML_VALUE = "text/xml";
 
 
-	private static final ConcurrentLruCache<String, MimeType> cachedMimeTypes =
-			new ConcurrentLruCache<>(64, MimeTypeUtils::parseMimeTypeInternal);
+	private static final ConcurrentTinyLfuCache<String, MimeType> cachedMimeTypes =
+			new ConcurrentTinyLfuCache<>(64, MimeTypeUtils::parseMimeTypeInternal);
 
 	@Nullable
 	private static volatile Random random;
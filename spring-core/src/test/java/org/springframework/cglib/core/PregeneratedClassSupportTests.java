@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cglib.core;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.FixedValue;
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.cglib.proxy.NoOp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PregeneratedClassSupport} and the underlying deterministic
+ * naming and loading of pre-generated classes by name.
+ *
+ * @author agent (agent@local)
+ */
+class PregeneratedClassSupportTests {
+
+	@TempDir
+	Path dir;
+
+	private final List<String> generatedClassNames = new ArrayList<>();
+
+
+	@AfterEach
+	void resetGeneratedClassHandler() {
+		ReflectUtils.setGeneratedClassHandler(null);
+	}
+
+
+	@Test
+	void deterministicClassNames() throws Exception {
+		ClassLoader classLoader = new TestClassLoader();
+		Class<?> fixedValueClass = createClass(classLoader, FixedValue.class);
+		Class<?> interceptorClass = createClass(classLoader, MethodInterceptor.class);
+
+		assertThat(fixedValueClass.getName()).isEqualTo(Service.class.getName() + "$$SpringCGLIB$$0");
+		assertThat(interceptorClass.getName()).isEqualTo(Service.class.getName() + "$$SpringCGLIB$$1");
+		assertThat(createClass(classLoader, FixedValue.class)).isSameAs(fixedValueClass);
+	}
+
+	@Test
+	void pregeneratedClassLoadedByName() throws Exception {
+		Class<?> generatedClass = pregenerateClass();
+		assertThat(this.dir.resolve(generatedClass.getName().replace('.', '/') + ".class")).exists();
+
+		TestClassLoader classLoader = new TestClassLoader(this.dir.toUri().toURL());
+		recordGeneratedClasses();
+		Enhancer enhancer = newEnhancer(classLoader, (FixedValue) () -> "fixed");
+		Service service = (Service) enhancer.create();
+
+		assertThat(service.getClass().getName()).isEqualTo(generatedClass.getName());
+		assertThat(service.getClass().getClassLoader()).isSameAs(classLoader);
+		assertThat(service.getValue()).isEqualTo("fixed");
+		assertThat(this.generatedClassNames).isEmpty();
+	}
+
+	@Test
+	void incompatiblePregeneratedClassNotUsed() throws Exception {
+		Class<?> generatedClass = pregenerateClass();
+
+		TestClassLoader classLoader = new TestClassLoader(this.dir.toUri().toURL());
+		recordGeneratedClasses();
+		Enhancer enhancer = newEnhancer(classLoader, (MethodInterceptor) (obj, method, args, proxy) -> "intercepted");
+		Service service = (Service) enhancer.create();
+
+		assertThat(service.getClass().getName()).isEqualTo(Service.class.getName() + "$$SpringCGLIB$$1");
+		assertThat(service.getValue()).isEqualTo("intercepted");
+		assertThat(this.generatedClassNames).contains(service.getClass().getName());
+		assertThat(this.generatedClassNames).doesNotContain(generatedClass.getName());
+	}
+
+	@Test
+	void pregeneratedClassWithDifferentCallbackRoutingNotUsed() throws Exception {
+		Class<?>[] callbackTypes = new Class<?>[] {NoOp.class, FixedValue.class};
+		Callback[] callbacks = new Callback[] {NoOp.INSTANCE, (FixedValue) () -> "fixed"};
+		ReflectUtils.setGeneratedClassHandler((className, bytecode) ->
+				PregeneratedClassSupport.writeClassFile(this.dir.toFile(), className, bytecode));
+		Class<?> generatedClass;
+		try {
+			Enhancer enhancer = newEnhancer(new TestClassLoader());
+			enhancer.setCallbackTypes(callbackTypes);
+			enhancer.setCallbackFilter(method -> 0);
+			generatedClass = enhancer.createClass();
+		}
+		finally {
+			ReflectUtils.setGeneratedClassHandler(null);
+		}
+
+		TestClassLoader classLoader = new TestClassLoader(this.dir.toUri().toURL());
+		recordGeneratedClasses();
+		Enhancer enhancer = newEnhancer(classLoader);
+		enhancer.setAttemptLoad(true);
+		enhancer.setCallbacks(callbacks);
+		enhancer.setCallbackFilter(method -> (method.getName().equals("getValue") ? 1 : 0));
+		Service service = (Service) enhancer.create();
+
+		assertThat(service.getValue()).isEqualTo("fixed");
+		assertThat(service.getClass().getName()).isNotEqualTo(generatedClass.getName());
+		assertThat(this.generatedClassNames).containsExactly(service.getClass().getName());
+	}
+
+
+	private Class<?> pregenerateClass() throws Exception {
+		ReflectUtils.setGeneratedClassHandler((className, bytecode) ->
+				PregeneratedClassSupport.writeClassFile(this.dir.toFile(), className, bytecode));
+		try {
+			return createClass(new TestClassLoader(), FixedValue.class);
+		}
+		finally {
+			ReflectUtils.setGeneratedClassHandler(null);
+		}
+	}
+
+	private void recordGeneratedClasses() {
+		ReflectUtils.setGeneratedClassHandler((className, bytecode) -> this.generatedClassNames.add(className));
+	}
+
+	private static Class<?> createClass(ClassLoader classLoader, Class<? extends Callback> callbackType) {
+		Enhancer enhancer = newEnhancer(classLoader);
+		enhancer.setCallbackType(callbackType);
+		return enhancer.createClass();
+	}
+
+	private static Enhancer newEnhancer(ClassLoader classLoader, Callback callback) {
+		Enhancer enhancer = newEnhancer(classLoader);
+		enhancer.setAttemptLoad(true);
+		enhancer.setCallback(callback);
+		return enhancer;
+	}
+
+	private static Enhancer newEnhancer(ClassLoader classLoader) {
+		Enhancer enhancer = new Enhancer();
+		enhancer.setSuperclass(Service.class);
+		enhancer.setClassLoader(classLoader);
+		enhancer.setNamingPolicy(SpringNamingPolicy.DETERMINISTIC);
+		return enhancer;
+	}
+
+
+	public static class Service {
+
+		public String getValue() {
+			return "value";
+		}
+	}
+
+
+	public static class TestClassLoader extends URLClassLoader {
+
+		public TestClassLoader(URL... urls) {
+			super(urls, PregeneratedClassSupportTests.class.getClassLoader());
+		}
+
+		public Class<?> publicDefineClass(String name, byte[] b, ProtectionDomain protectionDomain) {
+			return defineClass(name, b, 0, b.length, protectionDomain);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -1199,6 +1199,24 @@ class ResolvableTypeTests {
 		assertThat(listType.getType().toString()).isEqualTo("java.util.List<java.util.Map<java.lang.Integer, java.lang.String>>");
 	}
 
+	@Test
+	void forClassWithGenericsReturnsSharedInstance() throws Exception {
+		ResolvableType type = ResolvableType.forClassWithGenerics(List.class, String.class);
+		assertThat(ResolvableType.forClassWithGenerics(List.class, String.class)).isSameAs(type);
+		Type fieldType = Fields.class.getField("stringList").getGenericType();
+		assertThat(ResolvableType.forType(fieldType)).isSameAs(ResolvableType.forType(fieldType));
+	}
+
+	@Test
+	void forFieldKeepsSpecificSource() throws Exception {
+		Field field = Fields.class.getField("stringList");
+		Field otherField = Fields.class.getField("charSequenceList");
+		ResolvableType type = ResolvableType.forField(field);
+		assertThat(type.getSource()).isSameAs(field);
+		assertThat(ResolvableType.forField(otherField).getSource()).isSameAs(otherField);
+		assertThat(ResolvableType.forField(field)).isNotSameAs(type).isEqualTo(type);
+	}
+
 	@Test
 	void classWithGenericsAs() throws Exception {
 		ResolvableType type = ResolvableType.forClassWithGenerics(MultiValueMap.class, Integer.class, String.class);
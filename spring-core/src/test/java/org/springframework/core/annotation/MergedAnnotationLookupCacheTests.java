@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MergedAnnotationLookupCache} and its use in
+ * {@link AnnotatedElementUtils}.
+ *
+ * @author agent (agent@local)
+ */
+class MergedAnnotationLookupCacheTests {
+
+	@AfterEach
+	void clearCache() {
+		AnnotationUtils.clearCache();
+	}
+
+
+	@Test
+	void findMergedAnnotationFromCache() {
+		Component component = AnnotatedElementUtils.findMergedAnnotation(SubClass.class, Component.class);
+		assertThat(component).isNotNull();
+		assertThat(component.value()).isEqualTo("composed");
+		assertThat(AnnotatedElementUtils.findMergedAnnotation(SubClass.class, Component.class)).isSameAs(component);
+		assertThat(AnnotatedElementUtils.findMergedAnnotation(SubClass.class, Composed.class).value()).isEqualTo("composed");
+
+		AnnotationUtils.clearCache();
+		Component recomputed = AnnotatedElementUtils.findMergedAnnotation(SubClass.class, Component.class);
+		assertThat(recomputed).isNotSameAs(component).isEqualTo(component);
+	}
+
+	@Test
+	void getMergedAnnotationWithInheritedAnnotationsOnly() {
+		assertThat(AnnotatedElementUtils.getMergedAnnotation(SubClass.class, Component.class)).isNull();
+		assertThat(AnnotatedElementUtils.isAnnotated(SubClass.class, Component.class)).isFalse();
+		assertThat(AnnotatedElementUtils.getMergedAnnotation(SubClass.class, InheritedMarker.class)).isNotNull();
+		assertThat(AnnotatedElementUtils.isAnnotated(SubClass.class, InheritedMarker.class)).isTrue();
+		assertThat(AnnotatedElementUtils.isAnnotated(SubClass.class, InheritedMarker.class.getName())).isTrue();
+		assertThat(AnnotatedElementUtils.getMergedAnnotationAttributes(SubClass.class, InheritedMarker.class)).isNotNull();
+		assertThat(AnnotatedElementUtils.getMergedAnnotation(SuperClass.class, Component.class).value()).isEqualTo("composed");
+	}
+
+	@Test
+	void findMergedAnnotationOnMethodInTypeHierarchy() {
+		Method method = ReflectionUtils.findMethod(SubClass.class, "handle");
+		assertThat(AnnotatedElementUtils.findMergedAnnotation(method, Component.class).value()).isEqualTo("method");
+		assertThat(AnnotatedElementUtils.hasAnnotation(method, Component.class)).isTrue();
+		assertThat(AnnotatedElementUtils.hasAnnotation(method, Composed.class)).isFalse();
+		assertThat(AnnotatedElementUtils.getMergedAnnotation(method, Component.class)).isNull();
+		assertThat(AnnotatedElementUtils.findMergedAnnotationAttributes(method, Component.class, false, false))
+				.containsEntry("value", "method");
+	}
+
+	@Test
+	void definitelyAbsentAnnotationTypes() {
+		assertThat(MergedAnnotationLookupCache.mayBePresent(
+				SubClass.class, SearchStrategy.TYPE_HIERARCHY, Component.class.getName())).isTrue();
+		assertThat(MergedAnnotationLookupCache.mayBePresent(
+				SubClass.class, SearchStrategy.TYPE_HIERARCHY, Composed.class.getName())).isTrue();
+		assertThat(MergedAnnotationLookupCache.mayBePresent(
+				SubClass.class, SearchStrategy.INHERITED_ANNOTATIONS, InheritedMarker.class.getName())).isTrue();
+		assertThat(MergedAnnotationLookupCache.mayBePresent(
+				NotAnnotated.class, SearchStrategy.TYPE_HIERARCHY, Component.class.getName())).isFalse();
+		assertThat(MergedAnnotationLookupCache.mayBePresent(
+				NotAnnotated.class, SearchStrategy.TYPE_HIERARCHY, Deprecated.class.getName())).isFalse();
+
+		assertThat(AnnotatedElementUtils.findMergedAnnotation(NotAnnotated.class, Component.class)).isNull();
+		assertThat(AnnotatedElementUtils.hasAnnotation(NotAnnotated.class, Component.class)).isFalse();
+		assertThat(AnnotatedElementUtils.findMergedAnnotationAttributes(
+				NotAnnotated.class, Component.class.getName(), false, false)).isNull();
+		assertThat(AnnotatedElementUtils.hasMetaAnnotationTypes(NotAnnotated.class, Component.class)).isFalse();
+	}
+
+	@Test
+	void uncachedElementsWithPlainJavaAnnotationsOnly() {
+		assertThat(MergedAnnotationLookupCache.mayBePresent(
+				String.class, SearchStrategy.TYPE_HIERARCHY, Component.class.getName())).isTrue();
+		assertThat(AnnotatedElementUtils.findMergedAnnotation(String.class, Component.class)).isNull();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Component {
+
+		String value() default "";
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Component
+	@interface Composed {
+
+		@AliasFor(annotation = Component.class)
+		String value() default "";
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Inherited
+	@interface InheritedMarker {
+	}
+
+	@Composed("composed")
+	@InheritedMarker
+	static class SuperClass {
+
+		@Component("method")
+		public void handle() {
+		}
+	}
+
+	static class SubClass extends SuperClass {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+	static class NotAnnotated {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -455,6 +455,41 @@ class GenericConversionServiceTests {
 				new TypeDescriptor(getClass().getField("inactiveColor")))).isEqualTo(Color.BLACK);
 	}
 
+	@Test
+	void conditionalConverterCachingForPlainClassPairs() throws Exception {
+		MyConditionalConverter converter = new MyConditionalConverter();
+		conversionService.addConverter(new ColorConverter());
+		conversionService.addConverter(converter);
+
+		assertThat(conversionService.convert("#000000", Color.class)).isEqualTo(Color.BLACK);
+		int matchAttempts = converter.getMatchAttempts();
+		assertThat(matchAttempts).isGreaterThan(0);
+		assertThat(conversionService.canConvert(String.class, Color.class)).isTrue();
+		assertThat(conversionService.convert("#000000",
+				new TypeDescriptor(getClass().getField("plainColor")))).isEqualTo(Color.BLACK);
+		assertThat(converter.getMatchAttempts()).isEqualTo(matchAttempts);
+
+		// Annotated target type resolved separately
+		assertThat(conversionService.convert("#000000",
+				new TypeDescriptor(getClass().getField("activeColor")))).isEqualTo(Color.BLACK);
+		assertThat(converter.getMatchAttempts()).isGreaterThan(matchAttempts);
+	}
+
+	@Test
+	void plainClassPairCacheInvalidatedOnChanges() {
+		assertThat(conversionService.canConvert(String.class, Color.class)).isFalse();
+		assertThat(conversionService.canConvert(TypeDescriptor.valueOf(String.class),
+				TypeDescriptor.valueOf(Color.class))).isFalse();
+		conversionService.addConverter(new ColorConverter());
+		assertThat(conversionService.canConvert(String.class, Color.class)).isTrue();
+		assertThat(conversionService.convert("#000000", Color.class)).isEqualTo(Color.BLACK);
+		conversionService.removeConvertible(String.class, Color.class);
+		assertThat(conversionService.canConvert(TypeDescriptor.valueOf(String.class),
+				TypeDescriptor.valueOf(Color.class))).isFalse();
+		assertThatExceptionOfType(ConverterNotFoundException.class).isThrownBy(() ->
+				conversionService.convert("#000000", Color.class));
+	}
+
 	@Test
 	void shouldNotSupportNullConvertibleTypesFromNonConditionalGenericConverter() {
 		GenericConverter converter = new NonConditionalGenericConverter();
@@ -586,6 +621,8 @@ class GenericConversionServiceTests {
 	@ExampleAnnotation(active = false)
 	public Color inactiveColor;
 
+	public Color plainColor;
+
 	public Map<String, ?> wildcardMap;
 
 	@SuppressWarnings("rawtypes")
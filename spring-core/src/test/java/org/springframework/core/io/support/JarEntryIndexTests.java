@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JarEntryIndex} and its use in
+ * {@link PathMatchingResourcePatternResolver}.
+ *
+ * @author agent (agent@local)
+ */
+class JarEntryIndexTests {
+
+	@TempDir
+	Path tempDir;
+
+
+	@AfterEach
+	void clearJarEntryIndex() {
+		JarEntryIndex.clearCache();
+	}
+
+
+	@Test
+	void entryNamesInJarOrder() throws IOException {
+		File jar = writeJar("test.jar", "b/", "b/z.txt", "a/", "a/y.txt", "b/x.txt", "bb/w.txt", "a/b/v.txt");
+		JarEntryIndex index = JarEntryIndex.forJarFile(jar);
+		assertThat(index.getEntryNames("")).containsExactly(
+				"b/", "b/z.txt", "a/", "a/y.txt", "b/x.txt", "bb/w.txt", "a/b/v.txt");
+		assertThat(index.getEntryNames("b/")).containsExactly("b/", "b/z.txt", "b/x.txt");
+		assertThat(index.getEntryNames("a/")).containsExactly("a/", "a/y.txt", "a/b/v.txt");
+		assertThat(index.getEntryNames("a/b/")).containsExactly("a/b/v.txt");
+		assertThat(index.getEntryNames("c/")).isEmpty();
+		assertThat(JarEntryIndex.forJarFile(jar)).isSameAs(index);
+	}
+
+	@Test
+	void reindexedOnModification() throws IOException {
+		File jar = writeJar("test.jar", "a/y.txt");
+		JarEntryIndex index = JarEntryIndex.forJarFile(jar);
+		assertThat(index.getEntryNames("a/")).containsExactly("a/y.txt");
+
+		writeJar("test.jar", "a/y.txt", "a/z.txt");
+		assertThat(jar.setLastModified(jar.lastModified() + 2000)).isTrue();
+		JarEntryIndex updatedIndex = JarEntryIndex.forJarFile(jar);
+		assertThat(updatedIndex).isNotSameAs(index);
+		assertThat(updatedIndex.getEntryNames("a/")).containsExactly("a/y.txt", "a/z.txt");
+	}
+
+	@Test
+	void parallelScanningAcrossJarFiles() throws IOException {
+		File jar1 = writeJar("test1.jar", "com/", "com/example/", "com/example/One.class", "com/example/one.xml");
+		File jar2 = writeJar("test 2.jar", "com/", "com/example/", "com/example/sub/", "com/example/sub/Two.class");
+		Resource[] roots = new Resource[] {
+				new UrlResource("jar:" + jar1.toURI() + "!/com/example/"),
+				new UrlResource("jar:" + jar2.toURI() + "!/com/example/")};
+
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver() {
+			@Override
+			public Resource[] getResources(String locationPattern) throws IOException {
+				return ("classpath*:com/example/".equals(locationPattern) ? roots : super.getResources(locationPattern));
+			}
+		};
+		Resource[] sequentialResult = resolver.getResources("classpath*:com/example/**/*.class");
+		assertThat(sequentialResult).extracting(Resource::getFilename).containsExactly("One.class", "Two.class");
+		resolver.setParallelScanning(true);
+		assertThat(resolver.getResources("classpath*:com/example/**/*.class")).containsExactly(sequentialResult);
+		assertThat(resolver.getResources("classpath*:com/example/**/*.class")).containsExactly(sequentialResult);
+	}
+
+
+	private File writeJar(String name, String... entryNames) throws IOException {
+		File jar = this.tempDir.resolve(name).toFile();
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+			for (String entryName : entryNames) {
+				out.putNextEntry(new JarEntry(entryName));
+				if (!entryName.endsWith("/")) {
+					out.write(entryName.getBytes());
+				}
+				out.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+}
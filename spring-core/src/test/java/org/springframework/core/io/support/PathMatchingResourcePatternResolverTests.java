@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
@@ -59,6 +60,12 @@ class PathMatchingResourcePatternResolverTests {
 	private PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
 
 
+	@AfterEach
+	void clearJarEntryIndex() {
+		JarEntryIndex.clearCache();
+	}
+
+
 	@Test
 	void invalidPrefixWithPatternElementInIt() throws IOException {
 		assertThatExceptionOfType(FileNotFoundException.class).isThrownBy(() ->
@@ -129,6 +136,21 @@ class PathMatchingResourcePatternResolverTests {
 		assertThat(found).as("Could not find aspectj_1_5_0.dtd in the root of the aspectjweaver jar").isTrue();
 	}
 
+	@Test
+	void parallelScanningWithSameResultAsSequentialScanning() throws IOException {
+		PathMatchingResourcePatternResolver parallelResolver = new PathMatchingResourcePatternResolver();
+		parallelResolver.setParallelScanning(true);
+		for (String locationPattern : new String[] {"classpath*:reactor/util/annotation/*.class",
+				"classpath*:org/springframework/core/io/**/resource#test*.txt", "classpath*:*.dtd",
+				"classpath*:org/**/package-info.class", "classpath:reactor/util/annotation/*.class"}) {
+			assertThat(parallelResolver.getResources(locationPattern))
+					.as(locationPattern).containsExactly(resolver.getResources(locationPattern));
+			// Again from the index of jar entries
+			assertThat(parallelResolver.getResources(locationPattern))
+					.as(locationPattern).containsExactly(resolver.getResources(locationPattern));
+		}
+	}
+
 
 	private void assertProtocolAndFilenames(Resource[] resources, String protocol, String... filenames)
 			throws IOException {
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for {@link VirtualThreadTaskExecutor}, on JDK 21+ as well as on
+ * older JVMs without virtual thread support.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ */
+class VirtualThreadTaskExecutorTests {
+
+	@Test
+	void notSupported() {
+		assumeFalse(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+		assertThatIllegalStateException().isThrownBy(VirtualThreadTaskExecutor::new);
+		assertThatIllegalStateException().isThrownBy(() -> new VirtualThreadTaskExecutor("test-"));
+	}
+
+	@Test
+	void threadNamesWithPrefix() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+		Future<String> future = executor.submit(() -> Thread.currentThread().getName());
+		assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("test-1");
+		future = executor.submit(() -> Thread.currentThread().getName());
+		assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("test-2");
+	}
+
+	@Test
+	void virtualThreadFactory() {
+		assumeTrue(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+		Thread thread = new VirtualThreadTaskExecutor().getVirtualThreadFactory().newThread(() -> {});
+		assertThat(thread.isDaemon()).isTrue();
+		assertThat(thread.getName()).isEmpty();
+	}
+
+	@Test
+	void concurrencyLimit() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		executor.setConcurrencyLimit(2);
+
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(10);
+		for (int i = 0; i < 10; i++) {
+			executor.execute(() -> {
+				maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(10);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				active.decrementAndGet();
+				latch.countDown();
+			});
+		}
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxActive.get()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void concurrencyLimitWithImmediateTimeout() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		executor.setConcurrencyLimit(1);
+
+		CountDownLatch blocker = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				blocker.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			done.countDown();
+		});
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				executor.execute(() -> {}, AsyncTaskExecutor.TIMEOUT_IMMEDIATE));
+		blocker.countDown();
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AbstractAnnotationMetadataTests;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Tests for {@link PersistentCachingMetadataReaderFactory}, running the
+ * {@link AnnotationMetadata} tests against metadata replayed from a cache file.
+ *
+ * @author agent (agent@local)
+ */
+class PersistentCachingMetadataReaderFactoryTests extends AbstractAnnotationMetadataTests {
+
+	@TempDir
+	Path tempDir;
+
+
+	@Override
+	protected AnnotationMetadata get(Class<?> source) {
+		try {
+			File cacheFile = this.tempDir.resolve("metadata.cache").toFile();
+			ClassLoader classLoader = source.getClassLoader();
+			PersistentCachingMetadataReaderFactory factory =
+					new PersistentCachingMetadataReaderFactory(classLoader, cacheFile);
+			factory.getMetadataReader(source.getName());
+			factory.flush();
+			return new PersistentCachingMetadataReaderFactory(classLoader, cacheFile)
+					.getMetadataReader(source.getName()).getAnnotationMetadata();
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	@Test
+	void cachedMetadataUsedForUnchangedClassFile() throws IOException {
+		File cacheFile = this.tempDir.resolve("unchanged.cache").toFile();
+		Resource resource = copyClassFile(WithDirectAnnotations.class);
+		PersistentCachingMetadataReaderFactory factory =
+				new PersistentCachingMetadataReaderFactory(getClass().getClassLoader(), cacheFile);
+		factory.getMetadataReader(resource);
+		factory.clearCache();
+		assertThat(cacheFile).isFile();
+
+		// Same length and timestamp but unparseable content: only works from the cache
+		File classFile = resource.getFile();
+		long lastModified = classFile.lastModified();
+		Files.write(classFile.toPath(), new byte[(int) classFile.length()]);
+		assertThat(classFile.setLastModified(lastModified)).isTrue();
+
+		MetadataReader reader = new PersistentCachingMetadataReaderFactory(getClass().getClassLoader(), cacheFile)
+				.getMetadataReader(resource);
+		assertThat(reader.getResource()).isEqualTo(resource);
+		assertThat(reader.getClassMetadata().getClassName()).isEqualTo(WithDirectAnnotations.class.getName());
+		assertThat(reader.getAnnotationMetadata().hasAnnotation(DirectAnnotation1.class.getName())).isTrue();
+	}
+
+	@Test
+	void cachedMetadataIgnoredForChangedClassFile() throws IOException {
+		File cacheFile = this.tempDir.resolve("changed.cache").toFile();
+		Resource resource = copyClassFile(TestClass.class);
+		PersistentCachingMetadataReaderFactory factory =
+				new PersistentCachingMetadataReaderFactory(getClass().getClassLoader(), cacheFile);
+		factory.getMetadataReader(resource);
+		factory.flush();
+
+		File classFile = resource.getFile();
+		long lastModified = classFile.lastModified();
+		byte[] content = new byte[(int) classFile.length()];
+		Arrays.fill(content, (byte) 0xFF);
+		Files.write(classFile.toPath(), content);
+		assertThat(classFile.setLastModified(lastModified + 2000)).isTrue();
+
+		assertThatIOException().isThrownBy(() ->
+				new PersistentCachingMetadataReaderFactory(getClass().getClassLoader(), cacheFile)
+						.getMetadataReader(resource));
+	}
+
+	@Test
+	void corruptCacheFileIgnored() throws IOException {
+		File cacheFile = this.tempDir.resolve("corrupt.cache").toFile();
+		Files.write(cacheFile.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+		PersistentCachingMetadataReaderFactory factory =
+				new PersistentCachingMetadataReaderFactory(getClass().getClassLoader(), cacheFile);
+		Resource resource = copyClassFile(TestClass.class);
+		assertThat(factory.getMetadataReader(resource).getClassMetadata().getClassName())
+				.isEqualTo(TestClass.class.getName());
+		factory.flush();
+		assertThat(cacheFile.length()).isGreaterThan(13);
+	}
+
+	@Test
+	void cachedEntriesUnaffectedByRewrittenCacheFile() throws IOException {
+		File cacheFile = this.tempDir.resolve("rewritten.cache").toFile();
+		PersistentMetadataCache cache = PersistentMetadataCache.forFile(cacheFile);
+		URL url1 = copyClassFile(TestClass.class).getURL();
+		URL url2 = copyClassFile(WithDirectAnnotations.class).getURL();
+		PersistentMetadataCache.Stamp stamp1 = cache.getStamp(url1);
+		PersistentMetadataCache.Stamp stamp2 = cache.getStamp(url2);
+		cache.put(url1.toString(), stamp1, new byte[] {1, 2, 3});
+		cache.flush();
+		assertThat(cache.get(url1.toString(), stamp1)).containsExactly(1, 2, 3);
+
+		// Replaced on flush while entries are in use
+		cache.put(url2.toString(), stamp2, new byte[] {4, 5});
+		cache.flush();
+		assertThat(cache.get(url1.toString(), stamp1)).containsExactly(1, 2, 3);
+		assertThat(cache.get(url2.toString(), stamp2)).containsExactly(4, 5);
+
+		// Truncated by another process while entries are in use
+		try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.WRITE)) {
+			channel.truncate(0);
+		}
+		assertThat(cache.get(url1.toString(), stamp1)).containsExactly(1, 2, 3);
+		assertThat(cache.get(url2.toString(), stamp2)).containsExactly(4, 5);
+	}
+
+	private Resource copyClassFile(Class<?> clazz) throws IOException {
+		String classFileName = ClassUtils.getClassFileName(clazz);
+		Path target = this.tempDir.resolve(classFileName);
+		try (InputStream in = clazz.getResourceAsStream(classFileName)) {
+			Files.copy(in, target);
+		}
+		return new FileSystemResource(target);
+	}
+
+}
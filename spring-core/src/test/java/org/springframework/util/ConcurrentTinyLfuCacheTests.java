@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ConcurrentTinyLfuCache}.
+ *
+ * @author agent (agent@local)
+ */
+class ConcurrentTinyLfuCacheTests {
+
+	private final ConcurrentTinyLfuCache<String, String> cache = new ConcurrentTinyLfuCache<>(2, key -> key + "value");
+
+
+	@Test
+	void getAndSize() {
+		assertThat(this.cache.sizeLimit()).isEqualTo(2);
+		assertThat(this.cache.size()).isEqualTo(0);
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.size()).isEqualTo(1);
+		assertThat(this.cache.contains("k1")).isTrue();
+		assertThat(this.cache.get("k2")).isEqualTo("k2value");
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.contains("k1")).isTrue();
+		assertThat(this.cache.contains("k2")).isTrue();
+		assertThat(this.cache.get("k3")).isEqualTo("k3value");
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.contains("k3")).isTrue();
+	}
+
+	@Test
+	void frequentlyUsedEntrySurvivesScan() {
+		ConcurrentTinyLfuCache<Integer, String> cache = new ConcurrentTinyLfuCache<>(10, String::valueOf);
+		for (int i = 0; i < 5; i++) {
+			cache.get(0);
+		}
+		for (int i = 1; i < 100; i++) {
+			cache.get(i);
+		}
+		assertThat(cache.size()).isEqualTo(10);
+		assertThat(cache.contains(0)).isTrue();
+		assertThat(cache.evictionCount()).isEqualTo(90);
+	}
+
+	@Test
+	void statistics() {
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.get("k2")).isEqualTo("k2value");
+		assertThat(this.cache.get("k3")).isEqualTo("k3value");
+		assertThat(this.cache.hitCount()).isEqualTo(1);
+		assertThat(this.cache.missCount()).isEqualTo(3);
+		assertThat(this.cache.evictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void removeAndSize() {
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.get("k2")).isEqualTo("k2value");
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.remove("k2")).isTrue();
+		assertThat(this.cache.remove("k2")).isFalse();
+		assertThat(this.cache.size()).isEqualTo(1);
+		assertThat(this.cache.contains("k1")).isTrue();
+		assertThat(this.cache.contains("k2")).isFalse();
+		assertThat(this.cache.get("k3")).isEqualTo("k3value");
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.contains("k1")).isTrue();
+		assertThat(this.cache.contains("k3")).isTrue();
+		assertThat(this.cache.evictionCount()).isEqualTo(0);
+	}
+
+	@Test
+	void clearAndSize() {
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.get("k2")).isEqualTo("k2value");
+		assertThat(this.cache.size()).isEqualTo(2);
+		this.cache.clear();
+		assertThat(this.cache.size()).isEqualTo(0);
+		assertThat(this.cache.contains("k1")).isFalse();
+		assertThat(this.cache.contains("k2")).isFalse();
+		assertThat(this.cache.get("k3")).isEqualTo("k3value");
+		assertThat(this.cache.get("k4")).isEqualTo("k4value");
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.contains("k3")).isTrue();
+		assertThat(this.cache.contains("k4")).isTrue();
+	}
+
+	@Test
+	void zeroSizeLimit() {
+		ConcurrentTinyLfuCache<String, String> cache = new ConcurrentTinyLfuCache<>(0, key -> key + "value");
+		assertThat(cache.get("k1")).isEqualTo("k1value");
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.contains("k1")).isFalse();
+	}
+
+	@Test
+	void concurrentAccessStaysWithinLimit() throws Exception {
+		int threads = 8;
+		ConcurrentTinyLfuCache<Integer, Integer> cache = new ConcurrentTinyLfuCache<>(32, key -> key);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch latch = new CountDownLatch(threads);
+		AtomicInteger failures = new AtomicInteger();
+		for (int t = 0; t < threads; t++) {
+			int seed = t;
+			executor.execute(() -> {
+				try {
+					for (int i = 0; i < 10000; i++) {
+						int key = (i * 31 + seed) % 100;
+						if (cache.get(key) != key) {
+							failures.incrementAndGet();
+						}
+					}
+				}
+				finally {
+					latch.countDown();
+				}
+			});
+		}
+		assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+		assertThat(failures.get()).isEqualTo(0);
+		cache.get(1000);
+		assertThat(cache.size()).isLessThanOrEqualTo(32);
+		assertThat(cache.hitCount() + cache.missCount()).isEqualTo(threads * 10000 + 1);
+	}
+
+}
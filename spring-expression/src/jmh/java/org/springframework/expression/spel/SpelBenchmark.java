@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,9 @@ import java.util.Map;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 
 import org.springframework.expression.EvaluationContext;
@@ -103,4 +105,67 @@ public class SpelBenchmark {
 		return data.expression.getValue(data.context);
 	}
 
+	@State(Scope.Benchmark)
+	public static class CollectionBenchmarkData {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public String compilerMode;
+
+		public EvaluationContext eContext = TestScenarioCreator.getTestEvaluationContext();
+
+		public Expression selectionExpression;
+
+		public Expression projectionExpression;
+
+		public Expression inlineListExpression;
+
+		public Expression inlineMapExpression;
+
+		public Expression elvisExpression;
+
+		@Setup
+		public void setup() {
+			ExpressionParser parser = new SpelExpressionParser(
+					new SpelParserConfiguration(SpelCompilerMode.valueOf(this.compilerMode), null));
+			this.selectionExpression = parse(parser, "inventions.?[length() > 20]");
+			this.projectionExpression = parse(parser, "{'Radio', 'Tesla coil', 'Induction motor'}.![length()]");
+			this.inlineListExpression = parse(parser, "{name, nationality, placeOfBirth.city}");
+			this.inlineMapExpression = parse(parser, "{name:name, city:placeOfBirth.city}");
+			this.elvisExpression = parse(parser, "placeOfBirth.city ?: 'unknown'");
+		}
+
+		private Expression parse(ExpressionParser parser, String expressionString) {
+			Expression expression = parser.parseExpression(expressionString);
+			// Evaluate twice for compilation in IMMEDIATE mode
+			expression.getValue(this.eContext);
+			expression.getValue(this.eContext);
+			return expression;
+		}
+	}
+
+	@Benchmark
+	public Object selection(CollectionBenchmarkData data) {
+		return data.selectionExpression.getValue(data.eContext);
+	}
+
+	@Benchmark
+	public Object projection(CollectionBenchmarkData data) {
+		return data.projectionExpression.getValue(data.eContext);
+	}
+
+	@Benchmark
+	public Object inlineList(CollectionBenchmarkData data) {
+		return data.inlineListExpression.getValue(data.eContext);
+	}
+
+	@Benchmark
+	public Object inlineMap(CollectionBenchmarkData data) {
+		return data.inlineMapExpression.getValue(data.eContext);
+	}
+
+	@Benchmark
+	public Object elvis(CollectionBenchmarkData data) {
+		return data.elvisExpression.getValue(data.eContext);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -52,6 +52,7 @@ public class Elvis extends SpelNodeImpl {
 		TypedValue value = this.children[0].getValueInternal(state);
 		// If this check is changed, the generateCode method will need changing too
 		if (value.getValue() != null && !"".equals(value.getValue())) {
+			computeExitTypeDescriptor();
 			return value;
 		}
 		else {
@@ -70,14 +71,25 @@ public class Elvis extends SpelNodeImpl {
 	public boolean isCompilable() {
 		SpelNodeImpl condition = this.children[0];
 		SpelNodeImpl ifNullValue = this.children[1];
-		return (condition.isCompilable() && ifNullValue.isCompilable() &&
-				condition.exitTypeDescriptor != null && ifNullValue.exitTypeDescriptor != null);
+		if (!condition.isCompilable() || condition.exitTypeDescriptor == null) {
+			return false;
+		}
+		// A primitive condition is never null: the alternative does not need to be compiled
+		return (CodeFlow.isPrimitive(condition.exitTypeDescriptor) ||
+				(ifNullValue.isCompilable() && ifNullValue.exitTypeDescriptor != null));
 	}
 
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
 		// exit type descriptor can be null if both components are literal expressions
 		computeExitTypeDescriptor();
+		if (CodeFlow.isPrimitive(this.children[0].exitTypeDescriptor)) {
+			cf.enterCompilationScope();
+			this.children[0].generateCode(mv, cf);
+			cf.exitCompilationScope();
+			cf.pushDescriptor(this.exitTypeDescriptor);
+			return;
+		}
 		cf.enterCompilationScope();
 		this.children[0].generateCode(mv, cf);
 		String lastDesc = cf.lastDescriptor();
@@ -109,7 +121,10 @@ public class Elvis extends SpelNodeImpl {
 	}
 
 	private void computeExitTypeDescriptor() {
-		if (this.exitTypeDescriptor == null && this.children[0].exitTypeDescriptor != null &&
+		if (this.exitTypeDescriptor == null && CodeFlow.isPrimitive(this.children[0].exitTypeDescriptor)) {
+			this.exitTypeDescriptor = this.children[0].exitTypeDescriptor;
+		}
+		else if (this.exitTypeDescriptor == null && this.children[0].exitTypeDescriptor != null &&
 				this.children[1].exitTypeDescriptor != null) {
 			String conditionDescriptor = this.children[0].exitTypeDescriptor;
 			String ifNullValueDescriptor = this.children[1].exitTypeDescriptor;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,7 @@ public class InlineList extends SpelNodeImpl {
 	public InlineList(int startPos, int endPos, SpelNodeImpl... args) {
 		super(startPos, endPos, args);
 		checkIfConstant();
+		this.exitTypeDescriptor = "Ljava/util/List";
 	}
 
 
@@ -126,13 +127,43 @@ public class InlineList extends SpelNodeImpl {
 		return (List<Object>) this.constant.getValue();
 	}
 
+	/**
+	 * An inline list is compilable if it is a constant or if all its elements are compilable.
+	 */
 	@Override
 	public boolean isCompilable() {
-		return isConstant();
+		if (isConstant()) {
+			return true;
+		}
+		for (SpelNodeImpl child : this.children) {
+			if (!child.isCompilable() || child.exitTypeDescriptor == null) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow codeflow) {
+		if (!isConstant()) {
+			// Build a new list from the element values on every evaluation
+			mv.visitTypeInsn(NEW, "java/util/ArrayList");
+			mv.visitInsn(DUP);
+			CodeFlow.insertOptimalLoad(mv, this.children.length);
+			mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "(I)V", false);
+			for (SpelNodeImpl child : this.children) {
+				mv.visitInsn(DUP);
+				codeflow.enterCompilationScope();
+				child.generateCode(mv, codeflow);
+				CodeFlow.insertBoxIfNecessary(mv, codeflow.lastDescriptor());
+				codeflow.exitCompilationScope();
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+				mv.visitInsn(POP);
+			}
+			codeflow.pushDescriptor("Ljava/util/List");
+			return;
+		}
+
 		final String constantFieldName = "inlineList$" + codeflow.nextFieldId();
 		final String className = codeflow.getClassName();
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,15 +17,19 @@
 package org.springframework.expression.spel.ast;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -68,6 +72,9 @@ public class Selection extends SpelNodeImpl {
 
 	private final boolean nullSafe;
 
+	// Whether the most recently evaluated operand was an array, for compilation
+	private boolean arrayOperand;
+
 
 	public Selection(boolean nullSafe, int variant, int startPos, int endPos, SpelNodeImpl expression) {
 		super(startPos, endPos, expression);
@@ -88,6 +95,8 @@ public class Selection extends SpelNodeImpl {
 		SpelNodeImpl selectionCriteria = this.children[0];
 
 		if (operand instanceof Map) {
+			// Map results are not supported by the compiler
+			this.exitTypeDescriptor = null;
 			Map<?, ?> mapdata = (Map<?, ?>) operand;
 			// TODO don't lose generic info for the new map
 			Map<Object, Object> result = new HashMap<>();
@@ -137,6 +146,13 @@ public class Selection extends SpelNodeImpl {
 		if (operand instanceof Iterable || ObjectUtils.isArray(operand)) {
 			Iterable<?> data = (operand instanceof Iterable ?
 					(Iterable<?>) operand : Arrays.asList(ObjectUtils.toObjectArray(operand)));
+			this.arrayOperand = !(operand instanceof Iterable);
+			if (this.variant != ALL) {
+				this.exitTypeDescriptor = "Ljava/lang/Object";
+			}
+			else if (!this.arrayOperand) {
+				this.exitTypeDescriptor = "Ljava/util/List";
+			}
 
 			List<Object> result = new ArrayList<>();
 			int index = 0;
@@ -186,6 +202,9 @@ public class Selection extends SpelNodeImpl {
 				}
 			}
 			Assert.state(elementType != null, "Unresolvable element type");
+			// Only a public non-array element type can be referenced from compiled code
+			this.exitTypeDescriptor = (Modifier.isPublic(elementType.getModifiers()) && !elementType.isArray() ?
+					"[" + CodeFlow.toDescriptor(elementType) : null);
 
 			Object resultArray = Array.newInstance(elementType, result.size());
 			System.arraycopy(result.toArray(), 0, resultArray, 0, result.size());
@@ -208,6 +227,112 @@ public class Selection extends SpelNodeImpl {
 		return prefix() + getChild(0).toStringAST() + "]";
 	}
 
+	/**
+	 * A selection is compilable if its operand is a collection or an array
+	 * (selection over maps is not supported by the compiler) and the selection
+	 * criteria are compilable to a boolean result.
+	 */
+	@Override
+	public boolean isCompilable() {
+		SpelNodeImpl selectionCriteria = this.children[0];
+		return (this.exitTypeDescriptor != null && selectionCriteria.isCompilable() &&
+				CodeFlow.isBooleanCompatible(selectionCriteria.exitTypeDescriptor));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		String exitDescriptor = this.exitTypeDescriptor;
+		Assert.state(exitDescriptor != null, "No exit type descriptor");
+		if (cf.lastDescriptor() == null) {
+			cf.loadTarget(mv);
+		}
+
+		Label endOfSelection = new Label();
+		if (this.nullSafe) {
+			Label continueLabel = new Label();
+			mv.visitInsn(DUP);
+			mv.visitJumpInsn(IFNONNULL, continueLabel);
+			CodeFlow.insertCheckCast(mv, exitDescriptor);
+			mv.visitJumpInsn(GOTO, endOfSelection);
+			mv.visitLabel(continueLabel);
+		}
+
+		// Obtain an iterator over the elements of the collection or array
+		if (this.arrayOperand) {
+			mv.visitMethodInsn(INVOKESTATIC, "org/springframework/util/ObjectUtils", "toObjectArray",
+					"(Ljava/lang/Object;)[Ljava/lang/Object;", false);
+			mv.visitMethodInsn(INVOKESTATIC, "java/util/Arrays", "asList", "([Ljava/lang/Object;)Ljava/util/List;", false);
+		}
+		else {
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Iterable");
+		}
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;", true);
+		int iteratorVariable = cf.nextFreeVariableId();
+		mv.visitVarInsn(ASTORE, iteratorVariable);
+		int resultVariable = -1;
+		if (this.variant != FIRST) {
+			resultVariable = cf.nextFreeVariableId();
+			mv.visitTypeInsn(NEW, "java/util/ArrayList");
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+			mv.visitVarInsn(ASTORE, resultVariable);
+		}
+		int elementVariable = cf.nextFreeVariableId();
+
+		// Evaluate the selection criteria against each element
+		Label nextElement = new Label();
+		Label endOfElements = new Label();
+		mv.visitLabel(nextElement);
+		mv.visitVarInsn(ALOAD, iteratorVariable);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
+		mv.visitJumpInsn(IFEQ, endOfElements);
+		mv.visitVarInsn(ALOAD, iteratorVariable);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
+		mv.visitVarInsn(ASTORE, elementVariable);
+		cf.pushActiveContextObject(elementVariable);
+		cf.enterCompilationScope();
+		this.children[0].generateCode(mv, cf);
+		cf.unboxBooleanIfNecessary(mv);
+		cf.exitCompilationScope();
+		cf.popActiveContextObject();
+		mv.visitJumpInsn(IFEQ, nextElement);
+		if (this.variant == FIRST) {
+			mv.visitVarInsn(ALOAD, elementVariable);
+			mv.visitJumpInsn(GOTO, endOfSelection);
+		}
+		else {
+			mv.visitVarInsn(ALOAD, resultVariable);
+			mv.visitVarInsn(ALOAD, elementVariable);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+			mv.visitInsn(POP);
+			mv.visitJumpInsn(GOTO, nextElement);
+		}
+		mv.visitLabel(endOfElements);
+
+		// Build the result from the selected elements
+		if (this.variant == FIRST) {
+			mv.visitInsn(ACONST_NULL);
+		}
+		else if (this.variant == LAST) {
+			mv.visitVarInsn(ALOAD, resultVariable);
+			mv.visitMethodInsn(INVOKESTATIC, "org/springframework/util/CollectionUtils", "lastElement",
+					"(Ljava/util/List;)Ljava/lang/Object;", false);
+		}
+		else if (this.arrayOperand) {
+			mv.visitVarInsn(ALOAD, resultVariable);
+			mv.visitInsn(ICONST_0);
+			mv.visitTypeInsn(ANEWARRAY, exitDescriptor.substring(2));
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "toArray",
+					"([Ljava/lang/Object;)[Ljava/lang/Object;", true);
+			CodeFlow.insertCheckCast(mv, exitDescriptor);
+		}
+		else {
+			mv.visitVarInsn(ALOAD, resultVariable);
+		}
+		mv.visitLabel(endOfSelection);
+		cf.pushDescriptor(exitDescriptor);
+	}
+
 	private String prefix() {
 		switch (this.variant) {
 			case ALL:   return "?[";
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -77,6 +77,10 @@ public class SpelExpression implements Expression {
 	// give up trying to compile it when it just doesn't seem to be possible.
 	private final AtomicInteger failedAttempts = new AtomicInteger();
 
+	// Statistics and compilation threshold if obtained from a SpelExpressionRegistry
+	@Nullable
+	private volatile SpelExpressionRegistry.ExpressionStatistics statistics;
+
 
 	/**
 	 * Construct an expression, only used by the parser.
@@ -121,6 +125,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				EvaluationContext context = getEvaluationContext();
 				return compiledAst.getValue(context.getRootObject().getValue(), context);
 			}
@@ -129,6 +134,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -150,6 +156,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				EvaluationContext context = getEvaluationContext();
 				Object result = compiledAst.getValue(context.getRootObject().getValue(), context);
 				if (expectedResultType == null) {
@@ -165,6 +172,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -186,6 +194,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				return compiledAst.getValue(rootObject, getEvaluationContext());
 			}
 			catch (Throwable ex) {
@@ -193,6 +202,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -215,6 +225,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				Object result = compiledAst.getValue(rootObject, getEvaluationContext());
 				if (expectedResultType == null) {
 					return (T)result;
@@ -229,6 +240,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -253,6 +265,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				return compiledAst.getValue(context.getRootObject().getValue(), context);
 			}
 			catch (Throwable ex) {
@@ -260,6 +273,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -283,6 +297,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				Object result = compiledAst.getValue(context.getRootObject().getValue(), context);
 				if (expectedResultType != null) {
 					return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
@@ -296,6 +311,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -318,6 +334,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				return compiledAst.getValue(rootObject, context);
 			}
 			catch (Throwable ex) {
@@ -325,6 +342,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -350,6 +368,7 @@ public class SpelExpression implements Expression {
 		CompiledExpression compiledAst = this.compiledAst;
 		if (compiledAst != null) {
 			try {
+				recordCompiledInvocation();
 				Object result = compiledAst.getValue(rootObject, context);
 				if (expectedResultType != null) {
 					return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
@@ -363,6 +382,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					recordReversion(ex);
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -484,6 +504,10 @@ public class SpelExpression implements Expression {
 	 */
 	private void checkCompile(ExpressionState expressionState) {
 		this.interpretedCount.incrementAndGet();
+		SpelExpressionRegistry.ExpressionStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.recordInterpretedInvocation();
+		}
 		SpelCompilerMode compilerMode = expressionState.getConfiguration().getCompilerMode();
 		if (compilerMode != SpelCompilerMode.OFF) {
 			if (compilerMode == SpelCompilerMode.IMMEDIATE) {
@@ -493,7 +517,9 @@ public class SpelExpression implements Expression {
 			}
 			else {
 				// compilerMode = SpelCompilerMode.MIXED
-				if (this.interpretedCount.get() > INTERPRETED_COUNT_THRESHOLD) {
+				int threshold = (statistics != null ?
+						statistics.getCompileThreshold() : INTERPRETED_COUNT_THRESHOLD);
+				if (this.interpretedCount.get() > threshold) {
 					compileExpression();
 				}
 			}
@@ -524,14 +550,21 @@ public class SpelExpression implements Expression {
 			}
 			SpelCompiler compiler = SpelCompiler.getCompiler(this.configuration.getCompilerClassLoader());
 			compiledAst = compiler.compile(this.ast);
+			SpelExpressionRegistry.ExpressionStatistics statistics = this.statistics;
 			if (compiledAst != null) {
 				// Successfully compiled
 				this.compiledAst = compiledAst;
+				if (statistics != null) {
+					statistics.recordCompiled(this.interpretedCount.get());
+				}
 				return true;
 			}
 			else {
 				// Failed to compile
 				this.failedAttempts.incrementAndGet();
+				if (statistics != null) {
+					statistics.recordRefused(this.ast);
+				}
 				return false;
 			}
 		}
@@ -546,6 +579,10 @@ public class SpelExpression implements Expression {
 		this.compiledAst = null;
 		this.interpretedCount.set(0);
 		this.failedAttempts.set(0);
+		SpelExpressionRegistry.ExpressionStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.recordReset();
+		}
 	}
 
 	/**
@@ -565,6 +602,27 @@ public class SpelExpression implements Expression {
 		return this.ast.toStringAST();
 	}
 
+	/**
+	 * Associate this expression with statistics in a {@link SpelExpressionRegistry}.
+	 */
+	void setStatistics(SpelExpressionRegistry.ExpressionStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	private void recordCompiledInvocation() {
+		SpelExpressionRegistry.ExpressionStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.recordCompiledInvocation();
+		}
+	}
+
+	private void recordReversion(Throwable ex) {
+		SpelExpressionRegistry.ExpressionStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.recordReverted(ex);
+		}
+	}
+
 	private TypedValue toTypedValue(@Nullable Object object) {
 		return (object != null ? new TypedValue(object) : TypedValue.NULL);
 	}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.util.List;
+
+/**
+ * Callback interface for compilation events of expressions managed by a
+ * {@link SpelExpressionRegistry}, e.g. for exposing them to a metrics system.
+ *
+ * <p>Callbacks happen on the thread that triggered the event, typically within
+ * an expression evaluation, so implementations should return quickly.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see SpelExpressionRegistry#setMetrics
+ * @see SpelExpressionRegistry#getStatistics()
+ */
+public interface SpelExpressionMetrics {
+
+	/**
+	 * Notification that the given expression has been compiled to bytecode.
+	 * @param expression the expression string
+	 * @param interpretedCount the number of interpreted evaluations before compilation
+	 */
+	default void expressionCompiled(String expression, int interpretedCount) {
+	}
+
+	/**
+	 * Notification that compilation of the given expression has been refused,
+	 * i.e. that the expression remains interpreted for the time being.
+	 * @param expression the expression string
+	 * @param reasons the reasons for the refusal, each naming an AST node
+	 * which is not compilable (in its current state)
+	 */
+	default void compilationRefused(String expression, List<String> reasons) {
+	}
+
+	/**
+	 * Notification that the compiled form of the given expression failed at
+	 * runtime, causing the expression to fall back to interpretation.
+	 * @param expression the expression string
+	 * @param ex the exception thrown by the compiled expression
+	 */
+	default void revertedToInterpreted(String expression, Throwable ex) {
+	}
+
+}
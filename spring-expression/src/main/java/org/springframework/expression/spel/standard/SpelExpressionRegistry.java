@@ -0,0 +1,396 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.SpelNodeImpl;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentTinyLfuCache;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Registry of parsed {@link SpelExpression SpelExpressions}, keyed by
+ * expression string and shared across the components that evaluate them.
+ *
+ * <p>The registry is bounded: rarely used expressions are evicted once the
+ * cache limit has been reached. For each registered expression, it keeps
+ * {@link ExpressionStatistics} with counters for interpreted and compiled
+ * evaluations as well as the outcome of compilation attempts, including the
+ * AST nodes that prevented compilation. These events can also be exposed to a
+ * metrics system through a {@link SpelExpressionMetrics} callback.
+ *
+ * <p>Compilation follows the {@link SpelCompilerMode} of the parser configuration.
+ * In {@link SpelCompilerMode#MIXED MIXED} mode, registered expressions are promoted
+ * to compiled form after the configured {@link #setCompileThreshold number of
+ * interpreted evaluations}, falling back to interpretation if the compiled form
+ * fails at runtime.
+ *
+ * <p>Registered expressions hold on to the types they refer to and, once compiled,
+ * to classes defined in a dedicated child ClassLoader. A registry is therefore
+ * best scoped to a single application context, e.g. one per expression evaluator.
+ * The {@link #getSharedInstance() shared instance} is only meant to be used
+ * explicitly, for expressions against types from a common ClassLoader.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see org.springframework.context.expression.CachedExpressionEvaluator
+ */
+public class SpelExpressionRegistry {
+
+	/** Default maximum number of registered expressions: 1024. */
+	public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+	/** Default number of interpreted evaluations before compilation in mixed mode: 100. */
+	public static final int DEFAULT_COMPILE_THRESHOLD = 100;
+
+	@Nullable
+	private static volatile SpelExpressionRegistry sharedInstance;
+
+
+	private final SpelExpressionParser parser;
+
+	private final int cacheLimit;
+
+	private final ConcurrentTinyLfuCache<String, SpelExpression> expressionCache;
+
+	private final Map<String, ExpressionStatistics> statistics = new ConcurrentHashMap<>(64);
+
+	private volatile int compileThreshold = DEFAULT_COMPILE_THRESHOLD;
+
+	@Nullable
+	private volatile SpelExpressionMetrics metrics;
+
+
+	/**
+	 * Create a new registry for the given parser, with the default cache limit.
+	 * @param parser the parser to use
+	 */
+	public SpelExpressionRegistry(SpelExpressionParser parser) {
+		this(parser, DEFAULT_CACHE_LIMIT);
+	}
+
+	/**
+	 * Create a new registry for the given parser.
+	 * @param parser the parser to use
+	 * @param cacheLimit the maximum number of expressions to keep
+	 */
+	public SpelExpressionRegistry(SpelExpressionParser parser, int cacheLimit) {
+		Assert.notNull(parser, "SpelExpressionParser must not be null");
+		this.parser = parser;
+		this.cacheLimit = cacheLimit;
+		this.expressionCache = new ConcurrentTinyLfuCache<>(cacheLimit, this::parseExpression);
+	}
+
+
+	/**
+	 * Return a shared default registry instance, lazily building it once needed.
+	 * <p>The shared instance uses a default {@link SpelExpressionParser}, i.e. the
+	 * compiler mode specified through the {@code spring.expression.compiler.mode}
+	 * property. It lives as long as this class, keeping the types referenced by its
+	 * expressions reachable: only use it for expressions that are not specific to
+	 * a particular application ClassLoader.
+	 * @return the shared {@code SpelExpressionRegistry} instance
+	 */
+	public static SpelExpressionRegistry getSharedInstance() {
+		SpelExpressionRegistry registry = sharedInstance;
+		if (registry == null) {
+			synchronized (SpelExpressionRegistry.class) {
+				registry = sharedInstance;
+				if (registry == null) {
+					registry = new SpelExpressionRegistry(new SpelExpressionParser());
+					sharedInstance = registry;
+				}
+			}
+		}
+		return registry;
+	}
+
+
+	/**
+	 * Return the parser used by this registry.
+	 */
+	public SpelExpressionParser getParser() {
+		return this.parser;
+	}
+
+	/**
+	 * Set the number of interpreted evaluations after which an expression is
+	 * compiled in {@link SpelCompilerMode#MIXED MIXED} mode. Default is 100.
+	 */
+	public void setCompileThreshold(int compileThreshold) {
+		Assert.isTrue(compileThreshold >= 0, "Compile threshold must not be negative");
+		this.compileThreshold = compileThreshold;
+	}
+
+	/**
+	 * Return the number of interpreted evaluations after which an expression
+	 * is compiled in {@link SpelCompilerMode#MIXED MIXED} mode.
+	 */
+	public int getCompileThreshold() {
+		return this.compileThreshold;
+	}
+
+	/**
+	 * Set a callback for compilation events of registered expressions.
+	 */
+	public void setMetrics(@Nullable SpelExpressionMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Return the callback for compilation events of registered expressions, if any.
+	 */
+	@Nullable
+	public SpelExpressionMetrics getMetrics() {
+		return this.metrics;
+	}
+
+
+	/**
+	 * Return the registered expression for the given expression string,
+	 * parsing and registering it if necessary.
+	 * @param expressionString the raw expression string to parse
+	 * @return the shared expression instance
+	 * @throws ParseException if the expression string cannot be parsed
+	 */
+	public SpelExpression getExpression(String expressionString) throws ParseException {
+		Assert.notNull(expressionString, "Expression string must not be null");
+		return this.expressionCache.get(expressionString);
+	}
+
+	/**
+	 * Return the statistics for the given expression string, if registered.
+	 */
+	@Nullable
+	public ExpressionStatistics getStatistics(String expressionString) {
+		return this.statistics.get(expressionString);
+	}
+
+	/**
+	 * Return the statistics for all currently registered expressions.
+	 */
+	public List<ExpressionStatistics> getStatistics() {
+		return new ArrayList<>(this.statistics.values());
+	}
+
+	/**
+	 * Remove all registered expressions and their statistics.
+	 */
+	public void clear() {
+		this.expressionCache.clear();
+		this.statistics.clear();
+	}
+
+	private SpelExpression parseExpression(String expressionString) {
+		SpelExpression expression = this.parser.parseRaw(expressionString);
+		ExpressionStatistics stats = new ExpressionStatistics(this, expressionString);
+		expression.setStatistics(stats);
+		this.statistics.put(expressionString, stats);
+		if (this.statistics.size() > Math.max(this.cacheLimit * 2, 16)) {
+			// Drop statistics for evicted expressions
+			this.statistics.keySet().removeIf(key ->
+					!key.equals(expressionString) && !this.expressionCache.contains(key));
+		}
+		return expression;
+	}
+
+
+	/**
+	 * Determine why the given AST cannot be compiled in its current state:
+	 * each reason names a node type that the compiler does not support, or
+	 * a non-compilable node whose children are compilable.
+	 */
+	static List<String> determineRefusalReasons(SpelNodeImpl ast) {
+		List<String> reasons = new ArrayList<>(2);
+		if (ast.isCompilable()) {
+			reasons.add("Code generation opted out for '" + ast.toStringAST() + "'");
+		}
+		else {
+			collectRefusalReasons(ast, reasons);
+		}
+		return reasons;
+	}
+
+	private static void collectRefusalReasons(SpelNodeImpl node, List<String> reasons) {
+		String description = node.getClass().getSimpleName() + " '" + node.toStringAST() + "'";
+		boolean unsupported = !overridesIsCompilable(node.getClass());
+		if (unsupported) {
+			reasons.add(description + " is not supported by the compiler");
+		}
+		boolean childRefused = false;
+		for (int i = 0; i < node.getChildCount(); i++) {
+			SpelNode child = node.getChild(i);
+			if (child instanceof SpelNodeImpl && !((SpelNodeImpl) child).isCompilable()) {
+				collectRefusalReasons((SpelNodeImpl) child, reasons);
+				childRefused = true;
+			}
+		}
+		if (!unsupported && !childRefused) {
+			reasons.add(node.getExitDescriptor() == null ?
+					description + " has no known result type yet" : description + " is not compilable");
+		}
+	}
+
+	private static boolean overridesIsCompilable(Class<?> nodeType) {
+		Method method = ReflectionUtils.findMethod(nodeType, "isCompilable");
+		return (method != null && method.getDeclaringClass() != SpelNodeImpl.class);
+	}
+
+
+	/**
+	 * Evaluation and compilation statistics for a registered expression.
+	 */
+	public static final class ExpressionStatistics {
+
+		private final SpelExpressionRegistry registry;
+
+		private final String expressionString;
+
+		private final LongAdder interpretedInvocations = new LongAdder();
+
+		private final LongAdder compiledInvocations = new LongAdder();
+
+		private final AtomicInteger refusedCompilations = new AtomicInteger();
+
+		private final AtomicInteger reversions = new AtomicInteger();
+
+		private volatile boolean compiled;
+
+		private volatile List<String> refusalReasons = Collections.emptyList();
+
+		ExpressionStatistics(SpelExpressionRegistry registry, String expressionString) {
+			this.registry = registry;
+			this.expressionString = expressionString;
+		}
+
+		/**
+		 * Return the expression string.
+		 */
+		public String getExpressionString() {
+			return this.expressionString;
+		}
+
+		/**
+		 * Return the number of interpreted evaluations.
+		 */
+		public long getInterpretedInvocations() {
+			return this.interpretedInvocations.sum();
+		}
+
+		/**
+		 * Return the number of evaluations in compiled form.
+		 */
+		public long getCompiledInvocations() {
+			return this.compiledInvocations.sum();
+		}
+
+		/**
+		 * Return whether the expression is currently compiled.
+		 */
+		public boolean isCompiled() {
+			return this.compiled;
+		}
+
+		/**
+		 * Return how many times compilation has been refused.
+		 */
+		public int getRefusedCompilations() {
+			return this.refusedCompilations.get();
+		}
+
+		/**
+		 * Return the reasons for the most recent refusal of compilation, if any.
+		 * @see SpelExpressionMetrics#compilationRefused
+		 */
+		public List<String> getRefusalReasons() {
+			return this.refusalReasons;
+		}
+
+		/**
+		 * Return how many times the compiled form failed at runtime and the
+		 * expression fell back to interpretation.
+		 */
+		public int getReversions() {
+			return this.reversions.get();
+		}
+
+		int getCompileThreshold() {
+			return this.registry.getCompileThreshold();
+		}
+
+		void recordInterpretedInvocation() {
+			this.interpretedInvocations.increment();
+		}
+
+		void recordCompiledInvocation() {
+			this.compiledInvocations.increment();
+		}
+
+		void recordCompiled(int interpretedCount) {
+			this.compiled = true;
+			this.refusalReasons = Collections.emptyList();
+			SpelExpressionMetrics metrics = this.registry.getMetrics();
+			if (metrics != null) {
+				metrics.expressionCompiled(this.expressionString, interpretedCount);
+			}
+		}
+
+		void recordRefused(SpelNodeImpl ast) {
+			List<String> reasons = Collections.unmodifiableList(determineRefusalReasons(ast));
+			this.refusalReasons = reasons;
+			this.refusedCompilations.incrementAndGet();
+			SpelExpressionMetrics metrics = this.registry.getMetrics();
+			if (metrics != null) {
+				metrics.compilationRefused(this.expressionString, reasons);
+			}
+		}
+
+		void recordReset() {
+			this.compiled = false;
+		}
+
+		void recordReverted(Throwable ex) {
+			this.compiled = false;
+			this.reversions.incrementAndGet();
+			SpelExpressionMetrics metrics = this.registry.getMetrics();
+			if (metrics != null) {
+				metrics.revertedToInterpreted(this.expressionString, ex);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "'" + this.expressionString + "': " + (this.compiled ? "compiled" : "interpreted") +
+					", " + getInterpretedInvocations() + " interpreted and " + getCompiledInvocations() +
+					" compiled invocations" + (this.refusalReasons.isEmpty() ? "" :
+					", compilation refused: " + this.refusalReasons);
+		}
+	}
+
+}
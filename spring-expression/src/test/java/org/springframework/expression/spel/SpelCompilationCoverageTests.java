@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -892,6 +894,159 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertCanCompile(expression);
 	}
 
+	@Test
+	public void elvisWithPrimitiveCondition() throws Exception {
+		expression = parser.parseExpression("length() ?: 5");
+		assertThat(expression.getValue("abc")).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abc")).isEqualTo(3);
+		assertThat(expression.getValue("")).isEqualTo(0);
+
+		expression = parser.parseExpression("(length() ?: 5) + 1");
+		assertThat(expression.getValue("abc")).isEqualTo(4);
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abcd")).isEqualTo(5);
+	}
+
+	@Test
+	public void variableReference_this() throws Exception {
+		expression = parser.parseExpression("#this.length()");
+		assertThat(expression.getValue("abc")).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abcd")).isEqualTo(4);
+
+		expression = parser.parseExpression("substring(#this.length() - 1)");
+		assertThat(expression.getValue("abc")).isEqualTo("c");
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abcd")).isEqualTo("d");
+	}
+
+	@Test
+	public void selection() throws Exception {
+		List<String> list = Arrays.asList("a", "bb", "ccc", "dd");
+
+		expression = parser.parseExpression("?[length() > 1]");
+		assertCantCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("bb", "ccc", "dd"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("bb", "ccc", "dd"));
+		assertThat(expression.getValue(Collections.emptyList())).isEqualTo(Collections.emptyList());
+
+		expression = parser.parseExpression("^[length() > 1]");
+		assertThat(expression.getValue(list)).isEqualTo("bb");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo("bb");
+		assertThat(expression.getValue(Collections.singletonList("a"))).isNull();
+
+		expression = parser.parseExpression("$[length() > 1]");
+		assertThat(expression.getValue(list)).isEqualTo("dd");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo("dd");
+		assertThat(expression.getValue(Collections.singletonList("a"))).isNull();
+
+		expression = parser.parseExpression("?[#this.length() > 1].size()");
+		assertThat(expression.getValue(list)).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(3);
+
+		expression = parser.parseExpression("#root?.?[length() > 1]");
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("bb", "ccc", "dd"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("bb", "ccc", "dd"));
+		assertThat(expression.getValue((Object) null)).isNull();
+	}
+
+	@Test
+	public void selectionOnArray() throws Exception {
+		String[] strings = new String[] {"a", "bb", "ccc"};
+
+		expression = parser.parseExpression("?[length() > 1]");
+		assertThat(expression.getValue(strings)).isEqualTo(new String[] {"bb", "ccc"});
+		assertCanCompile(expression);
+		assertThat(expression.getValue(strings)).isEqualTo(new String[] {"bb", "ccc"});
+
+		int[] ints = new int[] {1, 2, 3, 4};
+		expression = parser.parseExpression("?[#this % 2 == 0]");
+		assertThat(expression.getValue(ints)).isEqualTo(new Integer[] {2, 4});
+		assertCanCompile(expression);
+		assertThat(expression.getValue(ints)).isEqualTo(new Integer[] {2, 4});
+
+		expression = parser.parseExpression("$[#this > 1]");
+		assertThat(expression.getValue(ints)).isEqualTo(4);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(ints)).isEqualTo(4);
+	}
+
+	@Test
+	public void selectionOnMap() throws Exception {
+		Map<String, Integer> map = new LinkedHashMap<>();
+		map.put("a", 1);
+		map.put("b", 2);
+
+		expression = parser.parseExpression("?[value > 1]");
+		assertThat(expression.getValue(map)).isEqualTo(Collections.singletonMap("b", 2));
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void projection() throws Exception {
+		List<String> list = Arrays.asList("a", "bb", "ccc");
+
+		expression = parser.parseExpression("![length()]");
+		assertCantCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList(1, 2, 3));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList(1, 2, 3));
+
+		expression = parser.parseExpression("![toUpperCase()].?[length() > 1]");
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("BB", "CCC"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("BB", "CCC"));
+
+		expression = parser.parseExpression("![#this.concat(#root[0])]");
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("aa", "bba", "ccca"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(Arrays.asList("aa", "bba", "ccca"));
+
+		Map<String, String> map = new LinkedHashMap<>();
+		map.put("a", "x");
+		map.put("b", "y");
+		expression = parser.parseExpression("![T(String).valueOf(#this)]");
+		assertThat(expression.getValue(map)).isEqualTo(Arrays.asList("a=x", "b=y"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(map)).isEqualTo(Arrays.asList("a=x", "b=y"));
+
+		expression = parser.parseExpression("![length()]");
+		assertThat(expression.getValue(new String[] {"a", "bb"})).isEqualTo(new Integer[] {1, 2});
+		assertCantCompile(expression);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Test
+	public void inlineListWithNonConstantElements() throws Exception {
+		expression = parser.parseExpression("{length(), 'x', {1,2}, toUpperCase()}");
+		assertThat(expression.getValue("abc")).isEqualTo(Arrays.asList(3, "x", Arrays.asList(1, 2), "ABC"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abc")).isEqualTo(Arrays.asList(3, "x", Arrays.asList(1, 2), "ABC"));
+		assertThat(((List) expression.getValue("a")).get(0)).isEqualTo(1);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Test
+	public void inlineMap() throws Exception {
+		expression = parser.parseExpression("{a:1, 'b':'x', c:{1,2}, d:{e:true}}");
+		Map<?, ?> map = (Map) expression.getValue();
+		assertThat(map.toString()).isEqualTo("{a=1, b=x, c=[1, 2], d={e=true}}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue().toString()).isEqualTo("{a=1, b=x, c=[1, 2], d={e=true}}");
+		assertThat(expression.getValue()).isSameAs(expression.getValue());
+
+		expression = parser.parseExpression("{length:length(), (toUpperCase()):#this, 'l':{length()}}");
+		assertThat(expression.getValue("abc").toString()).isEqualTo("{length=3, ABC=abc, l=[3]}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abcd").toString()).isEqualTo("{length=4, ABCD=abcd, l=[4]}");
+	}
+
 	@Test
 	public void variableReference_root() throws Exception {
 		String s = "hello";
@@ -1028,8 +1183,8 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 
 		expression = parser.parseExpression("#negate(#ints.?[#this<2][0])");
 		assertThat(expression.getValue(context, Integer.class).toString()).isEqualTo("-1");
-		// Selection isn't compilable.
-		assertThat(((SpelNodeImpl)((SpelExpression) expression).getAST()).isCompilable()).isFalse();
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context, Integer.class).toString()).isEqualTo("-1");
 	}
 
 	@Test
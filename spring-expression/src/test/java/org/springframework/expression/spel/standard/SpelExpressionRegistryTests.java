@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link SpelExpressionRegistry}.
+ *
+ * @author agent (agent@local)
+ */
+class SpelExpressionRegistryTests {
+
+	private final SpelExpressionRegistry registry = new SpelExpressionRegistry(
+			new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, null)));
+
+	private final TestMetrics metrics = new TestMetrics();
+
+
+	@Test
+	void sharedExpressionInstances() {
+		SpelExpression expression = this.registry.getExpression("'abc'.length()");
+		assertThat(this.registry.getExpression("'abc'.length()")).isSameAs(expression);
+		assertThat(this.registry.getExpression("'abcd'.length()")).isNotSameAs(expression);
+		assertThat(this.registry.getStatistics()).hasSize(2);
+
+		this.registry.clear();
+		assertThat(this.registry.getExpression("'abc'.length()")).isNotSameAs(expression);
+	}
+
+	@Test
+	void invalidExpression() {
+		assertThatExceptionOfType(ParseException.class).isThrownBy(() -> this.registry.getExpression("'abc'.("));
+		assertThat(this.registry.getStatistics()).isEmpty();
+	}
+
+	@Test
+	void interpretedInvocationsWithCompilerOff() {
+		SpelExpressionRegistry interpretingRegistry = new SpelExpressionRegistry(
+				new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.OFF, null)));
+		interpretingRegistry.setCompileThreshold(1);
+		SpelExpression expression = interpretingRegistry.getExpression("'abc'.length()");
+		for (int i = 0; i < 5; i++) {
+			assertThat(expression.getValue()).isEqualTo(3);
+		}
+
+		SpelExpressionRegistry.ExpressionStatistics statistics =
+				interpretingRegistry.getStatistics("'abc'.length()");
+		assertThat(statistics.getInterpretedInvocations()).isEqualTo(5);
+		assertThat(statistics.getCompiledInvocations()).isZero();
+		assertThat(statistics.isCompiled()).isFalse();
+	}
+
+	@Test
+	void compilationAfterThreshold() {
+		this.registry.setCompileThreshold(3);
+		this.registry.setMetrics(this.metrics);
+		SpelExpression expression = this.registry.getExpression("'abc'.length()");
+		for (int i = 0; i < 10; i++) {
+			assertThat(expression.getValue()).isEqualTo(3);
+		}
+
+		SpelExpressionRegistry.ExpressionStatistics statistics = this.registry.getStatistics("'abc'.length()");
+		assertThat(statistics.isCompiled()).isTrue();
+		assertThat(statistics.getInterpretedInvocations()).isEqualTo(4);
+		assertThat(statistics.getCompiledInvocations()).isEqualTo(6);
+		assertThat(statistics.getRefusalReasons()).isEmpty();
+		assertThat(this.metrics.events).containsExactly("compiled 'abc'.length() after 4");
+	}
+
+	@Test
+	void compilationRefused() {
+		this.registry.setCompileThreshold(0);
+		this.registry.setMetrics(this.metrics);
+		SpelExpression expression = this.registry.getExpression("#foo = 'bar'");
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		assertThat(expression.getValue(context)).isEqualTo("bar");
+		assertThat(expression.getValue(context)).isEqualTo("bar");
+
+		SpelExpressionRegistry.ExpressionStatistics statistics = this.registry.getStatistics("#foo = 'bar'");
+		assertThat(statistics.isCompiled()).isFalse();
+		assertThat(statistics.getRefusedCompilations()).isEqualTo(2);
+		assertThat(statistics.getRefusalReasons()).first().asString()
+				.startsWith("Assign").endsWith("is not supported by the compiler");
+		assertThat(this.metrics.events).hasSize(2).allMatch(event -> event.startsWith("refused #foo = 'bar'"));
+	}
+
+	@Test
+	void revertedToInterpreted() {
+		this.registry.setCompileThreshold(0);
+		this.registry.setMetrics(this.metrics);
+		SpelExpression expression = this.registry.getExpression("toString()");
+		assertThat(expression.getValue("abc")).isEqualTo("abc");
+		assertThat(expression.getValue("abc")).isEqualTo("abc");
+		assertThat(this.registry.getStatistics("toString()").isCompiled()).isTrue();
+
+		// Compiled for String target: falls back to interpretation, then recompiles for Integer
+		assertThat(expression.getValue(42)).isEqualTo("42");
+		SpelExpressionRegistry.ExpressionStatistics statistics = this.registry.getStatistics("toString()");
+		assertThat(statistics.getReversions()).isEqualTo(1);
+		assertThat(statistics.getInterpretedInvocations()).isEqualTo(2);
+		assertThat(statistics.getCompiledInvocations()).isEqualTo(2);
+		assertThat(this.metrics.events).containsExactly(
+				"compiled toString() after 1", "reverted toString()", "compiled toString() after 1");
+	}
+
+
+	private static class TestMetrics implements SpelExpressionMetrics {
+
+		final List<String> events = new ArrayList<>();
+
+		@Override
+		public void expressionCompiled(String expression, int interpretedCount) {
+			this.events.add("compiled " + expression + " after " + interpretedCount);
+		}
+
+		@Override
+		public void compilationRefused(String expression, List<String> reasons) {
+			this.events.add("refused " + expression + ": " + reasons);
+		}
+
+		@Override
+		public void revertedToInterpreted(String expression, Throwable ex) {
+			this.events.add("reverted " + expression);
+		}
+	}
+
+}
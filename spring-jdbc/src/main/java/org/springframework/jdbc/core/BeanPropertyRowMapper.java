@@ -16,15 +16,25 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,10 +42,13 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.MethodInvocationException;
 import org.springframework.beans.NotWritablePropertyException;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -43,6 +56,7 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -69,7 +83,9 @@ import org.springframework.util.StringUtils;
  * will have been set to the primitive's default value instead of null.
  *
  * <p>Please note that this class is designed to provide convenience rather than high performance.
- * For best performance, consider using a custom {@link RowMapper} implementation.
+ * For best performance, consider using a custom {@link RowMapper} implementation, or switch this
+ * mapper to {@linkplain #setPrecompiled precompiled mode} which resolves the column-to-property
+ * mapping once per {@code ResultSet} instead of once per row.
  *
  * @author Thomas Risberg
  * @author Juergen Hoeller
@@ -104,6 +120,16 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Nullable
 	private Set<String> mappedProperties;
 
+	/** Whether we're mapping rows through a plan resolved once per ResultSet. */
+	private boolean precompiled = false;
+
+	/** Mapping plan for the ResultSet mapped most recently, checked without locking. */
+	@Nullable
+	private volatile MappingPlan lastMappingPlan;
+
+	/** Mapping plans for the ResultSets currently being mapped, weakly keyed by ResultSet. */
+	private final Map<ResultSet, MappingPlan> mappingPlans = Collections.synchronizedMap(new WeakHashMap<>(4));
+
 
 	/**
 	 * Create a new {@code BeanPropertyRowMapper} for bean-style configuration.
@@ -191,6 +217,41 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return this.primitivesDefaultedForNullValue;
 	}
 
+	/**
+	 * Set whether to map rows through a plan that is resolved once per
+	 * {@code ResultSet}, from its meta-data, rather than once per row.
+	 * <p>The plan fixes the column index, the type-specific {@code ResultSet}
+	 * getter (e.g. {@code getInt} or {@code getLong}) and the setter method or
+	 * constructor argument for each mapped column. Rows are then populated
+	 * through direct setter invocations, converting values through the
+	 * {@link #setConversionService ConversionService} where necessary, without
+	 * creating a {@link BeanWrapper} per row. A BeanWrapper is only used for
+	 * values that cannot be converted that way, and for null values mapped to
+	 * primitive properties unless {@link #setPrimitivesDefaultedForNullValue
+	 * primitives are defaulted}.
+	 * <p>Plans are kept per {@code ResultSet} as long as the {@code ResultSet} is
+	 * reachable, so a mapper instance may be shared across concurrently running
+	 * queries, each of them resolving its own plan once.
+	 * <p>Note that in this mode, {@link #getColumnValue(ResultSet, int, PropertyDescriptor)}
+	 * and {@link #constructMappedInstance} are not called, and
+	 * {@link #getColumnValue(ResultSet, int, Class)} is only called for types
+	 * without a dedicated {@code ResultSet} getter.
+	 * <p>Default is {@code false}, resolving each column for every row.
+	 * @since 5.3.5
+	 */
+	public void setPrecompiled(boolean precompiled) {
+		this.precompiled = precompiled;
+	}
+
+	/**
+	 * Return whether rows are mapped through a plan resolved once per
+	 * {@code ResultSet}.
+	 * @since 5.3.5
+	 */
+	public boolean isPrecompiled() {
+		return this.precompiled;
+	}
+
 	/**
 	 * Set a {@link ConversionService} for binding JDBC values to bean properties,
 	 * or {@code null} for none.
@@ -280,6 +341,10 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	 */
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		if (this.precompiled) {
+			return obtainMappingPlan(rs).mapRow(rs, rowNumber);
+		}
+
 		BeanWrapperImpl bw = new BeanWrapperImpl();
 		initBeanWrapper(bw);
 
@@ -295,36 +360,14 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 			String field = lowerCaseName(StringUtils.delete(column, " "));
 			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
 			if (pd != null) {
-				try {
-					Object value = getColumnValue(rs, index, pd);
-					if (rowNumber == 0 && logger.isDebugEnabled()) {
-						logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
-								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
-					}
-					try {
-						bw.setPropertyValue(pd.getName(), value);
-					}
-					catch (TypeMismatchException ex) {
-						if (value == null && this.primitivesDefaultedForNullValue) {
-							if (logger.isDebugEnabled()) {
-								logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
-										" and column '" + column + "' with null value when setting property '" +
-										pd.getName() + "' of type '" +
-										ClassUtils.getQualifiedName(pd.getPropertyType()) +
-										"' on object: " + mappedObject, ex);
-							}
-						}
-						else {
-							throw ex;
-						}
-					}
-					if (populatedProperties != null) {
-						populatedProperties.add(pd.getName());
-					}
+				Object value = getColumnValue(rs, index, pd);
+				if (rowNumber == 0 && logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
 				}
-				catch (NotWritablePropertyException ex) {
-					throw new DataRetrievalFailureException(
-							"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
+				setPropertyValue(bw, column, pd, value, rowNumber);
+				if (populatedProperties != null) {
+					populatedProperties.add(pd.getName());
 				}
 			}
 			else {
@@ -343,6 +386,32 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return mappedObject;
 	}
 
+	private void setPropertyValue(BeanWrapper bw, String column, PropertyDescriptor pd,
+			@Nullable Object value, int rowNumber) {
+
+		try {
+			bw.setPropertyValue(pd.getName(), value);
+		}
+		catch (TypeMismatchException ex) {
+			if (value == null && this.primitivesDefaultedForNullValue) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+							" and column '" + column + "' with null value when setting property '" +
+							pd.getName() + "' of type '" +
+							ClassUtils.getQualifiedName(pd.getPropertyType()) +
+							"' on object: " + bw.getWrappedInstance(), ex);
+				}
+			}
+			else {
+				throw ex;
+			}
+		}
+		catch (NotWritablePropertyException ex) {
+			throw new DataRetrievalFailureException(
+					"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
+		}
+	}
+
 	/**
 	 * Construct an instance of the mapped class for the current row.
 	 * @param rs the ResultSet to map (pre-initialized for the current row)
@@ -356,6 +425,155 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return BeanUtils.instantiateClass(this.mappedClass);
 	}
 
+	/**
+	 * Create the readers for the constructor arguments of the mapped class,
+	 * for use in {@linkplain #setPrecompiled precompiled mode}.
+	 * @param rs the ResultSet to map
+	 * @return the argument readers, or {@code null} for a default constructor
+	 * @throws SQLException if an SQLException is encountered
+	 * @see #instantiateMappedClass
+	 */
+	@Nullable
+	ColumnReader[] createConstructorArgumentReaders(ResultSet rs) throws SQLException {
+		return null;
+	}
+
+	/**
+	 * Instantiate the mapped class in {@linkplain #setPrecompiled precompiled mode}.
+	 * @param args the constructor arguments as read by the
+	 * {@link #createConstructorArgumentReaders argument readers}, if any
+	 * @return a corresponding instance of the mapped class
+	 */
+	T instantiateMappedClass(@Nullable Object[] args) {
+		Assert.state(this.mappedClass != null, "Mapped class was not specified");
+		return BeanUtils.instantiateClass(this.mappedClass);
+	}
+
+	/**
+	 * Create a reader for the given column, using a type-specific {@code ResultSet}
+	 * getter where available and {@link #getColumnValue(ResultSet, int, Class)} otherwise.
+	 * @param index the column index
+	 * @param targetParameter the setter or constructor parameter to read the column for
+	 */
+	ColumnReader createColumnReader(int index, MethodParameter targetParameter) {
+		Class<?> type = targetParameter.getParameterType();
+		ColumnGetter getter;
+		if (String.class == type) {
+			getter = ResultSet::getString;
+		}
+		else if (boolean.class == type || Boolean.class == type) {
+			getter = (rs, i) -> {
+				boolean value = rs.getBoolean(i);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (byte.class == type || Byte.class == type) {
+			getter = (rs, i) -> {
+				byte value = rs.getByte(i);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (short.class == type || Short.class == type) {
+			getter = (rs, i) -> {
+				short value = rs.getShort(i);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (int.class == type || Integer.class == type) {
+			getter = (rs, i) -> {
+				int value = rs.getInt(i);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (long.class == type || Long.class == type) {
+			getter = (rs, i) -> {
+				long value = rs.getLong(i);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (float.class == type || Float.class == type) {
+			getter = (rs, i) -> {
+				float value = rs.getFloat(i);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (double.class == type || Double.class == type || Number.class == type) {
+			getter = (rs, i) -> {
+				double value = rs.getDouble(i);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (BigDecimal.class == type) {
+			getter = ResultSet::getBigDecimal;
+		}
+		else if (java.sql.Date.class == type) {
+			getter = ResultSet::getDate;
+		}
+		else if (java.sql.Time.class == type) {
+			getter = ResultSet::getTime;
+		}
+		else if (java.sql.Timestamp.class == type || java.util.Date.class == type) {
+			getter = ResultSet::getTimestamp;
+		}
+		else if (byte[].class == type) {
+			getter = ResultSet::getBytes;
+		}
+		else {
+			getter = (rs, i) -> getColumnValue(rs, i, type);
+		}
+		return new ColumnReader(index, type, new TypeDescriptor(targetParameter), getter);
+	}
+
+	private MappingPlan obtainMappingPlan(ResultSet rs) throws SQLException {
+		MappingPlan plan = this.lastMappingPlan;
+		if (plan != null && plan.isFor(rs)) {
+			return plan;
+		}
+		// Only consult the shared map when switching between ResultSets
+		plan = this.mappingPlans.get(rs);
+		if (plan == null) {
+			plan = buildMappingPlan(rs);
+			this.mappingPlans.put(rs, plan);
+		}
+		this.lastMappingPlan = plan;
+		return plan;
+	}
+
+	private MappingPlan buildMappingPlan(ResultSet rs) throws SQLException {
+		Assert.state(this.mappedFields != null && this.mappedProperties != null, "Mapped class was not specified");
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		List<PropertyColumn> columns = new ArrayList<>(columnCount);
+		Set<String> populatedProperties = new HashSet<>();
+
+		for (int index = 1; index <= columnCount; index++) {
+			String column = JdbcUtils.lookupColumnName(rsmd, index);
+			String field = lowerCaseName(StringUtils.delete(column, " "));
+			PropertyDescriptor pd = this.mappedFields.get(field);
+			if (pd != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+				}
+				MethodParameter writeParameter = BeanUtils.getWriteMethodParameter(pd);
+				columns.add(new PropertyColumn(column, pd, createColumnReader(index, writeParameter)));
+				populatedProperties.add(pd.getName());
+			}
+			else {
+				if (logger.isDebugEnabled()) {
+					logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
+				}
+			}
+		}
+
+		if (isCheckFullyPopulated() && !populatedProperties.equals(this.mappedProperties)) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of " + this.mappedClass + ": " + this.mappedProperties);
+		}
+
+		return new MappingPlan(rs, createConstructorArgumentReaders(rs), columns.toArray(new PropertyColumn[0]));
+	}
+
 	/**
 	 * Initialize the given BeanWrapper to be used for row mapping.
 	 * To be called for each row.
@@ -434,4 +652,185 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return rowMapper;
 	}
 
+
+	/**
+	 * Strategy for reading a column value from the current row.
+	 */
+	@FunctionalInterface
+	interface ColumnGetter {
+
+		@Nullable
+		Object getValue(ResultSet rs, int index) throws SQLException;
+	}
+
+
+	/**
+	 * Reader for a specific column, resolved from the ResultSet meta-data.
+	 */
+	static final class ColumnReader {
+
+		final int index;
+
+		final Class<?> type;
+
+		final TypeDescriptor typeDescriptor;
+
+		private final ColumnGetter getter;
+
+		ColumnReader(int index, Class<?> type, TypeDescriptor typeDescriptor, ColumnGetter getter) {
+			this.index = index;
+			this.type = type;
+			this.typeDescriptor = typeDescriptor;
+			this.getter = getter;
+		}
+
+		@Nullable
+		Object read(ResultSet rs) throws SQLException {
+			return this.getter.getValue(rs, this.index);
+		}
+	}
+
+
+	/**
+	 * Mapping of a specific column to a bean property setter.
+	 */
+	private static final class PropertyColumn {
+
+		final String column;
+
+		final PropertyDescriptor pd;
+
+		final Method writeMethod;
+
+		final ColumnReader reader;
+
+		PropertyColumn(String column, PropertyDescriptor pd, ColumnReader reader) {
+			this.column = column;
+			this.pd = pd;
+			this.writeMethod = pd.getWriteMethod();
+			this.reader = reader;
+			ReflectionUtils.makeAccessible(this.writeMethod);
+		}
+
+		void setValue(Object target, @Nullable Object value) {
+			try {
+				this.writeMethod.invoke(target, value);
+			}
+			catch (InvocationTargetException ex) {
+				throw new MethodInvocationException(
+						new PropertyChangeEvent(target, this.pd.getName(), null, value), ex.getTargetException());
+			}
+			catch (Exception ex) {
+				throw new MethodInvocationException(
+						new PropertyChangeEvent(target, this.pd.getName(), null, value), ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Column-to-property mapping plan for a specific ResultSet.
+	 */
+	private final class MappingPlan {
+
+		private final WeakReference<ResultSet> resultSet;
+
+		@Nullable
+		private final ColumnReader[] argumentReaders;
+
+		private final PropertyColumn[] columns;
+
+		MappingPlan(ResultSet rs, @Nullable ColumnReader[] argumentReaders, PropertyColumn[] columns) {
+			this.resultSet = new WeakReference<>(rs);
+			this.argumentReaders = argumentReaders;
+			this.columns = columns;
+		}
+
+		boolean isFor(ResultSet rs) {
+			return (this.resultSet.get() == rs);
+		}
+
+		T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+			BeanWrapperImpl bw = null;
+			Object[] args = null;
+			if (this.argumentReaders != null) {
+				args = new Object[this.argumentReaders.length];
+				for (int i = 0; i < args.length; i++) {
+					ColumnReader reader = this.argumentReaders[i];
+					Object value = reader.read(rs);
+					if (value == null) {
+						args[i] = (reader.type == Optional.class ? Optional.empty() : null);
+					}
+					else {
+						Object converted = convertValue(value, reader);
+						if (converted == value && !ClassUtils.isAssignableValue(reader.type, value)) {
+							if (bw == null) {
+								bw = createBeanWrapper();
+							}
+							converted = bw.convertIfNecessary(value, reader.type);
+						}
+						args[i] = converted;
+					}
+				}
+			}
+
+			T mappedObject = instantiateMappedClass(args);
+			if (bw != null) {
+				bw.setBeanInstance(mappedObject);
+			}
+
+			for (PropertyColumn column : this.columns) {
+				ColumnReader reader = column.reader;
+				Object value = reader.read(rs);
+				if (value == null) {
+					if (reader.type.isPrimitive() && isPrimitivesDefaultedForNullValue()) {
+						continue;
+					}
+					if (!reader.type.isPrimitive() && reader.type != Optional.class) {
+						column.setValue(mappedObject, null);
+						continue;
+					}
+				}
+				else {
+					Object converted = convertValue(value, reader);
+					if (converted != value || ClassUtils.isAssignableValue(reader.type, value)) {
+						column.setValue(mappedObject, converted);
+						continue;
+					}
+				}
+				// Not resolvable through the plan: fall back to BeanWrapper semantics
+				if (bw == null) {
+					bw = createBeanWrapper();
+					bw.setBeanInstance(mappedObject);
+				}
+				setPropertyValue(bw, column.column, column.pd, value, rowNumber);
+			}
+
+			return mappedObject;
+		}
+
+		private Object convertValue(Object value, ColumnReader reader) {
+			if (ClassUtils.isAssignableValue(reader.type, value)) {
+				return value;
+			}
+			ConversionService cs = getConversionService();
+			if (cs != null) {
+				TypeDescriptor sourceType = TypeDescriptor.forObject(value);
+				if (cs.canConvert(sourceType, reader.typeDescriptor)) {
+					Object converted = cs.convert(value, sourceType, reader.typeDescriptor);
+					if (converted != null) {
+						return converted;
+					}
+				}
+			}
+			return value;
+		}
+
+		private BeanWrapperImpl createBeanWrapper() {
+			BeanWrapperImpl bw = new BeanWrapperImpl();
+			initBeanWrapper(bw);
+			return bw;
+		}
+	}
+
 }
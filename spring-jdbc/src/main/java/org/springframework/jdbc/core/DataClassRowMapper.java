@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.sql.SQLException;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.TypeConverter;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -101,6 +102,27 @@ public class DataClassRowMapper<T> extends BeanPropertyRowMapper<T> {
 		return BeanUtils.instantiateClass(this.mappedConstructor, args);
 	}
 
+	@Override
+	@Nullable
+	ColumnReader[] createConstructorArgumentReaders(ResultSet rs) throws SQLException {
+		Assert.state(this.mappedConstructor != null, "Mapped constructor was not initialized");
+		if (this.constructorParameterNames == null) {
+			return null;
+		}
+		ColumnReader[] readers = new ColumnReader[this.constructorParameterNames.length];
+		for (int i = 0; i < readers.length; i++) {
+			String name = underscoreName(this.constructorParameterNames[i]);
+			readers[i] = createColumnReader(rs.findColumn(name), new MethodParameter(this.mappedConstructor, i));
+		}
+		return readers;
+	}
+
+	@Override
+	T instantiateMappedClass(@Nullable Object[] args) {
+		Assert.state(this.mappedConstructor != null, "Mapped constructor was not initialized");
+		return BeanUtils.instantiateClass(this.mappedConstructor, (args != null ? args : new Object[0]));
+	}
+
 
 	/**
 	 * Static factory method to create a new {@code DataClassRowMapper}.
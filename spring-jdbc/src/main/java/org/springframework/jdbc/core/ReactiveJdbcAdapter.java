@@ -0,0 +1,384 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Adapter that exposes the queries of a {@link JdbcTemplate} as Reactor
+ * {@link Flux} streams, reading rows from an open JDBC {@link ResultSet}
+ * as they are requested by the subscriber.
+ *
+ * <p>Each query runs on a worker of a bounded {@link Scheduler}: by default a
+ * dedicated bounded-elastic scheduler owned by this adapter, keeping blocking
+ * JDBC calls away from event-loop threads. The fetch size of the statement
+ * follows the outstanding demand of the subscriber, within the configured
+ * {@link #setMinFetchSize minimum} and {@link #setMaxFetchSize maximum} bounds,
+ * so that small {@code request(n)} batches do not cause the driver to buffer
+ * large parts of the result. The connection is released once the result has
+ * been fully consumed, on error, or as soon as the subscription is cancelled.
+ *
+ * <p>Note that connections are obtained on the scheduler's worker threads and
+ * therefore do not participate in thread-bound transactions of the caller.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see JdbcTemplate#queryForStream(PreparedStatementCreator, PreparedStatementSetter, RowMapper)
+ */
+public class ReactiveJdbcAdapter implements DisposableBean {
+
+	/** Default number of worker threads for the adapter's own scheduler: 10. */
+	public static final int DEFAULT_THREAD_CAP = 10;
+
+	/** Default minimum fetch size: 32. */
+	public static final int DEFAULT_MIN_FETCH_SIZE = 32;
+
+	/** Default maximum fetch size: 1000. */
+	public static final int DEFAULT_MAX_FETCH_SIZE = 1000;
+
+	private static final Log logger = LogFactory.getLog(ReactiveJdbcAdapter.class);
+
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final Scheduler scheduler;
+
+	private final boolean disposeScheduler;
+
+	private int minFetchSize = DEFAULT_MIN_FETCH_SIZE;
+
+	private int maxFetchSize = DEFAULT_MAX_FETCH_SIZE;
+
+
+	/**
+	 * Create a new adapter for the given {@link JdbcTemplate}, running queries
+	 * on a dedicated bounded-elastic scheduler with {@link #DEFAULT_THREAD_CAP}
+	 * threads which gets disposed along with this adapter.
+	 * @param jdbcTemplate the template to obtain connections and settings from
+	 * @see #destroy()
+	 */
+	public ReactiveJdbcAdapter(JdbcTemplate jdbcTemplate) {
+		this(jdbcTemplate, Schedulers.newBoundedElastic(
+				DEFAULT_THREAD_CAP, Integer.MAX_VALUE, "jdbc-query", 60, true), true);
+	}
+
+	/**
+	 * Create a new adapter for the given {@link JdbcTemplate}, running queries
+	 * on the given scheduler. The scheduler should not allow more concurrent
+	 * workers than connections available from the template's DataSource.
+	 * @param jdbcTemplate the template to obtain connections and settings from
+	 * @param scheduler the scheduler to run blocking JDBC calls on
+	 */
+	public ReactiveJdbcAdapter(JdbcTemplate jdbcTemplate, Scheduler scheduler) {
+		this(jdbcTemplate, scheduler, false);
+	}
+
+	private ReactiveJdbcAdapter(JdbcTemplate jdbcTemplate, Scheduler scheduler, boolean disposeScheduler) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+		this.scheduler = scheduler;
+		this.disposeScheduler = disposeScheduler;
+	}
+
+
+	/**
+	 * Return the {@link JdbcTemplate} that this adapter runs queries with.
+	 */
+	public JdbcTemplate getJdbcTemplate() {
+		return this.jdbcTemplate;
+	}
+
+	/**
+	 * Set the minimum fetch size, applied to small demand. Default is 32.
+	 */
+	public void setMinFetchSize(int minFetchSize) {
+		Assert.isTrue(minFetchSize > 0, "Minimum fetch size must be greater than 0");
+		this.minFetchSize = minFetchSize;
+	}
+
+	/**
+	 * Return the minimum fetch size.
+	 */
+	public int getMinFetchSize() {
+		return this.minFetchSize;
+	}
+
+	/**
+	 * Set the maximum fetch size, applied to large and unbounded demand.
+	 * Default is 1000.
+	 */
+	public void setMaxFetchSize(int maxFetchSize) {
+		Assert.isTrue(maxFetchSize > 0, "Maximum fetch size must be greater than 0");
+		this.maxFetchSize = maxFetchSize;
+	}
+
+	/**
+	 * Return the maximum fetch size.
+	 */
+	public int getMaxFetchSize() {
+		return this.maxFetchSize;
+	}
+
+
+	/**
+	 * Query using a prepared statement, mapping each row to a result object
+	 * via a RowMapper, and emitting the mapped objects as they are read.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Flux, reading rows on subscription and demand
+	 */
+	public <T> Flux<T> queryForFlux(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper) {
+
+		Assert.notNull(psc, "PreparedStatementCreator must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		return Flux.defer(() -> {
+			ResultSetCursor<T> cursor = new ResultSetCursor<>(psc, pss, rowMapper);
+			return Flux.<T, ResultSetCursor<T>>generate(() -> cursor, (state, sink) -> {
+				state.next(sink);
+				return state;
+			}, ResultSetCursor::close).doOnRequest(cursor::request);
+		}).subscribeOn(this.scheduler);
+	}
+
+	/**
+	 * Query using a prepared statement, mapping each row to a result object
+	 * via a RowMapper, and emitting the mapped objects as they are read.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Flux, reading rows on subscription and demand
+	 */
+	public <T> Flux<T> queryForFlux(PreparedStatementCreator psc, RowMapper<T> rowMapper) {
+		return queryForFlux(psc, null, rowMapper);
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, mapping each row to a result object
+	 * via a RowMapper, and emitting the mapped objects as they are read.
+	 * @param sql the SQL query to execute
+	 * @param rowMapper a callback that will map one object per row
+	 * @param args arguments to bind to the query
+	 * @return the result Flux, reading rows on subscription and demand
+	 */
+	public <T> Flux<T> queryForFlux(String sql, RowMapper<T> rowMapper, @Nullable Object... args) {
+		return queryForFlux(new JdbcTemplate.SimplePreparedStatementCreator(sql),
+				this.jdbcTemplate.newArgPreparedStatementSetter(args), rowMapper);
+	}
+
+	/**
+	 * Query given SQL with named parameters, as supported by
+	 * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate},
+	 * mapping each row to a result object via a RowMapper, and emitting the
+	 * mapped objects as they are read.
+	 * @param sql the SQL query to execute
+	 * @param paramSource container of arguments to bind to the query
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Flux, reading rows on subscription and demand
+	 */
+	public <T> Flux<T> queryForFlux(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+		List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
+		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+		PreparedStatementCreatorFactory pscf = new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
+		return queryForFlux(pscf.newPreparedStatementCreator(params), rowMapper);
+	}
+
+	/**
+	 * Query given SQL with named parameters, as supported by
+	 * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate},
+	 * mapping each row to a result object via a RowMapper, and emitting the
+	 * mapped objects as they are read.
+	 * @param sql the SQL query to execute
+	 * @param paramMap map of parameters to bind to the query
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Flux, reading rows on subscription and demand
+	 */
+	public <T> Flux<T> queryForFlux(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper) {
+		return queryForFlux(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
+	/**
+	 * Determine the fetch size for the given outstanding demand.
+	 * @param demand the number of requested but not yet emitted rows
+	 * @return the fetch size, within the configured bounds
+	 */
+	protected int determineFetchSize(long demand) {
+		return (int) Math.max(this.minFetchSize, Math.min(demand, this.maxFetchSize));
+	}
+
+	/**
+	 * Dispose the scheduler created by this adapter, if any.
+	 */
+	@Override
+	public void destroy() {
+		if (this.disposeScheduler) {
+			this.scheduler.dispose();
+		}
+	}
+
+
+	/**
+	 * Cursor over the ResultSet of a single subscription, serialized on
+	 * the scheduler's worker: opens the statement on first demand and
+	 * closes all JDBC resources on completion, error or cancellation.
+	 */
+	private class ResultSetCursor<T> {
+
+		private final PreparedStatementCreator psc;
+
+		@Nullable
+		private final PreparedStatementSetter pss;
+
+		private final RowMapper<T> rowMapper;
+
+		@Nullable
+		private Connection con;
+
+		@Nullable
+		private PreparedStatement ps;
+
+		@Nullable
+		private ResultSet rs;
+
+		private int rowNum = 0;
+
+		private long demand = 0;
+
+		private int fetchSize = -1;
+
+		private boolean closed;
+
+		ResultSetCursor(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper) {
+			this.psc = psc;
+			this.pss = pss;
+			this.rowMapper = rowMapper;
+		}
+
+		public void request(long n) {
+			this.demand = Operators.addCap(this.demand, n);
+			if (this.rs != null) {
+				applyFetchSize(this.rs);
+			}
+		}
+
+		public void next(SynchronousSink<T> sink) {
+			try {
+				ResultSet rs = this.rs;
+				if (rs == null) {
+					rs = open();
+				}
+				if (rs.next()) {
+					if (this.demand != Long.MAX_VALUE) {
+						this.demand--;
+					}
+					sink.next(this.rowMapper.mapRow(rs, this.rowNum++));
+				}
+				else {
+					sink.complete();
+				}
+			}
+			catch (SQLException ex) {
+				// Release Connection early, to avoid potential connection pool deadlock
+				// in the case when the exception translator hasn't been initialized yet.
+				close();
+				String sql = (this.psc instanceof SqlProvider ? ((SqlProvider) this.psc).getSql() : null);
+				sink.error(jdbcTemplate.translateException("ReactiveJdbcAdapter", sql, ex));
+			}
+		}
+
+		private ResultSet open() throws SQLException {
+			DataSource dataSource = jdbcTemplate.getDataSource();
+			Assert.state(dataSource != null, "No DataSource set");
+			this.con = DataSourceUtils.getConnection(dataSource);
+			PreparedStatement ps = this.psc.createPreparedStatement(this.con);
+			this.ps = ps;
+			jdbcTemplate.applyStatementSettings(ps);
+			this.fetchSize = determineFetchSize(this.demand);
+			ps.setFetchSize(this.fetchSize);
+			if (this.pss != null) {
+				this.pss.setValues(ps);
+			}
+			ResultSet rs = ps.executeQuery();
+			this.rs = rs;
+			return rs;
+		}
+
+		private void applyFetchSize(ResultSet rs) {
+			int fetchSize = determineFetchSize(this.demand);
+			if (fetchSize != this.fetchSize) {
+				try {
+					rs.setFetchSize(fetchSize);
+					this.fetchSize = fetchSize;
+				}
+				catch (SQLException ex) {
+					// Only a hint: the driver may not support changing it for an open ResultSet
+					logger.debug("Could not adapt fetch size of JDBC ResultSet", ex);
+				}
+			}
+		}
+
+		public void close() {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			JdbcUtils.closeResultSet(this.rs);
+			this.rs = null;
+			if (this.psc instanceof ParameterDisposer) {
+				((ParameterDisposer) this.psc).cleanupParameters();
+			}
+			if (this.pss instanceof ParameterDisposer) {
+				((ParameterDisposer) this.pss).cleanupParameters();
+			}
+			JdbcUtils.closeStatement(this.ps);
+			this.ps = null;
+			DataSourceUtils.releaseConnection(this.con, jdbcTemplate.getDataSource());
+			this.con = null;
+		}
+	}
+
+}
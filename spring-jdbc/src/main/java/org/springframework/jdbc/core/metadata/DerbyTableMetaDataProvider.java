@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,4 +53,9 @@ public class DerbyTableMetaDataProvider extends GenericTableMetaDataProvider {
 		return (super.isGetGeneratedKeysSupported() || this.supportsGeneratedKeysOverride);
 	}
 
+	@Override
+	public boolean isMultiRowInsertSupported() {
+		return true;
+	}
+
 }
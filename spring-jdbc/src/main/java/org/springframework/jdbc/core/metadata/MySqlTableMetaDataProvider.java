@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.metadata;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The MySQL (and MariaDB) specific implementation of {@link TableMetaDataProvider}.
+ * Supports upserts through {@code ON DUPLICATE KEY UPDATE}, which applies to
+ * the primary key and all unique indexes of the table.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ */
+public class MySqlTableMetaDataProvider extends GenericTableMetaDataProvider {
+
+	public MySqlTableMetaDataProvider(DatabaseMetaData databaseMetaData) throws SQLException {
+		super(databaseMetaData);
+	}
+
+
+	@Override
+	public boolean isMultiRowInsertSupported() {
+		return true;
+	}
+
+	@Override
+	public int getMaxParametersPerStatement() {
+		return 65535;
+	}
+
+	@Override
+	public String getUpsertClause(List<String> keyColumnNames, List<String> updateColumnNames) {
+		// No columns to update: assign a key column to itself, turning duplicates into no-ops
+		List<String> columnNames = (updateColumnNames.isEmpty() ? keyColumnNames : updateColumnNames);
+		StringBuilder clause = new StringBuilder("ON DUPLICATE KEY UPDATE ");
+		for (int i = 0; i < columnNames.size(); i++) {
+			if (i > 0) {
+				clause.append(", ");
+			}
+			String columnName = columnNames.get(i);
+			clause.append(columnName).append(" = VALUES(").append(columnName).append(")");
+		}
+		return clause.toString();
+	}
+
+}
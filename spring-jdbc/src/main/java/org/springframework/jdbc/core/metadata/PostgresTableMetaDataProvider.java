@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,13 +18,16 @@ package org.springframework.jdbc.core.metadata;
 
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * The PostgreSQL specific implementation of {@link TableMetaDataProvider}.
  * Supports a feature for retrieving generated keys without the JDBC 3.0
- * {@code getGeneratedKeys} support.
+ * {@code getGeneratedKeys} support, as well as upserts through
+ * {@code ON CONFLICT ... DO UPDATE}.
  *
  * @author Thomas Risberg
+ * @author agent (agent@local)
  * @since 2.5
  */
 public class PostgresTableMetaDataProvider extends GenericTableMetaDataProvider {
@@ -44,4 +47,32 @@ public class PostgresTableMetaDataProvider extends GenericTableMetaDataProvider
 		return "RETURNING " + keyColumnName;
 	}
 
+	@Override
+	public boolean isMultiRowInsertSupported() {
+		return true;
+	}
+
+	@Override
+	public int getMaxParametersPerStatement() {
+		return Short.MAX_VALUE;
+	}
+
+	@Override
+	public String getUpsertClause(List<String> keyColumnNames, List<String> updateColumnNames) {
+		StringBuilder clause = new StringBuilder("ON CONFLICT (");
+		clause.append(String.join(", ", keyColumnNames)).append(")");
+		if (updateColumnNames.isEmpty()) {
+			return clause.append(" DO NOTHING").toString();
+		}
+		clause.append(" DO UPDATE SET ");
+		for (int i = 0; i < updateColumnNames.size(); i++) {
+			if (i > 0) {
+				clause.append(", ");
+			}
+			String columnName = updateColumnNames.get(i);
+			clause.append(columnName).append(" = EXCLUDED.").append(columnName);
+		}
+		return clause.toString();
+	}
+
 }
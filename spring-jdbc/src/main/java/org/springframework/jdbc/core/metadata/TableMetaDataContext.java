@@ -272,10 +272,21 @@ public class TableMetaDataContext {
 	 * @return the insert string to be used
 	 */
 	public String createInsertString(String... generatedKeyNames) {
-		Set<String> keys = new LinkedHashSet<>(generatedKeyNames.length);
-		for (String key : generatedKeyNames) {
-			keys.add(key.toUpperCase());
-		}
+		return createInsertString(1, generatedKeyNames);
+	}
+
+	/**
+	 * Build an insert string for the given number of rows, based on configuration
+	 * and meta-data information, with one {@code VALUES} group per row.
+	 * @param rowCount the number of rows to insert with the statement
+	 * @param generatedKeyNames names of generated key columns
+	 * @return the insert string to be used
+	 * @since 5.3.5
+	 * @see #isMultiRowInsertSupported()
+	 */
+	public String createInsertString(int rowCount, String... generatedKeyNames) {
+		Assert.isTrue(rowCount > 0, "Row count must be greater than 0");
+		List<String> columnNames = getInsertColumnNames(generatedKeyNames);
 		StringBuilder insertStatement = new StringBuilder();
 		insertStatement.append("INSERT INTO ");
 		if (getSchemaName() != null) {
@@ -284,18 +295,9 @@ public class TableMetaDataContext {
 		}
 		insertStatement.append(getTableName());
 		insertStatement.append(" (");
-		int columnCount = 0;
-		for (String columnName : getTableColumns()) {
-			if (!keys.contains(columnName.toUpperCase())) {
-				columnCount++;
-				if (columnCount > 1) {
-					insertStatement.append(", ");
-				}
-				insertStatement.append(columnName);
-			}
-		}
+		insertStatement.append(String.join(", ", columnNames));
 		insertStatement.append(") VALUES(");
-		if (columnCount < 1) {
+		if (columnNames.isEmpty()) {
 			if (this.generatedKeyColumnsUsed) {
 				if (logger.isDebugEnabled()) {
 					logger.debug("Unable to locate non-key columns for table '" +
@@ -311,12 +313,61 @@ public class TableMetaDataContext {
 				throw new InvalidDataAccessApiUsageException(message);
 			}
 		}
-		String params = String.join(", ", Collections.nCopies(columnCount, "?"));
-		insertStatement.append(params);
-		insertStatement.append(")");
+		String params = String.join(", ", Collections.nCopies(columnNames.size(), "?"));
+		for (int i = 0; i < rowCount; i++) {
+			if (i > 0) {
+				insertStatement.append(", (");
+			}
+			insertStatement.append(params);
+			insertStatement.append(")");
+		}
 		return insertStatement.toString();
 	}
 
+	/**
+	 * Build the clause to append to the insert string in order to update existing
+	 * rows with the given key columns instead, updating all other insert columns.
+	 * @param keyColumnNames the names of the columns identifying a row
+	 * @param generatedKeyNames names of generated key columns
+	 * @return the upsert clause to be used
+	 * @throws InvalidDataAccessApiUsageException if the database does not support upserts
+	 * @since 5.3.5
+	 * @see TableMetaDataProvider#getUpsertClause
+	 */
+	public String createUpsertClause(List<String> keyColumnNames, String... generatedKeyNames) {
+		Assert.notEmpty(keyColumnNames, "Key column names must not be empty");
+		Set<String> keys = new LinkedHashSet<>(keyColumnNames.size());
+		for (String key : keyColumnNames) {
+			keys.add(key.toUpperCase());
+		}
+		List<String> updateColumnNames = new ArrayList<>();
+		for (String columnName : getInsertColumnNames(generatedKeyNames)) {
+			if (!keys.contains(columnName.toUpperCase())) {
+				updateColumnNames.add(columnName);
+			}
+		}
+		String clause = obtainMetaDataProvider().getUpsertClause(keyColumnNames, updateColumnNames);
+		if (clause == null) {
+			throw new InvalidDataAccessApiUsageException("Upsert statements are not supported for table '" +
+					getTableName() + "' with " + obtainMetaDataProvider().getClass().getSimpleName());
+		}
+		return clause;
+	}
+
+	private List<String> getInsertColumnNames(String... generatedKeyNames) {
+		Set<String> keys = new LinkedHashSet<>(generatedKeyNames.length);
+		for (String key : generatedKeyNames) {
+			keys.add(key.toUpperCase());
+		}
+		List<String> columnNames = new ArrayList<>(getTableColumns().size());
+		for (String columnName : getTableColumns()) {
+			if (!keys.contains(columnName.toUpperCase())) {
+				columnNames.add(columnName);
+			}
+		}
+		return columnNames;
+	}
+
 	/**
 	 * Build the array of {@link java.sql.Types} based on configuration and meta-data information.
 	 * @return the array of types to be used
@@ -387,6 +438,24 @@ public class TableMetaDataContext {
 		return obtainMetaDataProvider().getSimpleQueryForGetGeneratedKey(tableName, keyColumnName);
 	}
 
+	/**
+	 * Does this database support inserting multiple rows with a single statement?
+	 * @since 5.3.5
+	 * @see TableMetaDataProvider#isMultiRowInsertSupported()
+	 */
+	public boolean isMultiRowInsertSupported() {
+		return obtainMetaDataProvider().isMultiRowInsertSupported();
+	}
+
+	/**
+	 * Get the maximum number of bind parameters in a single statement.
+	 * @since 5.3.5
+	 * @see TableMetaDataProvider#getMaxParametersPerStatement()
+	 */
+	public int getMaxParametersPerStatement() {
+		return obtainMetaDataProvider().getMaxParametersPerStatement();
+	}
+
 	/**
 	 * Is a column name String array for retrieving generated keys supported:
 	 * {@link java.sql.Connection#createStruct(String, Object[])}?
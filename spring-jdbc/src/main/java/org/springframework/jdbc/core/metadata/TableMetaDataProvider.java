@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -123,4 +123,40 @@ public interface TableMetaDataProvider {
 	 */
 	List<TableParameterMetaData> getTableParameterMetaData();
 
+	/**
+	 * Does this database support inserting multiple rows with a single
+	 * {@code INSERT ... VALUES (...), (...)} statement?
+	 * <p>The default implementation returns {@code false}, since this syntax is
+	 * not available on all databases (e.g. not on Oracle, Sybase ASE or Informix).
+	 * Providers for databases that are known to support it return {@code true}.
+	 * @since 5.3.5
+	 */
+	default boolean isMultiRowInsertSupported() {
+		return false;
+	}
+
+	/**
+	 * Get the maximum number of bind parameters in a single statement.
+	 * <p>The default implementation returns 2000, staying below the lowest
+	 * limit among common databases (2100 for SQL Server).
+	 * @since 5.3.5
+	 */
+	default int getMaxParametersPerStatement() {
+		return 2000;
+	}
+
+	/**
+	 * Get the clause to append to an insert statement in order to update
+	 * existing rows with the same key instead, if supported by this database.
+	 * <p>The default implementation returns {@code null}.
+	 * @param keyColumnNames the names of the columns identifying a row
+	 * @param updateColumnNames the names of the columns to update
+	 * @return the upsert clause, or {@code null} if not supported
+	 * @since 5.3.5
+	 */
+	@Nullable
+	default String getUpsertClause(List<String> keyColumnNames, List<String> updateColumnNames) {
+		return null;
+	}
+
 }
@@ -44,7 +44,7 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
-import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ConcurrentTinyLfuCache;
 
 /**
  * Template class with a basic set of JDBC operations, allowing the use
@@ -77,8 +77,8 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	private final JdbcOperations classicJdbcTemplate;
 
 	/** Cache of original SQL String to ParsedSql representation. */
-	private volatile ConcurrentLruCache<String, ParsedSql> parsedSqlCache =
-			new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, NamedParameterUtils::parseSqlStatement);
+	private volatile ConcurrentTinyLfuCache<String, ParsedSql> parsedSqlCache =
+			new ConcurrentTinyLfuCache<>(DEFAULT_CACHE_LIMIT, NamedParameterUtils::parseSqlStatement);
 
 
 	/**
@@ -128,7 +128,7 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	 * Default is 256. 0 indicates no caching, always parsing each statement.
 	 */
 	public void setCacheLimit(int cacheLimit) {
-		this.parsedSqlCache = new ConcurrentLruCache<>(cacheLimit, NamedParameterUtils::parseSqlStatement);
+		this.parsedSqlCache = new ConcurrentTinyLfuCache<>(cacheLimit, NamedParameterUtils::parseSqlStatement);
 	}
 
 	/**
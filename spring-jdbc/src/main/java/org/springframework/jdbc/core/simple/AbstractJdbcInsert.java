@@ -61,6 +61,10 @@ import org.springframework.util.Assert;
  */
 public abstract class AbstractJdbcInsert {
 
+	/** Default maximum number of rows per multi-row insert statement: 1000. */
+	public static final int DEFAULT_MAX_ROWS_PER_STATEMENT = 1000;
+
+
 	/** Logger available to subclasses. */
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -76,6 +80,15 @@ public abstract class AbstractJdbcInsert {
 	/** The names of the columns holding the generated key. */
 	private String[] generatedKeyNames = new String[0];
 
+	/** The names of the columns identifying existing rows to update instead. */
+	private String[] upsertKeyNames = new String[0];
+
+	/** Whether to insert batches through multi-row statements. */
+	private boolean multiRowBatchInserts = false;
+
+	/** The maximum number of rows per multi-row insert statement. */
+	private int maxRowsPerStatement = DEFAULT_MAX_ROWS_PER_STATEMENT;
+
 	/**
 	 * Has this operation been compiled? Compilation means at least checking
 	 * that a DataSource or JdbcTemplate has been provided.
@@ -85,6 +98,9 @@ public abstract class AbstractJdbcInsert {
 	/** The generated string used for insert statement. */
 	private String insertString = "";
 
+	/** The generated upsert clause to append to insert statements, if any. */
+	private String upsertClause = "";
+
 	/** The SQL type information for the insert columns. */
 	private int[] insertTypes = new int[0];
 
@@ -205,6 +221,71 @@ public abstract class AbstractJdbcInsert {
 		return this.generatedKeyNames;
 	}
 
+	/**
+	 * Set the names of the columns identifying an existing row, turning inserts
+	 * into upserts which update the other columns of such a row instead.
+	 * <p>Requires a database with known upsert syntax, currently PostgreSQL
+	 * ({@code ON CONFLICT}) and MySQL ({@code ON DUPLICATE KEY UPDATE}).
+	 * @since 5.3.5
+	 * @see org.springframework.jdbc.core.metadata.TableMetaDataProvider#getUpsertClause
+	 */
+	public void setUpsertKeyNames(String... upsertKeyNames) {
+		checkIfConfigurationModificationIsAllowed();
+		this.upsertKeyNames = upsertKeyNames;
+	}
+
+	/**
+	 * Get the names of the columns identifying an existing row for upserts.
+	 * @since 5.3.5
+	 */
+	public String[] getUpsertKeyNames() {
+		return this.upsertKeyNames;
+	}
+
+	/**
+	 * Specify whether batches should be inserted through multi-row statements,
+	 * i.e. {@code INSERT ... VALUES (...), (...), ...}, instead of a JDBC batch
+	 * of single-row statements. The default is {@code false}.
+	 * <p>The rows of a batch are split into chunks according to the
+	 * {@link #setMaxRowsPerStatement maximum number of rows} and the maximum
+	 * number of bind parameters per statement supported by the database.
+	 * Falls back to a regular JDBC batch if the database does not support
+	 * multi-row inserts.
+	 * @since 5.3.5
+	 */
+	public void setMultiRowBatchInserts(boolean multiRowBatchInserts) {
+		checkIfConfigurationModificationIsAllowed();
+		this.multiRowBatchInserts = multiRowBatchInserts;
+	}
+
+	/**
+	 * Return whether batches are inserted through multi-row statements.
+	 * @since 5.3.5
+	 */
+	public boolean isMultiRowBatchInserts() {
+		return this.multiRowBatchInserts;
+	}
+
+	/**
+	 * Set the maximum number of rows per multi-row insert statement.
+	 * The default is 1000.
+	 * @since 5.3.5
+	 * @see #setMultiRowBatchInserts
+	 */
+	public void setMaxRowsPerStatement(int maxRowsPerStatement) {
+		checkIfConfigurationModificationIsAllowed();
+		Assert.isTrue(maxRowsPerStatement > 0, "Maximum rows per statement must be greater than 0");
+		this.maxRowsPerStatement = maxRowsPerStatement;
+	}
+
+	/**
+	 * Return the maximum number of rows per multi-row insert statement.
+	 * @since 5.3.5
+	 */
+	public int getMaxRowsPerStatement() {
+		return this.maxRowsPerStatement;
+	}
+
 	/**
 	 * Specify whether the parameter meta-data for the call should be used.
 	 * The default is {@code true}.
@@ -275,7 +356,11 @@ public abstract class AbstractJdbcInsert {
 		DataSource dataSource = getJdbcTemplate().getDataSource();
 		Assert.state(dataSource != null, "No DataSource set");
 		this.tableMetaDataContext.processMetaData(dataSource, getColumnNames(), getGeneratedKeyNames());
-		this.insertString = this.tableMetaDataContext.createInsertString(getGeneratedKeyNames());
+		if (getUpsertKeyNames().length > 0) {
+			this.upsertClause = " " + this.tableMetaDataContext.createUpsertClause(
+					Arrays.asList(getUpsertKeyNames()), getGeneratedKeyNames());
+		}
+		this.insertString = this.tableMetaDataContext.createInsertString(getGeneratedKeyNames()) + this.upsertClause;
 		this.insertTypes = this.tableMetaDataContext.createInsertTypes();
 		if (logger.isDebugEnabled()) {
 			logger.debug("Compiled insert object: insert string is [" + this.insertString + "]");
@@ -566,6 +651,14 @@ public abstract class AbstractJdbcInsert {
 	 * Delegate method to execute the batch insert.
 	 */
 	private int[] executeBatchInternal(final List<List<Object>> batchValues) {
+		if (isMultiRowBatchInserts() && batchValues.size() > 1) {
+			if (this.tableMetaDataContext.isMultiRowInsertSupported()) {
+				return executeMultiRowBatchInternal(batchValues);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Multi-row inserts not supported by database - executing regular batch instead");
+			}
+		}
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing statement " + getInsertString() + " with batch of size: " + batchValues.size());
 		}
@@ -582,6 +675,49 @@ public abstract class AbstractJdbcInsert {
 				});
 	}
 
+	/**
+	 * Delegate method to execute the batch insert through multi-row statements,
+	 * each inserting a chunk of rows.
+	 * <p>Since the update count of a statement cannot be attributed to individual
+	 * rows, each row's entry in the returned array is 1 if the update count
+	 * matches the number of rows in the chunk, and {@link Statement#SUCCESS_NO_INFO}
+	 * otherwise (e.g. for upserts which updated existing rows).
+	 */
+	private int[] executeMultiRowBatchInternal(final List<List<Object>> batchValues) {
+		int columnCount = Math.max(batchValues.get(0).size(), 1);
+		int rowsPerStatement = Math.max(1, Math.min(getMaxRowsPerStatement(),
+				this.tableMetaDataContext.getMaxParametersPerStatement() / columnCount));
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing multi-row inserts for batch of size " + batchValues.size() +
+					" with up to " + rowsPerStatement + " rows per statement");
+		}
+		int[] updateCounts = new int[batchValues.size()];
+		String chunkInsertString = null;
+		for (int start = 0; start < batchValues.size(); start += rowsPerStatement) {
+			List<List<Object>> chunk = batchValues.subList(start, Math.min(start + rowsPerStatement, batchValues.size()));
+			String sql;
+			if (chunk.size() == rowsPerStatement && chunkInsertString != null) {
+				sql = chunkInsertString;
+			}
+			else {
+				sql = this.tableMetaDataContext.createInsertString(chunk.size(), getGeneratedKeyNames()) + this.upsertClause;
+				if (chunk.size() == rowsPerStatement) {
+					chunkInsertString = sql;
+				}
+			}
+			int updateCount = getJdbcTemplate().update(sql, ps -> {
+				int offset = 0;
+				for (List<Object> values : chunk) {
+					setParameterValues(ps, offset, values, getInsertTypes());
+					offset += values.size();
+				}
+			});
+			Arrays.fill(updateCounts, start, start + chunk.size(),
+					(updateCount == chunk.size() ? 1 : Statement.SUCCESS_NO_INFO));
+		}
+		return updateCounts;
+	}
+
 	/**
 	 * Internal implementation for setting parameter values.
 	 * @param preparedStatement the PreparedStatement
@@ -590,14 +726,29 @@ public abstract class AbstractJdbcInsert {
 	private void setParameterValues(PreparedStatement preparedStatement, List<?> values, @Nullable int... columnTypes)
 			throws SQLException {
 
+		setParameterValues(preparedStatement, 0, values, columnTypes);
+	}
+
+	/**
+	 * Internal implementation for setting parameter values, starting after
+	 * the given number of parameters which have been set already.
+	 * @param preparedStatement the PreparedStatement
+	 * @param offset the number of preceding parameters
+	 * @param values the values to be set
+	 */
+	private void setParameterValues(PreparedStatement preparedStatement, int offset, List<?> values,
+			@Nullable int... columnTypes) throws SQLException {
+
 		int colIndex = 0;
 		for (Object value : values) {
 			colIndex++;
 			if (columnTypes == null || colIndex > columnTypes.length) {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
+				StatementCreatorUtils.setParameterValue(
+						preparedStatement, offset + colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
 			}
 			else {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, columnTypes[colIndex - 1], value);
+				StatementCreatorUtils.setParameterValue(
+						preparedStatement, offset + colIndex, columnTypes[colIndex - 1], value);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -80,6 +80,32 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	SimpleJdbcInsertOperations includeSynonymsForTableColumnMetaData();
 
+	/**
+	 * Specify the names of the columns identifying an existing row, turning the
+	 * insert into an upsert which updates the other columns of such a row instead.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException};
+	 * {@link SimpleJdbcInsert} overrides it.
+	 * @param columnNames one or more column names
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.3.5
+	 */
+	default SimpleJdbcInsertOperations usingUpsertKeyColumns(String... columnNames) {
+		throw new UnsupportedOperationException("Upserts not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Insert batches through multi-row {@code INSERT ... VALUES (...), (...)}
+	 * statements instead of a JDBC batch of single-row statements, if supported
+	 * by the database.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException};
+	 * {@link SimpleJdbcInsert} overrides it.
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.3.5
+	 */
+	default SimpleJdbcInsertOperations withMultiRowBatchInserts() {
+		throw new UnsupportedOperationException("Multi-row batch inserts not supported by " + getClass().getName());
+	}
+
 
 	/**
 	 * Execute the insert using the values passed in.
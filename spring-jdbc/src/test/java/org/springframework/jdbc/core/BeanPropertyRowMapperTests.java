@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.jdbc.core;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -30,6 +32,10 @@ import org.springframework.jdbc.core.test.SpacePerson;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Thomas Risberg
@@ -134,4 +140,110 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	public void testStaticQueryWithPrecompiledRowMapper() throws Exception {
+		Mock mock = new Mock();
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		mapper.setPrecompiled(true);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testPrecompiledMappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		BeanPropertyRowMapper<ExtendedPerson> mapper = new BeanPropertyRowMapper<>(ExtendedPerson.class, true);
+		mapper.setPrecompiled(true);
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper));
+	}
+
+	@Test
+	public void testPrecompiledMappingNullValue() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		mapper.setPrecompiled(true);
+		Mock mock = new Mock(MockType.TWO);
+		assertThatExceptionOfType(TypeMismatchException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, null as age, birth_date, balance from people", mapper));
+	}
+
+	@Test
+	public void testPrecompiledMappingNullValueWithPrimitivesDefaulted() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		mapper.setPrecompiled(true);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		Mock mock = new Mock(MockType.TWO);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertThat(result.size()).isEqualTo(1);
+		assertThat(result.get(0).getName()).isEqualTo("Bubba");
+		assertThat(result.get(0).getAge()).isEqualTo(0L);
+	}
+
+	@Test
+	public void testPrecompiledQueryWithSpaceInColumnNameAndLocalDateTime() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		BeanPropertyRowMapper<SpacePerson> mapper = new BeanPropertyRowMapper<>(SpacePerson.class);
+		mapper.setPrecompiled(true);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people", mapper);
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testPrecompiledMappingPlanResolvedOncePerResultSet() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		mapper.setPrecompiled(true);
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(2);
+		given(rsmd.getColumnLabel(1)).willReturn("name");
+		given(rsmd.getColumnLabel(2)).willReturn("age");
+		given(rs.getString(1)).willReturn("Bubba", "Ernie", "Bert");
+		given(rs.getLong(2)).willReturn(22L, 33L, 44L);
+
+		assertThat(mapper.mapRow(rs, 0).getAge()).isEqualTo(22L);
+		assertThat(mapper.mapRow(rs, 1).getAge()).isEqualTo(33L);
+		Person person = mapper.mapRow(rs, 2);
+		assertThat(person.getName()).isEqualTo("Bert");
+		assertThat(person.getAge()).isEqualTo(44L);
+		verify(rs, times(1)).getMetaData();
+		verify(rs, times(3)).getLong(2);
+
+		ResultSet otherRs = mock(ResultSet.class);
+		given(otherRs.getMetaData()).willReturn(rsmd);
+		given(otherRs.getString(1)).willReturn("Grover");
+		assertThat(mapper.mapRow(otherRs, 0).getName()).isEqualTo("Grover");
+		verify(otherRs, times(1)).getMetaData();
+	}
+
+	@Test
+	public void testPrecompiledMappingPlanKeptPerResultSet() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		mapper.setPrecompiled(true);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rsmd.getColumnCount()).willReturn(1);
+		given(rsmd.getColumnLabel(1)).willReturn("name");
+		ResultSet rs1 = mock(ResultSet.class);
+		given(rs1.getMetaData()).willReturn(rsmd);
+		given(rs1.getString(1)).willReturn("Bubba", "Ernie");
+		ResultSet rs2 = mock(ResultSet.class);
+		given(rs2.getMetaData()).willReturn(rsmd);
+		given(rs2.getString(1)).willReturn("Bert", "Grover");
+
+		// Interleaved rows of two queries sharing the same mapper
+		assertThat(mapper.mapRow(rs1, 0).getName()).isEqualTo("Bubba");
+		assertThat(mapper.mapRow(rs2, 0).getName()).isEqualTo("Bert");
+		assertThat(mapper.mapRow(rs1, 1).getName()).isEqualTo("Ernie");
+		assertThat(mapper.mapRow(rs2, 1).getName()).isEqualTo("Grover");
+		verify(rs1, times(1)).getMetaData();
+		verify(rs2, times(1)).getMetaData();
+	}
+
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import org.springframework.dao.DataAccessException;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link ReactiveJdbcAdapter}.
+ *
+ * @author agent (agent@local)
+ */
+class ReactiveJdbcAdapterTests {
+
+	private Connection connection;
+
+	private DataSource dataSource;
+
+	private PreparedStatement preparedStatement;
+
+	private ResultSet resultSet;
+
+	private ReactiveJdbcAdapter adapter;
+
+
+	@BeforeEach
+	void setUp() throws Exception {
+		this.connection = mock(Connection.class);
+		this.dataSource = mock(DataSource.class);
+		this.preparedStatement = mock(PreparedStatement.class);
+		this.resultSet = mock(ResultSet.class);
+		this.adapter = new ReactiveJdbcAdapter(new JdbcTemplate(this.dataSource));
+		given(this.dataSource.getConnection()).willReturn(this.connection);
+		given(this.connection.prepareStatement(anyString())).willReturn(this.preparedStatement);
+		given(this.preparedStatement.executeQuery()).willReturn(this.resultSet);
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.adapter.destroy();
+	}
+
+
+	@Test
+	void queryForFluxWithArgs() throws Exception {
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+
+		StepVerifier.create(this.adapter.queryForFlux(
+				"SELECT AGE FROM CUSTMR WHERE ID < ?", (rs, rowNum) -> rs.getInt(1), 3))
+				.expectNext(11, 12)
+				.verifyComplete();
+
+		verify(this.connection).prepareStatement("SELECT AGE FROM CUSTMR WHERE ID < ?");
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.resultSet, timeout(1000)).close();
+		verify(this.preparedStatement, timeout(1000)).close();
+		verify(this.connection, timeout(1000)).close();
+	}
+
+	@Test
+	void queryForFluxWithNamedParameters() throws Exception {
+		given(this.resultSet.next()).willReturn(true, false);
+		given(this.resultSet.getInt(1)).willReturn(11);
+
+		StepVerifier.create(this.adapter.queryForFlux("SELECT AGE FROM CUSTMR WHERE ID < :id",
+				Collections.singletonMap("id", 3), (rs, rowNum) -> rs.getInt(1)))
+				.expectNext(11)
+				.verifyComplete();
+
+		verify(this.connection).prepareStatement("SELECT AGE FROM CUSTMR WHERE ID < ?");
+		verify(this.connection, timeout(1000)).close();
+	}
+
+	@Test
+	void fetchSizeFollowsDemand() throws Exception {
+		given(this.resultSet.next()).willReturn(true);
+		given(this.resultSet.getInt(1)).willReturn(11);
+
+		StepVerifier.create(this.adapter.queryForFlux(
+				"SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1)), 5)
+				.expectNextCount(5)
+				.thenRequest(500)
+				.expectNextCount(500)
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(10)
+				.thenCancel()
+				.verify();
+
+		verify(this.preparedStatement).setFetchSize(32);
+		verify(this.resultSet).setFetchSize(500);
+		verify(this.resultSet).setFetchSize(1000);
+		verify(this.connection, timeout(1000)).close();
+	}
+
+	@Test
+	void connectionReleasedOnCancel() throws Exception {
+		given(this.resultSet.next()).willReturn(true);
+		given(this.resultSet.getInt(1)).willReturn(11);
+
+		StepVerifier.create(this.adapter.queryForFlux(
+				"SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1)), 1)
+				.expectNext(11)
+				.thenCancel()
+				.verify();
+
+		verify(this.resultSet, timeout(1000)).close();
+		verify(this.preparedStatement, timeout(1000)).close();
+		verify(this.connection, timeout(1000)).close();
+	}
+
+	@Test
+	void noQueryWithoutDemand() throws Exception {
+		StepVerifier.create(this.adapter.queryForFlux(
+				"SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1)), 0)
+				.thenCancel()
+				.verify();
+
+		verify(this.dataSource, never()).getConnection();
+	}
+
+	@Test
+	void sqlExceptionTranslated() throws Exception {
+		given(this.preparedStatement.executeQuery()).willThrow(new SQLException("Bad SQL", "42000"));
+
+		StepVerifier.create(this.adapter.queryForFlux(
+				"SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1)))
+				.expectError(DataAccessException.class)
+				.verify();
+
+		verify(this.preparedStatement, timeout(1000)).close();
+		verify(this.connection, timeout(1000).atLeastOnce()).close();
+	}
+
+}
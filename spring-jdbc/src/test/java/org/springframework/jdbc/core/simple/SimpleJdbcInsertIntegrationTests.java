@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.simple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.lang.Nullable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link SimpleJdbcInsert} against an embedded HSQL database.
+ *
+ * @author agent (agent@local)
+ */
+class SimpleJdbcInsertIntegrationTests {
+
+	private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+			.setType(EmbeddedDatabaseType.HSQL).generateUniqueName(true).build();
+
+	private final List<String> statements = new ArrayList<>();
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database) {
+		@Override
+		public int update(String sql, @Nullable PreparedStatementSetter pss) {
+			statements.add(sql);
+			return super.update(sql, pss);
+		}
+	};
+
+
+	@AfterEach
+	void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	void multiRowBatchInsertInChunks() {
+		this.jdbcTemplate.execute("CREATE TABLE customers (id INTEGER PRIMARY KEY, name VARCHAR(50))");
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.jdbcTemplate)
+				.withTableName("customers").withMultiRowBatchInserts();
+		insert.setMaxRowsPerStatement(2);
+
+		int[] updateCounts = insert.executeBatch(customers(5));
+
+		assertThat(updateCounts).containsExactly(1, 1, 1, 1, 1);
+		assertThat(this.statements).containsExactly(
+				"INSERT INTO customers (ID, NAME) VALUES(?, ?), (?, ?)",
+				"INSERT INTO customers (ID, NAME) VALUES(?, ?), (?, ?)",
+				"INSERT INTO customers (ID, NAME) VALUES(?, ?)");
+		assertThat(this.jdbcTemplate.queryForList("SELECT name FROM customers ORDER BY id", String.class))
+				.containsExactly("name0", "name1", "name2", "name3", "name4");
+	}
+
+	@Test
+	void regularBatchInsertByDefault() {
+		this.jdbcTemplate.execute("CREATE TABLE customers (id INTEGER PRIMARY KEY, name VARCHAR(50))");
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.jdbcTemplate).withTableName("customers");
+
+		int[] updateCounts = insert.executeBatch(customers(3));
+
+		assertThat(updateCounts).containsExactly(1, 1, 1);
+		assertThat(this.statements).isEmpty();
+		assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Integer.class)).isEqualTo(3);
+	}
+
+
+	private static SqlParameterSource[] customers(int count) {
+		SqlParameterSource[] batch = new SqlParameterSource[count];
+		for (int i = 0; i < count; i++) {
+			batch[i] = new MapSqlParameterSource("id", i).addValue("name", "name" + i);
+		}
+		return batch;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -29,11 +31,13 @@ import javax.sql.DataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.SqlParameterValue;
 import org.springframework.jdbc.core.metadata.TableMetaDataContext;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
@@ -160,4 +164,48 @@ public class TableMetaDataContextTests  {
 		verify(columnsResultSet).close();
 	}
 
+	@Test
+	public void testMultiRowInsertStringWithUpsertClause() throws Exception {
+		given(databaseMetaData.getDatabaseProductName()).willReturn("PostgreSQL");
+
+		context.setTableName("customers");
+		context.setAccessTableColumnMetaData(false);
+		context.processMetaData(dataSource, Arrays.asList("id", "name", "version"), new String[] {});
+
+		assertThat(context.isMultiRowInsertSupported()).isTrue();
+		assertThat(context.createInsertString(1)).isEqualTo(context.createInsertString());
+		assertThat(context.createInsertString(2))
+				.isEqualTo("INSERT INTO customers (id, name, version) VALUES(?, ?, ?), (?, ?, ?)");
+		assertThat(context.createUpsertClause(Collections.singletonList("id")))
+				.isEqualTo("ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, version = EXCLUDED.version");
+		assertThat(context.createUpsertClause(Arrays.asList("id", "name", "version")))
+				.isEqualTo("ON CONFLICT (id, name, version) DO NOTHING");
+	}
+
+	@Test
+	public void testUpsertClauseForMariaDb() throws Exception {
+		given(databaseMetaData.getDatabaseProductName()).willReturn("MariaDB");
+
+		context.setTableName("customers");
+		context.setAccessTableColumnMetaData(false);
+		context.processMetaData(dataSource, Arrays.asList("id", "name"), new String[] {});
+
+		assertThat(context.isMultiRowInsertSupported()).isTrue();
+		assertThat(context.createUpsertClause(Collections.singletonList("id")))
+				.isEqualTo("ON DUPLICATE KEY UPDATE name = VALUES(name)");
+	}
+
+	@Test
+	public void testUpsertClauseNotSupported() throws Exception {
+		given(databaseMetaData.getDatabaseProductName()).willReturn("MyDB");
+
+		context.setTableName("customers");
+		context.setAccessTableColumnMetaData(false);
+		context.processMetaData(dataSource, Arrays.asList("id", "name"), new String[] {});
+
+		assertThat(context.isMultiRowInsertSupported()).isFalse();
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class)
+				.isThrownBy(() -> context.createUpsertClause(Collections.singletonList("id")));
+	}
+
 }
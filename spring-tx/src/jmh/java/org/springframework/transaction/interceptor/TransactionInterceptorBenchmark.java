@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.interceptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Benchmarks for invocations through a {@link TransactionInterceptor}, either
+ * starting a new transaction per invocation or participating in an existing
+ * transaction, with a resource-less transaction manager.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class TransactionInterceptorBenchmark {
+
+	@Benchmark
+	public void invokeTransactional(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.proxy.getValue(state.argument));
+	}
+
+
+	@State(Scope.Thread)
+	public static class BenchmarkState {
+
+		@Param({"new", "participating"})
+		public String transaction;
+
+		Service proxy;
+
+		int argument = 42;
+
+		private NoOpTransactionManager transactionManager;
+
+		private TransactionStatus outerStatus;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.transactionManager = new NoOpTransactionManager();
+			ProxyFactory pf = new ProxyFactory(new DefaultService());
+			pf.addAdvice(new TransactionInterceptor(this.transactionManager, new AnnotationTransactionAttributeSource()));
+			this.proxy = (Service) pf.getProxy();
+			if ("participating".equals(this.transaction)) {
+				this.outerStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			if (this.outerStatus != null) {
+				this.transactionManager.commit(this.outerStatus);
+			}
+		}
+	}
+
+
+	public interface Service {
+
+		int getValue(int argument);
+	}
+
+
+	public static class DefaultService implements Service {
+
+		@Override
+		@Transactional
+		public int getValue(int argument) {
+			return argument;
+		}
+	}
+
+
+	/**
+	 * Transaction manager which binds a resource holder for an active transaction,
+	 * like resource-based transaction managers do, without an actual resource.
+	 */
+	@SuppressWarnings("serial")
+	private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		private static final Object NO_TRANSACTION = new Object();
+
+		@Override
+		protected Object doGetTransaction() {
+			Object holder = TransactionSynchronizationManager.getResource(this);
+			return (holder != null ? holder : NO_TRANSACTION);
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return (transaction != NO_TRANSACTION);
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			TransactionSynchronizationManager.bindResource(this, new NoOpResourceHolder());
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			TransactionSynchronizationManager.unbindResource(this);
+		}
+	}
+
+
+	private static class NoOpResourceHolder extends ResourceHolderSupport {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -275,7 +275,9 @@ public abstract class TransactionSynchronizationManager {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		// Shared empty marker until the first synchronization gets registered,
+		// avoiding a Set instance for transactions without any synchronizations.
+		synchronizations.set(Collections.emptySet());
 	}
 
 	/**
@@ -296,6 +298,10 @@ public abstract class TransactionSynchronizationManager {
 		if (synchs == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
+		if (synchs == Collections.<TransactionSynchronization>emptySet()) {
+			synchs = new LinkedHashSet<>();
+			synchronizations.set(synchs);
+		}
 		synchs.add(synchronization);
 	}
 
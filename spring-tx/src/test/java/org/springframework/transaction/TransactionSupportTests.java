@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,12 +22,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.transaction.support.DefaultTransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
 /**
  * @author Juergen Hoeller
@@ -282,6 +284,27 @@ public class TransactionSupportTests {
 		assertThat(template3).isEqualTo(template2);
 	}
 
+	@Test
+	public void synchronizationRegisteredAfterInitialization() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isTrue();
+			assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+
+			TransactionSynchronization synch1 = new TransactionSynchronization() {};
+			TransactionSynchronization synch2 = new TransactionSynchronization() {};
+			TransactionSynchronizationManager.registerSynchronization(synch1);
+			TransactionSynchronizationManager.registerSynchronization(synch2);
+			TransactionSynchronizationManager.registerSynchronization(synch1);
+			assertThat(TransactionSynchronizationManager.getSynchronizations()).containsExactly(synch1, synch2);
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThatIllegalStateException().isThrownBy(() ->
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {}));
+	}
+
 
 	@AfterEach
 	public void clear() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -74,6 +74,29 @@ public class PathMatchingBenchmark {
 		}
 	}
 
+	@State(Scope.Benchmark)
+	public static class AllRoutesRoutingIndex extends RoutingIndexData {
+
+		@Setup(Level.Trial)
+		public void registerPatterns() {
+			parseRoutes(RouteGenerator.allRoutes());
+		}
+	}
+
+	@Benchmark
+	public void matchAndSortAllRoutesWithRoutingIndex(AllRoutesRoutingIndex data, Blackhole bh) {
+		for (PathContainer path : data.requestPaths) {
+			List<PathPattern> matches = new ArrayList<>();
+			for (PathPattern pattern : data.index.getCandidates(path, "GET")) {
+				if (pattern.matches(path)) {
+					matches.add(pattern);
+				}
+			}
+			Collections.sort(matches);
+			bh.consume(matches);
+		}
+	}
+
 	@State(Scope.Benchmark)
 	public static class StaticRoutesPatternParser extends PatternParserData {
 
@@ -159,6 +182,19 @@ public class PathMatchingBenchmark {
 
 	}
 
+	static class RoutingIndexData extends PatternParserData {
+
+		PathPatternRoutingIndex<PathPattern> index = new PathPatternRoutingIndex<>();
+
+		@Override
+		void parseRoutes(List<Route> routes) {
+			super.parseRoutes(routes);
+			this.patterns.forEach(pattern ->
+					this.index.add(pattern, Collections.singleton(pattern), Collections.emptySet()));
+		}
+
+	}
+
 	static class AntPathMatcherData {
 
 		AntPathMatcher matcher = new AntPathMatcher();
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Sub-interface of {@link HttpOutputMessage} that can transfer the content
+ * of a file to the body without copying it through a heap buffer, e.g. by
+ * letting the container send the file or through
+ * {@link java.nio.channels.FileChannel#transferTo}.
+ *
+ * <p>This is the blocking counterpart of {@link ZeroCopyHttpOutputMessage}.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @see org.springframework.http.server.ServletServerHttpResponse
+ */
+public interface FileTransferHttpOutputMessage extends HttpOutputMessage {
+
+	/**
+	 * Transfer the given region of a file to the body of this message.
+	 * <p>This may defer the actual transfer to the container, in which case
+	 * nothing else must be written to the body afterwards.
+	 * @param file the file to transfer
+	 * @param position the position within the file from which the transfer is to begin
+	 * @param count the number of bytes to be transferred
+	 * @throws IOException in case of I/O errors
+	 */
+	void writeWith(Path file, long position, long count) throws IOException;
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,18 @@
 
 package org.springframework.http.converter;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.FileTransferHttpOutputMessage;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
@@ -37,6 +42,10 @@ import org.springframework.util.StreamUtils;
  * <p>By default, this converter can read all media types. The {@link MediaTypeFactory} is used
  * to determine the {@code Content-Type} of written resources.
  *
+ * <p>Resources in the file system are written through
+ * {@link FileTransferHttpOutputMessage#writeWith(Path, long, long)} if the
+ * output message supports it, avoiding a copy through a heap buffer.
+ *
  * @author Arjen Poutsma
  * @author Juergen Hoeller
  * @author Kazuki Shimizu
@@ -131,6 +140,16 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 
 	protected void writeContent(Resource resource, HttpOutputMessage outputMessage)
 			throws IOException, HttpMessageNotWritableException {
+		Path file = getFileToTransfer(resource, outputMessage);
+		if (file != null) {
+			try {
+				((FileTransferHttpOutputMessage) outputMessage).writeWith(file, 0, Files.size(file));
+			}
+			catch (FileNotFoundException | NoSuchFileException ex) {
+				// ignore, see SPR-12999
+			}
+			return;
+		}
 		try {
 			InputStream in = resource.getInputStream();
 			try {
@@ -153,4 +172,24 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 		}
 	}
 
+	/**
+	 * Determine the file to transfer for the given resource, if the output
+	 * message supports file transfers and the resource is a plain file whose
+	 * content length matches the file size.
+	 * @return the file, or {@code null} to copy the resource's stream instead
+	 */
+	@Nullable
+	static Path getFileToTransfer(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+		if (!(outputMessage instanceof FileTransferHttpOutputMessage) || !resource.isFile()) {
+			return null;
+		}
+		try {
+			File file = resource.getFile();
+			return (file.isFile() && file.length() == resource.contentLength() ? file.toPath() : null);
+		}
+		catch (FileNotFoundException | UnsupportedOperationException ex) {
+			return null;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,10 +22,12 @@ import java.io.OutputStream;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Collection;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.FileTransferHttpOutputMessage;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
@@ -154,6 +156,12 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 		responseHeaders.add("Content-Range", "bytes " + start + '-' + end + '/' + resourceLength);
 		responseHeaders.setContentLength(rangeLength);
 
+		Path file = ResourceHttpMessageConverter.getFileToTransfer(region.getResource(), outputMessage);
+		if (file != null) {
+			((FileTransferHttpOutputMessage) outputMessage).writeWith(file, start, rangeLength);
+			return;
+		}
+
 		InputStream in = region.getResource().getInputStream();
 		try {
 			StreamUtils.copyRange(in, outputMessage.getBody(), start, end);
@@ -185,8 +193,9 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 
 		try {
 			for (ResourceRegion region : resourceRegions) {
+				Path file = ResourceHttpMessageConverter.getFileToTransfer(region.getResource(), outputMessage);
 				long start = region.getPosition() - inputStreamPosition;
-				if (start < 0 || resource != region.getResource()) {
+				if (file == null && (start < 0 || resource != region.getResource())) {
 					if (in != null) {
 						in.close();
 					}
@@ -205,15 +214,21 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 					println(out);
 				}
 				long resourceLength = region.getResource().contentLength();
-				end = Math.min(end, resourceLength - inputStreamPosition - 1);
 				print(out, "Content-Range: bytes " +
 						region.getPosition() + '-' + (region.getPosition() + region.getCount() - 1) +
 						'/' + resourceLength);
 				println(out);
 				println(out);
 				// Printing content
-				StreamUtils.copyRange(in, out, start, end);
-				inputStreamPosition += (end + 1);
+				if (file != null) {
+					long count = Math.min(region.getCount(), resourceLength - region.getPosition());
+					((FileTransferHttpOutputMessage) outputMessage).writeWith(file, region.getPosition(), count);
+				}
+				else {
+					end = Math.min(end, resourceLength - inputStreamPosition - 1);
+					StreamUtils.copyRange(in, out, start, end);
+					inputStreamPosition += (end + 1);
+				}
 			}
 		}
 		finally {
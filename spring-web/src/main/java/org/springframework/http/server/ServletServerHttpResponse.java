@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,14 +18,23 @@ package org.springframework.http.server;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.http.FileTransferHttpOutputMessage;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -34,11 +43,32 @@ import org.springframework.util.CollectionUtils;
 /**
  * {@link ServerHttpResponse} implementation that is based on a {@link HttpServletResponse}.
  *
+ * <p>As a {@link FileTransferHttpOutputMessage}, this response lets Tomcat send
+ * files via sendfile if created {@link #ServletServerHttpResponse(HttpServletRequest,
+ * HttpServletResponse) with the corresponding request}, and transfers files through
+ * a {@link FileChannel} otherwise.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
+ * @author agent (agent@local)
  * @since 3.0
  */
-public class ServletServerHttpResponse implements ServerHttpResponse {
+public class ServletServerHttpResponse implements ServerHttpResponse, FileTransferHttpOutputMessage {
+
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	/** Minimum number of bytes for sendfile, as with Tomcat's DefaultServlet. */
+	private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+
+	@Nullable
+	private final HttpServletRequest servletRequest;
 
 	private final HttpServletResponse servletResponse;
 
@@ -58,6 +88,24 @@ public class ServletServerHttpResponse implements ServerHttpResponse {
 	 */
 	public ServletServerHttpResponse(HttpServletResponse servletResponse) {
 		Assert.notNull(servletResponse, "HttpServletResponse must not be null");
+		this.servletRequest = null;
+		this.servletResponse = servletResponse;
+		this.headers = new ServletResponseHttpHeaders();
+	}
+
+	/**
+	 * Construct a new instance of the ServletServerHttpResponse based on the given
+	 * {@link HttpServletResponse}, with the corresponding {@link HttpServletRequest}
+	 * for detecting container support for sending files.
+	 * @param servletRequest the servlet request
+	 * @param servletResponse the servlet response
+	 * @since 5.3.5
+	 * @see #writeWith(Path, long, long)
+	 */
+	public ServletServerHttpResponse(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+		Assert.notNull(servletRequest, "HttpServletRequest must not be null");
+		Assert.notNull(servletResponse, "HttpServletResponse must not be null");
+		this.servletRequest = servletRequest;
 		this.servletResponse = servletResponse;
 		this.headers = new ServletResponseHttpHeaders();
 	}
@@ -97,6 +145,50 @@ public class ServletServerHttpResponse implements ServerHttpResponse {
 		return this.servletResponse.getOutputStream();
 	}
 
+	/**
+	 * Transfer the given region of a file to the body of this response.
+	 * <p>If the response is written directly to a Tomcat connector with sendfile
+	 * support, the file is handed over to the container, which sends it once the
+	 * request has been processed. Otherwise, the file is transferred to the
+	 * {@link #getBody() body} through a {@link FileChannel}.
+	 * @since 5.3.5
+	 */
+	@Override
+	public void writeWith(Path file, long position, long count) throws IOException {
+		if (isSendfileSupported(file, count)) {
+			writeHeaders();
+			this.bodyUsed = true;
+			HttpServletRequest request = this.servletRequest;
+			request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTRIBUTE, position);
+			request.setAttribute(SENDFILE_END_ATTRIBUTE, position + count);
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(getBody());
+			long transferred = 0;
+			while (transferred < count) {
+				long bytes = channel.transferTo(position + transferred, count - transferred, target);
+				if (bytes <= 0) {
+					break;
+				}
+				transferred += bytes;
+			}
+		}
+	}
+
+	private boolean isSendfileSupported(Path file, long count) {
+		// Only with the container's own request and response: a wrapper might need to process the body
+		HttpServletRequest request = this.servletRequest;
+		return (request != null && !this.bodyUsed && count >= SENDFILE_THRESHOLD &&
+				!HttpMethod.HEAD.matches(request.getMethod()) &&
+				getHeaders().getContentLength() == count &&
+				Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)) &&
+				request.getClass().getName().equals("org.apache.catalina.connector.RequestFacade") &&
+				this.servletResponse.getClass().getName().equals("org.apache.catalina.connector.ResponseFacade") &&
+				file.getFileSystem() == FileSystems.getDefault());
+	}
+
 	@Override
 	public void flush() throws IOException {
 		writeHeaders();
@@ -472,6 +472,10 @@ public class PathPattern implements Comparable<PathPattern> {
 		return this.pathOptions.separator();
 	}
 
+	boolean isCaseSensitive() {
+		return this.caseSensitive;
+	}
+
 	int getCapturedVariableCount() {
 		return this.capturedVariableCount;
 	}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Index of values keyed by {@link PathPattern PathPatterns}, narrowing down the
+ * values whose patterns may match a given request path without matching every
+ * pattern individually.
+ *
+ * <p>Patterns are compiled into a trie over their path segments, with literal
+ * edges for segments that consist of literal text only, wildcard edges for
+ * segments with captures, wildcards or regular expressions, and a terminal
+ * list for patterns that capture or match the rest of the path. A lookup walks
+ * all edges that the segments of the request path can take, so the returned
+ * candidates are a superset of the actual matches: callers are expected to
+ * match the candidates against the request as before. Values may additionally
+ * be restricted to a set of HTTP methods, in which case they are only returned
+ * for requests with one of those methods (or HEAD requests if GET is declared).
+ *
+ * <p>Values without patterns, or with patterns that cannot be indexed (such as
+ * patterns with a custom separator), are returned for every lookup.
+ *
+ * <p>This class is not thread-safe: concurrent lookups are fine but need to be
+ * guarded against concurrent modifications by the caller.
+ *
+ * @author agent (agent@local)
+ * @since 5.3.5
+ * @param <T> the type of values in the index
+ */
+public class PathPatternRoutingIndex<T> {
+
+	private static final Comparator<Entry<?>> ORDER_COMPARATOR = Comparator.comparingLong(entry -> entry.order);
+
+
+	private final Node<T> root = new Node<>(null, null);
+
+	private final Map<T, Entry<T>> entries = new LinkedHashMap<>();
+
+	private final List<Entry<T>> unindexedEntries = new ArrayList<>();
+
+	private long counter;
+
+
+	/**
+	 * Add the given value to the index.
+	 * @param value the value to add, replacing a previous registration of the same value
+	 * @param patterns the patterns of the value, or {@code null} if the value
+	 * should be returned for every lookup
+	 * @param httpMethods the HTTP methods that the value is restricted to,
+	 * or an empty collection for no restriction
+	 */
+	public void add(T value, @Nullable Collection<PathPattern> patterns, Collection<String> httpMethods) {
+		Assert.notNull(value, "Value must not be null");
+		Assert.notNull(httpMethods, "HTTP methods must not be null");
+		remove(value);
+
+		Entry<T> entry = new Entry<>(value, this.counter++, httpMethods);
+		this.entries.put(value, entry);
+		List<Route> routes = (patterns != null ? getRoutes(patterns) : null);
+		if (routes == null) {
+			this.unindexedEntries.add(entry);
+			return;
+		}
+		for (Route route : routes) {
+			Node<T> node = this.root;
+			for (String segment : route.segments) {
+				node = node.getOrCreateChild(segment);
+			}
+			List<Entry<T>> nodeEntries = (route.matchesRest ? node.restEntries : node.terminalEntries);
+			if (!nodeEntries.contains(entry)) {
+				nodeEntries.add(entry);
+				entry.nodes.add(node);
+			}
+		}
+	}
+
+	/**
+	 * Remove the given value from the index, if present.
+	 * @param value the value to remove
+	 */
+	public void remove(T value) {
+		Entry<T> entry = this.entries.remove(value);
+		if (entry == null) {
+			return;
+		}
+		if (entry.nodes.isEmpty()) {
+			this.unindexedEntries.remove(entry);
+		}
+		for (Node<T> node : entry.nodes) {
+			node.terminalEntries.remove(entry);
+			node.restEntries.remove(entry);
+			node.prune();
+		}
+	}
+
+	/**
+	 * Return the values in this index whose patterns may match the given path,
+	 * in the order in which they have been added.
+	 * @param path the request path, typically the path within the application
+	 * @param httpMethod the HTTP method of the request, or {@code null} to
+	 * not restrict the candidates by HTTP method (e.g. for CORS pre-flight requests)
+	 * @return the candidate values (never {@code null})
+	 */
+	public List<T> getCandidates(PathContainer path, @Nullable String httpMethod) {
+		Set<Entry<T>> result = new HashSet<>();
+		List<String> segments = getSegments(path);
+		if (segments != null) {
+			collect(this.root, segments, 0, httpMethod, result);
+			addAll(this.unindexedEntries, httpMethod, result);
+		}
+		else {
+			addAll(this.entries.values(), httpMethod, result);
+		}
+		if (result.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<Entry<T>> sorted = new ArrayList<>(result);
+		sorted.sort(ORDER_COMPARATOR);
+		List<T> candidates = new ArrayList<>(sorted.size());
+		for (Entry<T> entry : sorted) {
+			candidates.add(entry.value);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Return all values in this index, in the order in which they have been added.
+	 */
+	public Collection<T> getValues() {
+		return Collections.unmodifiableSet(this.entries.keySet());
+	}
+
+	private void collect(Node<T> node, List<String> segments, int index,
+			@Nullable String httpMethod, Set<Entry<T>> result) {
+
+		addAll(node.restEntries, httpMethod, result);
+		if (index == segments.size()) {
+			addAll(node.terminalEntries, httpMethod, result);
+			return;
+		}
+		String segment = segments.get(index);
+		if (segment.isEmpty() && index == segments.size() - 1) {
+			// Trailing separator, optionally matched by patterns without one
+			addAll(node.terminalEntries, httpMethod, result);
+		}
+		Node<T> literalChild = node.getLiteralChild(segment);
+		if (literalChild != null) {
+			collect(literalChild, segments, index + 1, httpMethod, result);
+		}
+		if (node.wildcardChild != null) {
+			collect(node.wildcardChild, segments, index + 1, httpMethod, result);
+		}
+	}
+
+	private void addAll(Collection<Entry<T>> entries, @Nullable String httpMethod, Set<Entry<T>> result) {
+		for (Entry<T> entry : entries) {
+			if (entry.matchesHttpMethod(httpMethod)) {
+				result.add(entry);
+			}
+		}
+	}
+
+
+	/**
+	 * Decompose the given patterns into routes through the trie.
+	 * @return the routes, or {@code null} if any of the patterns cannot be indexed
+	 */
+	@Nullable
+	private static List<Route> getRoutes(Collection<PathPattern> patterns) {
+		if (patterns.isEmpty()) {
+			return null;
+		}
+		List<Route> routes = new ArrayList<>(patterns.size());
+		for (PathPattern pattern : patterns) {
+			Route route = getRoute(pattern);
+			if (route == null) {
+				return null;
+			}
+			routes.add(route);
+		}
+		return routes;
+	}
+
+	@Nullable
+	private static Route getRoute(PathPattern pattern) {
+		PathElement element = pattern.getHeadSection();
+		if (element == null || pattern.getSeparator() != '/') {
+			return null;
+		}
+		List<String> segments = new ArrayList<>();
+		while (element != null) {
+			if (isMatchTheRest(element)) {
+				return new Route(segments, true);
+			}
+			if (!(element instanceof SeparatorPathElement)) {
+				return null;
+			}
+			element = element.next;
+			if (isSegmentEnd(element)) {
+				segments.add("");
+				continue;
+			}
+			if (element instanceof LiteralPathElement && pattern.isCaseSensitive() && isSegmentEnd(element.next)) {
+				segments.add(new String(element.getChars()));
+				element = element.next;
+				continue;
+			}
+			// Any other single-segment element (or combination thereof): wildcard edge
+			while (!isSegmentEnd(element)) {
+				element = element.next;
+			}
+			segments.add(null);
+		}
+		return new Route(segments, false);
+	}
+
+	private static boolean isSegmentEnd(@Nullable PathElement element) {
+		return (element == null || element instanceof SeparatorPathElement || isMatchTheRest(element));
+	}
+
+	private static boolean isMatchTheRest(PathElement element) {
+		return (element instanceof WildcardTheRestPathElement || element instanceof CaptureTheRestPathElement);
+	}
+
+	/**
+	 * Split the given path into the values to match of its segments.
+	 * @return the segment values, or {@code null} if the path does not start
+	 * with a separator
+	 */
+	@Nullable
+	private static List<String> getSegments(PathContainer path) {
+		List<PathContainer.Element> elements = path.elements();
+		if (elements.isEmpty() || !(elements.get(0) instanceof PathContainer.Separator)) {
+			return null;
+		}
+		List<String> segments = new ArrayList<>(elements.size() / 2 + 1);
+		for (int i = 0; i < elements.size(); i++) {
+			PathContainer.Element element = elements.get(i);
+			if (element instanceof PathContainer.Separator) {
+				PathContainer.Element next = (i + 1 < elements.size() ? elements.get(i + 1) : null);
+				if (!(next instanceof PathContainer.PathSegment)) {
+					segments.add("");
+				}
+			}
+			else {
+				segments.add(((PathContainer.PathSegment) element).valueToMatch());
+			}
+		}
+		return segments;
+	}
+
+
+	/**
+	 * The segments of a pattern, with {@code null} for wildcard segments,
+	 * and whether the pattern matches the rest of the path after those.
+	 */
+	private static final class Route {
+
+		final List<String> segments;
+
+		final boolean matchesRest;
+
+		Route(List<String> segments, boolean matchesRest) {
+			this.segments = segments;
+			this.matchesRest = matchesRest;
+		}
+	}
+
+
+	private static final class Node<T> {
+
+		@Nullable
+		private final Node<T> parent;
+
+		@Nullable
+		private final String segment;
+
+		@Nullable
+		private Map<String, Node<T>> literalChildren;
+
+		@Nullable
+		private Node<T> wildcardChild;
+
+		final List<Entry<T>> terminalEntries = new ArrayList<>(1);
+
+		final List<Entry<T>> restEntries = new ArrayList<>(1);
+
+		Node(@Nullable Node<T> parent, @Nullable String segment) {
+			this.parent = parent;
+			this.segment = segment;
+		}
+
+		Node<T> getOrCreateChild(@Nullable String segment) {
+			if (segment == null) {
+				if (this.wildcardChild == null) {
+					this.wildcardChild = new Node<>(this, null);
+				}
+				return this.wildcardChild;
+			}
+			if (this.literalChildren == null) {
+				this.literalChildren = new HashMap<>(4);
+			}
+			return this.literalChildren.computeIfAbsent(segment, key -> new Node<>(this, key));
+		}
+
+		@Nullable
+		Node<T> getLiteralChild(String segment) {
+			return (this.literalChildren != null ? this.literalChildren.get(segment) : null);
+		}
+
+		void prune() {
+			Node<T> node = this;
+			while (node.parent != null && node.isEmpty()) {
+				Node<T> parent = node.parent;
+				if (node.segment == null) {
+					parent.wildcardChild = null;
+				}
+				else if (parent.literalChildren != null) {
+					parent.literalChildren.remove(node.segment);
+				}
+				node = parent;
+			}
+		}
+
+		private boolean isEmpty() {
+			return (this.terminalEntries.isEmpty() && this.restEntries.isEmpty() && this.wildcardChild == null &&
+					(this.literalChildren == null || this.literalChildren.isEmpty()));
+		}
+	}
+
+
+	private static final class Entry<T> {
+
+		final T value;
+
+		final long order;
+
+		private final Set<String> httpMethods;
+
+		final List<Node<T>> nodes = new ArrayList<>(1);
+
+		Entry(T value, long order, Collection<String> httpMethods) {
+			this.value = value;
+			this.order = order;
+			this.httpMethods = (httpMethods.isEmpty() ? Collections.emptySet() : new HashSet<>(httpMethods));
+		}
+
+		boolean matchesHttpMethod(@Nullable String httpMethod) {
+			return (httpMethod == null || this.httpMethods.isEmpty() || this.httpMethods.contains(httpMethod) ||
+					(HttpMethod.HEAD.matches(httpMethod) && this.httpMethods.contains(HttpMethod.GET.name())));
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,7 +31,9 @@ import org.springframework.http.ContentDisposition;
 import org.springframework.http.MediaType;
 import org.springframework.http.MockHttpInputMessage;
 import org.springframework.http.MockHttpOutputMessage;
+import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.util.FileCopyUtils;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -110,6 +112,17 @@ public class ResourceHttpMessageConverterTests {
 		assertThat(outputMessage.getHeaders().getContentLength()).as("Invalid content-length").isEqualTo(body.getFile().length());
 	}
 
+	@Test
+	public void shouldWriteFileResourceThroughFileTransfer() throws IOException {
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+		Resource body = new ClassPathResource("logo.jpg", getClass());
+		converter.write(body, null, new ServletServerHttpResponse(servletResponse));
+
+		assertThat(servletResponse.getContentType()).isEqualTo(MediaType.IMAGE_JPEG_VALUE);
+		assertThat(servletResponse.getContentLengthLong()).isEqualTo(body.contentLength());
+		assertThat(servletResponse.getContentAsByteArray()).isEqualTo(FileCopyUtils.copyToByteArray(body.getFile()));
+	}
+
 	@Test  // SPR-10848
 	public void writeByteArrayNullMediaType() throws IOException {
 		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
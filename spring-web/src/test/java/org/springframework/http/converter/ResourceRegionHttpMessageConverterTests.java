@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,7 +35,9 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.http.MockHttpOutputMessage;
+import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.util.StringUtils;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -105,6 +107,37 @@ public class ResourceRegionHttpMessageConverterTests {
 		assertThat(outputMessage.getBodyAsString(StandardCharsets.UTF_8)).isEqualTo("Framework test resource content.");
 	}
 
+	@Test
+	public void shouldWritePartialContentByteRangeThroughFileTransfer() throws Exception {
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+		Resource body = new ClassPathResource("byterangeresource.txt", getClass());
+		ResourceRegion region = HttpRange.createByteRange(7, 100).toResourceRegion(body);
+		converter.write(region, MediaType.TEXT_PLAIN, new ServletServerHttpResponse(servletResponse));
+
+		assertThat(servletResponse.getContentLength()).isEqualTo(32);
+		assertThat(servletResponse.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-38/39");
+		assertThat(servletResponse.getContentAsString()).isEqualTo("Framework test resource content.");
+	}
+
+	@Test
+	public void partialContentMultipleByteRangesThroughFileTransfer() throws Exception {
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+		Resource body = new ClassPathResource("byterangeresource.txt", getClass());
+		List<ResourceRegion> regions = new ArrayList<>();
+		for (HttpRange range : HttpRange.parseRanges("bytes=7-15,0-5,22-100")) {
+			regions.add(range.toResourceRegion(body));
+		}
+		converter.write(regions, MediaType.TEXT_PLAIN, new ServletServerHttpResponse(servletResponse));
+
+		String[] ranges = StringUtils.tokenizeToStringArray(servletResponse.getContentAsString(), "\r\n", false, true);
+		assertThat(ranges[2]).isEqualTo("Content-Range: bytes 7-15/39");
+		assertThat(ranges[3]).isEqualTo("Framework");
+		assertThat(ranges[6]).isEqualTo("Content-Range: bytes 0-5/39");
+		assertThat(ranges[7]).isEqualTo("Spring");
+		assertThat(ranges[10]).isEqualTo("Content-Range: bytes 22-38/39");
+		assertThat(ranges[11]).isEqualTo("resource content.");
+	}
+
 	@Test
 	public void partialContentMultipleByteRanges() throws Exception {
 		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,15 +17,18 @@
 package org.springframework.http.server;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.util.FileCopyUtils;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
 import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -107,4 +110,26 @@ public class ServletServerHttpResponseTests {
 		assertThat(mockResponse.getContentAsByteArray()).as("Invalid content written").isEqualTo(content);
 	}
 
+	@Test
+	void writeWithFile() throws Exception {
+		Path file = new ClassPathResource("org/springframework/http/converter/byterangeresource.txt").getFile().toPath();
+		response.getHeaders().setContentLength(9);
+		response.writeWith(file, 7, 9);
+
+		assertThat(mockResponse.getContentLength()).isEqualTo(9);
+		assertThat(mockResponse.getContentAsString()).isEqualTo("Framework");
+	}
+
+	@Test
+	void writeWithFileWithoutContainerSendfile() throws Exception {
+		MockHttpServletRequest mockRequest = new MockHttpServletRequest("GET", "/");
+		mockRequest.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		response = new ServletServerHttpResponse(mockRequest, mockResponse);
+		Path file = new ClassPathResource("org/springframework/http/converter/byterangeresource.txt").getFile().toPath();
+		response.writeWith(file, 0, 39);
+
+		assertThat(mockRequest.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+		assertThat(mockResponse.getContentAsString()).isEqualTo("Spring Framework test resource content.");
+	}
+
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.server.PathContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PathPatternRoutingIndex}.
+ *
+ * @author agent (agent@local)
+ */
+class PathPatternRoutingIndexTests {
+
+	private final PathPatternParser parser = new PathPatternParser();
+
+	private final PathPatternRoutingIndex<String> index = new PathPatternRoutingIndex<>();
+
+
+	@Test
+	void literalAndCaptureSegments() {
+		add("/projects");
+		add("/projects/{name}");
+		add("/projects/{name}/releases");
+		add("/projects/spring-boot/releases");
+		add("/team/{username}");
+
+		assertThat(candidates("/projects")).containsExactly("/projects");
+		assertThat(candidates("/projects/spring-boot")).containsExactly("/projects/{name}");
+		assertThat(candidates("/projects/spring-boot/releases"))
+				.containsExactly("/projects/{name}/releases", "/projects/spring-boot/releases");
+		assertThat(candidates("/projects/spring-data/releases")).containsExactly("/projects/{name}/releases");
+		assertThat(candidates("/team")).isEmpty();
+		assertThat(candidates("/other/path")).isEmpty();
+	}
+
+	@Test
+	void wildcardAndRegexSegments() {
+		add("/static/*.css");
+		add("/blog/{year:\\d+}/{slug}");
+		add("/blog/category/{category}.atom");
+		add("/a/*/c");
+
+		assertThat(candidates("/static/style.css")).containsExactly("/static/*.css");
+		assertThat(candidates("/blog/2020/spring")).containsExactly("/blog/{year:\\d+}/{slug}");
+		assertThat(candidates("/blog/category/news.atom"))
+				.containsExactly("/blog/{year:\\d+}/{slug}", "/blog/category/{category}.atom");
+		assertThat(candidates("/a/b/c")).containsExactly("/a/*/c");
+		assertThat(candidates("/a/b/d")).isEmpty();
+	}
+
+	@Test
+	void matchTheRestSegments() {
+		add("/static/**");
+		add("/files/{*path}");
+		add("/**");
+
+		assertThat(candidates("/static")).containsExactly("/static/**", "/**");
+		assertThat(candidates("/static/css/style.css")).containsExactly("/static/**", "/**");
+		assertThat(candidates("/files/a/b")).containsExactly("/files/{*path}", "/**");
+		assertThat(candidates("/favicon.ico")).containsExactly("/**");
+	}
+
+	@Test
+	void trailingSeparator() {
+		add("/");
+		add("/projects");
+		add("/projects/*");
+
+		assertThat(candidates("/")).containsExactly("/");
+		assertThat(candidates("/projects/")).containsExactly("/projects", "/projects/*");
+	}
+
+	@Test
+	void httpMethods() {
+		this.index.add("get", patterns("/resource/{id}"), Collections.singleton("GET"));
+		this.index.add("post", patterns("/resource/{id}"), Collections.singleton("POST"));
+		this.index.add("any", patterns("/resource/{id}"), Collections.emptySet());
+
+		assertThat(this.index.getCandidates(path("/resource/1"), "GET")).containsExactly("get", "any");
+		assertThat(this.index.getCandidates(path("/resource/1"), "HEAD")).containsExactly("get", "any");
+		assertThat(this.index.getCandidates(path("/resource/1"), "POST")).containsExactly("post", "any");
+		assertThat(this.index.getCandidates(path("/resource/1"), "DELETE")).containsExactly("any");
+		assertThat(this.index.getCandidates(path("/resource/1"), null)).containsExactly("get", "post", "any");
+	}
+
+	@Test
+	void unindexedValues() {
+		add("/projects/{name}");
+		this.index.add("none", null, Collections.emptySet());
+		this.index.add("empty", patterns(""), Collections.emptySet());
+
+		assertThat(candidates("/projects/spring")).containsExactly("/projects/{name}", "none", "empty");
+		assertThat(candidates("/other")).containsExactly("none", "empty");
+		assertThat(candidates("")).containsExactly("/projects/{name}", "none", "empty");
+	}
+
+	@Test
+	void caseInsensitiveLiterals() {
+		PathPatternParser caseInsensitiveParser = new PathPatternParser();
+		caseInsensitiveParser.setCaseSensitive(false);
+		PathPattern pattern = caseInsensitiveParser.parse("/Projects/{name}");
+		this.index.add("/Projects/{name}", Collections.singleton(pattern), Collections.emptySet());
+
+		assertThat(candidates("/PROJECTS/spring")).containsExactly("/Projects/{name}");
+		assertThat(candidates("/other")).isEmpty();
+	}
+
+	@Test
+	void removeValues() {
+		add("/projects/{name}");
+		add("/projects/{name}/releases");
+		add("/projects/**");
+
+		this.index.remove("/projects/{name}/releases");
+		assertThat(candidates("/projects/spring/releases")).containsExactly("/projects/**");
+		this.index.remove("/projects/**");
+		assertThat(candidates("/projects/spring/releases")).isEmpty();
+		assertThat(candidates("/projects/spring")).containsExactly("/projects/{name}");
+		this.index.remove("/projects/{name}");
+		assertThat(candidates("/projects/spring")).isEmpty();
+		assertThat(this.index.getValues()).isEmpty();
+	}
+
+	@Test
+	void candidatesIncludeAllMatchingPatterns() {
+		List<String> patterns = Arrays.asList("/", "/a", "/a/", "/a/b", "/a/{b}", "/a/*", "/a/*/c", "/a/b*",
+				"/a/{b}/{c}", "/a/**", "/a/{*rest}", "/**", "/a/b/c", "/{x}/b", "/a//b", "/a/b/**", "/*.html",
+				"/a/{b:[a-z]+}", "/a/?", "/a;b", "/a/b/c/d");
+		List<String> paths = Arrays.asList("", "/", "//", "/a", "/a/", "/a//", "/a/b", "/a/b/", "/a/bc", "/a/b/c",
+				"/a/b/c/", "/a/b/c/d", "/a/x/c", "/a//b", "/x/b", "/index.html", "/a;jsessionid=1/b", "/a%2Fb",
+				"/A/b", "/a/1");
+		patterns.forEach(this::add);
+		for (String path : paths) {
+			List<String> candidates = candidates(path);
+			for (String pattern : patterns) {
+				if (this.parser.parse(pattern).matches(path(path))) {
+					assertThat(candidates).as("Candidates for " + path).contains(pattern);
+				}
+			}
+		}
+	}
+
+
+	private void add(String pattern) {
+		this.index.add(pattern, patterns(pattern), Collections.emptySet());
+	}
+
+	private List<PathPattern> patterns(String pattern) {
+		return Collections.singletonList(this.parser.parse(pattern));
+	}
+
+	private List<String> candidates(String path) {
+		return this.index.getCandidates(path(path), "GET");
+	}
+
+	private static PathContainer path(String path) {
+		return PathContainer.parsePath(path);
+	}
+
+}
@@ -36,7 +36,9 @@ import reactor.core.publisher.Mono;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.RequestPath;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -48,6 +50,8 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.AbstractHandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternRoutingIndex;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -322,7 +326,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, exchange);
 		}
 		if (matches.isEmpty()) {
-			addMatchingMappings(this.mappingRegistry.getRegistrations().keySet(), matches, exchange);
+			addMatchingMappings(this.mappingRegistry.getMappingsByRoutingIndex(exchange), matches, exchange);
 		}
 		if (!matches.isEmpty()) {
 			Comparator<Match> comparator = new MatchComparator(getMappingComparator(exchange));
@@ -439,6 +443,30 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Return the path patterns of the given mapping, if any. These are used to
+	 * build a routing index that narrows down the mappings to check for requests
+	 * that do not match a {@link #getDirectPaths(Object) direct path}.
+	 * <p>By default this returns {@code null}, in which case the mapping is
+	 * checked for every such request.
+	 * @since 5.3.5
+	 * @see PathPatternRoutingIndex
+	 */
+	@Nullable
+	protected Set<PathPattern> getPathPatterns(T mapping) {
+		return null;
+	}
+
+	/**
+	 * Return the names of the HTTP methods that the given mapping is restricted to,
+	 * for use in the routing index along with {@link #getPathPatterns(Object)}.
+	 * <p>By default this returns an empty set, i.e. no restriction.
+	 * @since 5.3.5
+	 */
+	protected Set<String> getHttpMethods(T mapping) {
+		return Collections.emptySet();
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -470,6 +498,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> pathLookup = new LinkedMultiValueMap<>();
 
+		private final PathPatternRoutingIndex<T> routingIndex = new PathPatternRoutingIndex<>();
+
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
 		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
@@ -493,6 +523,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.pathLookup.get(path);
 		}
 
+		/**
+		 * Return the mappings to check for the given exchange if it does not match
+		 * a direct path, as narrowed down by the routing index. Not thread-safe.
+		 * @since 5.3.5
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByRoutingIndex(ServerWebExchange exchange) {
+			ServerHttpRequest request = exchange.getRequest();
+			PathContainer path = request.getPath().pathWithinApplication();
+			String httpMethod = (CorsUtils.isPreFlightRequest(request) ? null : request.getMethodValue());
+			return this.routingIndex.getCandidates(path, httpMethod);
+		}
+
 		/**
 		 * Return CORS configuration. Thread-safe for concurrent use.
 		 */
@@ -533,6 +576,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					this.corsLookup.put(handlerMethod, corsConfig);
 				}
 
+				this.routingIndex.add(mapping, getPathPatterns(mapping), getHttpMethods(mapping));
 				this.registry.put(mapping,
 						new MappingRegistration<>(mapping, handlerMethod, directPaths, corsConfig != null));
 			}
@@ -569,6 +613,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 						}
 					}
 				}
+				this.routingIndex.remove(registration.getMapping());
 
 				this.corsLookup.remove(registration.getHandlerMethod());
 			}
@@ -39,6 +39,7 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -48,7 +49,10 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
 import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PathPatternRoutingIndex;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -402,7 +406,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			addMatchingMappings(this.mappingRegistry.getRegistrations().keySet(), matches, request);
+			addMatchingMappings(this.mappingRegistry.getMappingsByRoutingIndex(request), matches, request);
 		}
 		if (!matches.isEmpty()) {
 			Match bestMatch = matches.get(0);
@@ -542,6 +546,30 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		return urls;
 	}
 
+	/**
+	 * Return the parsed path patterns of the given mapping, if any. These are
+	 * used to build a routing index that narrows down the mappings to check for
+	 * requests that do not match a {@link #getDirectPaths(Object) direct path}.
+	 * <p>By default this returns {@code null}, in which case the mapping is
+	 * checked for every such request.
+	 * @since 5.3.5
+	 * @see PathPatternRoutingIndex
+	 */
+	@Nullable
+	protected Set<PathPattern> getPathPatterns(T mapping) {
+		return null;
+	}
+
+	/**
+	 * Return the names of the HTTP methods that the given mapping is restricted to,
+	 * for use in the routing index along with {@link #getPathPatterns(Object)}.
+	 * <p>By default this returns an empty set, i.e. no restriction.
+	 * @since 5.3.5
+	 */
+	protected Set<String> getHttpMethods(T mapping) {
+		return Collections.emptySet();
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -572,6 +600,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> pathLookup = new LinkedMultiValueMap<>();
 
+		private final PathPatternRoutingIndex<T> routingIndex = new PathPatternRoutingIndex<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -595,6 +625,22 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.pathLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings to check for the given request if it does not match
+		 * a direct path: narrowed down by the routing index if the request path
+		 * has been parsed, or all mappings otherwise. Not thread-safe.
+		 * @since 5.3.5
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByRoutingIndex(HttpServletRequest request) {
+			if (!ServletRequestPathUtils.hasParsedRequestPath(request)) {
+				return this.registry.keySet();
+			}
+			PathContainer path = ServletRequestPathUtils.getParsedRequestPath(request).pathWithinApplication();
+			String httpMethod = (CorsUtils.isPreFlightRequest(request) ? null : request.getMethod());
+			return this.routingIndex.getCandidates(path, httpMethod);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -647,6 +693,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					corsConfig.validateAllowCredentials();
 					this.corsLookup.put(handlerMethod, corsConfig);
 				}
+				this.routingIndex.add(mapping, getPathPatterns(mapping), getHttpMethods(mapping));
 				// 保存请求映射信息
 				this.registry.put(mapping,
 						new MappingRegistration<>(mapping, handlerMethod, directPaths, name, corsConfig != null));
@@ -702,6 +749,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 						}
 					}
 				}
+				this.routingIndex.remove(registration.getMapping());
 
 				removeMappingName(registration);
 
@@ -135,7 +135,9 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 	protected ServletServerHttpResponse createOutputMessage(NativeWebRequest webRequest) {
 		HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
 		Assert.state(response != null, "No HttpServletResponse");
-		return new ServletServerHttpResponse(response);
+		HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+		return (request != null ? new ServletServerHttpResponse(request, response) :
+				new ServletServerHttpResponse(response));
 	}
 
 	/**
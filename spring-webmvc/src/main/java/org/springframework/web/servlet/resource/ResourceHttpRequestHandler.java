@@ -549,7 +549,7 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		setHeaders(response, resource, mediaType);
 
 		// Content phase
-		ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
+		ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(request, response);
 		if (request.getHeader(HttpHeaders.RANGE) == null) {
 			Assert.state(this.resourceHttpMessageConverter != null, "Not initialized");
 			this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);